@@ -1,5 +1,7 @@
 package com.pfh.user.actuator;
 
+import com.pfh.user.config.AppConstant;
+
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -8,24 +10,71 @@ import org.springframework.stereotype.Component;
 import javax.sql.DataSource;
 import java.net.URI;
 import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Database health served from a cached snapshot. The snapshot is refreshed in
+ * the background by {@link HealthSnapshotRefresher}, so probes never borrow a
+ * pool connection and never wait on a stalled database. A snapshot that has not
+ * been refreshed in time means the probe itself is stuck, which is reported as DOWN.
+ */
 @Component("db")
 public class ApplicationHealthIndicator implements HealthIndicator {
 
+    private record Snapshot(Health health, long takenAtNanos) {
+    }
+
     private final JdbcTemplate jdbcTemplate;
-    private final String dbHost;
-    private DataSource dataSource;
+    private final DataSource dataSource;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile String dbHost = "unknown-host";
+    private volatile Snapshot snapshot;
 
     public ApplicationHealthIndicator(JdbcTemplate jdbcTemplate, DataSource dataSource) {
         this.jdbcTemplate = jdbcTemplate;
         this.dataSource = dataSource;
-        this.dbHost = extractHostFromJdbcUrl(dataSource);
-
     }
 
     @Override
     public Health health() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // First probe before the background refresher ran
+            refresh();
+            current = snapshot;
+        }
+
+        long ageMs = (System.nanoTime() - current.takenAtNanos()) / 1_000_000L;
+        if (ageMs > AppConstant.HEALTH_SNAPSHOT_STALE_AFTER_MS) {
+            return Health.down()
+                    .withDetail("connectionStatus", "disconnected")
+                    .withDetail("dbHostSource", dbHost)
+                    .withDetail("snapshotAgeMs", ageMs)
+                    .build();
+        }
+        return current.health();
+    }
+
+    // Skips the refresh when the previous one is still waiting on the database
+    public void tryRefresh() {
+        if (refreshing.compareAndSet(false, true)) {
+            try {
+                refresh();
+            } finally {
+                refreshing.set(false);
+            }
+        }
+    }
+
+    private void refresh() {
+        snapshot = new Snapshot(probe(), System.nanoTime());
+    }
+
+    private Health probe() {
         try (Connection conn = dataSource.getConnection()) {
+            if ("unknown-host".equals(dbHost)) {
+                dbHost = extractHostFromJdbcUrl(conn);
+            }
             if (conn.isValid(1)) {
                 return Health.up()
                         .withDetail("connectionStatus", "connected")
@@ -46,9 +95,10 @@ public class ApplicationHealthIndicator implements HealthIndicator {
         }
     }
 
-    private String extractHostFromJdbcUrl(DataSource dataSource) {
+    // Reuses the probe connection instead of borrowing (and leaking) one of its own
+    private static String extractHostFromJdbcUrl(Connection connection) {
         try {
-            String url = dataSource.getConnection().getMetaData().getURL();
+            String url = connection.getMetaData().getURL();
             URI uri = new URI(url.replace("jdbc:", ""));
             return uri.getHost() != null ? uri.getHost() : "unknown-host";
         } catch (Exception e) {
@@ -0,0 +1,50 @@
+package com.pfh.user.actuator;
+
+import com.pfh.user.audit.erasure.AuditErasureEngine;
+import com.pfh.user.audit.erasure.AuditErasureJobs;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Erasure of a subject's personal data from the audit history under
+ * {@code /actuator/auditerasure}; a POST with an email queues a job, which
+ * then runs in the background on whichever node claims it. Only callers with
+ * an {@code ADMIN} token get through (see SecurityConfig).
+ */
+@Component
+@Endpoint(id = "auditerasure")
+@RequiredArgsConstructor
+public class AuditErasureEndpoint {
+
+    private static final int RECENT_JOBS = 20;
+
+    private final AuditErasureEngine engine;
+    private final AuditErasureJobs jobs;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("running", engine.isRunning());
+        response.put("jobs", jobs.recent(RECENT_JOBS));
+        return response;
+    }
+
+    @ReadOperation
+    public AuditErasureJobs.Job job(@Selector UUID id) {
+        return jobs.find(id);
+    }
+
+    @WriteOperation
+    public AuditErasureJobs.Job erase(String email) {
+        return engine.request(email);
+    }
+}
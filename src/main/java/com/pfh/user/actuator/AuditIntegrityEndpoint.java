@@ -0,0 +1,41 @@
+package com.pfh.user.actuator;
+
+import com.pfh.user.audit.AuditIntegrityVerifier;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Progress and findings of the audit integrity verifier under
+ * {@code /actuator/auditintegrity}; a POST starts a run in the background.
+ * Only callers with an {@code ADMIN} token get through (see SecurityConfig).
+ */
+@Component
+@Endpoint(id = "auditintegrity")
+@RequiredArgsConstructor
+public class AuditIntegrityEndpoint {
+
+    private final AuditIntegrityVerifier verifier;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("running", verifier.isRunning());
+        response.put("lastReport", verifier.lastReport());
+        return response;
+    }
+
+    @WriteOperation
+    public Map<String, Object> verify(@Nullable Boolean restart) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("started", verifier.start(Boolean.TRUE.equals(restart)));
+        return response;
+    }
+}
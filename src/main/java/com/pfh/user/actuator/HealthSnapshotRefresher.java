@@ -0,0 +1,37 @@
+package com.pfh.user.actuator;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Refreshes every database health snapshot in the background. Each datasource
+ * is probed on its own thread so a stalled database cannot delay the others.
+ */
+@Component
+public class HealthSnapshotRefresher {
+
+    private final List<ApplicationHealthIndicator> indicators;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public HealthSnapshotRefresher(List<ApplicationHealthIndicator> indicators) {
+        this.indicators = indicators;
+    }
+
+    @Scheduled(fixedDelayString = "${health.snapshot.refresh-interval-ms:2000}")
+    public void refresh() {
+        for (ApplicationHealthIndicator indicator : indicators) {
+            executor.execute(indicator::tryRefresh);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
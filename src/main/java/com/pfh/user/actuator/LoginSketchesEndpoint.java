@@ -0,0 +1,98 @@
+package com.pfh.user.actuator;
+
+import com.pfh.user.audit.LoginSketches;
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.util.SpaceSaving;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top attacking IPs, most targeted emails and distinct counts of the last
+ * minutes under {@code /actuator/loginsketches}. Every response carries the
+ * window's encoded sketch; a POST of the sketches other nodes returned
+ * merges them with this node's window into the view of the cluster. Only
+ * callers with an {@code ADMIN} token get through (see SecurityConfig).
+ */
+@Component
+@Endpoint(id = "loginsketches")
+@RequiredArgsConstructor
+public class LoginSketchesEndpoint {
+
+    private final LoginSketches loginSketches;
+
+    @ReadOperation
+    public Map<String, Object> window(@Nullable Integer minutes, @Nullable Integer top) {
+        return describe(localWindow(minutes), top);
+    }
+
+    @WriteOperation
+    public Map<String, Object> merge(List<String> sketches, @Nullable Integer minutes, @Nullable Integer top) {
+        if (sketches.size() > AppConstant.LOGIN_SKETCH_MAX_MERGED) {
+            throw new InvalidEndpointRequestException(
+                    "At most " + AppConstant.LOGIN_SKETCH_MAX_MERGED + " sketches can be merged", "Too many sketches");
+        }
+        LoginSketches.Window window = localWindow(minutes);
+        for (String sketch : sketches) {
+            try {
+                window = window.merge(LoginSketches.decode(sketch));
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidEndpointRequestException("Invalid sketch: " + ex.getMessage(), "Invalid sketch");
+            }
+        }
+        return describe(window, top);
+    }
+
+    private LoginSketches.Window localWindow(@Nullable Integer minutes) {
+        int span = minutes != null ? minutes : AppConstant.LOGIN_SKETCH_DEFAULT_MINUTES;
+        if (span < 1 || span > AppConstant.LOGIN_SKETCH_BUCKETS) {
+            throw new InvalidEndpointRequestException(
+                    "minutes must be between 1 and " + AppConstant.LOGIN_SKETCH_BUCKETS, "Invalid minutes");
+        }
+        return loginSketches.window(span);
+    }
+
+    private Map<String, Object> describe(LoginSketches.Window window, @Nullable Integer top) {
+        int limit = top != null ? top : AppConstant.LOGIN_SKETCH_DEFAULT_TOP;
+        if (limit < 1 || limit > AppConstant.LOGIN_SKETCH_HEAVY_HITTERS) {
+            throw new InvalidEndpointRequestException(
+                    "top must be between 1 and " + AppConstant.LOGIN_SKETCH_HEAVY_HITTERS, "Invalid top");
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", Instant.ofEpochMilli(window.from()).toString());
+        response.put("to", Instant.ofEpochMilli(window.to()).toString());
+        response.put("attempts", window.attempts());
+        response.put("failures", window.failures());
+        response.put("distinctIps", window.distinctIps().estimate());
+        response.put("distinctTargetedEmails", window.distinctTargetedEmails().estimate());
+        response.put("topFailureIps", top(window.failureIps(), limit));
+        response.put("topTargetedEmails", top(window.targetedEmails(), limit));
+        response.put("sketch", LoginSketches.encode(window));
+        return response;
+    }
+
+    // count may overestimate, guaranteed never does
+    private static List<Map<String, Object>> top(SpaceSaving.Snapshot snapshot, int limit) {
+        return snapshot.entries().stream()
+                .limit(limit)
+                .map(entry -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("value", entry.value());
+                    item.put("count", entry.count());
+                    item.put("guaranteed", entry.count() - entry.error());
+                    return item;
+                })
+                .toList();
+    }
+}
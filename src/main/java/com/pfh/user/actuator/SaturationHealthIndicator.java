@@ -0,0 +1,68 @@
+package com.pfh.user.actuator;
+
+import com.pfh.user.util.PasswordHashingLimiter;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Part of the readiness group only: reports OUT_OF_SERVICE while the password
+ * hashing queue or a connection pool is saturated, so the load balancer stops
+ * routing new logins to this pod until it catches up. Reads counters only.
+ */
+@Component("saturation")
+public class SaturationHealthIndicator implements HealthIndicator {
+
+    private final PasswordHashingLimiter passwordHashingLimiter;
+    private final Map<String, DataSource> dataSources;
+
+    public SaturationHealthIndicator(PasswordHashingLimiter passwordHashingLimiter, Map<String, DataSource> dataSources) {
+        this.passwordHashingLimiter = passwordHashingLimiter;
+        this.dataSources = dataSources;
+    }
+
+    @Override
+    public Health health() {
+        boolean saturated = passwordHashingLimiter.isSaturated();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("hashingQueued", passwordHashingLimiter.getQueued());
+        details.put("hashingMaxConcurrent", passwordHashingLimiter.getMaxConcurrent());
+
+        for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
+            if (!(unwrap(entry.getValue()) instanceof HikariDataSource hikari) || hikari.getHikariPoolMXBean() == null) {
+                continue;
+            }
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            int max = hikari.getMaximumPoolSize();
+            boolean poolSaturated = pool.getThreadsAwaitingConnection() > 0 && pool.getActiveConnections() >= max;
+            saturated |= poolSaturated;
+
+            Map<String, Object> poolDetails = new LinkedHashMap<>();
+            poolDetails.put("active", pool.getActiveConnections());
+            poolDetails.put("idle", pool.getIdleConnections());
+            poolDetails.put("awaiting", pool.getThreadsAwaitingConnection());
+            poolDetails.put("max", max);
+            poolDetails.put("saturated", poolSaturated);
+            details.put(entry.getKey(), poolDetails);
+        }
+
+        return Health.status(saturated ? Status.OUT_OF_SERVICE : Status.UP).withDetails(details).build();
+    }
+
+    private static DataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : dataSource;
+        } catch (Exception e) {
+            return dataSource;
+        }
+    }
+}
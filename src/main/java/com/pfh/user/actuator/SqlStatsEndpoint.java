@@ -0,0 +1,69 @@
+package com.pfh.user.actuator;
+
+import com.pfh.user.monitoring.RepositoryMetricsAspect;
+import com.pfh.user.monitoring.SlowStatementBuffer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes per repository method latency and row statistics together with the
+ * most recent slow statements under {@code /actuator/sqlstats}. Only callers
+ * with an {@code ADMIN} token get through (see SecurityConfig).
+ */
+@Component
+@Endpoint(id = "sqlstats")
+@RequiredArgsConstructor
+public class SqlStatsEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final SlowStatementBuffer slowStatementBuffer;
+
+    @ReadOperation
+    public Map<String, Object> sqlStats() {
+        Map<String, Map<String, Object>> methods = new TreeMap<>();
+
+        for (Timer timer : meterRegistry.find(RepositoryMetricsAspect.CALL_TIMER).timers()) {
+            String method = timer.getId().getTag("method");
+            String outcome = timer.getId().getTag("outcome");
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("count", snapshot.count());
+            latency.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+            latency.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                latency.put("p" + Math.round(percentile.percentile() * 100) + "Ms",
+                        percentile.value(TimeUnit.MILLISECONDS));
+            }
+            methods.computeIfAbsent(method, key -> new LinkedHashMap<>()).put(outcome, latency);
+        }
+
+        for (DistributionSummary summary : meterRegistry.find(RepositoryMetricsAspect.ROW_SUMMARY).summaries()) {
+            Map<String, Object> rows = new LinkedHashMap<>();
+            rows.put("total", (long) summary.totalAmount());
+            rows.put("mean", summary.mean());
+            rows.put("max", (long) summary.max());
+            methods.computeIfAbsent(summary.getId().getTag("method"), key -> new LinkedHashMap<>()).put("rows", rows);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("repositoryMethods", methods);
+        response.put("slowStatementsCaptured", slowStatementBuffer.capturedTotal());
+        response.put("slowStatements", slowStatementBuffer.snapshot());
+        return response;
+    }
+}
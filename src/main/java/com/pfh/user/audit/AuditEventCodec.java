@@ -0,0 +1,105 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.entity.AuditLogEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Compact binary form of an audit event for the local spill journal. Strings are
+ * length-prefixed UTF-8 with -1 standing for null. Version 2 appended the
+ * aggregation fields; version 1 records from an older journal still decode.
+ */
+final class AuditEventCodec {
+
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_AGGREGATION = 1;
+
+    private AuditEventCodec() {
+    }
+
+    static byte[] encode(AuditLogEntity entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(entry.getEventId().getMostSignificantBits());
+            out.writeLong(entry.getEventId().getLeastSignificantBits());
+            out.writeLong(entry.getTimestamp().getEpochSecond());
+            out.writeInt(entry.getTimestamp().getNano());
+            writeString(out, entry.getUserId());
+            writeString(out, entry.getEmail());
+            writeString(out, entry.getIpAddress());
+            writeString(out, entry.getUserAgent());
+            writeString(out, entry.getEventType());
+            writeString(out, entry.getFailureReason());
+            out.writeInt(entry.getLockoutDurationMinutes() != null ? entry.getLockoutDurationMinutes() : Integer.MIN_VALUE);
+            writeString(out, entry.getTriggerEvent());
+            writeString(out, entry.getIntegrityHash());
+            out.writeInt(entry.getOccurrenceCount() != null ? entry.getOccurrenceCount() : Integer.MIN_VALUE);
+            out.writeBoolean(entry.getLastOccurredAt() != null);
+            if (entry.getLastOccurredAt() != null) {
+                out.writeLong(entry.getLastOccurredAt().getEpochSecond());
+                out.writeInt(entry.getLastOccurredAt().getNano());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    static AuditLogEntity decode(ByteBuffer in) {
+        byte version = in.get();
+        if (version != VERSION && version != VERSION_WITHOUT_AGGREGATION) {
+            throw new IllegalStateException("Unsupported audit journal record version " + version);
+        }
+        UUID eventId = new UUID(in.getLong(), in.getLong());
+        Instant timestamp = Instant.ofEpochSecond(in.getLong(), in.getInt());
+        AuditLogEntity.AuditLogEntityBuilder builder = AuditLogEntity.builder()
+                .eventId(eventId)
+                .timestamp(timestamp)
+                .userId(readString(in))
+                .email(readString(in))
+                .ipAddress(readString(in))
+                .userAgent(readString(in))
+                .eventType(readString(in))
+                .failureReason(readString(in));
+        int lockout = in.getInt();
+        builder.lockoutDurationMinutes(lockout != Integer.MIN_VALUE ? lockout : null)
+                .triggerEvent(readString(in))
+                .integrityHash(readString(in));
+        if (version == VERSION) {
+            int occurrences = in.getInt();
+            builder.occurrenceCount(occurrences != Integer.MIN_VALUE ? occurrences : null);
+            if (in.get() != 0) {
+                builder.lastOccurredAt(Instant.ofEpochSecond(in.getLong(), in.getInt()));
+            }
+        }
+        return builder.build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,180 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.audit.AuditAggregationProperties;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.util.TimeOrderedIds;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in merging of identical login failures during a flood. Failures with the
+ * same email, IP and reason that fall within {@code windowMs} of the first one
+ * are counted in memory and written as a single audit row carrying the number
+ * of attempts and the first and last attempt times. The row is leaf-hashed
+ * like any other, with the count and last attempt inside the hash, so the
+ * number of rows grows with the number of distinct sources while the sum of
+ * their counts stays equal to the number of attempts.
+ *
+ * A window is written once it has closed, or when the application stops.
+ * Attempts still in an open window when the process dies are lost, at most
+ * {@code windowMs} worth. Once {@code maxOpenGroups} sources are open, further
+ * sources are written unmerged so memory stays bounded.
+ */
+@Component
+public class AuditFailureAggregator implements SmartLifecycle {
+
+    // Stopped after the web server and before the audit writer, so the last windows still reach the database
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 3072;
+
+    private record Key(String email, String ipAddress, String failureReason) {
+    }
+
+    // Only mutated inside ConcurrentHashMap.compute for its key
+    private static final class Group {
+        private final Instant first;
+        private Instant last;
+        private int count = 1;
+
+        private Group(Instant at) {
+            this.first = at;
+            this.last = at;
+        }
+    }
+
+    private final AuditAggregationProperties properties;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditIntegrity auditIntegrity;
+    private final Duration window;
+    private final ConcurrentHashMap<Key, Group> open = new ConcurrentHashMap<>();
+    private final Counter mergedCounter;
+    private final Counter overflowCounter;
+
+    private volatile boolean running;
+
+    public AuditFailureAggregator(AuditAggregationProperties properties, AuditLogWriter auditLogWriter,
+                                  AuditIntegrity auditIntegrity, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.auditLogWriter = auditLogWriter;
+        this.auditIntegrity = auditIntegrity;
+        this.window = Duration.ofMillis(properties.getWindowMs());
+
+        Gauge.builder("audit.aggregation.open.groups", open, ConcurrentHashMap::size).register(meterRegistry);
+        this.mergedCounter = Counter.builder("audit.aggregation.merged").register(meterRegistry);
+        this.overflowCounter = Counter.builder("audit.aggregation.overflow").register(meterRegistry);
+    }
+
+    // False before start-up and after shutdown, callers then write the failure themselves
+    public boolean isEnabled() {
+        return properties.isEnabled() && running;
+    }
+
+    public void record(String email, String ipAddress, String failureReason, Instant at) {
+        Key key = new Key(email, ipAddress, failureReason);
+        List<AuditLogEntity> closed = new ArrayList<>(1);
+        boolean[] overflow = {false};
+
+        open.compute(key, (k, group) -> {
+            if (group != null && at.isBefore(group.first.plus(window)) && group.count < Integer.MAX_VALUE) {
+                group.count++;
+                if (at.isAfter(group.last)) {
+                    group.last = at;
+                }
+                mergedCounter.increment();
+                return group;
+            }
+            if (group != null) {
+                // The window has passed but was not swept yet
+                closed.add(toEntry(k, group));
+            } else if (open.size() >= properties.getMaxOpenGroups()) {
+                overflow[0] = true;
+                return null;
+            }
+            return new Group(at);
+        });
+
+        if (overflow[0]) {
+            overflowCounter.increment();
+            closed.add(toEntry(key, new Group(at)));
+        }
+        closed.forEach(auditLogWriter::submit);
+
+        // A caller that passed isEnabled() just before shutdown must not leave its attempt behind
+        if (!running) {
+            flush(Instant.MAX);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audit.aggregation.sweep-interval-ms:1000}")
+    public void sweep() {
+        if (properties.isEnabled()) {
+            flush(Instant.now().minus(window));
+        }
+    }
+
+    // Writes every group whose window started before the cutoff
+    private void flush(Instant openedBefore) {
+        List<AuditLogEntity> closed = new ArrayList<>();
+        for (Key key : open.keySet()) {
+            open.computeIfPresent(key, (k, group) -> {
+                if (openedBefore != Instant.MAX && !group.first.isBefore(openedBefore)) {
+                    return group;
+                }
+                closed.add(toEntry(k, group));
+                return null;
+            });
+        }
+        closed.forEach(auditLogWriter::submit);
+    }
+
+    private AuditLogEntity toEntry(Key key, Group group) {
+        AuditLogEntity entry = AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next(group.first.toEpochMilli()))
+                .email(key.email())
+                .ipAddress(key.ipAddress())
+                .timestamp(group.first)
+                .eventType(AuditEventType.LOGIN_FAILURE.name())
+                .failureReason(key.failureReason())
+                .build();
+        // A single attempt is stored exactly like an unaggregated failure
+        if (group.count > 1) {
+            entry.setOccurrenceCount(group.count);
+            entry.setLastOccurredAt(group.last);
+        }
+        entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+        return entry;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush(Instant.MAX);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,343 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.audit.AuditIngestProperties;
+import com.pfh.user.dto.audit.AuditIngestEventDto;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.util.IpAddresses;
+import com.pfh.user.util.TimeOrderedIds;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Appends authentication events produced by other services, read as NDJSON
+ * one line at a time straight off the request body, so a stream of any length
+ * only ever holds one line in memory.
+ *
+ * Every line is validated on its own; a bad line is reported with its line
+ * number and skipped, the rest of the stream carries on. A valid event gets
+ * its id and leaf hash here and is handed to {@link AuditLogWriter} like the
+ * service's own events. When the pipeline stays full for {@code offerTimeoutMs}
+ * reading stops: everything before that line is accepted, and the sender
+ * resumes from the line returned once it has backed off.
+ */
+@Slf4j
+@Component
+public class AuditIngestor {
+
+    public record LineError(long line, String message) {
+    }
+
+    // resumeFromLine is null when the whole stream was read
+    public record Result(long accepted, long rejected, List<LineError> errors, Long resumeFromLine) {
+    }
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    // Width of the VARCHAR columns the string fields are stored in
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private final AuditLogWriter auditLogWriter;
+    private final AuditIntegrity auditIntegrity;
+    private final AuditIngestProperties properties;
+    private final ObjectReader eventReader;
+    private final Semaphore slots;
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter throttledCounter;
+
+    public AuditIngestor(AuditLogWriter auditLogWriter, AuditIntegrity auditIntegrity,
+                         AuditIngestProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.auditLogWriter = auditLogWriter;
+        this.auditIntegrity = auditIntegrity;
+        this.properties = properties;
+        // A misspelt field would otherwise silently drop its value from the audit trail
+        this.eventReader = objectMapper.readerFor(AuditIngestEventDto.class)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        this.slots = new Semaphore(Math.max(1, properties.getMaxConcurrent()));
+        this.acceptedCounter = Counter.builder("audit.ingest.accepted").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("audit.ingest.rejected").register(meterRegistry);
+        this.throttledCounter = Counter.builder("audit.ingest.throttled").register(meterRegistry);
+    }
+
+    // Reserves an ingest slot, must be paired with release() once the stream is done
+    public boolean tryAcquire() {
+        return slots.tryAcquire();
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    public Result ingest(InputStream body) throws IOException {
+        LineReader lines = new LineReader(body, properties.getMaxLineBytes());
+        List<LineError> errors = new ArrayList<>();
+        long lineNumber = 0;
+        long accepted = 0;
+        long rejected = 0;
+        try {
+            while (lines.next()) {
+                lineNumber++;
+                if (lines.isBlank()) {
+                    continue;
+                }
+
+                AuditLogEntity entry;
+                try {
+                    if (lines.isTooLong()) {
+                        throw new InvalidEventException("Line exceeds " + properties.getMaxLineBytes() + " bytes");
+                    }
+                    entry = toEntry(eventReader.readValue(lines.buffer(), 0, lines.length()));
+                } catch (InvalidEventException | JsonProcessingException ex) {
+                    rejected++;
+                    if (errors.size() < properties.getMaxErrors()) {
+                        errors.add(new LineError(lineNumber, ex instanceof JsonProcessingException json
+                                ? describe(json) : ex.getMessage()));
+                    }
+                    continue;
+                }
+
+                if (!auditLogWriter.offer(entry, properties.getOfferTimeoutMs())) {
+                    throttledCounter.increment();
+                    return new Result(accepted, rejected, errors, lineNumber);
+                }
+                accepted++;
+            }
+            return new Result(accepted, rejected, errors, null);
+        } catch (IOException ex) {
+            // Events queued before the sender went away stay accepted
+            log.info("Audit ingest stream broke after {} lines: {}", lineNumber, ex.getMessage());
+            throw ex;
+        } finally {
+            acceptedCounter.increment(accepted);
+            rejectedCounter.increment(rejected);
+        }
+    }
+
+    private AuditLogEntity toEntry(AuditIngestEventDto event) throws InvalidEventException {
+        if (event == null) {
+            throw new InvalidEventException("Line must be a single JSON object");
+        }
+        AuditEventType type = eventType(event.getEventType());
+
+        Instant timestamp = required("timestamp", event.getTimestamp());
+        Instant now = Instant.now();
+        if (timestamp.isAfter(now.plusMillis(properties.getMaxFutureSkewMs()))) {
+            throw new InvalidEventException("timestamp is in the future");
+        }
+        if (timestamp.isBefore(now.minus(Duration.ofDays(properties.getMaxAgeDays())))) {
+            throw new InvalidEventException("timestamp is older than " + properties.getMaxAgeDays() + " days");
+        }
+        // Postgres keeps microseconds, the leaf hash must survive the round trip
+        timestamp = timestamp.truncatedTo(ChronoUnit.MICROS);
+
+        String email = bounded("email", required("email", blankToNull(event.getEmail())));
+        String userId = bounded("userId", blankToNull(event.getUserId()));
+        String triggerEvent = bounded("triggerEvent", blankToNull(event.getTriggerEvent()));
+
+        String ipAddress = null;
+        if (blankToNull(event.getIpAddress()) != null) {
+            ipAddress = IpAddresses.canonical(event.getIpAddress());
+            if (ipAddress == null) {
+                throw new InvalidEventException("ipAddress must be an IPv4 or IPv6 address");
+            }
+        }
+
+        String failureReason = null;
+        if (type == AuditEventType.LOGIN_FAILURE) {
+            try {
+                failureReason = AuditFailureReason.fromValue(required("failureReason", event.getFailureReason()))
+                        .getValue();
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidEventException("Unknown failureReason");
+            }
+        } else if (event.getFailureReason() != null) {
+            throw new InvalidEventException("failureReason only applies to LOGIN_FAILURE");
+        }
+
+        Integer lockoutMinutes = event.getLockoutDurationMinutes();
+        if (type == AuditEventType.ACCOUNT_LOCKOUT) {
+            if (required("lockoutDurationMinutes", lockoutMinutes) <= 0) {
+                throw new InvalidEventException("lockoutDurationMinutes must be positive");
+            }
+        } else if (lockoutMinutes != null) {
+            throw new InvalidEventException("lockoutDurationMinutes only applies to ACCOUNT_LOCKOUT");
+        }
+
+        AuditLogEntity entry = AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next(timestamp.toEpochMilli()))
+                .userId(userId)
+                .email(email)
+                .ipAddress(ipAddress)
+                .userAgent(blankToNull(event.getUserAgent()))
+                .timestamp(timestamp)
+                .eventType(type.name())
+                .failureReason(failureReason)
+                .lockoutDurationMinutes(lockoutMinutes)
+                .triggerEvent(triggerEvent)
+                .build();
+        entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+        return entry;
+    }
+
+    private static AuditEventType eventType(String value) throws InvalidEventException {
+        try {
+            return AuditEventType.valueOf(required("eventType", value));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidEventException("Unknown eventType");
+        }
+    }
+
+    private static <T> T required(String field, T value) throws InvalidEventException {
+        if (value == null) {
+            throw new InvalidEventException(field + " is required");
+        }
+        return value;
+    }
+
+    private static String bounded(String field, String value) throws InvalidEventException {
+        if (value != null && value.length() > MAX_FIELD_LENGTH) {
+            throw new InvalidEventException(field + " exceeds " + MAX_FIELD_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    // Names the field without echoing the offending input back
+    private static String describe(JsonProcessingException ex) {
+        if (ex instanceof UnrecognizedPropertyException unknown) {
+            return "Unknown field '" + unknown.getPropertyName() + "'";
+        }
+        if (ex instanceof MismatchedInputException mismatched) {
+            String path = mismatched.getPath().stream()
+                    .map(JsonMappingException.Reference::getFieldName)
+                    .filter(name -> name != null)
+                    .collect(Collectors.joining("."));
+            return path.isEmpty() ? "Line must be a single JSON object" : "Invalid value for '" + path + "'";
+        }
+        return "Malformed JSON";
+    }
+
+    // No stack trace, a stream of bad lines should cost no more than a stream of good ones
+    private static final class InvalidEventException extends Exception {
+        private InvalidEventException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Splits a byte stream on '\n' (dropping a trailing '\r') into a reused
+     * buffer. A line longer than the buffer is consumed to its end and only
+     * flagged, so one oversized line cannot make the stream unreadable.
+     */
+    private static final class LineReader {
+        private final InputStream in;
+        private final byte[] chunk = new byte[READ_BUFFER_BYTES];
+        private final byte[] line;
+        private int chunkPosition;
+        private int chunkLength;
+        private int length;
+        private boolean tooLong;
+        private boolean endOfStream;
+
+        private LineReader(InputStream in, int maxLineBytes) {
+            this.in = in;
+            this.line = new byte[maxLineBytes];
+        }
+
+        private boolean next() throws IOException {
+            length = 0;
+            tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (chunkPosition == chunkLength) {
+                    if (endOfStream) {
+                        return read;
+                    }
+                    chunkLength = in.read(chunk);
+                    chunkPosition = 0;
+                    if (chunkLength < 0) {
+                        chunkLength = 0;
+                        endOfStream = true;
+                        return read;
+                    }
+                    continue;
+                }
+                read = true;
+                int start = chunkPosition;
+                while (chunkPosition < chunkLength && chunk[chunkPosition] != '\n') {
+                    chunkPosition++;
+                }
+                append(start, chunkPosition - start);
+                if (chunkPosition < chunkLength) {
+                    chunkPosition++;
+                    if (length > 0 && line[length - 1] == '\r') {
+                        length--;
+                    }
+                    return true;
+                }
+            }
+        }
+
+        private void append(int start, int count) {
+            if (tooLong || count == 0) {
+                return;
+            }
+            if (length + count > line.length) {
+                tooLong = true;
+                return;
+            }
+            System.arraycopy(chunk, start, line, length, count);
+            length += count;
+        }
+
+        private boolean isTooLong() {
+            return tooLong;
+        }
+
+        private boolean isBlank() {
+            if (tooLong) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                byte b = line[i];
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private byte[] buffer() {
+            return line;
+        }
+
+        private int length() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.security.AppSecrets;
+import com.pfh.user.entity.AuditLogEntity;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hashing scheme behind audit tamper-evidence.
+ *
+ * Every event gets a leaf hash, an HMAC over all of its fields, computed when
+ * the event is created. The rows of one insert batch form a block: their leaves,
+ * ordered by event id, are folded into a Merkle root, and the block hash is an
+ * HMAC over the block number, the previous block hash and that root. Editing,
+ * deleting or reordering any row therefore breaks its block, and replacing a
+ * whole block breaks the chain, without the key needed to recompute either.
+ *
+ * Erasure rewrites personal fields of sealed rows. Such a row keeps its
+ * original leaf hash, which its block was sealed over, and gains an amendment
+ * hash binding that leaf to the leaf of its rewritten content, so the block
+ * still verifies and any later edit of the rewritten row is still detected.
+ */
+@Component
+public class AuditIntegrity {
+
+    public static final String GENESIS_HASH = "0".repeat(64);
+
+    public static final Comparator<UUID> EVENT_ORDER = Comparator
+            .comparingLong((UUID id) -> id.getMostSignificantBits() ^ Long.MIN_VALUE)
+            .thenComparingLong(id -> id.getLeastSignificantBits() ^ Long.MIN_VALUE);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte LEAF_VERSION = 1;
+    // Aggregated rows also cover their count and last occurrence, plain rows keep version 1
+    private static final byte AGGREGATE_LEAF_VERSION = 2;
+    private static final byte AMENDMENT_VERSION = 3;
+    private static final byte NODE_PREFIX = 1;
+    private static final HexFormat HEX = HexFormat.of();
+
+    // Mac is stateful, one instance per thread instead of a lock on the request path
+    private final ThreadLocal<Mac> mac;
+
+    @Autowired
+    public AuditIntegrity(AppSecrets appSecrets) {
+        this(appSecrets.getAuditIntegrityKey());
+    }
+
+    public AuditIntegrity(String key) {
+        if (key == null || key.length() < 32) {
+            throw new IllegalStateException("app.audit-integrity-key must be at least 32 characters");
+        }
+        SecretKeySpec spec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(spec);
+                return instance;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+
+    public String leafHash(AuditLogEntity entry) {
+        Mac leafMac = mac.get();
+        boolean aggregated = entry.getOccurrenceCount() != null;
+        ByteBuffer fixed = ByteBuffer.allocate(1 + 16 + 8 + 4 + (aggregated ? 4 + 8 + 4 : 0));
+        fixed.put(aggregated ? AGGREGATE_LEAF_VERSION : LEAF_VERSION)
+                .putLong(entry.getEventId().getMostSignificantBits())
+                .putLong(entry.getEventId().getLeastSignificantBits())
+                .putLong(entry.getTimestamp().getEpochSecond())
+                .putInt(entry.getTimestamp().getNano());
+        if (aggregated) {
+            Instant last = entry.getLastOccurredAt() != null ? entry.getLastOccurredAt() : entry.getTimestamp();
+            fixed.putInt(entry.getOccurrenceCount())
+                    .putLong(last.getEpochSecond())
+                    .putInt(last.getNano());
+        }
+        leafMac.update(fixed.array());
+        update(leafMac, entry.getUserId());
+        update(leafMac, entry.getEmail());
+        update(leafMac, entry.getIpAddress());
+        update(leafMac, entry.getUserAgent());
+        update(leafMac, entry.getEventType());
+        update(leafMac, entry.getFailureReason());
+        update(leafMac, entry.getLockoutDurationMinutes() != null ? entry.getLockoutDurationMinutes().toString() : null);
+        update(leafMac, entry.getTriggerEvent());
+        return HEX.formatHex(leafMac.doFinal());
+    }
+
+    /**
+     * Links the leaf a row was sealed with to the leaf of its content after an
+     * erasure. Only computed for rows that still matched their sealed leaf.
+     */
+    public String amendmentHash(String sealedLeaf, String amendedLeaf) {
+        Mac amendmentMac = mac.get();
+        amendmentMac.update(AMENDMENT_VERSION);
+        amendmentMac.update(HEX.parseHex(sealedLeaf));
+        amendmentMac.update(HEX.parseHex(amendedLeaf));
+        return HEX.formatHex(amendmentMac.doFinal());
+    }
+
+    public String blockHash(long blockNumber, String previousBlockHash, String merkleRoot, int eventCount) {
+        Mac blockMac = mac.get();
+        blockMac.update(ByteBuffer.allocate(12).putLong(blockNumber).putInt(eventCount).array());
+        blockMac.update(HEX.parseHex(previousBlockHash));
+        blockMac.update(HEX.parseHex(merkleRoot));
+        return HEX.formatHex(blockMac.doFinal());
+    }
+
+    /**
+     * Binary Merkle root over hex leaf hashes, in the given order. An odd node
+     * is carried up unchanged rather than paired with itself, so a block cannot
+     * be padded with a duplicated last row and keep its root.
+     */
+    public static String merkleRoot(List<String> leafHashes) {
+        if (leafHashes.isEmpty()) {
+            return GENESIS_HASH;
+        }
+        MessageDigest sha256 = sha256();
+        List<byte[]> level = new ArrayList<>(leafHashes.size());
+        for (String leaf : leafHashes) {
+            level.add(HEX.parseHex(leaf));
+        }
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                if (i + 1 == level.size()) {
+                    next.add(level.get(i));
+                    continue;
+                }
+                sha256.update(NODE_PREFIX);
+                sha256.update(level.get(i));
+                sha256.update(level.get(i + 1));
+                next.add(sha256.digest());
+            }
+            level = next;
+        }
+        return HEX.formatHex(level.get(0));
+    }
+
+    private static void update(Mac target, String value) {
+        if (value == null) {
+            target.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        target.update(ByteBuffer.allocate(4).putInt(utf8.length).array());
+        target.update(utf8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.audit.AuditIntegrityProperties;
+import com.pfh.user.entity.AuditLogEntity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Re-derives every leaf hash, Merkle root and block hash from the stored rows
+ * and checks the chain links between blocks.
+ *
+ * Blocks verify independently of each other, so the block range is cut into
+ * chunks that run in parallel, each streaming its rows through a server-side
+ * cursor instead of loading them. Chunks are committed in order to a checkpoint
+ * row, so an interrupted run resumes after the last completed chunk and the
+ * scheduled run only has to look at blocks sealed since the previous one. A
+ * restart re-verifies the whole chain from the first block. Blocks whose rows
+ * were removed by partition retention keep their place in the chain but are
+ * not expected to be complete.
+ */
+@Slf4j
+@Component
+public class AuditIntegrityVerifier {
+
+    public static final String CHECKPOINT = "full-chain";
+
+    public record Failure(long blockNumber, String reason) {
+    }
+
+    public record Report(boolean running, long fromBlock, long toBlock, long verifiedThroughBlock,
+                         long blocksVerified, long rowsVerified, List<Failure> failures,
+                         Instant startedAt, Instant finishedAt) {
+    }
+
+    private record StoredBlock(long blockNumber, int eventCount, String merkleRoot, String previousBlockHash,
+                               String blockHash, boolean pruned) {
+    }
+
+    private record ChunkResult(long lastBlock, long blocks, long rows, List<Failure> failures) {
+    }
+
+    // Failures kept in the report, the full count is in the checkpoint row
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private static final String SELECT_BLOCKS_SQL = """
+            SELECT block_number, event_count, merkle_root, previous_block_hash, block_hash, COALESCE(pruned, FALSE)
+            FROM audit_integrity_blocks
+            WHERE block_number BETWEEN ? AND ?
+            ORDER BY block_number
+            """;
+
+    // Postgres orders uuid bytewise, the same order the blocks were sealed in
+    private static final String SELECT_ROWS_SQL = "SELECT " + AuditLogRowMapper.COLUMNS
+            + " FROM audit_logs WHERE block_number BETWEEN ? AND ? ORDER BY block_number, event_id";
+
+    private static final String UPSERT_CHECKPOINT_SQL = """
+            INSERT INTO audit_verification_checkpoints (name, verified_through_block, failed_blocks, updated_at)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (name) DO UPDATE
+            SET verified_through_block = EXCLUDED.verified_through_block,
+                failed_blocks = EXCLUDED.failed_blocks,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AuditIntegrity auditIntegrity;
+    private final AuditIntegrityProperties properties;
+    private final Counter failureCounter;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Report lastReport;
+
+    public AuditIntegrityVerifier(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                  @Qualifier("auditTransactionManager") PlatformTransactionManager transactionManager,
+                                  AuditIntegrity auditIntegrity, AuditIntegrityProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(properties.getVerifyFetchSize());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.auditIntegrity = auditIntegrity;
+        this.properties = properties;
+        this.failureCounter = Counter.builder("audit.integrity.failures").register(meterRegistry);
+    }
+
+    public Report lastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    // Runs a verification in the background, false when one is already running
+    public boolean start(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                runVerification(restart);
+            } catch (Exception ex) {
+                log.error("Audit integrity verification aborted", ex);
+            } finally {
+                running.set(false);
+            }
+        }, "audit-integrity-verifier");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    @Scheduled(cron = "${audit.integrity.verify-cron:0 30 3 * * *}")
+    public void verifyNewBlocks() {
+        start(false);
+    }
+
+    // Synchronous verification, callers must not overlap with start()
+    public Report verify(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Audit integrity verification already running");
+        }
+        try {
+            return runVerification(restart);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Report runVerification(boolean restart) {
+        long[] checkpoint = restart ? new long[]{0, 0} : readCheckpoint();
+        long from = checkpoint[0] + 1;
+        Long max = jdbcTemplate.queryForObject("SELECT max(block_number) FROM audit_integrity_blocks", Long.class);
+        long to = max != null ? max : 0;
+        Instant startedAt = Instant.now();
+
+        long verifiedThrough = checkpoint[0];
+        long failedBlocks = checkpoint[1];
+        long blocks = 0;
+        long rows = 0;
+        List<Failure> failures = new ArrayList<>();
+        lastReport = new Report(true, from, to, verifiedThrough, 0, 0, List.of(), startedAt, null);
+
+        int chunk = Math.max(1, properties.getVerifyChunkBlocks());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, properties.getVerifyParallelism()));
+        try {
+            List<Future<ChunkResult>> chunks = new ArrayList<>();
+            for (long start = from; start <= to; start += chunk) {
+                long first = start;
+                long last = Math.min(to, start + chunk - 1);
+                chunks.add(pool.submit(() -> verifyRange(first, last)));
+            }
+
+            // Completed chunks are committed strictly in order, so the checkpoint never skips a gap
+            for (Future<ChunkResult> future : chunks) {
+                ChunkResult result = future.get();
+                verifiedThrough = result.lastBlock();
+                blocks += result.blocks();
+                rows += result.rows();
+                failedBlocks += result.failures().size();
+                for (Failure failure : result.failures()) {
+                    log.error("Audit integrity check failed for block {}: {}", failure.blockNumber(), failure.reason());
+                    failureCounter.increment();
+                    if (failures.size() < MAX_REPORTED_FAILURES) {
+                        failures.add(failure);
+                    }
+                }
+                saveCheckpoint(verifiedThrough, failedBlocks);
+                lastReport = new Report(true, from, to, verifiedThrough, blocks, rows, List.copyOf(failures),
+                        startedAt, null);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Audit integrity verification interrupted at block " + verifiedThrough, ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Audit integrity verification failed after block " + verifiedThrough,
+                    ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Report report = new Report(false, from, to, verifiedThrough, blocks, rows, List.copyOf(failures),
+                startedAt, Instant.now());
+        lastReport = report;
+        return report;
+    }
+
+    private ChunkResult verifyRange(long first, long last) {
+        Map<Long, StoredBlock> stored = new HashMap<>();
+        jdbcTemplate.query(SELECT_BLOCKS_SQL, rs -> {
+            StoredBlock block = new StoredBlock(rs.getLong(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                    rs.getString(5), rs.getBoolean(6));
+            stored.put(block.blockNumber(), block);
+        }, Math.max(1, first - 1), last);
+
+        List<Failure> failures = new ArrayList<>();
+        for (long number = first; number <= last; number++) {
+            StoredBlock block = stored.get(number);
+            if (block == null) {
+                failures.add(new Failure(number, "block is missing from the chain"));
+                continue;
+            }
+            StoredBlock previous = stored.get(number - 1);
+            String expectedPrevious = number == 1 ? AuditIntegrity.GENESIS_HASH
+                    : previous != null ? previous.blockHash() : null;
+            if (expectedPrevious != null && !expectedPrevious.equals(block.previousBlockHash())) {
+                failures.add(new Failure(number, "previous block hash does not link to block " + (number - 1)));
+            }
+            String expectedHash = auditIntegrity.blockHash(number, block.previousBlockHash(), block.merkleRoot(),
+                    block.eventCount());
+            if (!expectedHash.equals(block.blockHash())) {
+                failures.add(new Failure(number, "block hash does not match its contents"));
+            }
+        }
+
+        BlockAccumulator accumulator = new BlockAccumulator(stored, failures);
+        readOnlyTransaction.executeWithoutResult(status ->
+                streamingJdbcTemplate.query(SELECT_ROWS_SQL, accumulator::accept, first, last));
+        accumulator.finish();
+
+        for (long number = first; number <= last; number++) {
+            StoredBlock block = stored.get(number);
+            if (block != null && !block.pruned() && !accumulator.seen.containsKey(number)) {
+                failures.add(new Failure(number, "all " + block.eventCount() + " rows are missing"));
+            }
+        }
+        return new ChunkResult(last, last - first + 1, accumulator.rows, failures);
+    }
+
+    // Folds the streamed rows of one block at a time, rows arrive ordered by block
+    private final class BlockAccumulator {
+        private final Map<Long, StoredBlock> stored;
+        private final List<Failure> failures;
+        private final Map<Long, Boolean> seen = new HashMap<>();
+        private final List<String> leaves = new ArrayList<>();
+        private long currentBlock = -1;
+        private long rows;
+
+        private BlockAccumulator(Map<Long, StoredBlock> stored, List<Failure> failures) {
+            this.stored = stored;
+            this.failures = failures;
+        }
+
+        private void accept(ResultSet rs) throws SQLException {
+            long blockNumber = rs.getLong("block_number");
+            if (blockNumber != currentBlock) {
+                finish();
+                currentBlock = blockNumber;
+                seen.put(blockNumber, Boolean.TRUE);
+            }
+            AuditLogEntity entry = AuditLogRowMapper.INSTANCE.mapRow(rs, (int) rows);
+            String leaf = auditIntegrity.leafHash(entry);
+            if (entry.getAmendmentHash() != null) {
+                // Rewritten by erasure, the block was sealed over the original leaf
+                if (!isHex64(entry.getIntegrityHash())
+                        || !auditIntegrity.amendmentHash(entry.getIntegrityHash(), leaf).equals(entry.getAmendmentHash())) {
+                    failures.add(new Failure(blockNumber, "row " + entry.getEventId() + " does not match its amendment"));
+                } else {
+                    leaf = entry.getIntegrityHash();
+                }
+            } else if (!leaf.equals(entry.getIntegrityHash())) {
+                failures.add(new Failure(blockNumber, "row " + entry.getEventId() + " does not match its leaf hash"));
+            }
+            leaves.add(leaf);
+            rows++;
+        }
+
+        private void finish() {
+            if (currentBlock < 0) {
+                return;
+            }
+            StoredBlock block = stored.get(currentBlock);
+            // Retention removed part of a pruned block, its remaining rows are still checked against their leaves
+            if (block != null && !block.pruned()) {
+                if (leaves.size() != block.eventCount()) {
+                    failures.add(new Failure(currentBlock,
+                            "expected " + block.eventCount() + " rows but found " + leaves.size()));
+                } else if (!AuditIntegrity.merkleRoot(leaves).equals(block.merkleRoot())) {
+                    failures.add(new Failure(currentBlock, "Merkle root does not match the stored rows"));
+                }
+            }
+            leaves.clear();
+            currentBlock = -1;
+        }
+    }
+
+    private static boolean isHex64(String value) {
+        return value != null && value.length() == 64 && value.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+
+    private long[] readCheckpoint() {
+        List<long[]> checkpoint = jdbcTemplate.query(
+                "SELECT verified_through_block, failed_blocks FROM audit_verification_checkpoints WHERE name = ?",
+                (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)}, CHECKPOINT);
+        return checkpoint.isEmpty() ? new long[]{0, 0} : checkpoint.get(0);
+    }
+
+    private void saveCheckpoint(long verifiedThroughBlock, long failedBlocks) {
+        jdbcTemplate.update(UPSERT_CHECKPOINT_SQL, CHECKPOINT, verifiedThroughBlock, failedBlocks,
+                OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC));
+    }
+}
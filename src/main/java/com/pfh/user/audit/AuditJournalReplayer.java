@@ -0,0 +1,65 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.audit.AuditJournalProperties;
+import com.pfh.user.resilience.CircuitBreaker;
+import com.pfh.user.resilience.DatabaseGuards;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the spill journal back into {@code audit_logs} once the audit database
+ * accepts writes again. Inserts skip event ids that already exist, so a batch
+ * replayed twice after a crash between insert and commit is harmless.
+ */
+@Slf4j
+@Component
+public class AuditJournalReplayer {
+
+    private final AuditSpillJournal journal;
+    private final AuditLogBatchInserter inserter;
+    private final DatabaseGuards databaseGuards;
+    private final AuditJournalProperties properties;
+    private final Counter replayedCounter;
+
+    public AuditJournalReplayer(AuditSpillJournal journal, AuditLogBatchInserter inserter,
+                                DatabaseGuards databaseGuards, AuditJournalProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.inserter = inserter;
+        this.databaseGuards = databaseGuards;
+        this.properties = properties;
+        this.replayedCounter = Counter.builder("audit.journal.replayed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${audit.journal.replay-interval-ms:1000}")
+    public void replay() {
+        if (!journal.isEnabled() || journal.pendingRecords() == 0) {
+            return;
+        }
+        // Leave the database alone while its circuit is open, the breaker decides when to probe
+        if (databaseGuards.audit().getCircuitBreaker().getState() == CircuitBreaker.State.OPEN) {
+            return;
+        }
+
+        AuditSpillJournal.ReplayBatch batch;
+        while ((batch = journal.nextBatch(properties.getReplayBatchSize())) != null && !batch.entries().isEmpty()) {
+            AuditSpillJournal.ReplayBatch current = batch;
+            try {
+                databaseGuards.audit().execute(() -> {
+                    inserter.insert(current.entries());
+                    return null;
+                });
+            } catch (Throwable ex) {
+                log.warn("Audit journal replay paused, {} records pending: {}", journal.pendingRecords(), ex.getMessage());
+                return;
+            }
+            journal.commit(current);
+            replayedCounter.increment(current.entries().size());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.audit.outbox.AuditOutbox;
+import com.pfh.user.audit.rollup.AuditRollups;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.util.IpAddresses;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes audit rows with a single JDBC batch and seals them into one integrity
+ * block in the same transaction. With {@code reWriteBatchedInserts} enabled on
+ * the audit pool, pgjdbc turns the batch into multi-row inserts, so a flush
+ * costs one round trip instead of one per event.
+ *
+ * Sealing needs the previous block hash, so flushes from every node take a
+ * transaction-scoped advisory lock. That serializes batches, not single rows,
+ * which keeps the chain linear at a cost of a few milliseconds per flush.
+ * Events whose {@code event_id} already exists are left out of the block, which
+ * makes re-sending safe.
+ *
+ * Rows are written in the compact layout: event type and failure reason as
+ * smallint codes, the IP as {@code inet} and the user agent as an id into
+ * {@link AuditUserAgentDictionary}, resolved before the transaction starts.
+ * When the {@link AuditOutbox} is enabled the same transaction also publishes
+ * the new rows to it.
+ */
+@Component
+public class AuditLogBatchInserter {
+
+    // Arbitrary application-wide key for pg_advisory_xact_lock
+    private static final long SEAL_LOCK_KEY = 0x6175646974L;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO audit_logs (event_id, user_id, email, ip_address, user_agent_id, timestamp, event_type,
+                                    failure_reason, lockout_duration_minutes, trigger_event, occurrence_count,
+                                    last_occurred_at, integrity_hash, block_number)
+            VALUES (?, ?, ?, ?::inet, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (event_id, timestamp) DO NOTHING
+            """;
+
+    private static final String INSERT_BLOCK_SQL = """
+            INSERT INTO audit_integrity_blocks (block_number, event_count, merkle_root, previous_block_hash,
+                                                block_hash, sealed_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private record ChainHead(long blockNumber, String blockHash) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditIntegrity auditIntegrity;
+    private final AuditUserAgentDictionary userAgents;
+    private final AuditRollups rollups;
+    private final AuditOutbox outbox;
+
+    public AuditLogBatchInserter(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                 @Qualifier("auditTransactionManager") PlatformTransactionManager transactionManager,
+                                 AuditIntegrity auditIntegrity, AuditUserAgentDictionary userAgents,
+                                 AuditRollups rollups, AuditOutbox outbox) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditIntegrity = auditIntegrity;
+        this.userAgents = userAgents;
+        this.rollups = rollups;
+        this.outbox = outbox;
+    }
+
+    public void insert(List<AuditLogEntity> entries) {
+        Map<String, Integer> userAgentIds = userAgents.resolve(
+                entries.stream().map(AuditLogEntity::getUserAgent).toList());
+        List<AuditLogEntity> inserted = transactionTemplate.execute(status -> {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> null, SEAL_LOCK_KEY);
+
+            List<AuditLogEntity> fresh = withoutExisting(entries);
+            if (fresh.isEmpty()) {
+                return fresh;
+            }
+            fresh.sort((a, b) -> AuditIntegrity.EVENT_ORDER.compare(a.getEventId(), b.getEventId()));
+
+            ChainHead head = chainHead();
+            long blockNumber = head.blockNumber() + 1;
+            List<String> leaves = new ArrayList<>(fresh.size());
+            for (AuditLogEntity entry : fresh) {
+                leaves.add(entry.getIntegrityHash());
+            }
+            String merkleRoot = AuditIntegrity.merkleRoot(leaves);
+            String blockHash = auditIntegrity.blockHash(blockNumber, head.blockHash(), merkleRoot, fresh.size());
+
+            jdbcTemplate.batchUpdate(INSERT_SQL, fresh, fresh.size(), (ps, entry) -> {
+                ps.setObject(1, entry.getEventId());
+                ps.setString(2, entry.getUserId());
+                ps.setString(3, entry.getEmail());
+                // Already canonical for new events, guards older journal entries against a failing cast
+                ps.setString(4, IpAddresses.canonical(entry.getIpAddress()));
+                ps.setObject(5, entry.getUserAgent() != null ? userAgentIds.get(entry.getUserAgent()) : null,
+                        Types.INTEGER);
+                ps.setObject(6, OffsetDateTime.ofInstant(entry.getTimestamp(), ZoneOffset.UTC));
+                ps.setObject(7, entry.getEventType() != null
+                        ? AuditEventType.valueOf(entry.getEventType()).getCode() : null, Types.SMALLINT);
+                ps.setObject(8, entry.getFailureReason() != null
+                        ? AuditFailureReason.fromValue(entry.getFailureReason()).getCode() : null, Types.SMALLINT);
+                ps.setObject(9, entry.getLockoutDurationMinutes(), Types.INTEGER);
+                ps.setString(10, entry.getTriggerEvent());
+                ps.setObject(11, entry.getOccurrenceCount(), Types.INTEGER);
+                ps.setObject(12, entry.getLastOccurredAt() != null
+                        ? OffsetDateTime.ofInstant(entry.getLastOccurredAt(), ZoneOffset.UTC) : null,
+                        Types.TIMESTAMP_WITH_TIMEZONE);
+                ps.setString(13, entry.getIntegrityHash());
+                ps.setLong(14, blockNumber);
+            });
+            jdbcTemplate.update(INSERT_BLOCK_SQL, blockNumber, fresh.size(), merkleRoot, head.blockHash(), blockHash,
+                    OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC));
+            outbox.append(fresh, blockNumber);
+            return fresh;
+        });
+        rollups.record(inserted);
+    }
+
+    private List<AuditLogEntity> withoutExisting(List<AuditLogEntity> entries) {
+        Object[] ids = entries.stream().map(AuditLogEntity::getEventId).toArray();
+        Instant earliest = entries.stream().map(AuditLogEntity::getTimestamp).min(Instant::compareTo).orElseThrow();
+        Instant latest = entries.stream().map(AuditLogEntity::getTimestamp).max(Instant::compareTo).orElseThrow();
+        Set<UUID> existing = new HashSet<>();
+        // The timestamp bounds let Postgres prune the lookup to the partitions the batch falls into
+        jdbcTemplate.query("SELECT event_id FROM audit_logs WHERE event_id = ANY (?) AND timestamp BETWEEN ? AND ?",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids));
+                    ps.setObject(2, OffsetDateTime.ofInstant(earliest, ZoneOffset.UTC));
+                    ps.setObject(3, OffsetDateTime.ofInstant(latest, ZoneOffset.UTC));
+                },
+                rs -> {
+                    existing.add(rs.getObject(1, UUID.class));
+                });
+
+        Set<UUID> seen = new HashSet<>();
+        List<AuditLogEntity> fresh = new ArrayList<>(entries.size());
+        for (AuditLogEntity entry : entries) {
+            if (!existing.contains(entry.getEventId()) && seen.add(entry.getEventId())) {
+                fresh.add(entry);
+            }
+        }
+        return fresh;
+    }
+
+    private ChainHead chainHead() {
+        List<ChainHead> head = jdbcTemplate.query(
+                "SELECT block_number, block_hash FROM audit_integrity_blocks ORDER BY block_number DESC LIMIT 1",
+                (rs, row) -> new ChainHead(rs.getLong(1), rs.getString(2)));
+        return head.isEmpty() ? new ChainHead(0, AuditIntegrity.GENESIS_HASH) : head.get(0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Filters of an audit history query, every null field matches everything.
+ * The time range is half-open, {@code from} inclusive and {@code to} exclusive.
+ * The IP is expected in canonical form and the event type to be an
+ * {@link AuditEventType} name, callers validate both.
+ */
+public record AuditLogCriteria(String email, String ipAddress, String eventType, Instant from, Instant to) {
+
+    public boolean matches(AuditLogEntity entry) {
+        return (email == null || email.equals(entry.getEmail()))
+                && (ipAddress == null || ipAddress.equals(entry.getIpAddress()))
+                && (eventType == null || eventType.equals(entry.getEventType()))
+                && (from == null || !entry.getTimestamp().isBefore(from))
+                && (to == null || entry.getTimestamp().isBefore(to));
+    }
+
+    // Appends the filters as " AND ..." conditions on audit_logs columns, with their bind values
+    public void appendSql(StringBuilder sql, List<Object> args) {
+        if (email != null) {
+            sql.append(" AND email = ?");
+            args.add(email);
+        }
+        if (ipAddress != null) {
+            sql.append(" AND ip_address = ?::inet");
+            args.add(ipAddress);
+        }
+        if (eventType != null) {
+            sql.append(" AND event_type = ?");
+            args.add(AuditEventType.valueOf(eventType).getCode());
+        }
+        if (from != null) {
+            sql.append(" AND timestamp >= ?");
+            args.add(OffsetDateTime.ofInstant(from, ZoneOffset.UTC));
+        }
+        if (to != null) {
+            sql.append(" AND timestamp < ?");
+            args.add(OffsetDateTime.ofInstant(to, ZoneOffset.UTC));
+        }
+    }
+}
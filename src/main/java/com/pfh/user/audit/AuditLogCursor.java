@@ -0,0 +1,42 @@
+package com.pfh.user.audit;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in (timestamp, event id) order. Clients only see the opaque
+ * URL-safe encoding, which keeps them from building positions of their own.
+ */
+public record AuditLogCursor(Instant timestamp, UUID eventId) {
+
+    private static final byte VERSION = 1;
+    private static final int ENCODED_BYTES = 1 + 8 + 4 + 16;
+
+    public String encode() {
+        ByteBuffer bytes = ByteBuffer.allocate(ENCODED_BYTES)
+                .put(VERSION)
+                .putLong(timestamp.getEpochSecond())
+                .putInt(timestamp.getNano())
+                .putLong(eventId.getMostSignificantBits())
+                .putLong(eventId.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+    }
+
+    // Throws IllegalArgumentException for anything that is not a cursor this class produced
+    public static AuditLogCursor decode(String encoded) {
+        byte[] raw = Base64.getUrlDecoder().decode(encoded);
+        if (raw.length != ENCODED_BYTES || raw[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown cursor format");
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(raw, 1, raw.length - 1);
+        Instant timestamp = Instant.ofEpochSecond(bytes.getLong(), bytes.getInt());
+        return new AuditLogCursor(timestamp, new UUID(bytes.getLong(), bytes.getLong()));
+    }
+
+    public boolean isBefore(Instant otherTimestamp, UUID otherEventId) {
+        int byTime = timestamp.compareTo(otherTimestamp);
+        return byTime < 0 || (byTime == 0 && AuditIntegrity.EVENT_ORDER.compare(eventId, otherEventId) < 0);
+    }
+}
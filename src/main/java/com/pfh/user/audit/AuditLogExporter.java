@@ -0,0 +1,274 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.audit.archive.AuditArchive;
+import com.pfh.user.config.audit.AuditExportProperties;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditExportFormat;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams audit rows to an output stream without ever holding more than one
+ * cursor fetch in memory. Archived months come first, straight from the cold
+ * segments, then the hot rows through a Postgres server-side cursor: with
+ * autocommit off and a fetch size set, pgjdbc pulls {@code fetchSize} rows per
+ * round trip and the server only computes rows as they are fetched.
+ *
+ * A client that disconnects surfaces as a failed write; the export stops, the
+ * cursor is closed and the transaction rolled back, which ends the query.
+ * Rows are written as they are read, so memory stays at one fetch plus the
+ * output buffers however many rows the export covers.
+ */
+@Slf4j
+@Component
+public class AuditLogExporter {
+
+    private static final String[] CSV_HEADER = {"event_id", "timestamp", "user_id", "email", "ip_address",
+            "user_agent", "event_type", "failure_reason", "lockout_duration_minutes", "trigger_event",
+            "integrity_hash", "block_number", "occurrence_count", "last_occurred_at", "amendment_hash"};
+
+    private interface RowSink {
+        void write(AuditLogEntity row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private interface RowConsumer {
+        void accept(AuditLogEntity row) throws IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditPartitionManager partitionManager;
+    private final AuditArchive archive;
+    private final AuditExportProperties properties;
+    private final JsonFactory jsonFactory;
+    private final Semaphore slots;
+    private final Counter exportedCounter;
+    private final Counter abortedCounter;
+
+    public AuditLogExporter(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                            AuditPartitionManager partitionManager, AuditArchive archive,
+                            AuditExportProperties properties, ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionManager = partitionManager;
+        this.archive = archive;
+        this.properties = properties;
+        this.jsonFactory = objectMapper.getFactory();
+        this.slots = new Semaphore(Math.max(1, properties.getMaxConcurrent()));
+        this.exportedCounter = Counter.builder("audit.export.rows").register(meterRegistry);
+        this.abortedCounter = Counter.builder("audit.export.aborted").register(meterRegistry);
+    }
+
+    // Reserves an export slot, must be paired with release() once the stream is done
+    public boolean tryAcquire() {
+        return slots.tryAcquire();
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    public void export(AuditLogCriteria criteria, AuditExportFormat format, OutputStream out) throws IOException {
+        RowSink sink = format == AuditExportFormat.CSV ? csvSink(out) : ndjsonSink(out);
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try {
+            RowConsumer counting = row -> {
+                sink.write(row);
+                rows[0]++;
+            };
+            // Archived months are detached from audit_logs, so the two tiers never overlap
+            exportCold(criteria, counting);
+            exportHot(criteria, counting);
+            sink.finish();
+        } catch (IOException | UncheckedIOException ex) {
+            abortedCounter.increment();
+            log.info("Audit export stopped after {} rows: {}", rows[0], ex.getMessage());
+            throw ex instanceof UncheckedIOException unchecked ? unchecked.getCause() : (IOException) ex;
+        } finally {
+            exportedCounter.increment(rows[0]);
+            log.debug("Audit export of {} rows took {} ms", rows[0], (System.nanoTime() - start) / 1_000_000L);
+        }
+    }
+
+    private void exportCold(AuditLogCriteria criteria, RowConsumer consumer) {
+        Instant coldTierEnd = partitionManager.coldTierEnd();
+        if (coldTierEnd == null || !archive.isEnabled()
+                || (criteria.from() != null && !criteria.from().isBefore(coldTierEnd))) {
+            return;
+        }
+        Instant coldTo = criteria.to() == null || criteria.to().isAfter(coldTierEnd) ? coldTierEnd : criteria.to();
+        archive.search(new AuditLogCriteria(criteria.email(), criteria.ipAddress(), criteria.eventType(),
+                criteria.from(), coldTo), row -> {
+            try {
+                consumer.accept(row);
+                return true;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private void exportHot(AuditLogCriteria criteria, RowConsumer consumer) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(AuditLogRowMapper.COLUMNS)
+                .append(" FROM audit_logs WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        criteria.appendSql(sql, args);
+        sql.append(" ORDER BY timestamp, event_id");
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            // A server-side cursor only exists inside a transaction
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(properties.getFetchSize());
+                for (int i = 0; i < args.size(); i++) {
+                    statement.setObject(i + 1, args.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    int rowNum = 0;
+                    while (rs.next()) {
+                        consumer.accept(AuditLogRowMapper.INSTANCE.mapRow(rs, rowNum++));
+                    }
+                }
+                connection.commit();
+                return null;
+            } catch (IOException ex) {
+                connection.rollback();
+                throw new UncheckedIOException(ex);
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private RowSink ndjsonSink(OutputStream out) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+        json.setRootValueSeparator(null);
+        return new RowSink() {
+            @Override
+            public void write(AuditLogEntity row) throws IOException {
+                json.writeStartObject();
+                json.writeStringField("eventId", row.getEventId() != null ? row.getEventId().toString() : null);
+                json.writeStringField("timestamp", row.getTimestamp().toString());
+                json.writeStringField("userId", row.getUserId());
+                json.writeStringField("email", row.getEmail());
+                json.writeStringField("ipAddress", row.getIpAddress());
+                json.writeStringField("userAgent", row.getUserAgent());
+                json.writeStringField("eventType", row.getEventType());
+                json.writeStringField("failureReason", row.getFailureReason());
+                if (row.getLockoutDurationMinutes() != null) {
+                    json.writeNumberField("lockoutDurationMinutes", row.getLockoutDurationMinutes());
+                } else {
+                    json.writeNullField("lockoutDurationMinutes");
+                }
+                json.writeStringField("triggerEvent", row.getTriggerEvent());
+                json.writeStringField("integrityHash", row.getIntegrityHash());
+                if (row.getBlockNumber() != null) {
+                    json.writeNumberField("blockNumber", row.getBlockNumber());
+                } else {
+                    json.writeNullField("blockNumber");
+                }
+                if (row.getOccurrenceCount() != null) {
+                    json.writeNumberField("occurrenceCount", row.getOccurrenceCount());
+                } else {
+                    json.writeNullField("occurrenceCount");
+                }
+                json.writeStringField("lastOccurredAt",
+                        row.getLastOccurredAt() != null ? row.getLastOccurredAt().toString() : null);
+                json.writeStringField("amendmentHash", row.getAmendmentHash());
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+
+            @Override
+            public void finish() throws IOException {
+                json.flush();
+            }
+        };
+    }
+
+    private RowSink csvSink(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writeCsvLine(writer, CSV_HEADER);
+        return new RowSink() {
+            @Override
+            public void write(AuditLogEntity row) throws IOException {
+                writeCsvLine(writer, new String[]{
+                        row.getEventId() != null ? row.getEventId().toString() : null,
+                        row.getTimestamp().toString(),
+                        row.getUserId(),
+                        row.getEmail(),
+                        row.getIpAddress(),
+                        row.getUserAgent(),
+                        row.getEventType(),
+                        row.getFailureReason(),
+                        row.getLockoutDurationMinutes() != null ? row.getLockoutDurationMinutes().toString() : null,
+                        row.getTriggerEvent(),
+                        row.getIntegrityHash(),
+                        row.getBlockNumber() != null ? row.getBlockNumber().toString() : null,
+                        row.getOccurrenceCount() != null ? row.getOccurrenceCount().toString() : null,
+                        row.getLastOccurredAt() != null ? row.getLastOccurredAt().toString() : null,
+                        row.getAmendmentHash()});
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks, and double embedded quotes
+    private static void writeCsvLine(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0
+                    || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,67 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.util.IpAddresses;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Maps a full {@code audit_logs} row selected through {@link #COLUMNS} for the
+ * JDBC read paths that bypass JPA, decoding the compact storage back into the
+ * strings the entity (and its leaf hash) carries.
+ */
+public final class AuditLogRowMapper implements RowMapper<AuditLogEntity> {
+
+    public static final String COLUMNS = "id, event_id, user_id, email, host(ip_address) AS ip_address, "
+            + "(SELECT ua.user_agent FROM audit_user_agents ua WHERE ua.id = user_agent_id) AS user_agent, "
+            + "user_agent_id, timestamp, event_type, failure_reason, lockout_duration_minutes, trigger_event, "
+            + "occurrence_count, last_occurred_at, integrity_hash, amendment_hash, block_number";
+
+    public static final AuditLogRowMapper INSTANCE = new AuditLogRowMapper();
+
+    private AuditLogRowMapper() {
+    }
+
+    @Override
+    public AuditLogEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return AuditLogEntity.builder()
+                .id(rs.getObject("id", Long.class))
+                .eventId(rs.getObject("event_id", UUID.class))
+                .userId(rs.getString("user_id"))
+                .email(rs.getString("email"))
+                .ipAddress(IpAddresses.canonical(rs.getString("ip_address")))
+                .userAgent(rs.getString("user_agent"))
+                .userAgentId(rs.getObject("user_agent_id", Integer.class))
+                .timestamp(rs.getObject("timestamp", OffsetDateTime.class).toInstant())
+                .eventType(eventType(rs.getObject("event_type", Short.class)))
+                .failureReason(failureReason(rs.getObject("failure_reason", Short.class)))
+                .lockoutDurationMinutes(rs.getObject("lockout_duration_minutes", Integer.class))
+                .triggerEvent(rs.getString("trigger_event"))
+                .occurrenceCount(rs.getObject("occurrence_count", Integer.class))
+                .lastOccurredAt(instant(rs.getObject("last_occurred_at", OffsetDateTime.class)))
+                .integrityHash(rs.getString("integrity_hash"))
+                .amendmentHash(rs.getString("amendment_hash"))
+                .blockNumber(rs.getObject("block_number", Long.class))
+                .build();
+    }
+
+    private static Instant instant(OffsetDateTime value) {
+        return value == null ? null : value.toInstant();
+    }
+
+    public static String eventType(Short code) {
+        return code == null ? null : AuditEventType.fromCode(code).name();
+    }
+
+    public static String failureReason(Short code) {
+        return code == null ? null : AuditFailureReason.fromCode(code).getValue();
+    }
+}
@@ -0,0 +1,111 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.audit.archive.AuditArchive;
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.util.IpAddresses;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Audit history across both tiers, one keyset page at a time. Months still
+ * attached to {@code audit_logs} are read from Postgres, older ones from the
+ * cold archive, and both sides are merged in (timestamp, event id) order so
+ * callers never see the boundary.
+ *
+ * The hot query only selects {@link AuditLogSummary} columns and seeks with a
+ * row comparison on (timestamp, event id), so each access pattern is an index
+ * only range scan on one of the covering indexes whatever the page number.
+ */
+@Component
+public class AuditLogSearch {
+
+    public static final Comparator<AuditLogSummary> ORDER = Comparator
+            .comparing(AuditLogSummary::timestamp)
+            .thenComparing(AuditLogSummary::eventId, AuditIntegrity.EVENT_ORDER);
+
+    private static final RowMapper<AuditLogSummary> SUMMARY_MAPPER = (rs, row) -> new AuditLogSummary(
+            rs.getObject("event_id", UUID.class),
+            rs.getObject("timestamp", OffsetDateTime.class).toInstant(),
+            AuditLogRowMapper.eventType(rs.getObject("event_type", Short.class)),
+            rs.getString("email"),
+            IpAddresses.canonical(rs.getString("ip_address")),
+            AuditLogRowMapper.failureReason(rs.getObject("failure_reason", Short.class)));
+
+    private final JdbcTemplate queryJdbcTemplate;
+    private final AuditPartitionManager partitionManager;
+    private final AuditArchive archive;
+
+    public AuditLogSearch(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                          AuditPartitionManager partitionManager, AuditArchive archive) {
+        // One page is the most a query may ever pull over the wire
+        this.queryJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.queryJdbcTemplate.setFetchSize(AppConstant.AUDIT_QUERY_MAX_PAGE_SIZE + 1);
+        this.queryJdbcTemplate.setMaxRows(AppConstant.AUDIT_QUERY_MAX_PAGE_SIZE + 1);
+        this.partitionManager = partitionManager;
+        this.archive = archive;
+    }
+
+    // Up to limit rows strictly after the cursor, a null cursor starts at the beginning
+    public List<AuditLogSummary> search(AuditLogCriteria criteria, AuditLogCursor after, int limit) {
+        List<AuditLogSummary> hot = searchHot(criteria, after, limit);
+
+        Instant coldTierEnd = partitionManager.coldTierEnd();
+        Instant from = criteria.from();
+        if (after != null && (from == null || after.timestamp().isAfter(from))) {
+            from = after.timestamp();
+        }
+        if (coldTierEnd == null || !archive.isEnabled() || (from != null && !from.isBefore(coldTierEnd))) {
+            return hot;
+        }
+
+        Instant coldTo = criteria.to() == null || criteria.to().isAfter(coldTierEnd) ? coldTierEnd : criteria.to();
+        AuditLogCriteria coldCriteria = new AuditLogCriteria(criteria.email(), criteria.ipAddress(),
+                criteria.eventType(), from, coldTo);
+        List<AuditLogSummary> cold = new ArrayList<>();
+        archive.search(coldCriteria, row -> {
+            if (after == null || after.isBefore(row.getTimestamp(), row.getEventId())) {
+                cold.add(AuditLogSummary.of(row));
+            }
+            return cold.size() < limit;
+        });
+        if (cold.isEmpty()) {
+            return hot;
+        }
+
+        // Rows in the default partition can predate the cold boundary, so merge rather than concatenate
+        List<AuditLogSummary> merged = new ArrayList<>(cold.size() + hot.size());
+        merged.addAll(cold);
+        merged.addAll(hot);
+        merged.sort(ORDER);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    private List<AuditLogSummary> searchHot(AuditLogCriteria criteria, AuditLogCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT event_id, timestamp, event_type, email, host(ip_address) AS ip_address, failure_reason "
+                        + "FROM audit_logs WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        criteria.appendSql(sql, args);
+        if (after != null) {
+            // The plain bound lets the planner prune partitions, the row comparison does not
+            sql.append(" AND timestamp >= ? AND (timestamp, event_id) > (?, ?)");
+            args.add(OffsetDateTime.ofInstant(after.timestamp(), ZoneOffset.UTC));
+            args.add(OffsetDateTime.ofInstant(after.timestamp(), ZoneOffset.UTC));
+            args.add(after.eventId());
+        }
+        sql.append(" ORDER BY timestamp, event_id LIMIT ?");
+        args.add(Math.min(limit, AppConstant.AUDIT_QUERY_MAX_PAGE_SIZE + 1));
+        return queryJdbcTemplate.query(sql.toString(), SUMMARY_MAPPER, args.toArray());
+    }
+}
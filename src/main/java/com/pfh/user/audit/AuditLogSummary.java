@@ -0,0 +1,20 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.entity.AuditLogEntity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Columns an audit query returns, all of them are carried by the covering indexes
+public record AuditLogSummary(UUID eventId, Instant timestamp, String eventType, String email, String ipAddress,
+                              String failureReason) {
+
+    public static AuditLogSummary of(AuditLogEntity entry) {
+        return new AuditLogSummary(entry.getEventId(), entry.getTimestamp(), entry.getEventType(), entry.getEmail(),
+                entry.getIpAddress(), entry.getFailureReason());
+    }
+
+    public AuditLogCursor cursor() {
+        return new AuditLogCursor(timestamp, eventId);
+    }
+}
@@ -0,0 +1,259 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.audit.AuditPipelineProperties;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.resilience.DatabaseGuards;
+import com.pfh.user.util.MpscRingBuffer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves audit inserts off the request thread. Request threads publish events
+ * into a bounded {@link MpscRingBuffer}; one writer thread drains it and flushes
+ * a JDBC batch once {@code batchSize} events are pending or the oldest pending
+ * event has waited {@code flushIntervalMs}. A batch the database cannot take
+ * is spilled to the {@link AuditSpillJournal}; only when that fails too is it
+ * kept and retried, so the buffer fills up and backpressure applies instead of data loss.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    // Started before and stopped after the web server, so in-flight requests still get audited
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final AuditPipelineProperties properties;
+    private final AuditLogBatchInserter inserter;
+    private final AuditSpillJournal journal;
+    private final DatabaseGuards databaseGuards;
+    private final MpscRingBuffer<AuditLogEntity> buffer;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter blockedCounter;
+    private final Counter callerRunsCounter;
+    private final Counter spilledCounter;
+
+    private final long flushIntervalNanos;
+    private final long blockTimeoutNanos;
+    private final long retryBackoffNanos;
+
+    private volatile boolean running;
+    private volatile long shutdownDeadline;
+    private volatile Thread consumer;
+
+    public AuditLogWriter(AuditPipelineProperties properties, AuditLogBatchInserter inserter,
+                          AuditSpillJournal journal, DatabaseGuards databaseGuards, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.inserter = inserter;
+        this.journal = journal;
+        this.databaseGuards = databaseGuards;
+        this.buffer = new MpscRingBuffer<>(properties.getCapacity());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getBlockTimeoutMs());
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(properties.getRetryBackoffMs());
+
+        Gauge.builder("audit.pipeline.queue.depth", buffer, MpscRingBuffer::size).register(meterRegistry);
+        Gauge.builder("audit.pipeline.queue.capacity", buffer, MpscRingBuffer::capacity).register(meterRegistry);
+        this.flushTimer = Timer.builder("audit.pipeline.flush")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("audit.pipeline.written").register(meterRegistry);
+        this.droppedCounter = Counter.builder("audit.pipeline.dropped").register(meterRegistry);
+        this.blockedCounter = Counter.builder("audit.pipeline.blocked").register(meterRegistry);
+        this.callerRunsCounter = Counter.builder("audit.pipeline.caller.runs").register(meterRegistry);
+        this.spilledCounter = Counter.builder("audit.pipeline.spilled").register(meterRegistry);
+    }
+
+    public void submit(AuditLogEntity entry) {
+        if (!running) {
+            // Before start-up or after shutdown nobody drains the buffer
+            writeOnCaller(entry);
+            return;
+        }
+        if (buffer.offer(entry)) {
+            if (buffer.size() >= properties.getBatchSize()) {
+                LockSupport.unpark(consumer);
+            }
+            return;
+        }
+
+        switch (properties.getBackpressure()) {
+            case DROP -> droppedCounter.increment();
+            case CALLER_RUNS -> writeOnCaller(entry);
+            case BLOCK -> {
+                blockedCounter.increment();
+                // Still full after waiting means the database is behind, spill locally rather than add to its load
+                if (!offerWithin(entry, blockTimeoutNanos) && !spill(List.of(entry))) {
+                    writeOnCaller(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * For callers that can push back on their own client: waits up to
+     * {@code timeoutMs} for space and returns false instead of dropping,
+     * spilling or writing on the caller thread.
+     */
+    public boolean offer(AuditLogEntity entry, long timeoutMs) {
+        if (!running) {
+            return false;
+        }
+        if (buffer.offer(entry)) {
+            if (buffer.size() >= properties.getBatchSize()) {
+                LockSupport.unpark(consumer);
+            }
+            return true;
+        }
+        blockedCounter.increment();
+        return offerWithin(entry, TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+    }
+
+    public int queueDepth() {
+        return buffer.size();
+    }
+
+    private boolean offerWithin(AuditLogEntity entry, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        do {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(this, 100_000L);
+            if (buffer.offer(entry)) {
+                return true;
+            }
+        } while (System.nanoTime() < deadline);
+        return false;
+    }
+
+    private void writeOnCaller(AuditLogEntity entry) {
+        callerRunsCounter.increment();
+        if (!flush(List.of(entry)) && !spill(List.of(entry))) {
+            throw new IllegalStateException("Audit event could not be persisted");
+        }
+    }
+
+    private void drainLoop() {
+        int batchSize = properties.getBatchSize();
+        List<AuditLogEntity> batch = new ArrayList<>(batchSize);
+        long firstPendingAt = 0;
+
+        while (running || !batch.isEmpty() || buffer.size() > 0) {
+            if (batch.size() < batchSize) {
+                boolean wasEmpty = batch.isEmpty();
+                buffer.drainTo(batch, batchSize - batch.size());
+                if (wasEmpty && !batch.isEmpty()) {
+                    firstPendingAt = System.nanoTime();
+                }
+            }
+
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+
+            long waited = System.nanoTime() - firstPendingAt;
+            if (batch.size() < batchSize && waited < flushIntervalNanos && running) {
+                LockSupport.parkNanos(this, flushIntervalNanos - waited);
+                continue;
+            }
+
+            if (flush(batch) || spill(batch)) {
+                batch.clear();
+            } else if (!running && System.nanoTime() > shutdownDeadline) {
+                log.error("Audit writer stopped with {} unflushed events", batch.size() + buffer.size());
+                return;
+            } else {
+                LockSupport.parkNanos(this, retryBackoffNanos);
+            }
+        }
+    }
+
+    private boolean flush(List<AuditLogEntity> batch) {
+        long start = System.nanoTime();
+        try {
+            databaseGuards.audit().execute(() -> {
+                inserter.insert(batch);
+                return null;
+            });
+            writtenCounter.increment(batch.size());
+            return true;
+        } catch (Throwable ex) {
+            log.warn("Audit flush of {} events failed: {}", batch.size(), ex.getMessage());
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean spill(List<AuditLogEntity> batch) {
+        if (!journal.isEnabled()) {
+            return false;
+        }
+        try {
+            journal.append(batch);
+            spilledCounter.increment(batch.size());
+            return true;
+        } catch (Exception ex) {
+            log.error("Audit spill of {} events failed: {}", batch.size(), ex.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::drainLoop, "audit-log-writer");
+        thread.setDaemon(true);
+        consumer = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        shutdownDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getShutdownTimeoutMs());
+        running = false;
+        Thread thread = consumer;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(properties.getShutdownTimeoutMs() + properties.getRetryBackoffMs());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // A producer that passed the running check just before shutdown may publish after the last drain
+        if (!thread.isAlive() && buffer.size() > 0) {
+            List<AuditLogEntity> remaining = new ArrayList<>(buffer.size());
+            buffer.drainTo(remaining, Integer.MAX_VALUE);
+            if (!flush(remaining)) {
+                spill(remaining);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
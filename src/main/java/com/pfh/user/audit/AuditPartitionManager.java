@@ -0,0 +1,439 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.audit.archive.AuditArchive;
+import com.pfh.user.config.audit.AuditPartitionProperties;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.enums.AuditRetentionAction;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the physical layout of {@code audit_logs}: a table range-partitioned by
+ * month on {@code timestamp}, so time-bounded queries only touch the months
+ * they ask for and retention removes whole partitions instead of deleting rows.
+ *
+ * The partitioned parent is created before the audit persistence unit starts,
+ * Hibernate then only adds columns. An existing unpartitioned table is kept as
+ * a single legacy partition covering everything up to the current month.
+ * Partitions are created {@code monthsAhead} in advance; a default partition
+ * catches anything outside them so an insert never fails for lack of one.
+ * A table still in the text column layout is converted to the compact one first.
+ */
+@Slf4j
+@Component("auditPartitionManager")
+public class AuditPartitionManager {
+
+    public static final String TABLE = "audit_logs";
+
+    // Arbitrary key for pg_advisory_xact_lock, keeps nodes from racing on the same DDL
+    private static final long MAINTENANCE_LOCK_KEY = 0x7061727469L;
+
+    private static final Pattern MONTHLY = Pattern.compile("audit_logs_y(\\d{4})m(\\d{2})");
+    private static final Pattern LEGACY = Pattern.compile("audit_logs_legacy_until_y(\\d{4})m(\\d{2})");
+
+    /*
+     * Column types match what Hibernate maps AuditLogEntity to. Columns that
+     * repeat on every row are compact: event type and failure reason are
+     * smallint codes (AuditEventType, AuditFailureReason), the IP is inet and
+     * the user agent an id into audit_user_agents.
+     */
+    private static final String CREATE_PARENT_SQL = """
+            CREATE TABLE IF NOT EXISTS audit_logs (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                event_id UUID,
+                user_id VARCHAR(255),
+                email VARCHAR(255),
+                ip_address INET,
+                user_agent_id INTEGER,
+                timestamp TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                event_type SMALLINT,
+                failure_reason SMALLINT,
+                lockout_duration_minutes INTEGER,
+                trigger_event VARCHAR(255),
+                occurrence_count INTEGER,
+                last_occurred_at TIMESTAMP(6) WITH TIME ZONE,
+                integrity_hash VARCHAR(255),
+                amendment_hash VARCHAR(64),
+                block_number BIGINT,
+                PRIMARY KEY (id, timestamp)
+            ) PARTITION BY RANGE (timestamp)
+            """;
+
+    private static final String CREATE_USER_AGENTS_SQL = """
+            CREATE TABLE IF NOT EXISTS audit_user_agents (
+                id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                hash BYTEA NOT NULL UNIQUE,
+                user_agent TEXT NOT NULL
+            )
+            """;
+
+    /*
+     * Covering indexes for the audit query API, one per filter it seeks on.
+     * Keys end in (timestamp, event_id) to serve the keyset order, and the
+     * INCLUDE columns complete AuditLogSummary so pages are index-only scans.
+     */
+    private static final List<String> QUERY_INDEXES = List.of(
+            "CREATE INDEX IF NOT EXISTS ix_audit_logs_email_time ON audit_logs (email, timestamp, event_id) "
+                    + "INCLUDE (event_type, ip_address, failure_reason)",
+            "CREATE INDEX IF NOT EXISTS ix_audit_logs_ip_time ON audit_logs (ip_address, timestamp, event_id) "
+                    + "INCLUDE (event_type, email, failure_reason)",
+            "CREATE INDEX IF NOT EXISTS ix_audit_logs_type_time ON audit_logs (event_type, timestamp, event_id) "
+                    + "INCLUDE (email, ip_address, failure_reason)",
+            // Unfiltered pages and exports walk this one in (timestamp, event_id) order
+            "CREATE INDEX IF NOT EXISTS ix_audit_logs_time ON audit_logs (timestamp, event_id) "
+                    + "INCLUDE (event_type, email, ip_address, failure_reason)",
+            // Rows arrive in time order, a BRIN range summary per 32 pages serves unordered time range scans cheaply
+            "CREATE INDEX IF NOT EXISTS brin_audit_logs_time ON audit_logs USING brin (timestamp) "
+                    + "WITH (pages_per_range = 32)");
+
+    private interface MaintenanceWork<T> {
+        T run(Statement statement) throws SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditPartitionProperties properties;
+    private final AuditArchive archive;
+    private volatile Instant coldTierEnd;
+
+    public AuditPartitionManager(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                 AuditPartitionProperties properties, AuditArchive archive) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.archive = archive;
+    }
+
+    public static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * Start of the oldest month still attached to {@code audit_logs}; older
+     * months only exist in the cold archive. Null while everything is hot.
+     */
+    public Instant coldTierEnd() {
+        return coldTierEnd;
+    }
+
+    // Every monthly table, attached or detached by retention, keyed by month
+    public Map<YearMonth, String> monthlyTables() {
+        Map<YearMonth, String> tables = new TreeMap<>();
+        for (String name : jdbcTemplate.queryForList(
+                "SELECT relname FROM pg_class WHERE relkind IN ('r', 'p') AND relname LIKE 'audit\\_logs\\_y%'",
+                String.class)) {
+            Matcher monthly = MONTHLY.matcher(name);
+            if (monthly.matches()) {
+                tables.put(YearMonth.of(Integer.parseInt(monthly.group(1)), Integer.parseInt(monthly.group(2))), name);
+            }
+        }
+        return tables;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        inMaintenanceTransaction(statement -> {
+            String relkind = queryString(statement,
+                    "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('" + TABLE + "')");
+            statement.execute(CREATE_USER_AGENTS_SQL);
+            if (relkind != null) {
+                compactColumns(statement);
+            }
+            if ("r".equals(relkind)) {
+                convertLegacyTable(statement);
+            } else {
+                statement.execute(CREATE_PARENT_SQL);
+            }
+            // Aggregated failures, added after the partitioned layout was introduced
+            statement.execute("ALTER TABLE audit_logs ADD COLUMN IF NOT EXISTS occurrence_count INTEGER");
+            statement.execute("ALTER TABLE audit_logs ADD COLUMN IF NOT EXISTS last_occurred_at "
+                    + "TIMESTAMP(6) WITH TIME ZONE");
+            // Rows rewritten by erasure
+            statement.execute("ALTER TABLE audit_logs ADD COLUMN IF NOT EXISTS amendment_hash VARCHAR(64)");
+            // Unique keys of a partitioned table must contain the partition key
+            statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_audit_logs_event_id ON audit_logs (event_id, timestamp)");
+            statement.execute("CREATE INDEX IF NOT EXISTS ix_audit_logs_block_number ON audit_logs (block_number)");
+            // Erasure finds a subject whatever case their address was typed in
+            statement.execute("CREATE INDEX IF NOT EXISTS ix_audit_logs_email_lower ON audit_logs (lower(email))");
+            for (String index : QUERY_INDEXES) {
+                statement.execute(index);
+            }
+            statement.execute("CREATE TABLE IF NOT EXISTS audit_logs_default PARTITION OF audit_logs DEFAULT");
+            return null;
+        });
+        ensurePartitions(currentMonth(Instant.now()));
+    }
+
+    @Scheduled(cron = "${audit.partitions.maintenance-cron:0 15 1 * * *}")
+    public void maintain() {
+        Instant now = Instant.now();
+        try {
+            ensurePartitions(currentMonth(now));
+            enforceRetention(now);
+        } catch (Exception ex) {
+            log.error("Audit partition maintenance failed, retrying on the next run", ex);
+        }
+    }
+
+    // Creates the partitions from the given month through monthsAhead after it
+    public List<String> ensurePartitions(YearMonth from) {
+        return inMaintenanceTransaction(statement -> {
+            YearMonth legacyUntil = legacyUpperBound(statement);
+            List<String> created = new ArrayList<>();
+            for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+                YearMonth month = from.plusMonths(i);
+                if (legacyUntil != null && month.isBefore(legacyUntil)) {
+                    continue;
+                }
+                if (createPartition(statement, month)) {
+                    created.add(partitionName(month));
+                }
+            }
+            if (!created.isEmpty()) {
+                log.info("Created audit partitions {}", created);
+            }
+            refreshColdTierEnd(statement);
+            return created;
+        });
+    }
+
+    public boolean createPartition(YearMonth month) {
+        return inMaintenanceTransaction(statement -> createPartition(statement, month));
+    }
+
+    /**
+     * Detaches (and with {@code DROP} also drops) every partition that ends at
+     * or before the retention cutoff and, with the archive enabled, already has
+     * its cold-tier segment recorded in the shared archive manifest. Integrity blocks with rows in it are marked pruned
+     * first, so the verifier expects those rows to be gone.
+     */
+    public List<String> enforceRetention(Instant now) {
+        if (properties.getRetentionMonths() <= 0) {
+            return List.of();
+        }
+        YearMonth cutoff = currentMonth(now).minusMonths(properties.getRetentionMonths());
+        return inMaintenanceTransaction(statement -> {
+            List<String> expired = new ArrayList<>();
+            for (String partition : partitions(statement)) {
+                YearMonth upperBound = upperBound(partition);
+                if (upperBound == null || upperBound.isAfter(cutoff)) {
+                    continue;
+                }
+                // With the cold tier enabled a month leaves the database only once the manifest holds its segment
+                if (archive.isEnabled() && !(MONTHLY.matcher(partition).matches()
+                        && archive.isArchived(upperBound.minusMonths(1)))) {
+                    log.warn("Audit partition {} is past retention but not archived yet, keeping it", partition);
+                    continue;
+                }
+                expired.add(partition);
+            }
+            for (String partition : expired) {
+                statement.executeUpdate("UPDATE audit_integrity_blocks SET pruned = TRUE WHERE block_number IN "
+                        + "(SELECT DISTINCT block_number FROM " + partition + " WHERE block_number IS NOT NULL)");
+                statement.execute("ALTER TABLE audit_logs DETACH PARTITION " + partition);
+                if (properties.getRetentionAction() == AuditRetentionAction.DROP) {
+                    statement.execute("DROP TABLE " + partition);
+                }
+                log.info("Audit partition {} past retention, {}", partition,
+                        properties.getRetentionAction() == AuditRetentionAction.DROP ? "dropped" : "detached");
+            }
+            refreshColdTierEnd(statement);
+            return expired;
+        });
+    }
+
+    private boolean createPartition(Statement statement, YearMonth month) throws SQLException {
+        String name = partitionName(month);
+        if (queryString(statement, "SELECT to_regclass('" + name + "')::text") != null) {
+            return false;
+        }
+        statement.execute("CREATE TABLE " + name + " PARTITION OF audit_logs FOR VALUES FROM ('"
+                + boundary(month) + "') TO ('" + boundary(month.plusMonths(1)) + "')");
+        return true;
+    }
+
+    /*
+     * One-off rewrite of a table still in the text layout (plain or already
+     * partitioned): codes replace event type and reason names, inet replaces the
+     * IP text and user agents move into the dictionary. Values the new types
+     * cannot hold become null, which the verifier then reports for their block.
+     */
+    private void compactColumns(Statement statement) throws SQLException {
+        String eventType = queryString(statement, "SELECT data_type FROM information_schema.columns "
+                + "WHERE table_schema = current_schema() AND table_name = '" + TABLE + "' AND column_name = 'event_type'");
+        if (!"character varying".equals(eventType)) {
+            return;
+        }
+        log.warn("Converting {} to the compact column layout, this rewrites the table once", TABLE);
+
+        statement.execute("""
+                CREATE OR REPLACE FUNCTION pg_temp.audit_try_inet(value TEXT) RETURNS INET LANGUAGE plpgsql AS $$
+                BEGIN
+                    RETURN value::inet;
+                EXCEPTION WHEN others THEN
+                    RETURN NULL;
+                END
+                $$
+                """);
+        statement.execute("ALTER TABLE audit_logs ALTER COLUMN event_type TYPE SMALLINT USING "
+                + codeCase("event_type", Arrays.stream(AuditEventType.values())
+                        .collect(Collectors.toMap(AuditEventType::name, AuditEventType::getCode))));
+        statement.execute("ALTER TABLE audit_logs ALTER COLUMN failure_reason TYPE SMALLINT USING "
+                + codeCase("failure_reason", Arrays.stream(AuditFailureReason.values())
+                        .collect(Collectors.toMap(AuditFailureReason::getValue, AuditFailureReason::getCode))));
+        statement.execute("ALTER TABLE audit_logs ALTER COLUMN ip_address TYPE INET "
+                + "USING pg_temp.audit_try_inet(ip_address)");
+
+        statement.execute("""
+                INSERT INTO audit_user_agents (hash, user_agent)
+                SELECT DISTINCT sha256(convert_to(user_agent, 'UTF8')), user_agent FROM audit_logs
+                WHERE user_agent IS NOT NULL
+                ON CONFLICT (hash) DO NOTHING
+                """);
+        statement.execute("ALTER TABLE audit_logs ADD COLUMN IF NOT EXISTS user_agent_id INTEGER");
+        statement.execute("""
+                UPDATE audit_logs l SET user_agent_id = ua.id FROM audit_user_agents ua
+                WHERE l.user_agent IS NOT NULL AND ua.hash = sha256(convert_to(l.user_agent, 'UTF8'))
+                """);
+        statement.execute("ALTER TABLE audit_logs DROP COLUMN user_agent");
+    }
+
+    private static String codeCase(String column, Map<String, Short> codes) {
+        StringBuilder sql = new StringBuilder("CASE ").append(column);
+        codes.forEach((name, code) -> sql.append(" WHEN '").append(name).append("' THEN ").append(code));
+        return sql.append(" END").toString();
+    }
+
+    private void convertLegacyTable(Statement statement) throws SQLException {
+        YearMonth until = currentMonth(Instant.now()).plusMonths(1);
+        String legacy = String.format("%s_legacy_until_y%04dm%02d", TABLE, until.getYear(), until.getMonthValue());
+        log.warn("Converting unpartitioned {} into partition {}, this scans the table once", TABLE, legacy);
+
+        statement.execute("ALTER TABLE audit_logs RENAME TO " + legacy);
+        statement.execute("ALTER TABLE " + legacy + " RENAME CONSTRAINT audit_logs_pkey TO " + legacy + "_pkey");
+        statement.execute("ALTER INDEX IF EXISTS ux_audit_logs_event_id RENAME TO " + legacy + "_event_id");
+        statement.execute("ALTER INDEX IF EXISTS ix_audit_logs_block_number RENAME TO " + legacy + "_block_number");
+        statement.execute("ALTER TABLE " + legacy + " ADD COLUMN IF NOT EXISTS event_id UUID");
+        statement.execute("ALTER TABLE " + legacy + " ADD COLUMN IF NOT EXISTS block_number BIGINT");
+        statement.execute("ALTER TABLE " + legacy + " ADD COLUMN IF NOT EXISTS occurrence_count INTEGER");
+        statement.execute("ALTER TABLE " + legacy + " ADD COLUMN IF NOT EXISTS last_occurred_at "
+                + "TIMESTAMP(6) WITH TIME ZONE");
+        statement.execute("ALTER TABLE " + legacy + " ADD COLUMN IF NOT EXISTS amendment_hash VARCHAR(64)");
+        statement.execute("ALTER TABLE " + legacy + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        statement.execute("ALTER TABLE " + legacy + " ALTER COLUMN timestamp SET NOT NULL");
+
+        statement.execute(CREATE_PARENT_SQL);
+        statement.execute("SELECT setval(pg_get_serial_sequence('audit_logs', 'id'), "
+                + "COALESCE((SELECT max(id) FROM " + legacy + "), 0) + 1, false)");
+        statement.execute("ALTER TABLE audit_logs ATTACH PARTITION " + legacy
+                + " FOR VALUES FROM (MINVALUE) TO ('" + boundary(until) + "')");
+    }
+
+    private List<String> partitions(Statement statement) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass('audit_logs') ORDER BY c.relname
+                """)) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private void refreshColdTierEnd(Statement statement) throws SQLException {
+        YearMonth oldest = null;
+        for (String partition : partitions(statement)) {
+            if (LEGACY.matcher(partition).matches()) {
+                coldTierEnd = null;
+                return;
+            }
+            YearMonth upperBound = upperBound(partition);
+            if (upperBound != null && (oldest == null || upperBound.minusMonths(1).isBefore(oldest))) {
+                oldest = upperBound.minusMonths(1);
+            }
+        }
+        coldTierEnd = oldest != null ? oldest.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant() : null;
+    }
+
+    private YearMonth legacyUpperBound(Statement statement) throws SQLException {
+        for (String partition : partitions(statement)) {
+            Matcher legacy = LEGACY.matcher(partition);
+            if (legacy.matches()) {
+                return YearMonth.of(Integer.parseInt(legacy.group(1)), Integer.parseInt(legacy.group(2)));
+            }
+        }
+        return null;
+    }
+
+    // Exclusive upper bound of a partition this class created, null for the default partition
+    private static YearMonth upperBound(String partition) {
+        Matcher monthly = MONTHLY.matcher(partition);
+        if (monthly.matches()) {
+            return YearMonth.of(Integer.parseInt(monthly.group(1)), Integer.parseInt(monthly.group(2))).plusMonths(1);
+        }
+        Matcher legacy = LEGACY.matcher(partition);
+        if (legacy.matches()) {
+            return YearMonth.of(Integer.parseInt(legacy.group(1)), Integer.parseInt(legacy.group(2)));
+        }
+        return null;
+    }
+
+    private static YearMonth currentMonth(Instant now) {
+        return YearMonth.from(now.atZone(ZoneOffset.UTC));
+    }
+
+    private static String boundary(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+
+    private static String queryString(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private <T> T inMaintenanceTransaction(MaintenanceWork<T> work) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            // Converting a legacy table can outlast the pool's socket timeout
+            connection.setNetworkTimeout(Runnable::run, 0);
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_xact_lock(" + MAINTENANCE_LOCK_KEY + ")");
+                // Give up rather than queue inserts behind a DDL lock that cannot be had
+                statement.execute("SET LOCAL lock_timeout = '3s'");
+                T result = work.run(statement);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+}
@@ -0,0 +1,269 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.audit.AuditJournalProperties;
+import com.pfh.user.entity.AuditLogEntity;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only local journal that audit events spill into while the audit
+ * database is unavailable or falling behind.
+ *
+ * The journal is a sequence of memory-mapped segment files. Each record is
+ * framed as {@code [int length][int crc32c][payload]}; the length is written
+ * last and acts as the commit marker, and a zero length or a CRC mismatch marks
+ * the end of the valid data (a torn write after a crash). Segments found at
+ * start-up are sealed and only replayed, new events always go to a fresh
+ * segment. Replay is idempotent because every event carries its own event id.
+ */
+@Slf4j
+@Component
+public class AuditSpillJournal {
+
+    private static final String FILE_PREFIX = "audit-spill-";
+    private static final String FILE_SUFFIX = ".journal";
+    private static final int HEADER_BYTES = 8;
+
+    public record ReplayBatch(List<AuditLogEntity> entries, int endPosition) {
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private int replayPosition;
+        private boolean sealed;
+
+        private Segment(Path path, int size) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+
+        private int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+    }
+
+    private final AuditJournalProperties properties;
+    private final Path directory;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSegmentId;
+    private long pendingRecords;
+    private long pendingBytes;
+    private volatile long oldestPendingMillis;
+
+    public AuditSpillJournal(AuditJournalProperties properties, MeterRegistry meterRegistry) throws IOException {
+        this.properties = properties;
+        this.directory = Path.of(properties.getDirectory());
+        if (properties.isEnabled()) {
+            Files.createDirectories(directory);
+            recover();
+        }
+
+        Gauge.builder("audit.journal.pending.records", this, AuditSpillJournal::pendingRecords).register(meterRegistry);
+        Gauge.builder("audit.journal.pending.bytes", this, AuditSpillJournal::pendingBytes).register(meterRegistry);
+        Gauge.builder("audit.journal.replay.lag.seconds", this, AuditSpillJournal::replayLagSeconds)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public synchronized void append(List<AuditLogEntity> entries) throws IOException {
+        if (!properties.isEnabled()) {
+            throw new IOException("Audit spill journal is disabled");
+        }
+        Segment active = null;
+        for (AuditLogEntity entry : entries) {
+            byte[] payload = AuditEventCodec.encode(entry);
+            int frame = HEADER_BYTES + payload.length;
+            if (frame > properties.getSegmentSizeBytes()) {
+                throw new IOException("Audit event of " + frame + " bytes does not fit a journal segment");
+            }
+
+            active = segments.peekLast();
+            if (active == null || active.sealed || active.remaining() < frame) {
+                if (active != null && !active.sealed && properties.isFsync()) {
+                    active.buffer.force();
+                }
+                active = openSegment();
+            }
+
+            int position = active.writePosition;
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            active.buffer.putInt(position + 4, (int) crc.getValue());
+            active.buffer.put(position + HEADER_BYTES, payload);
+            active.buffer.putInt(position, payload.length);
+            active.writePosition += frame;
+
+            pendingRecords++;
+            pendingBytes += frame;
+            if (oldestPendingMillis == 0) {
+                oldestPendingMillis = entry.getTimestamp().toEpochMilli();
+            }
+        }
+        if (active != null && properties.isFsync()) {
+            active.buffer.force();
+        }
+    }
+
+    // Next records to replay from the oldest segment, or null when the journal is drained
+    public synchronized ReplayBatch nextBatch(int limit) {
+        Segment oldest = segments.peekFirst();
+        if (oldest == null) {
+            return null;
+        }
+        List<AuditLogEntity> entries = new ArrayList<>(Math.min(limit, 1024));
+        int position = oldest.replayPosition;
+        while (entries.size() < limit && position < oldest.writePosition) {
+            int length = oldest.buffer.getInt(position);
+            entries.add(AuditEventCodec.decode(oldest.buffer.slice(position + HEADER_BYTES, length)));
+            position += HEADER_BYTES + length;
+        }
+        return new ReplayBatch(entries, position);
+    }
+
+    // Called once the batch is safely in the database
+    public synchronized void commit(ReplayBatch batch) {
+        Segment oldest = segments.peekFirst();
+        if (oldest == null) {
+            return;
+        }
+        pendingBytes -= batch.endPosition() - oldest.replayPosition;
+        pendingRecords -= batch.entries().size();
+        oldest.replayPosition = batch.endPosition();
+
+        if (oldest.replayPosition >= oldest.writePosition) {
+            segments.pollFirst();
+            delete(oldest);
+        }
+        oldestPendingMillis = peekOldestTimestamp();
+    }
+
+    public synchronized long pendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized long pendingBytes() {
+        return pendingBytes;
+    }
+
+    public double replayLagSeconds() {
+        long oldest = oldestPendingMillis;
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            try {
+                if (properties.isFsync()) {
+                    segment.buffer.force();
+                }
+                segment.channel.close();
+            } catch (IOException ex) {
+                log.warn("Could not close audit journal segment {}", segment.path, ex);
+            }
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, nextSegmentId++, FILE_SUFFIX));
+        Segment segment = new Segment(path, properties.getSegmentSizeBytes());
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void delete(Segment segment) {
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+            log.warn("Could not delete replayed audit journal segment {}", segment.path, ex);
+        }
+    }
+
+    private long peekOldestTimestamp() {
+        Segment oldest = segments.peekFirst();
+        if (oldest == null || oldest.replayPosition >= oldest.writePosition) {
+            return 0;
+        }
+        int length = oldest.buffer.getInt(oldest.replayPosition);
+        return AuditEventCodec.decode(oldest.buffer.slice(oldest.replayPosition + HEADER_BYTES, length))
+                .getTimestamp().toEpochMilli();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(path -> path.getFileName().toString().startsWith(FILE_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long id = Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+
+            Segment segment = new Segment(file, 0);
+            segment.writePosition = scanValidRecords(segment.buffer);
+            segment.sealed = true;
+            if (segment.writePosition == 0) {
+                delete(segment);
+                continue;
+            }
+            segments.addLast(segment);
+            pendingBytes += segment.writePosition;
+        }
+
+        oldestPendingMillis = peekOldestTimestamp();
+        if (!segments.isEmpty()) {
+            log.info("Recovered {} audit records from the spill journal", pendingRecords);
+        }
+    }
+
+    private int scanValidRecords(ByteBuffer buffer) {
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(position + HEADER_BYTES, length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                log.warn("Audit journal record at offset {} failed its CRC check, treating it as a torn tail", position);
+                break;
+            }
+            pendingRecords++;
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+}
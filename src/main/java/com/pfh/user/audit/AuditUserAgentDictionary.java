@@ -0,0 +1,92 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.AppConstant;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of user agent strings referenced by {@code audit_logs.user_agent_id}.
+ * A handful of browsers account for nearly every login, so each distinct
+ * string is stored once in {@code audit_user_agents} and the ids are cached in
+ * memory; a flush only goes to the database for agents it has not seen yet.
+ *
+ * Entries are keyed by the SHA-256 of the string, long agents would not fit a
+ * btree key. Rows are never updated or deleted, so a cached id stays valid.
+ */
+@Component
+public class AuditUserAgentDictionary {
+
+    private static final String RESOLVE_SQL = """
+            WITH inserted AS (
+                INSERT INTO audit_user_agents (hash, user_agent) VALUES (?, ?)
+                ON CONFLICT (hash) DO NOTHING
+                RETURNING id
+            )
+            SELECT id FROM inserted
+            UNION ALL
+            SELECT id FROM audit_user_agents WHERE hash = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    public AuditUserAgentDictionary(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ids for every non-null user agent in the collection, inserting unknown
+     * ones. Runs outside any insert transaction, so an id is only cached once
+     * its row is committed.
+     */
+    public Map<String, Integer> resolve(Collection<String> userAgents) {
+        Map<String, Integer> resolved = new HashMap<>();
+        for (String userAgent : userAgents) {
+            if (userAgent == null || resolved.containsKey(userAgent)) {
+                continue;
+            }
+            Integer id = ids.get(userAgent);
+            if (id == null) {
+                id = lookup(userAgent);
+                if (ids.size() >= AppConstant.AUDIT_USER_AGENT_CACHE_SIZE) {
+                    ids.clear();
+                }
+                ids.put(userAgent, id);
+            }
+            resolved.put(userAgent, id);
+        }
+        return resolved;
+    }
+
+    private Integer lookup(String userAgent) {
+        byte[] hash = hash(userAgent);
+        List<Integer> found = jdbcTemplate.queryForList(RESOLVE_SQL, Integer.class, hash, userAgent, hash);
+        if (found.isEmpty()) {
+            // Another node inserted it after this statement's snapshot was taken
+            found = jdbcTemplate.queryForList("SELECT id FROM audit_user_agents WHERE hash = ?", Integer.class, hash);
+        }
+        if (found.isEmpty()) {
+            throw new IllegalStateException("User agent could not be added to the audit dictionary");
+        }
+        return found.get(0);
+    }
+
+    private static byte[] hash(String userAgent) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(userAgent.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.util.HyperLogLog;
+import com.pfh.user.util.SpaceSaving;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming sketches of login outcomes for incidents: the IPs with the most
+ * failed logins, the most targeted emails and how many distinct IPs and
+ * targeted emails there were in the last minutes, without a query on
+ * {@code audit_logs}.
+ *
+ * Each minute has its own sketches in a ring of
+ * {@link AppConstant#LOGIN_SKETCH_BUCKETS}; a minute's bucket is cleared and
+ * reused when the ring comes round, so recording an outcome allocates
+ * nothing. A window merges the buckets of its minutes. Windows encode to a
+ * compact string, so the windows of several nodes merge into the view of
+ * the whole cluster.
+ */
+@Component
+public class LoginSketches {
+
+    /**
+     * Login outcomes between {@code from} and {@code to}, epoch millis.
+     * Attempts count every outcome; distinct IPs are over all attempts, the
+     * heavy hitters and distinct emails over failures only.
+     */
+    public record Window(long from, long to, long attempts, long failures,
+                         HyperLogLog distinctIps, HyperLogLog distinctTargetedEmails,
+                         SpaceSaving.Snapshot failureIps, SpaceSaving.Snapshot targetedEmails) {
+
+        static Window empty(long from, long to) {
+            return new Window(from, to, 0, 0,
+                    new HyperLogLog(AppConstant.LOGIN_SKETCH_PRECISION),
+                    new HyperLogLog(AppConstant.LOGIN_SKETCH_PRECISION),
+                    SpaceSaving.Snapshot.empty(), SpaceSaving.Snapshot.empty());
+        }
+
+        // Neither window is changed
+        public Window merge(Window other) {
+            return new Window(Math.min(from, other.from), Math.max(to, other.to),
+                    attempts + other.attempts, failures + other.failures,
+                    union(distinctIps, other.distinctIps),
+                    union(distinctTargetedEmails, other.distinctTargetedEmails),
+                    failureIps.merge(other.failureIps, AppConstant.LOGIN_SKETCH_HEAVY_HITTERS),
+                    targetedEmails.merge(other.targetedEmails, AppConstant.LOGIN_SKETCH_HEAVY_HITTERS));
+        }
+
+        private static HyperLogLog union(HyperLogLog first, HyperLogLog second) {
+            HyperLogLog union = HyperLogLog.of(first.registers());
+            union.merge(second);
+            return union;
+        }
+    }
+
+    private static final byte FORMAT_VERSION = 1;
+
+    // Only touched under its own monitor
+    private static final class Bucket {
+        private long minute = -1;
+        private long attempts;
+        private long failures;
+        private final HyperLogLog distinctIps = new HyperLogLog(AppConstant.LOGIN_SKETCH_PRECISION);
+        private final HyperLogLog distinctTargetedEmails = new HyperLogLog(AppConstant.LOGIN_SKETCH_PRECISION);
+        private final SpaceSaving failureIps = new SpaceSaving(AppConstant.LOGIN_SKETCH_HEAVY_HITTERS);
+        private final SpaceSaving targetedEmails = new SpaceSaving(AppConstant.LOGIN_SKETCH_HEAVY_HITTERS);
+
+        private void reset(long minute) {
+            this.minute = minute;
+            attempts = 0;
+            failures = 0;
+            distinctIps.clear();
+            distinctTargetedEmails.clear();
+            failureIps.clear();
+            targetedEmails.clear();
+        }
+
+        private Window window() {
+            return new Window(minute * AppConstant.LOGIN_SKETCH_BUCKET_MS,
+                    (minute + 1) * AppConstant.LOGIN_SKETCH_BUCKET_MS, attempts, failures,
+                    HyperLogLog.of(distinctIps.registers()), HyperLogLog.of(distinctTargetedEmails.registers()),
+                    failureIps.snapshot(), targetedEmails.snapshot());
+        }
+    }
+
+    private final Bucket[] buckets = new Bucket[AppConstant.LOGIN_SKETCH_BUCKETS];
+
+    public LoginSketches() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    // ip is canonical or null, email null when the attempt named none
+    public void record(boolean success, String email, String ip) {
+        long minute = System.currentTimeMillis() / AppConstant.LOGIN_SKETCH_BUCKET_MS;
+        Bucket bucket = buckets[(int) (minute % buckets.length)];
+        synchronized (bucket) {
+            if (bucket.minute != minute) {
+                if (bucket.minute > minute) {
+                    // The clock stepped back past the ring, this minute is gone
+                    return;
+                }
+                bucket.reset(minute);
+            }
+            bucket.attempts++;
+            if (ip != null) {
+                bucket.distinctIps.offer(ip);
+            }
+            if (success) {
+                return;
+            }
+            bucket.failures++;
+            if (ip != null) {
+                bucket.failureIps.offer(ip);
+            }
+            if (email != null) {
+                // Returns the same string when it is lower case already
+                String normalized = email.toLowerCase(Locale.ROOT);
+                bucket.distinctTargetedEmails.offer(normalized);
+                bucket.targetedEmails.offer(normalized);
+            }
+        }
+    }
+
+    // The minute in progress and the minutes - 1 before it
+    public Window window(int minutes) {
+        if (minutes < 1 || minutes > buckets.length) {
+            throw new IllegalArgumentException("minutes must be between 1 and " + buckets.length);
+        }
+        long now = System.currentTimeMillis();
+        long current = now / AppConstant.LOGIN_SKETCH_BUCKET_MS;
+        Window window = Window.empty((current - minutes + 1) * AppConstant.LOGIN_SKETCH_BUCKET_MS, now);
+        for (long minute = current - minutes + 1; minute <= current; minute++) {
+            Bucket bucket = buckets[(int) (minute % buckets.length)];
+            Window bucketWindow;
+            synchronized (bucket) {
+                if (bucket.minute != minute) {
+                    continue;
+                }
+                bucketWindow = bucket.window();
+            }
+            window = window.merge(bucketWindow);
+        }
+        return window;
+    }
+
+    public static String encode(Window window) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(window.from());
+            out.writeLong(window.to());
+            out.writeLong(window.attempts());
+            out.writeLong(window.failures());
+            writeDistinct(out, window.distinctIps());
+            writeDistinct(out, window.distinctTargetedEmails());
+            writeTop(out, window.failureIps());
+            writeTop(out, window.targetedEmails());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    // Throws IllegalArgumentException for anything encode did not produce
+    public static Window decode(String encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch format");
+            }
+            Window window = new Window(in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                    readDistinct(in), readDistinct(in), readTop(in), readTop(in));
+            if (in.read() != -1) {
+                throw new IllegalArgumentException("Trailing bytes after sketch");
+            }
+            return window;
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Truncated sketch", ex);
+        }
+    }
+
+    private static void writeDistinct(DataOutputStream out, HyperLogLog sketch) throws IOException {
+        out.writeByte(sketch.precision());
+        out.write(sketch.registers());
+    }
+
+    private static HyperLogLog readDistinct(DataInputStream in) throws IOException {
+        int precision = in.readByte();
+        if (precision != AppConstant.LOGIN_SKETCH_PRECISION) {
+            throw new IllegalArgumentException("Sketch precision " + precision + " does not match "
+                    + AppConstant.LOGIN_SKETCH_PRECISION);
+        }
+        byte[] registers = new byte[1 << precision];
+        in.readFully(registers);
+        return HyperLogLog.of(registers);
+    }
+
+    private static void writeTop(DataOutputStream out, SpaceSaving.Snapshot snapshot) throws IOException {
+        out.writeLong(snapshot.total());
+        out.writeLong(snapshot.floor());
+        out.writeInt(snapshot.entries().size());
+        for (SpaceSaving.Entry entry : snapshot.entries()) {
+            out.writeUTF(entry.value());
+            out.writeLong(entry.count());
+            out.writeLong(entry.error());
+        }
+    }
+
+    private static SpaceSaving.Snapshot readTop(DataInputStream in) throws IOException {
+        long total = in.readLong();
+        long floor = in.readLong();
+        int size = in.readInt();
+        if (size < 0 || size > AppConstant.LOGIN_SKETCH_HEAVY_HITTERS) {
+            throw new IllegalArgumentException("Sketch holds " + size + " counters, at most "
+                    + AppConstant.LOGIN_SKETCH_HEAVY_HITTERS + " are allowed");
+        }
+        List<SpaceSaving.Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new SpaceSaving.Entry(in.readUTF(), in.readLong(), in.readLong()));
+        }
+        return new SpaceSaving.Snapshot(total, floor, List.copyOf(entries));
+    }
+}
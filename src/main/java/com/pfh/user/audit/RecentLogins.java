@@ -0,0 +1,222 @@
+package com.pfh.user.audit;
+
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.util.IpAddresses;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The last {@link AppConstant#RECENT_LOGINS_PER_USER} successful logins of
+ * each recently active user, so "your last logins" never has to query
+ * {@code audit_logs}.
+ *
+ * Each user has a ring over primitive arrays: the timestamp in microseconds,
+ * the IP as 16 raw bytes and a reference to a shared user agent string. Users
+ * are kept in access order and the least recently active one is dropped past
+ * {@link AppConstant#RECENT_LOGINS_MAX_USERS}. A ring created by a login is
+ * incomplete until its first read, which merges in the user's older logins
+ * from the database; logins still queued in the audit writer are in the ring
+ * already, so the merge deduplicates on the timestamp.
+ */
+@Component
+public class RecentLogins {
+
+    public record Login(Instant timestamp, String ipAddress, String userAgent) {
+    }
+
+    // Uses ix_audit_logs_email_time backwards, the user id only filters the few rows it returns
+    private static final String LOAD_SQL = """
+            SELECT timestamp, host(ip_address),
+                   (SELECT ua.user_agent FROM audit_user_agents ua WHERE ua.id = user_agent_id)
+            FROM audit_logs
+            WHERE email = ? AND event_type = ? AND user_id = ?
+            ORDER BY timestamp DESC
+            LIMIT ?
+            """;
+
+    private static final class Ring {
+        private final long[] micros;
+        private final byte[] ips;
+        private final byte[] ipLengths; // 0 when the login had no IP, else 4 or 16
+        private final String[] userAgents;
+        private final String email;
+        private int next;
+        private int size;
+        private boolean complete;
+
+        private Ring(int capacity, String email) {
+            this.micros = new long[capacity];
+            this.ips = new byte[capacity * 16];
+            this.ipLengths = new byte[capacity];
+            this.userAgents = new String[capacity];
+            this.email = email;
+        }
+
+        private void add(long at, byte[] ip, String userAgent) {
+            micros[next] = at;
+            ipLengths[next] = (byte) (ip != null ? ip.length : 0);
+            if (ip != null) {
+                System.arraycopy(ip, 0, ips, next * 16, ip.length);
+            }
+            userAgents[next] = userAgent;
+            next = (next + 1) % micros.length;
+            size = Math.min(size + 1, micros.length);
+        }
+
+        // Slot of the i-th newest login
+        private int slot(int i) {
+            return Math.floorMod(next - 1 - i, micros.length);
+        }
+
+        private Login login(int slot) {
+            String ip = null;
+            if (ipLengths[slot] != 0) {
+                try {
+                    ip = InetAddress.getByAddress(Arrays.copyOfRange(ips, slot * 16, slot * 16 + ipLengths[slot]))
+                            .getHostAddress();
+                } catch (UnknownHostException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            return new Login(fromMicros(micros[slot]), IpAddresses.canonical(ip), userAgents[slot]);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity = AppConstant.RECENT_LOGINS_PER_USER;
+    private final Map<String, String> sharedUserAgents = new ConcurrentHashMap<>();
+
+    // Guarded by itself, a get reorders the access order too
+    private final LinkedHashMap<String, Ring> rings = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+            return size() > AppConstant.RECENT_LOGINS_MAX_USERS;
+        }
+    };
+
+    public RecentLogins(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(String userId, String email, Instant at, String ipAddress, String userAgent) {
+        Ring ring;
+        synchronized (rings) {
+            ring = rings.computeIfAbsent(userId, id -> new Ring(capacity, email));
+        }
+        synchronized (ring) {
+            ring.add(toMicros(at), toBytes(ipAddress), share(userAgent));
+        }
+    }
+
+    // Newest first, at most RECENT_LOGINS_PER_USER
+    public List<Login> recent(String userId, String email, int limit) {
+        Ring ring;
+        synchronized (rings) {
+            ring = rings.get(userId);
+        }
+        if (ring == null || !isComplete(ring)) {
+            List<Login> stored = jdbcTemplate.query(LOAD_SQL,
+                    (rs, row) -> new Login(rs.getObject(1, OffsetDateTime.class).toInstant(),
+                            IpAddresses.canonical(rs.getString(2)), rs.getString(3)),
+                    email, AuditEventType.LOGIN_SUCCESS.getCode(), userId, capacity);
+            synchronized (rings) {
+                ring = rings.computeIfAbsent(userId, id -> new Ring(capacity, email));
+            }
+            synchronized (ring) {
+                if (!ring.complete) {
+                    merge(ring, stored);
+                }
+            }
+        }
+
+        synchronized (ring) {
+            List<Login> logins = new ArrayList<>(Math.min(limit, ring.size));
+            for (int i = 0; i < Math.min(limit, ring.size); i++) {
+                logins.add(ring.login(ring.slot(i)));
+            }
+            return logins;
+        }
+    }
+
+    // Drops everything held for an email, for erasure; other nodes drop it as their users age out
+    public void forgetEmail(String email) {
+        synchronized (rings) {
+            rings.values().removeIf(ring -> email.equalsIgnoreCase(ring.email));
+        }
+    }
+
+    private static boolean isComplete(Ring ring) {
+        synchronized (ring) {
+            return ring.complete;
+        }
+    }
+
+    private void merge(Ring ring, List<Login> stored) {
+        List<Login> all = new ArrayList<>(stored);
+        for (int i = ring.size - 1; i >= 0; i--) {
+            all.add(ring.login(ring.slot(i)));
+        }
+        all.sort(Comparator.comparing(Login::timestamp));
+        ring.next = 0;
+        ring.size = 0;
+        long previous = Long.MIN_VALUE;
+        for (Login login : all) {
+            long at = toMicros(login.timestamp());
+            if (at != previous) {
+                ring.add(at, toBytes(login.ipAddress()), share(login.userAgent()));
+                previous = at;
+            }
+        }
+        ring.complete = true;
+    }
+
+    // A flood of random user agents only stops the sharing, it never grows the map further
+    private String share(String userAgent) {
+        if (userAgent == null) {
+            return null;
+        }
+        String shared = sharedUserAgents.get(userAgent);
+        if (shared != null) {
+            return shared;
+        }
+        if (sharedUserAgents.size() < AppConstant.AUDIT_USER_AGENT_CACHE_SIZE) {
+            shared = sharedUserAgents.putIfAbsent(userAgent, userAgent);
+        }
+        return shared != null ? shared : userAgent;
+    }
+
+    // The IP is already canonical, a literal parse never resolves a name
+    private static byte[] toBytes(String ipAddress) {
+        if (ipAddress == null) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(ipAddress).getAddress();
+        } catch (UnknownHostException ex) {
+            return null;
+        }
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    private static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
@@ -0,0 +1,259 @@
+package com.pfh.user.audit.archive;
+
+import com.pfh.user.audit.AuditLogCriteria;
+import com.pfh.user.config.audit.AuditArchiveProperties;
+import com.pfh.user.entity.AuditLogEntity;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Catalog of the cold tier: one segment per archived month, listed by the
+ * {@link AuditArchiveManifest} that every node shares. Each node keeps a local
+ * copy of a segment named after its checksum, fetched from the manifest on
+ * first use; copies are opened lazily and stay mapped. The only change to a
+ * segment is a complete rewrite by {@link #rewrite}, which publishes the next
+ * version, so other nodes fetch it and drop theirs on their next read.
+ */
+@Slf4j
+@Component
+public class AuditArchive {
+
+    // Files kept by a node from before the manifest, published by whichever node starts first
+    private static final Pattern LEGACY_SEGMENT = Pattern.compile("audit-logs-(\\d{4})-(\\d{2})\\.seg");
+
+    private final AuditArchiveProperties properties;
+    private final AuditArchiveManifest manifest;
+    private final Path directory;
+    private final Map<YearMonth, AuditSegmentReader> readers = new ConcurrentHashMap<>();
+
+    public AuditArchive(AuditArchiveProperties properties, AuditArchiveManifest manifest) throws IOException {
+        this.properties = properties;
+        this.manifest = manifest;
+        this.directory = Path.of(properties.getDirectory());
+        if (properties.isEnabled()) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    @PostConstruct
+    public void adoptLegacySegments() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<Path> legacy;
+        try (Stream<Path> files = Files.list(directory)) {
+            legacy = files.filter(path -> LEGACY_SEGMENT.matcher(path.getFileName().toString()).matches()).toList();
+        }
+        for (Path file : legacy) {
+            Matcher match = LEGACY_SEGMENT.matcher(file.getFileName().toString());
+            match.matches();
+            YearMonth month = YearMonth.of(Integer.parseInt(match.group(1)), Integer.parseInt(match.group(2)));
+            if (manifest.segment(month) == null) {
+                long rows;
+                try (AuditSegmentReader reader = AuditSegmentReader.open(file)) {
+                    rows = reader.rowCount();
+                }
+                try {
+                    AuditArchiveManifest.Segment segment = manifest.publish(month, 0, file, rows);
+                    Files.move(file, segmentPath(segment), StandardCopyOption.ATOMIC_MOVE);
+                    log.info("Published local audit segment of {} to the archive manifest", month);
+                    continue;
+                } catch (IllegalStateException ex) {
+                    log.info("Audit segment of {} was published by another node, using its copy", month);
+                }
+            }
+            Files.delete(file);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // Local copy of one version of a segment
+    public Path segmentPath(AuditArchiveManifest.Segment segment) {
+        return directory.resolve(String.format("audit-logs-%04d-%02d-%s.seg",
+                segment.month().getYear(), segment.month().getMonthValue(), segment.sha256()));
+    }
+
+    // Archived as soon as the manifest records the month, wherever its segment was written
+    public boolean isArchived(YearMonth month) {
+        return properties.isEnabled() && manifest.segment(month) != null;
+    }
+
+    public List<YearMonth> archivedMonths() {
+        if (!properties.isEnabled()) {
+            return List.of();
+        }
+        return manifest.segments().stream().map(AuditArchiveManifest.Segment::month).toList();
+    }
+
+    /**
+     * Streams archived rows matching the criteria in (timestamp, event id)
+     * order into {@code sink} until it returns false.
+     */
+    public void search(AuditLogCriteria criteria, Predicate<AuditLogEntity> sink) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        YearMonth first = criteria.from() != null ? YearMonth.from(criteria.from().atZone(ZoneOffset.UTC)) : null;
+        YearMonth last = criteria.to() != null ? YearMonth.from(criteria.to().atZone(ZoneOffset.UTC)) : null;
+        for (AuditArchiveManifest.Segment segment : manifest.segments()) {
+            YearMonth month = segment.month();
+            if ((first != null && month.isBefore(first)) || (last != null && month.isAfter(last))) {
+                continue;
+            }
+            try {
+                if (!reader(segment).scan(criteria, sink)) {
+                    return;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        readers.values().forEach(reader -> {
+            try {
+                reader.close();
+            } catch (IOException ex) {
+                log.warn("Could not close audit segment {}", reader.getPath(), ex);
+            }
+        });
+        readers.clear();
+    }
+
+    // The cached reader while it still maps the published version, otherwise a fresh one on a current copy
+    private AuditSegmentReader reader(AuditArchiveManifest.Segment segment) throws IOException {
+        Path path = segmentPath(segment);
+        AuditSegmentReader cached = readers.get(segment.month());
+        if (cached != null && cached.getPath().equals(path)) {
+            return cached;
+        }
+        try {
+            return readers.compute(segment.month(), (month, current) -> {
+                if (current != null && current.getPath().equals(path)) {
+                    return current;
+                }
+                try {
+                    if (!Files.exists(path)) {
+                        manifest.fetch(segment, path);
+                    }
+                    AuditSegmentReader fresh = AuditSegmentReader.open(path);
+                    // Scans still running on the old reader keep its mapping, new ones use the new copy
+                    if (current != null) {
+                        current.close();
+                    }
+                    deleteOtherCopies(month, path);
+                    return fresh;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private void deleteOtherCopies(YearMonth month, Path keep) throws IOException {
+        String prefix = String.format("audit-logs-%04d-%02d-", month.getYear(), month.getMonthValue());
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(".seg") && !file.equals(keep)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites a month's segment with every row passed through {@code change},
+     * which edits the row in place and returns true when it did, and publishes
+     * the result as the segment's next version. The segment is left untouched
+     * when no row changed. Returns the number of changed rows; throws
+     * {@link IllegalStateException} when another node rewrote it meanwhile.
+     */
+    public synchronized long rewrite(YearMonth month, Predicate<AuditLogEntity> change) throws IOException {
+        AuditArchiveManifest.Segment segment = manifest.segment(month);
+        if (segment == null) {
+            return 0;
+        }
+        AuditSegmentReader current = reader(segment);
+        long changed;
+        long rows;
+        try (AuditSegmentWriter writer = newWriter(month)) {
+            IOException[] failure = {null};
+            long[] count = {0};
+            current.scan(new AuditLogCriteria(null, null, null, null, null), row -> {
+                if (change.test(row)) {
+                    count[0]++;
+                }
+                try {
+                    writer.append(row);
+                    return true;
+                } catch (IOException ex) {
+                    failure[0] = ex;
+                    return false;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            changed = count[0];
+            if (changed == 0) {
+                return 0;
+            }
+            writer.finish();
+            rows = writer.rowCount();
+        }
+        publish(month, segment.version(), rows);
+        return changed;
+    }
+
+    // Writes a new segment of the month next to the published ones, see publish()
+    public AuditSegmentWriter newWriter(YearMonth month) throws IOException {
+        return new AuditSegmentWriter(stagingPath(month), properties.getRowsPerGroup());
+    }
+
+    /**
+     * Publishes the segment last finished by {@link #newWriter} as the version
+     * after {@code expectedVersion} and keeps it as this node's local copy.
+     * The staged file is discarded whatever the outcome.
+     */
+    public AuditArchiveManifest.Segment publish(YearMonth month, int expectedVersion, long rows) throws IOException {
+        Path staged = stagingPath(month);
+        try {
+            AuditArchiveManifest.Segment segment = manifest.publish(month, expectedVersion, staged, rows);
+            Files.move(staged, segmentPath(segment), StandardCopyOption.ATOMIC_MOVE);
+            return segment;
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    private Path stagingPath(YearMonth month) {
+        return directory.resolve(String.format("audit-logs-%04d-%02d.staged", month.getYear(), month.getMonthValue()));
+    }
+}
@@ -0,0 +1,204 @@
+package com.pfh.user.audit.archive;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Shared record of the cold tier in the audit database. A month is archived
+ * once it has a row in {@code audit_archive_segments}, whichever node exported
+ * it, and the segment bytes are stored next to it in chunks so every node can
+ * fetch its own copy. Retention relies on this table only, never on a file.
+ *
+ * Every rewrite publishes the next version of a segment under a compare and
+ * set on the current one, in one transaction with its chunks, and drops the
+ * chunks of older versions; nodes notice the new checksum and refetch.
+ */
+@Component
+public class AuditArchiveManifest {
+
+    public record Segment(YearMonth month, int version, String sha256, long rowCount) {
+    }
+
+    // One bytea row per MiB keeps both the row count and the memory of a fetch small
+    static final int CHUNK_BYTES = 1 << 20;
+
+    private static final int FETCH_CHUNKS = 4;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final String CREATE_TABLES_SQL = """
+            CREATE TABLE IF NOT EXISTS audit_archive_segments (
+                month DATE PRIMARY KEY,
+                version INTEGER NOT NULL,
+                sha256 VARCHAR(64) NOT NULL,
+                row_count BIGINT NOT NULL,
+                size_bytes BIGINT NOT NULL,
+                published_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+            );
+            CREATE TABLE IF NOT EXISTS audit_archive_chunks (
+                month DATE NOT NULL,
+                version INTEGER NOT NULL,
+                chunk_number INTEGER NOT NULL,
+                data BYTEA NOT NULL,
+                PRIMARY KEY (month, version, chunk_number)
+            )
+            """;
+
+    private static final RowMapper<Segment> SEGMENT_MAPPER = (rs, row) -> new Segment(
+            YearMonth.from(rs.getObject("month", LocalDate.class)),
+            rs.getInt("version"),
+            rs.getString("sha256"),
+            rs.getLong("row_count"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AuditArchiveManifest(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                @Qualifier("auditTransactionManager") PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(FETCH_CHUNKS);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute(CREATE_TABLES_SQL);
+    }
+
+    public List<Segment> segments() {
+        return jdbcTemplate.query("SELECT month, version, sha256, row_count FROM audit_archive_segments "
+                + "ORDER BY month", SEGMENT_MAPPER);
+    }
+
+    public Segment segment(YearMonth month) {
+        List<Segment> found = jdbcTemplate.query("SELECT month, version, sha256, row_count "
+                + "FROM audit_archive_segments WHERE month = ?", SEGMENT_MAPPER, month.atDay(1));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Stores {@code file} as the version after {@code expectedVersion} (0 for
+     * a month not archived yet). Joins the caller's transaction if there is
+     * one. Throws {@link IllegalStateException} when another node published
+     * first, the caller then has to start again from the current version.
+     */
+    public Segment publish(YearMonth month, int expectedVersion, Path file, long rowCount) throws IOException {
+        int version = expectedVersion + 1;
+        String sha256 = checksum(file);
+        long size = Files.size(file);
+        return transaction.execute(status -> {
+            // The manifest row goes first, a node that lost the race stops before writing any chunk
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            int updated = expectedVersion == 0
+                    ? jdbcTemplate.update("INSERT INTO audit_archive_segments "
+                            + "(month, version, sha256, row_count, size_bytes, published_at) VALUES (?, ?, ?, ?, ?, ?) "
+                            + "ON CONFLICT (month) DO NOTHING", month.atDay(1), version, sha256, rowCount, size, now)
+                    : jdbcTemplate.update("UPDATE audit_archive_segments SET version = ?, sha256 = ?, row_count = ?, "
+                            + "size_bytes = ?, published_at = ? WHERE month = ? AND version = ?",
+                            version, sha256, rowCount, size, now, month.atDay(1), expectedVersion);
+            if (updated != 1) {
+                throw new IllegalStateException("Audit segment of " + month + " was published by another node "
+                        + "since version " + expectedVersion);
+            }
+            storeChunks(month, version, file);
+            jdbcTemplate.update("DELETE FROM audit_archive_chunks WHERE month = ? AND version < ?",
+                    month.atDay(1), version);
+            return new Segment(month, version, sha256, rowCount);
+        });
+    }
+
+    /**
+     * Writes the segment's chunks to {@code target}, replacing it atomically
+     * once the bytes match the checksum of the manifest.
+     */
+    public void fetch(Segment segment, Path target) throws IOException {
+        Path temporary = target.resolveSibling(target.getFileName() + ".fetch");
+        MessageDigest digest = sha256();
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            readOnlyTransaction.executeWithoutResult(status -> streamingJdbcTemplate.query(
+                    "SELECT data FROM audit_archive_chunks WHERE month = ? AND version = ? ORDER BY chunk_number",
+                    rs -> {
+                        byte[] chunk = rs.getBytes(1);
+                        digest.update(chunk);
+                        try {
+                            out.write(chunk);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }, segment.month().atDay(1), segment.version()));
+        } catch (UncheckedIOException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex.getCause();
+        }
+        String actual = HEX.formatHex(digest.digest());
+        if (!actual.equals(segment.sha256())) {
+            Files.deleteIfExists(temporary);
+            throw new IOException("Fetched audit segment of " + segment.month() + " version " + segment.version()
+                    + " has checksum " + actual + ", the manifest records " + segment.sha256());
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void storeChunks(YearMonth month, int version, Path file) {
+        byte[] buffer = new byte[CHUNK_BYTES];
+        try (InputStream in = Files.newInputStream(file)) {
+            int chunk = 0;
+            int read;
+            while ((read = in.readNBytes(buffer, 0, CHUNK_BYTES)) > 0) {
+                jdbcTemplate.update("INSERT INTO audit_archive_chunks (month, version, chunk_number, data) "
+                        + "VALUES (?, ?, ?, ?)", month.atDay(1), version, chunk++,
+                        read == CHUNK_BYTES ? buffer : Arrays.copyOf(buffer, read));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String checksum(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[CHUNK_BYTES];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HEX.formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
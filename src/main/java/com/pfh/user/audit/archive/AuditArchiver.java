@@ -0,0 +1,155 @@
+package com.pfh.user.audit.archive;
+
+import com.pfh.user.audit.AuditLogRowMapper;
+import com.pfh.user.audit.AuditPartitionManager;
+import com.pfh.user.config.audit.AuditArchiveProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exports closed monthly partitions into cold-tier segments. Rows are streamed
+ * through a server-side cursor in (timestamp, event id) order straight into the
+ * segment writer, so memory is bounded by one row group whatever the month holds.
+ *
+ * One node archives at a time: each month is exported and published to the
+ * {@link AuditArchiveManifest} in one transaction holding an advisory lock, and
+ * a node that cannot take the lock leaves the remaining months to the holder.
+ */
+@Slf4j
+@Component
+public class AuditArchiver {
+
+    // Arbitrary application-wide key for pg_try_advisory_xact_lock, distinct from the other audit locks
+    private static final long ARCHIVER_LOCK_KEY = 0x61726368697665L;
+
+    private final AuditArchive archive;
+    private final AuditPartitionManager partitionManager;
+    private final AuditArchiveProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Counter archivedCounter;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AuditArchiver(AuditArchive archive, AuditPartitionManager partitionManager,
+                         AuditArchiveProperties properties,
+                         @Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                         @Qualifier("auditTransactionManager") PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.archive = archive;
+        this.partitionManager = partitionManager;
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(properties.getFetchSize());
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.archivedCounter = Counter.builder("audit.archive.rows").register(meterRegistry);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    // Archives in the background, false when disabled or a run is already in progress
+    public boolean start(LocalDate today) {
+        if (!archive.isEnabled() || !running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                archiveClosedPartitions(today);
+            } catch (Exception ex) {
+                log.error("Audit archiving failed, retrying on the next run", ex);
+            } finally {
+                running.set(false);
+            }
+        }, "audit-archiver");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    // A month's export takes long, it must not hold the scheduler thread all scheduled tasks share
+    @Scheduled(cron = "${audit.archive.cron:0 45 1 * * *}")
+    public void archiveClosedPartitions() {
+        start(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    public List<YearMonth> archiveClosedPartitions(LocalDate today) throws IOException {
+        List<YearMonth> archived = new ArrayList<>();
+        for (Map.Entry<YearMonth, String> table : partitionManager.monthlyTables().entrySet()) {
+            YearMonth month = table.getKey();
+            boolean closed = !month.plusMonths(1).atDay(1).plusDays(properties.getGraceDays()).isAfter(today);
+            if (!closed || archive.isArchived(month)) {
+                continue;
+            }
+            Boolean leading;
+            try {
+                leading = transaction.execute(status -> {
+                    if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                            "SELECT pg_try_advisory_xact_lock(" + ARCHIVER_LOCK_KEY + ")", Boolean.class))) {
+                        return false;
+                    }
+                    // Checked again under the lock, the previous holder may have archived it meanwhile
+                    if (!archive.isArchived(month)) {
+                        try {
+                            long rows = export(month, table.getValue());
+                            log.info("Archived {} audit rows of {}", rows, month);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        archived.add(month);
+                    }
+                    return true;
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            if (!Boolean.TRUE.equals(leading)) {
+                log.info("Another node is archiving audit partitions, leaving {} and later months to it", month);
+                break;
+            }
+        }
+        return archived;
+    }
+
+    // Must run in the transaction holding the archiver lock, the segment is published in it
+    public long export(YearMonth month, String table) throws IOException {
+        long rows;
+        try (AuditSegmentWriter writer = archive.newWriter(month)) {
+            streamingJdbcTemplate.query(
+                    "SELECT " + AuditLogRowMapper.COLUMNS + " FROM " + table + " ORDER BY timestamp, event_id",
+                    rs -> {
+                        try {
+                            writer.append(AuditLogRowMapper.INSTANCE.mapRow(rs, 0));
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+            writer.finish();
+            rows = writer.rowCount();
+        }
+        archive.publish(month, 0, rows);
+        archivedCounter.increment(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,111 @@
+package com.pfh.user.audit.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of a cold-tier audit segment, one file per archived month:
+ *
+ * <pre>
+ * [int MAGIC][byte VERSION]
+ * row group 0: one deflated chunk per {@link Column}
+ * row group 1: ...
+ * footer:  [long rowCount][int rowGroups]
+ *          per row group: [int rows][long minMicros][long maxMicros]
+ *                         per zone-mapped string column: [min][max]
+ *                         per column: [long offset][int compressedLength][int rawLength]
+ * trailer: [long footerOffset][int footerLength][int MAGIC]
+ * </pre>
+ *
+ * String columns are dictionary encoded per row group: a sorted dictionary
+ * followed by one varint code per row, 0 standing for null. Longs are stored
+ * as zigzag varint deltas. Rows are written in (timestamp, event id) order, so
+ * the timestamp zone map of a row group is a tight range.
+ *
+ * Version 2 appended the aggregation columns and version 3 the amendment
+ * hash; an older segment has only the first {@link #V1_COLUMNS} or
+ * {@link #V2_COLUMNS} chunks per row group and reads the rest as null.
+ */
+final class AuditSegmentFormat {
+
+    static final int MAGIC = 0x50464841; // "PFHA"
+    static final byte VERSION = 3;
+    static final int V1_COLUMNS = 13;
+    static final int V2_COLUMNS = 15;
+    static final int TRAILER_BYTES = 8 + 4 + 4;
+
+    enum Column {
+        ID, EVENT_ID, TIMESTAMP, USER_ID, EMAIL, IP_ADDRESS, USER_AGENT, EVENT_TYPE, FAILURE_REASON,
+        LOCKOUT_DURATION_MINUTES, TRIGGER_EVENT, INTEGRITY_HASH, BLOCK_NUMBER, OCCURRENCE_COUNT, LAST_OCCURRED_AT,
+        AMENDMENT_HASH
+    }
+
+    static int columnCount(byte version) {
+        return switch (version) {
+            case 1 -> V1_COLUMNS;
+            case 2 -> V2_COLUMNS;
+            default -> Column.values().length;
+        };
+    }
+
+    // String columns that carry min/max values in the footer for row group skipping
+    static final Column[] ZONE_MAPPED = {Column.EMAIL, Column.IP_ADDRESS, Column.EVENT_TYPE};
+
+    private AuditSegmentFormat() {
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static void writeZigZag(ByteArrayOutputStream out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readZigZag(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, utf8.length);
+        out.writeBytes(utf8);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // Nullable string with a presence flag, used for zone map bounds in the footer
+    static void writeNullableString(ByteArrayOutputStream out, String value) {
+        out.write(value == null ? 0 : 1);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    static String readNullableString(ByteBuffer in) {
+        return in.get() == 0 ? null : readString(in);
+    }
+}
@@ -0,0 +1,334 @@
+package com.pfh.user.audit.archive;
+
+import com.pfh.user.audit.AuditLogCriteria;
+import com.pfh.user.audit.archive.AuditSegmentFormat.Column;
+import com.pfh.user.entity.AuditLogEntity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.pfh.user.audit.archive.AuditSegmentFormat.readNullableString;
+import static com.pfh.user.audit.archive.AuditSegmentFormat.readString;
+import static com.pfh.user.audit.archive.AuditSegmentFormat.readVarLong;
+import static com.pfh.user.audit.archive.AuditSegmentFormat.readZigZag;
+
+/**
+ * Reads a segment through a read-only memory mapping. A query first drops row
+ * groups by their timestamp and string zone maps, then decodes only the filter
+ * columns of the remaining groups, and materializes the other columns only for
+ * groups that still have matching rows. Instances are immutable once opened and
+ * safe to share between threads.
+ */
+public final class AuditSegmentReader implements AutoCloseable {
+
+    private record ChunkMeta(long offset, int compressedLength, int rawLength) {
+    }
+
+    private record RowGroup(int rows, long minMicros, long maxMicros, String[] zoneMin, String[] zoneMax,
+                            ChunkMeta[] chunks) {
+    }
+
+    private record StringColumn(String[] dictionary, int[] codes) {
+        String value(int row) {
+            return codes[row] == 0 ? null : dictionary[codes[row] - 1];
+        }
+
+        // Code of the value, -1 when this row group does not contain it
+        int codeOf(String value) {
+            int index = Arrays.binarySearch(dictionary, value);
+            return index < 0 ? -1 : index + 1;
+        }
+    }
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer mapped;
+    private final long rowCount;
+    private final RowGroup[] rowGroups;
+
+    private AuditSegmentReader(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        // Segments past 2 GiB cannot be mapped in one piece, their chunks are then mapped one at a time
+        this.mapped = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+
+        ByteBuffer header = region(0, 5);
+        header.getInt();
+        int columns = AuditSegmentFormat.columnCount(header.get());
+
+        ByteBuffer trailer = region(size - AuditSegmentFormat.TRAILER_BYTES, AuditSegmentFormat.TRAILER_BYTES);
+        long footerOffset = trailer.getLong();
+        int footerLength = trailer.getInt();
+        if (trailer.getInt() != AuditSegmentFormat.MAGIC) {
+            channel.close();
+            throw new IOException(path + " is not a complete audit segment");
+        }
+
+        ByteBuffer footer = region(footerOffset, footerLength);
+        this.rowCount = footer.getLong();
+        this.rowGroups = new RowGroup[footer.getInt()];
+        int zoneColumns = AuditSegmentFormat.ZONE_MAPPED.length;
+        for (int g = 0; g < rowGroups.length; g++) {
+            int rows = footer.getInt();
+            long minMicros = footer.getLong();
+            long maxMicros = footer.getLong();
+            String[] zoneMin = new String[zoneColumns];
+            String[] zoneMax = new String[zoneColumns];
+            for (int i = 0; i < zoneColumns; i++) {
+                zoneMin[i] = readNullableString(footer);
+                zoneMax[i] = readNullableString(footer);
+            }
+            ChunkMeta[] chunks = new ChunkMeta[columns];
+            for (int c = 0; c < chunks.length; c++) {
+                chunks[c] = new ChunkMeta(footer.getLong(), footer.getInt(), footer.getInt());
+            }
+            rowGroups[g] = new RowGroup(rows, minMicros, maxMicros, zoneMin, zoneMax, chunks);
+        }
+    }
+
+    public static AuditSegmentReader open(Path path) throws IOException {
+        return new AuditSegmentReader(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Hands every matching row to {@code sink} in (timestamp, event id) order
+     * until it returns false. Returns false when the sink stopped the scan.
+     */
+    public boolean scan(AuditLogCriteria criteria, Predicate<AuditLogEntity> sink) throws IOException {
+        long fromMicros = criteria.from() != null ? toMicros(criteria.from()) : Long.MIN_VALUE;
+        long toMicros = criteria.to() != null ? toMicros(criteria.to()) : Long.MAX_VALUE;
+        String[] zoneFilters = {criteria.email(), criteria.ipAddress(), criteria.eventType()};
+
+        for (RowGroup group : rowGroups) {
+            if (group.maxMicros() < fromMicros || group.minMicros() >= toMicros || !zonesMatch(group, zoneFilters)) {
+                continue;
+            }
+
+            long[] timestamps = decodeLongs(group, Column.TIMESTAMP, null);
+            boolean[] selected = new boolean[group.rows()];
+            int matches = 0;
+            for (int row = 0; row < group.rows(); row++) {
+                selected[row] = timestamps[row] >= fromMicros && timestamps[row] < toMicros;
+            }
+            StringColumn email = filterByCode(group, Column.EMAIL, criteria.email(), selected);
+            StringColumn ip = filterByCode(group, Column.IP_ADDRESS, criteria.ipAddress(), selected);
+            StringColumn eventType = filterByCode(group, Column.EVENT_TYPE, criteria.eventType(), selected);
+            for (boolean isSelected : selected) {
+                matches += isSelected ? 1 : 0;
+            }
+            if (matches == 0) {
+                continue;
+            }
+
+            if (email == null) {
+                email = decodeStrings(group, Column.EMAIL);
+            }
+            if (ip == null) {
+                ip = decodeStrings(group, Column.IP_ADDRESS);
+            }
+            if (eventType == null) {
+                eventType = decodeStrings(group, Column.EVENT_TYPE);
+            }
+            boolean[] idNulls = new boolean[group.rows()];
+            long[] ids = decodeLongs(group, Column.ID, idNulls);
+            boolean[] blockNulls = new boolean[group.rows()];
+            long[] blockNumbers = decodeLongs(group, Column.BLOCK_NUMBER, blockNulls);
+            boolean[] lockoutNulls = new boolean[group.rows()];
+            long[] lockouts = decodeLongs(group, Column.LOCKOUT_DURATION_MINUTES, lockoutNulls);
+            boolean[] occurrenceNulls = new boolean[group.rows()];
+            long[] occurrences = decodeLongs(group, Column.OCCURRENCE_COUNT, occurrenceNulls);
+            boolean[] lastNulls = new boolean[group.rows()];
+            long[] lastOccurred = decodeLongs(group, Column.LAST_OCCURRED_AT, lastNulls);
+            UUID[] eventIds = decodeEventIds(group);
+            String[] hashes = decodeHashes(group, Column.INTEGRITY_HASH);
+            String[] amendments = decodeHashes(group, Column.AMENDMENT_HASH);
+            StringColumn userId = decodeStrings(group, Column.USER_ID);
+            StringColumn userAgent = decodeStrings(group, Column.USER_AGENT);
+            StringColumn failureReason = decodeStrings(group, Column.FAILURE_REASON);
+            StringColumn triggerEvent = decodeStrings(group, Column.TRIGGER_EVENT);
+
+            for (int row = 0; row < group.rows(); row++) {
+                if (!selected[row]) {
+                    continue;
+                }
+                AuditLogEntity entry = AuditLogEntity.builder()
+                        .id(idNulls[row] ? null : ids[row])
+                        .eventId(eventIds[row])
+                        .timestamp(fromMicros(timestamps[row]))
+                        .userId(userId.value(row))
+                        .email(email.value(row))
+                        .ipAddress(ip.value(row))
+                        .userAgent(userAgent.value(row))
+                        .eventType(eventType.value(row))
+                        .failureReason(failureReason.value(row))
+                        .lockoutDurationMinutes(lockoutNulls[row] ? null : (int) lockouts[row])
+                        .triggerEvent(triggerEvent.value(row))
+                        .occurrenceCount(occurrenceNulls[row] ? null : (int) occurrences[row])
+                        .lastOccurredAt(lastNulls[row] ? null : fromMicros(lastOccurred[row]))
+                        .integrityHash(hashes[row])
+                        .amendmentHash(amendments[row])
+                        .blockNumber(blockNulls[row] ? null : blockNumbers[row])
+                        .build();
+                if (!sink.test(entry)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    private static boolean zonesMatch(RowGroup group, String[] filters) {
+        for (int i = 0; i < filters.length; i++) {
+            String value = filters[i];
+            if (value == null) {
+                continue;
+            }
+            String min = group.zoneMin()[i];
+            String max = group.zoneMax()[i];
+            if (min == null || value.compareTo(min) < 0 || value.compareTo(max) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Narrows the selection to rows holding the value, comparing dictionary codes instead of strings
+    private StringColumn filterByCode(RowGroup group, Column column, String value, boolean[] selected)
+            throws IOException {
+        if (value == null) {
+            return null;
+        }
+        StringColumn decoded = decodeStrings(group, column);
+        int code = decoded.codeOf(value);
+        for (int row = 0; row < selected.length; row++) {
+            selected[row] &= code > 0 && decoded.codes()[row] == code;
+        }
+        return decoded;
+    }
+
+    private long[] decodeLongs(RowGroup group, Column column, boolean[] nulls) throws IOException {
+        long[] values = new long[group.rows()];
+        if (column.ordinal() >= group.chunks().length) {
+            // Column added after this segment was written
+            if (nulls != null) {
+                Arrays.fill(nulls, true);
+            }
+            return values;
+        }
+        ByteBuffer in = inflate(group.chunks()[column.ordinal()]);
+        long previous = 0;
+        for (int row = 0; row < values.length; row++) {
+            if (in.get() == 0) {
+                if (nulls != null) {
+                    nulls[row] = true;
+                }
+                continue;
+            }
+            previous += readZigZag(in);
+            values[row] = previous;
+        }
+        return values;
+    }
+
+    private StringColumn decodeStrings(RowGroup group, Column column) throws IOException {
+        ByteBuffer in = inflate(group.chunks()[column.ordinal()]);
+        String[] dictionary = new String[(int) readVarLong(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+        int[] codes = new int[group.rows()];
+        for (int row = 0; row < codes.length; row++) {
+            codes[row] = (int) readVarLong(in);
+        }
+        return new StringColumn(dictionary, codes);
+    }
+
+    private UUID[] decodeEventIds(RowGroup group) throws IOException {
+        ByteBuffer in = inflate(group.chunks()[Column.EVENT_ID.ordinal()]);
+        UUID[] ids = new UUID[group.rows()];
+        for (int row = 0; row < ids.length; row++) {
+            if (in.get() != 0) {
+                ids[row] = new UUID(in.getLong(), in.getLong());
+            }
+        }
+        return ids;
+    }
+
+    private String[] decodeHashes(RowGroup group, Column column) throws IOException {
+        String[] hashes = new String[group.rows()];
+        if (column.ordinal() >= group.chunks().length) {
+            return hashes;
+        }
+        ByteBuffer in = inflate(group.chunks()[column.ordinal()]);
+        byte[] raw = new byte[32];
+        for (int row = 0; row < hashes.length; row++) {
+            byte kind = in.get();
+            if (kind == 1) {
+                in.get(raw);
+                hashes[row] = HEX.formatHex(raw);
+            } else if (kind == 2) {
+                hashes[row] = readString(in);
+            }
+        }
+        return hashes;
+    }
+
+    private ByteBuffer inflate(ChunkMeta chunk) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(region(chunk.offset(), chunk.compressedLength()));
+            ByteBuffer out = ByteBuffer.allocate(chunk.rawLength());
+            while (out.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(out) == 0 && inflater.needsInput()) {
+                    throw new IOException("Truncated column chunk in " + path);
+                }
+            }
+            return out.flip();
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt column chunk in " + path, ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private ByteBuffer region(long offset, int length) throws IOException {
+        if (mapped != null) {
+            return mapped.slice((int) offset, length);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+}
@@ -0,0 +1,266 @@
+package com.pfh.user.audit.archive;
+
+import com.pfh.user.audit.archive.AuditSegmentFormat.Column;
+import com.pfh.user.entity.AuditLogEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+
+import static com.pfh.user.audit.archive.AuditSegmentFormat.writeNullableString;
+import static com.pfh.user.audit.archive.AuditSegmentFormat.writeString;
+import static com.pfh.user.audit.archive.AuditSegmentFormat.writeVarLong;
+import static com.pfh.user.audit.archive.AuditSegmentFormat.writeZigZag;
+
+/**
+ * Writes one segment file from rows handed in (timestamp, event id) order.
+ * Only the current row group is held in memory. The file is written under a
+ * temporary name and moved into place on {@link #finish()}, so a segment that
+ * exists is always complete.
+ */
+public final class AuditSegmentWriter implements AutoCloseable {
+
+    private record ChunkMeta(long offset, int compressedLength, int rawLength) {
+    }
+
+    private record RowGroupMeta(int rows, long minMicros, long maxMicros, String[] zoneMin, String[] zoneMax,
+                                ChunkMeta[] chunks) {
+    }
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final int rowsPerGroup;
+    private final List<AuditLogEntity> pending;
+    private final List<RowGroupMeta> rowGroups = new ArrayList<>();
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private long rowCount;
+    private boolean finished;
+
+    public AuditSegmentWriter(Path target, int rowsPerGroup) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.rowsPerGroup = rowsPerGroup;
+        this.pending = new ArrayList<>(rowsPerGroup);
+        writeFully(ByteBuffer.allocate(5).putInt(AuditSegmentFormat.MAGIC).put(AuditSegmentFormat.VERSION).flip());
+    }
+
+    public void append(AuditLogEntity row) throws IOException {
+        pending.add(row);
+        if (pending.size() >= rowsPerGroup) {
+            flushRowGroup();
+        }
+    }
+
+    public long rowCount() {
+        return rowCount + pending.size();
+    }
+
+    public void finish() throws IOException {
+        flushRowGroup();
+
+        ByteArrayOutputStream footer = new ByteArrayOutputStream();
+        ByteBuffer fixed = ByteBuffer.allocate(12).putLong(rowCount).putInt(rowGroups.size());
+        footer.writeBytes(fixed.array());
+        for (RowGroupMeta group : rowGroups) {
+            footer.writeBytes(ByteBuffer.allocate(20).putInt(group.rows())
+                    .putLong(group.minMicros()).putLong(group.maxMicros()).array());
+            for (int i = 0; i < AuditSegmentFormat.ZONE_MAPPED.length; i++) {
+                writeNullableString(footer, group.zoneMin()[i]);
+                writeNullableString(footer, group.zoneMax()[i]);
+            }
+            for (ChunkMeta chunk : group.chunks()) {
+                footer.writeBytes(ByteBuffer.allocate(16).putLong(chunk.offset())
+                        .putInt(chunk.compressedLength()).putInt(chunk.rawLength()).array());
+            }
+        }
+
+        long footerOffset = channel.position();
+        writeFully(ByteBuffer.wrap(footer.toByteArray()));
+        writeFully(ByteBuffer.allocate(AuditSegmentFormat.TRAILER_BYTES)
+                .putLong(footerOffset).putInt(footer.size()).putInt(AuditSegmentFormat.MAGIC).flip());
+        channel.force(true);
+        channel.close();
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        if (!finished) {
+            channel.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        ChunkMeta[] chunks = new ChunkMeta[Column.values().length];
+        for (Column column : Column.values()) {
+            chunks[column.ordinal()] = writeChunk(encode(column));
+        }
+
+        String[] zoneMin = new String[AuditSegmentFormat.ZONE_MAPPED.length];
+        String[] zoneMax = new String[AuditSegmentFormat.ZONE_MAPPED.length];
+        for (int i = 0; i < AuditSegmentFormat.ZONE_MAPPED.length; i++) {
+            Function<AuditLogEntity, String> getter = stringGetter(AuditSegmentFormat.ZONE_MAPPED[i]);
+            for (AuditLogEntity row : pending) {
+                String value = getter.apply(row);
+                if (value == null) {
+                    continue;
+                }
+                if (zoneMin[i] == null || value.compareTo(zoneMin[i]) < 0) {
+                    zoneMin[i] = value;
+                }
+                if (zoneMax[i] == null || value.compareTo(zoneMax[i]) > 0) {
+                    zoneMax[i] = value;
+                }
+            }
+        }
+
+        long minMicros = Long.MAX_VALUE;
+        long maxMicros = Long.MIN_VALUE;
+        for (AuditLogEntity row : pending) {
+            long micros = AuditSegmentReader.toMicros(row.getTimestamp());
+            minMicros = Math.min(minMicros, micros);
+            maxMicros = Math.max(maxMicros, micros);
+        }
+
+        rowGroups.add(new RowGroupMeta(pending.size(), minMicros, maxMicros, zoneMin, zoneMax, chunks));
+        rowCount += pending.size();
+        pending.clear();
+    }
+
+    private byte[] encode(Column column) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pending.size() * 4);
+        switch (column) {
+            case ID -> encodeLongs(out, AuditLogEntity::getId);
+            case TIMESTAMP -> encodeLongs(out, row -> AuditSegmentReader.toMicros(row.getTimestamp()));
+            case BLOCK_NUMBER -> encodeLongs(out, AuditLogEntity::getBlockNumber);
+            case LOCKOUT_DURATION_MINUTES -> encodeLongs(out, row -> row.getLockoutDurationMinutes() == null
+                    ? null : row.getLockoutDurationMinutes().longValue());
+            case OCCURRENCE_COUNT -> encodeLongs(out, row -> row.getOccurrenceCount() == null
+                    ? null : row.getOccurrenceCount().longValue());
+            case LAST_OCCURRED_AT -> encodeLongs(out, row -> row.getLastOccurredAt() == null
+                    ? null : AuditSegmentReader.toMicros(row.getLastOccurredAt()));
+            case EVENT_ID -> {
+                for (AuditLogEntity row : pending) {
+                    out.write(row.getEventId() == null ? 0 : 1);
+                    if (row.getEventId() != null) {
+                        out.writeBytes(ByteBuffer.allocate(16).putLong(row.getEventId().getMostSignificantBits())
+                                .putLong(row.getEventId().getLeastSignificantBits()).array());
+                    }
+                }
+            }
+            case INTEGRITY_HASH -> encodeHashes(out, AuditLogEntity::getIntegrityHash);
+            case AMENDMENT_HASH -> encodeHashes(out, AuditLogEntity::getAmendmentHash);
+            default -> encodeDictionary(out, stringGetter(column));
+        }
+        return out.toByteArray();
+    }
+
+    // Hashes are unique, a dictionary would only add overhead
+    private void encodeHashes(ByteArrayOutputStream out, Function<AuditLogEntity, String> getter) {
+        for (AuditLogEntity row : pending) {
+            String hash = getter.apply(row);
+            if (hash == null) {
+                out.write(0);
+            } else if (hash.length() == 64 && hash.chars().allMatch(c -> Character.digit(c, 16) >= 0)
+                    && hash.equals(hash.toLowerCase())) {
+                out.write(1);
+                out.writeBytes(HEX.parseHex(hash));
+            } else {
+                out.write(2);
+                writeString(out, hash);
+            }
+        }
+    }
+
+    private void encodeLongs(ByteArrayOutputStream out, Function<AuditLogEntity, Long> getter) {
+        long previous = 0;
+        for (AuditLogEntity row : pending) {
+            Long value = getter.apply(row);
+            out.write(value == null ? 0 : 1);
+            if (value != null) {
+                writeZigZag(out, value - previous);
+                previous = value;
+            }
+        }
+    }
+
+    private void encodeDictionary(ByteArrayOutputStream out, Function<AuditLogEntity, String> getter) {
+        // Sorted, so codes compare like the strings they stand for
+        TreeMap<String, Integer> dictionary = new TreeMap<>();
+        for (AuditLogEntity row : pending) {
+            String value = getter.apply(row);
+            if (value != null) {
+                dictionary.put(value, 0);
+            }
+        }
+        int code = 1;
+        for (var entry : dictionary.entrySet()) {
+            entry.setValue(code++);
+        }
+
+        writeVarLong(out, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            writeString(out, value);
+        }
+        for (AuditLogEntity row : pending) {
+            String value = getter.apply(row);
+            writeVarLong(out, value == null ? 0 : dictionary.get(value));
+        }
+    }
+
+    private ChunkMeta writeChunk(byte[] raw) throws IOException {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int written = deflater.deflate(buffer);
+            compressed.write(buffer, 0, written);
+        }
+        long offset = channel.position();
+        writeFully(ByteBuffer.wrap(compressed.toByteArray()));
+        return new ChunkMeta(offset, compressed.size(), raw.length);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static Function<AuditLogEntity, String> stringGetter(Column column) {
+        return switch (column) {
+            case USER_ID -> AuditLogEntity::getUserId;
+            case EMAIL -> AuditLogEntity::getEmail;
+            case IP_ADDRESS -> AuditLogEntity::getIpAddress;
+            case USER_AGENT -> AuditLogEntity::getUserAgent;
+            case EVENT_TYPE -> AuditLogEntity::getEventType;
+            case FAILURE_REASON -> AuditLogEntity::getFailureReason;
+            case TRIGGER_EVENT -> AuditLogEntity::getTriggerEvent;
+            default -> throw new IllegalArgumentException(column + " is not a string column");
+        };
+    }
+}
@@ -0,0 +1,311 @@
+package com.pfh.user.audit.erasure;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditLogCriteria;
+import com.pfh.user.audit.AuditLogRowMapper;
+import com.pfh.user.audit.RecentLogins;
+import com.pfh.user.audit.archive.AuditArchive;
+import com.pfh.user.config.audit.AuditErasureProperties;
+import com.pfh.user.entity.AuditLogEntity;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background erasure of one subject's personal data from the audit history:
+ * email, IP and user agent of every row are replaced by keyed pseudonyms
+ * ({@link AuditPseudonyms}), in the hot partitions, in partitions detached by
+ * retention and in the archived segments.
+ *
+ * Every partition table is a unit of work, and up to {@code parallelism}
+ * units run at once. A unit repeatedly locks a chunk of the subject's rows
+ * through the {@code lower(email)} index, as addresses are stored in the case
+ * they were typed in, and rewrites them in one short transaction, until a
+ * chunk comes back short; rewritten rows no longer match, so a chunk never
+ * sees a row twice and an interrupted unit simply starts over. Chunk size and
+ * pauses follow {@link AuditErasureThrottle}, so the engine gives way to the
+ * login path whenever chunks slow down or the audit pool has waiters.
+ *
+ * A row that still matches its sealed leaf gets an amendment hash (see
+ * {@link AuditIntegrity}) and keeps verifying. A row that was already
+ * tampered with is pseudonymized too but gets none, so the verifier keeps
+ * reporting it.
+ */
+@Slf4j
+@Component
+public class AuditErasureEngine {
+
+    private static final String ARCHIVE_UNIT = "archive:";
+
+    // Attached partitions of audit_logs, plus monthly partitions retention detached but kept
+    private static final String UNITS_SQL = """
+            SELECT c.relname, c.relispartition FROM pg_class c
+            WHERE c.relkind = 'r'
+              AND (c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = 'audit_logs'::regclass)
+                   OR (NOT c.relispartition AND c.relname ~ '^audit_logs_y[0-9]{4}m[0-9]{2}$'))
+            ORDER BY c.relname
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final DataSource dataSource;
+    private final AuditErasureJobs jobs;
+    private final AuditPseudonyms pseudonyms;
+    private final AuditIntegrity auditIntegrity;
+    private final AuditArchive archive;
+    private final RecentLogins recentLogins;
+    private final AuditErasureProperties properties;
+    private final Counter rewrittenCounter;
+    private final UUID node = UUID.randomUUID();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AuditErasureEngine(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                              @Qualifier("auditTransactionManager") PlatformTransactionManager transactionManager,
+                              @Qualifier("auditDataSource") DataSource dataSource, AuditErasureJobs jobs,
+                              AuditPseudonyms pseudonyms, AuditIntegrity auditIntegrity, AuditArchive archive,
+                              RecentLogins recentLogins, AuditErasureProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+        this.jobs = jobs;
+        this.pseudonyms = pseudonyms;
+        this.auditIntegrity = auditIntegrity;
+        this.archive = archive;
+        this.recentLogins = recentLogins;
+        this.properties = properties;
+        this.rewrittenCounter = Counter.builder("audit.erasure.rows.rewritten").register(meterRegistry);
+    }
+
+    // Queues the erasure of a subject and starts working on it without waiting for the next poll
+    public AuditErasureJobs.Job request(String email) {
+        AuditErasureJobs.Job job = jobs.request(email, pseudonyms.email(email));
+        recentLogins.forgetEmail(email);
+        start();
+        return job;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @Scheduled(fixedDelayString = "${audit.erasure.poll-interval-ms:10000}")
+    public void poll() {
+        start();
+    }
+
+    // Works through every claimable job in the background, false when this node already is
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                AuditErasureJobs.Claim claim;
+                while ((claim = jobs.claim(node, properties.getLeaseMs())) != null) {
+                    run(claim);
+                }
+            } catch (Exception ex) {
+                log.error("Audit erasure aborted", ex);
+            } finally {
+                running.set(false);
+            }
+        }, "audit-erasure");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    private void run(AuditErasureJobs.Claim claim) {
+        Set<String> done = jobs.completedUnits(claim.id());
+        Map<String, Boolean> tables = new LinkedHashMap<>();
+        jdbcTemplate.query(UNITS_SQL, rs -> {
+            tables.put(rs.getString(1), rs.getBoolean(2));
+        });
+        List<String> months = archive.archivedMonths().stream().map(month -> ARCHIVE_UNIT + month).toList();
+
+        AuditErasureThrottle throttle = new AuditErasureThrottle(properties, this::poolWaiters);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()));
+        List<Future<?>> units = new ArrayList<>();
+        try {
+            for (Map.Entry<String, Boolean> table : tables.entrySet()) {
+                if (!done.contains(table.getKey())) {
+                    units.add(pool.submit(() -> complete(claim, table.getKey(),
+                            eraseTable(claim, table.getKey(), table.getValue(), throttle))));
+                }
+            }
+            for (String month : months) {
+                if (!done.contains(month)) {
+                    units.add(pool.submit(() -> complete(claim, month,
+                            eraseArchive(claim, YearMonth.parse(month.substring(ARCHIVE_UNIT.length()))))));
+                }
+            }
+            for (Future<?> unit : units) {
+                unit.get();
+            }
+            jobs.complete(claim.id(), node);
+            log.info("Audit erasure {} completed", claim.id());
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            log.warn("Audit erasure {} stopped, it resumes from its checkpoints: {}", claim.id(), cause.toString());
+            jobs.release(claim.id(), node, cause.toString());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            jobs.release(claim.id(), node, "interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Void complete(AuditErasureJobs.Claim claim, String unit, long rewritten) {
+        if (!jobs.completeUnit(claim.id(), node, unit, rewritten)) {
+            throw new LeaseLostException();
+        }
+        return null;
+    }
+
+    private long eraseTable(AuditErasureJobs.Claim claim, String table, boolean attached,
+                            AuditErasureThrottle throttle) throws InterruptedException {
+        if (!attached) {
+            // Detached before these columns existed, the parent no longer adds them
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS occurrence_count INTEGER, "
+                    + "ADD COLUMN IF NOT EXISTS last_occurred_at TIMESTAMP(6) WITH TIME ZONE, "
+                    + "ADD COLUMN IF NOT EXISTS amendment_hash VARCHAR(64)");
+            // Named like the index the parent gives its partitions, so one kept from before detaching is reused
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_lower_idx ON " + table + " (lower(email))");
+        }
+        String select = "SELECT " + AuditLogRowMapper.COLUMNS + " FROM " + table
+                + " WHERE lower(email) = ? LIMIT ? FOR UPDATE";
+        String update = "UPDATE " + table + " SET email = ?, ip_address = ?::inet, user_agent_id = NULL, "
+                + "amendment_hash = ? WHERE id = ? AND timestamp = ?";
+        String lowercase = claim.subjectEmail().toLowerCase(Locale.ROOT);
+
+        long total = 0;
+        while (true) {
+            int limit = throttle.chunkSize();
+            long started = System.nanoTime();
+            Integer rewritten = transaction.execute(status -> {
+                List<AuditLogEntity> rows = jdbcTemplate.query(select, AuditLogRowMapper.INSTANCE,
+                        lowercase, limit);
+                List<Object[]> updates = new ArrayList<>(rows.size());
+                AtomicInteger unverified = new AtomicInteger();
+                for (AuditLogEntity row : rows) {
+                    String amendment = pseudonymize(row, claim);
+                    if (amendment == null) {
+                        unverified.incrementAndGet();
+                    }
+                    updates.add(new Object[]{row.getEmail(), row.getIpAddress(), amendment, row.getId(),
+                            OffsetDateTime.ofInstant(row.getTimestamp(), ZoneOffset.UTC)});
+                }
+                jdbcTemplate.batchUpdate(update, updates);
+                if (!jobs.recordChunk(claim.id(), node, properties.getLeaseMs(), rows.size(), unverified.get())) {
+                    throw new LeaseLostException();
+                }
+                return rows.size();
+            });
+            long pause = throttle.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            total += rewritten;
+            rewrittenCounter.increment(rewritten);
+            if (rewritten < limit) {
+                return total;
+            }
+            if (pause > 0) {
+                Thread.sleep(pause);
+            }
+        }
+    }
+
+    // Segments are rewritten whole, only when a read-only scan finds the subject in them
+    private long eraseArchive(AuditErasureJobs.Claim claim, YearMonth month) throws IOException {
+        String lowercase = claim.subjectEmail().toLowerCase(Locale.ROOT);
+        if (!inArchive(lowercase, month)) {
+            return 0;
+        }
+        return archive.rewrite(month, row -> {
+            if (!matches(lowercase, row)) {
+                return false;
+            }
+            row.setAmendmentHash(pseudonymize(row, claim));
+            return true;
+        });
+    }
+
+    // Zone maps hold the exact addresses, a case-insensitive match has to decode the month
+    private boolean inArchive(String lowercase, YearMonth month) {
+        boolean[] found = {false};
+        archive.search(new AuditLogCriteria(null, null, null,
+                month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant()), row -> {
+            found[0] = matches(lowercase, row);
+            return !found[0];
+        });
+        return found[0];
+    }
+
+    private static boolean matches(String lowercase, AuditLogEntity row) {
+        return row.getEmail() != null && lowercase.equals(row.getEmail().toLowerCase(Locale.ROOT));
+    }
+
+    // Replaces the personal fields in place, returns the amendment hash or null when the row did not verify
+    private String pseudonymize(AuditLogEntity row, AuditErasureJobs.Claim claim) {
+        String sealed = row.getIntegrityHash();
+        boolean intact = sealed != null && sealed.equals(auditIntegrity.leafHash(row));
+        row.setEmail(claim.emailPseudonym());
+        row.setIpAddress(pseudonyms.ipAddress(row.getIpAddress()));
+        row.setUserAgent(null);
+        row.setUserAgentId(null);
+        return intact ? auditIntegrity.amendmentHash(sealed, auditIntegrity.leafHash(row)) : null;
+    }
+
+    private int poolWaiters() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+                if (hikari.getHikariPoolMXBean() != null) {
+                    return hikari.getHikariPoolMXBean().getThreadsAwaitingConnection();
+                }
+            }
+        } catch (SQLException ex) {
+            log.debug("Could not read audit pool waiters", ex);
+        }
+        return 0;
+    }
+
+    // Another node took the job over, this one must not commit any further chunk
+    private static final class LeaseLostException extends RuntimeException {
+        private LeaseLostException() {
+            super("erasure lease lost to another node");
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.pfh.user.audit.erasure;
+
+import com.pfh.user.enums.AuditErasureStatus;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Erasure jobs and their checkpoints in the audit database.
+ *
+ * A job is worked on by the node holding its lease. The lease is renewed in
+ * the same transaction as every rewritten chunk, and that renewal is fenced on
+ * the lease owner, so a node that lost its lease can no longer commit a chunk.
+ * Each finished partition or archived month is recorded in
+ * {@code audit_erasure_progress}; a resumed job skips those and re-runs the
+ * rest, which is safe because rewritten rows no longer match the subject.
+ */
+@Component
+public class AuditErasureJobs {
+
+    public record Job(UUID id, AuditErasureStatus status, String emailPseudonym, long rowsRewritten,
+                      long rowsUnverified, int attempts, Instant requestedAt, Instant completedAt, String lastError) {
+    }
+
+    // What the node holding the lease needs to work on a job
+    public record Claim(UUID id, String subjectEmail, String emailPseudonym) {
+    }
+
+    // Attempts after which a job that keeps failing is given up
+    static final int MAX_ATTEMPTS = 5;
+
+    private static final String CREATE_TABLES_SQL = """
+            CREATE TABLE IF NOT EXISTS audit_erasure_jobs (
+                id UUID PRIMARY KEY,
+                subject_email VARCHAR(255),
+                email_pseudonym VARCHAR(255) NOT NULL,
+                status VARCHAR(16) NOT NULL,
+                rows_rewritten BIGINT NOT NULL DEFAULT 0,
+                rows_unverified BIGINT NOT NULL DEFAULT 0,
+                attempts INTEGER NOT NULL DEFAULT 0,
+                lease_owner UUID,
+                lease_until TIMESTAMP(6) WITH TIME ZONE,
+                requested_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                completed_at TIMESTAMP(6) WITH TIME ZONE,
+                last_error TEXT
+            );
+            CREATE TABLE IF NOT EXISTS audit_erasure_progress (
+                job_id UUID NOT NULL REFERENCES audit_erasure_jobs (id) ON DELETE CASCADE,
+                unit VARCHAR(255) NOT NULL,
+                rows_rewritten BIGINT NOT NULL,
+                completed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                PRIMARY KEY (job_id, unit)
+            )
+            """;
+
+    private static final String JOB_COLUMNS = "id, status, email_pseudonym, rows_rewritten, rows_unverified, "
+            + "attempts, requested_at, completed_at, last_error";
+
+    // Oldest job that is pending or whose lease ran out, skipping jobs another node is claiming right now
+    private static final String CLAIM_SQL = """
+            UPDATE audit_erasure_jobs
+            SET status = 'RUNNING', lease_owner = ?, lease_until = now() + make_interval(secs => ?),
+                attempts = attempts + 1
+            WHERE id = (
+                SELECT id FROM audit_erasure_jobs
+                WHERE status IN ('PENDING', 'RUNNING') AND (lease_until IS NULL OR lease_until < now())
+                ORDER BY requested_at
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED)
+            RETURNING id, subject_email, email_pseudonym
+            """;
+
+    private static final RowMapper<Job> JOB_MAPPER = (rs, row) -> new Job(
+            rs.getObject("id", UUID.class),
+            AuditErasureStatus.valueOf(rs.getString("status")),
+            rs.getString("email_pseudonym"),
+            rs.getLong("rows_rewritten"),
+            rs.getLong("rows_unverified"),
+            rs.getInt("attempts"),
+            rs.getObject("requested_at", OffsetDateTime.class).toInstant(),
+            rs.getObject("completed_at", OffsetDateTime.class) != null
+                    ? rs.getObject("completed_at", OffsetDateTime.class).toInstant() : null,
+            rs.getString("last_error"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditErasureJobs(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute(CREATE_TABLES_SQL);
+    }
+
+    // Returns the open job for the same subject instead of queueing a second one
+    public Job request(String subjectEmail, String emailPseudonym) {
+        List<Job> open = jdbcTemplate.query("SELECT " + JOB_COLUMNS + " FROM audit_erasure_jobs "
+                + "WHERE email_pseudonym = ? AND status IN ('PENDING', 'RUNNING')", JOB_MAPPER, emailPseudonym);
+        if (!open.isEmpty()) {
+            return open.get(0);
+        }
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO audit_erasure_jobs (id, subject_email, email_pseudonym, status, requested_at) "
+                        + "VALUES (?, ?, ?, ?, ?)", id, subjectEmail, emailPseudonym, AuditErasureStatus.PENDING.name(),
+                OffsetDateTime.now(ZoneOffset.UTC));
+        return find(id);
+    }
+
+    public Job find(UUID id) {
+        List<Job> jobs = jdbcTemplate.query("SELECT " + JOB_COLUMNS + " FROM audit_erasure_jobs WHERE id = ?",
+                JOB_MAPPER, id);
+        return jobs.isEmpty() ? null : jobs.get(0);
+    }
+
+    public List<Job> recent(int limit) {
+        return jdbcTemplate.query("SELECT " + JOB_COLUMNS + " FROM audit_erasure_jobs ORDER BY requested_at DESC "
+                + "LIMIT ?", JOB_MAPPER, limit);
+    }
+
+    public Claim claim(UUID node, long leaseMs) {
+        List<Claim> claimed = jdbcTemplate.query(CLAIM_SQL,
+                (rs, row) -> new Claim(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3)),
+                node, leaseMs / 1000.0);
+        return claimed.isEmpty() ? null : claimed.get(0);
+    }
+
+    public Set<String> completedUnits(UUID jobId) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT unit FROM audit_erasure_progress WHERE job_id = ?", String.class, jobId));
+    }
+
+    /**
+     * Adds a chunk to the job's counters and renews its lease. Must run in the
+     * chunk's transaction; false when this node no longer holds the lease, the
+     * chunk must then be rolled back.
+     */
+    public boolean recordChunk(UUID jobId, UUID node, long leaseMs, int rewritten, int unverified) {
+        return jdbcTemplate.update("""
+                UPDATE audit_erasure_jobs
+                SET rows_rewritten = rows_rewritten + ?, rows_unverified = rows_unverified + ?,
+                    lease_until = now() + make_interval(secs => ?)
+                WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'
+                """, rewritten, unverified, leaseMs / 1000.0, jobId, node) == 1;
+    }
+
+    public boolean completeUnit(UUID jobId, UUID node, String unit, long rewritten) {
+        return jdbcTemplate.update("""
+                INSERT INTO audit_erasure_progress (job_id, unit, rows_rewritten, completed_at)
+                SELECT id, ?, ?, ? FROM audit_erasure_jobs WHERE id = ? AND lease_owner = ?
+                ON CONFLICT (job_id, unit) DO NOTHING
+                """, unit, rewritten, OffsetDateTime.now(ZoneOffset.UTC), jobId, node) == 1;
+    }
+
+    // The subject's email leaves the database with the last of its rows
+    public void complete(UUID jobId, UUID node) {
+        jdbcTemplate.update("""
+                UPDATE audit_erasure_jobs
+                SET status = 'COMPLETED', subject_email = NULL, completed_at = ?, lease_owner = NULL,
+                    lease_until = NULL, last_error = NULL
+                WHERE id = ? AND lease_owner = ?
+                """, OffsetDateTime.now(ZoneOffset.UTC), jobId, node);
+    }
+
+    // Gives the lease back so the next poll retries from the checkpoints, until the attempts run out
+    public void release(UUID jobId, UUID node, String error) {
+        jdbcTemplate.update("""
+                UPDATE audit_erasure_jobs
+                SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE status END,
+                    lease_owner = NULL, lease_until = NULL, last_error = ?
+                WHERE id = ? AND lease_owner = ?
+                """, MAX_ATTEMPTS, error, jobId, node);
+    }
+}
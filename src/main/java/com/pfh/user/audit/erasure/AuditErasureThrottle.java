@@ -0,0 +1,47 @@
+package com.pfh.user.audit.erasure;
+
+import com.pfh.user.config.audit.AuditErasureProperties;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Chunk size and pause shared by the workers of one erasure job, adjusted
+ * additive-increase / multiplicative-decrease after every chunk: while chunks
+ * stay under the target latency and nobody waits for an audit connection the
+ * chunk grows by a tenth of its maximum; otherwise it halves and the workers
+ * pause, the pause doubling for as long as the load lasts.
+ */
+final class AuditErasureThrottle {
+
+    private final AuditErasureProperties properties;
+    private final IntSupplier poolWaiters;
+    private final int maxChunkSize;
+    private final int minChunkSize;
+    private int chunkSize;
+    private long pauseMs;
+
+    AuditErasureThrottle(AuditErasureProperties properties, IntSupplier poolWaiters) {
+        this.properties = properties;
+        this.poolWaiters = poolWaiters;
+        this.maxChunkSize = Math.max(1, properties.getChunkSize());
+        this.minChunkSize = Math.max(1, Math.min(properties.getMinChunkSize(), maxChunkSize));
+        this.chunkSize = maxChunkSize;
+    }
+
+    synchronized int chunkSize() {
+        return chunkSize;
+    }
+
+    // Returns how long the calling worker should pause before its next chunk
+    synchronized long record(long chunkMillis) {
+        boolean loaded = chunkMillis > properties.getTargetChunkMs() || poolWaiters.getAsInt() > 0;
+        if (loaded) {
+            chunkSize = Math.max(minChunkSize, chunkSize / 2);
+            pauseMs = pauseMs == 0 ? properties.getBackoffMs() : Math.min(properties.getMaxBackoffMs(), pauseMs * 2);
+        } else {
+            chunkSize = Math.min(maxChunkSize, chunkSize + Math.max(1, maxChunkSize / 10));
+            pauseMs = 0;
+        }
+        return pauseMs;
+    }
+}
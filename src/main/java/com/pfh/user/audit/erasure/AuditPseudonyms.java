@@ -0,0 +1,89 @@
+package com.pfh.user.audit.erasure;
+
+import com.pfh.user.config.security.AppSecrets;
+import com.pfh.user.util.IpAddresses;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Keyed, deterministic replacements for the personal fields of erased audit
+ * rows. The same email or IP always maps to the same pseudonym, so rows of
+ * one subject still correlate with each other (and an IP with other users'
+ * failures from it), while nobody without the key can map one back. Keyed
+ * from the audit integrity key under its own domain prefix, so a pseudonym
+ * never equals a leaf or block hash.
+ */
+@Component
+public class AuditPseudonyms {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String EMAIL_DOMAIN = "erased.invalid";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final ThreadLocal<Mac> mac;
+
+    @Autowired
+    public AuditPseudonyms(AppSecrets appSecrets) {
+        this(appSecrets.getAuditIntegrityKey());
+    }
+
+    public AuditPseudonyms(String key) {
+        SecretKeySpec spec = new SecretKeySpec(("audit-pseudonym:" + key).getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(spec);
+                return instance;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+
+    // Case-insensitive, as emails are compared everywhere else
+    public String email(String email) {
+        byte[] digest = digest("email:" + email.toLowerCase(Locale.ROOT));
+        return "erased-" + HEX.formatHex(digest, 0, 10) + "@" + EMAIL_DOMAIN;
+    }
+
+    public static boolean isPseudonym(String email) {
+        return email != null && email.startsWith("erased-") && email.endsWith("@" + EMAIL_DOMAIN);
+    }
+
+    /**
+     * A unique local IPv6 address (fd00::/8) in canonical form, so the column
+     * stays a valid inet and per-IP statistics keep working. Null stays null.
+     */
+    public String ipAddress(String ipAddress) {
+        if (ipAddress == null) {
+            return null;
+        }
+        byte[] address = Arrays.copyOf(digest("ip:" + ipAddress), 16);
+        address[0] = (byte) 0xfd;
+        return IpAddresses.canonical(toLiteral(address));
+    }
+
+    private byte[] digest(String value) {
+        return mac.get().doFinal(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String toLiteral(byte[] address) {
+        StringBuilder literal = new StringBuilder(39);
+        for (int i = 0; i < 16; i += 2) {
+            if (i > 0) {
+                literal.append(':');
+            }
+            literal.append(Integer.toHexString(((address[i] & 0xff) << 8) | (address[i + 1] & 0xff)));
+        }
+        return literal.toString();
+    }
+}
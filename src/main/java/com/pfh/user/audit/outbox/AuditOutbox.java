@@ -0,0 +1,155 @@
+package com.pfh.user.audit.outbox;
+
+import com.pfh.user.config.audit.AuditOutboxProperties;
+import com.pfh.user.entity.AuditLogEntity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outbox of audit events for downstream consumers, written by
+ * {@link com.pfh.user.audit.AuditLogBatchInserter} in the same transaction as
+ * the audit rows, so an event is published if and only if it is stored.
+ *
+ * Outbox rows are numbered by an identity column. Inserts run under the
+ * inserter's seal lock, so sequence numbers are handed out in commit order and
+ * a reader that has seen sequence N has seen everything before it. Each sink
+ * keeps its own high-water mark in {@code audit_outbox_offsets}; rows every
+ * sink has moved past are deleted.
+ */
+@Component
+public class AuditOutbox {
+
+    public static final String CHANNEL = "audit_outbox";
+
+    private static final String CREATE_TABLES_SQL = """
+            CREATE TABLE IF NOT EXISTS audit_outbox (
+                sequence BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                event_id UUID NOT NULL,
+                partition_key TEXT NOT NULL,
+                payload JSONB NOT NULL,
+                created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+            );
+            CREATE TABLE IF NOT EXISTS audit_outbox_offsets (
+                sink TEXT PRIMARY KEY,
+                delivered_through BIGINT NOT NULL,
+                updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+            )
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO audit_outbox (event_id, partition_key, payload, created_at)
+            VALUES (?, ?, ?::jsonb, ?)
+            """;
+
+    // What consumers receive, independent of how audit_logs stores it
+    private record Payload(UUID eventId, Instant timestamp, String eventType, String userId, String email,
+                           String ipAddress, String userAgent, String failureReason,
+                           Integer lockoutDurationMinutes, String triggerEvent, Integer occurrenceCount,
+                           Instant lastOccurredAt, Long blockNumber) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditOutboxProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public AuditOutbox(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                       AuditOutboxProperties properties, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (properties.isEnabled()) {
+            jdbcTemplate.execute(CREATE_TABLES_SQL);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // Must run inside the inserter's transaction, the NOTIFY is only sent if it commits
+    public void append(List<AuditLogEntity> inserted, long blockNumber) {
+        if (!properties.isEnabled() || inserted.isEmpty()) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<Object[]> rows = new ArrayList<>(inserted.size());
+        for (AuditLogEntity entry : inserted) {
+            rows.add(new Object[]{entry.getEventId(), partitionKey(entry), toJson(entry, blockNumber), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        jdbcTemplate.query("SELECT pg_notify(?, '')", rs -> null, CHANNEL);
+    }
+
+    public List<AuditOutboxMessage> fetchAfter(long sequence, int limit) {
+        return jdbcTemplate.query("""
+                SELECT sequence, event_id, partition_key, payload::text
+                FROM audit_outbox
+                WHERE sequence > ?
+                ORDER BY sequence
+                LIMIT ?
+                """,
+                (rs, row) -> new AuditOutboxMessage(rs.getLong(1), rs.getObject(2, UUID.class), rs.getString(3),
+                        rs.getString(4)),
+                sequence, limit);
+    }
+
+    // A sink seen for the first time starts at the oldest row still in the outbox
+    public long deliveredThrough(String sink) {
+        jdbcTemplate.update("INSERT INTO audit_outbox_offsets (sink, delivered_through, updated_at) "
+                + "VALUES (?, 0, ?) ON CONFLICT (sink) DO NOTHING", sink, OffsetDateTime.now(ZoneOffset.UTC));
+        Long offset = jdbcTemplate.queryForObject(
+                "SELECT delivered_through FROM audit_outbox_offsets WHERE sink = ?", Long.class, sink);
+        return offset != null ? offset : 0;
+    }
+
+    public void markDelivered(String sink, long sequence) {
+        jdbcTemplate.update("UPDATE audit_outbox_offsets SET delivered_through = ?, updated_at = ? WHERE sink = ?",
+                sequence, OffsetDateTime.now(ZoneOffset.UTC), sink);
+    }
+
+    // Deletes what every given sink has already received, returns the number of rows removed
+    public int prune(Collection<String> sinks) {
+        return jdbcTemplate.update("""
+                DELETE FROM audit_outbox
+                WHERE sequence <= (SELECT min(delivered_through) FROM audit_outbox_offsets WHERE sink = ANY (?))
+                """,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", sinks.toArray())));
+    }
+
+    // Failures carry only the email, so the email is what ties a user's events together
+    static String partitionKey(AuditLogEntity entry) {
+        if (entry.getEmail() != null) {
+            return entry.getEmail().toLowerCase();
+        }
+        return entry.getUserId() != null ? entry.getUserId() : "";
+    }
+
+    private String toJson(AuditLogEntity entry, long blockNumber) {
+        try {
+            return objectMapper.writeValueAsString(new Payload(entry.getEventId(), entry.getTimestamp(),
+                    entry.getEventType(), entry.getUserId(), entry.getEmail(), entry.getIpAddress(),
+                    entry.getUserAgent(), entry.getFailureReason(), entry.getLockoutDurationMinutes(),
+                    entry.getTriggerEvent(), entry.getOccurrenceCount(), entry.getLastOccurredAt(), blockNumber));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Audit event " + entry.getEventId() + " could not be serialized", ex);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.pfh.user.audit.outbox;
+
+import java.util.UUID;
+
+/**
+ * One outbox row as handed to a sink. {@code sequence} increases in commit
+ * order and is what consumers should use to drop redeliveries.
+ */
+public record AuditOutboxMessage(long sequence, UUID eventId, String partitionKey, String payload) {
+}
@@ -0,0 +1,201 @@
+package com.pfh.user.audit.outbox;
+
+import com.pfh.user.config.audit.AuditOutboxProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers the {@link AuditOutbox} to every configured {@link AuditOutboxSink}.
+ *
+ * One node at a time relays: the relay thread holds a session advisory lock on
+ * a dedicated audit pool connection, and the same connection {@code LISTEN}s
+ * on the outbox channel, so a committed batch wakes the relay straight away
+ * and the poll interval is only a fallback. Each sink is fed in sequence order
+ * from its own offset, which is advanced only after the sink accepted the
+ * batch; a crash in between redelivers that batch (at-least-once), and a
+ * failing sink holds back only its own offset, never the others'.
+ */
+@Slf4j
+@Component
+public class AuditOutboxRelay implements SmartLifecycle {
+
+    // Arbitrary application-wide key for pg_try_advisory_lock, distinct from the seal lock
+    private static final long RELAY_LOCK_KEY = 0x6f7574626f78L;
+
+    private final DataSource dataSource;
+    private final AuditOutbox outbox;
+    private final List<AuditOutboxSink> sinks;
+    private final AuditOutboxProperties properties;
+    private final Map<String, Long> retryAt = new HashMap<>();
+    private final Map<String, Counter> deliveredCounters = new HashMap<>();
+    private final Map<String, Counter> failedCounters = new HashMap<>();
+
+    private volatile boolean running;
+    private volatile Thread relay;
+
+    public AuditOutboxRelay(@Qualifier("auditDataSource") DataSource dataSource, AuditOutbox outbox,
+                            List<AuditOutboxSink> sinks, AuditOutboxProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.outbox = outbox;
+        this.sinks = sinks;
+        this.properties = properties;
+        for (AuditOutboxSink sink : sinks) {
+            deliveredCounters.put(sink.name(), Counter.builder("audit.outbox.delivered")
+                    .tag("sink", sink.name()).register(meterRegistry));
+            failedCounters.put(sink.name(), Counter.builder("audit.outbox.delivery.failed")
+                    .tag("sink", sink.name()).register(meterRegistry));
+        }
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (tryLead(connection)) {
+                    try {
+                        lead(connection);
+                    } finally {
+                        // Session state would otherwise go back to the pool with the connection
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("UNLISTEN " + AuditOutbox.CHANNEL);
+                            statement.execute("SELECT pg_advisory_unlock(" + RELAY_LOCK_KEY + ")");
+                        }
+                    }
+                }
+            } catch (Exception ex) {
+                log.warn("Audit outbox relay lost its connection, retrying: {}", ex.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(properties.getRetryBackoffMs()));
+                continue;
+            }
+            if (running) {
+                // Another node leads, check again later without holding a pooled connection
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(properties.getPollIntervalMs()));
+            }
+        }
+    }
+
+    private boolean tryLead(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_try_advisory_lock(" + RELAY_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private void lead(Connection connection) throws SQLException {
+        // Waiting for a notification can outlast the pool's socket timeout
+        connection.setNetworkTimeout(Runnable::run, 0);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + AuditOutbox.CHANNEL);
+        }
+        PGConnection listener = connection.unwrap(PGConnection.class);
+        log.info("Audit outbox relay is leading with sinks {}", sinks.stream().map(AuditOutboxSink::name).toList());
+
+        while (running) {
+            boolean more = deliverPending();
+            if (!more) {
+                // Returns early on NOTIFY, drains anything else that arrived meanwhile
+                listener.getNotifications((int) idleWaitMillis());
+            }
+        }
+    }
+
+    // Returns true while some sink has a full batch behind it
+    boolean deliverPending() {
+        boolean more = false;
+        boolean advanced = false;
+        long now = System.currentTimeMillis();
+        for (AuditOutboxSink sink : sinks) {
+            if (retryAt.getOrDefault(sink.name(), 0L) > now) {
+                continue;
+            }
+            long offset = outbox.deliveredThrough(sink.name());
+            List<AuditOutboxMessage> batch = outbox.fetchAfter(offset, properties.getBatchSize());
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                sink.deliver(batch);
+            } catch (Exception ex) {
+                failedCounters.get(sink.name()).increment();
+                retryAt.put(sink.name(), now + properties.getRetryBackoffMs());
+                log.warn("Audit outbox sink {} failed {} events after sequence {}: {}", sink.name(), batch.size(),
+                        offset, ex.getMessage());
+                continue;
+            }
+            retryAt.remove(sink.name());
+            outbox.markDelivered(sink.name(), batch.get(batch.size() - 1).sequence());
+            deliveredCounters.get(sink.name()).increment(batch.size());
+            advanced = true;
+            more |= batch.size() == properties.getBatchSize();
+        }
+        if (advanced) {
+            outbox.prune(sinks.stream().map(AuditOutboxSink::name).toList());
+        }
+        return more;
+    }
+
+    // Until the next fallback poll, or sooner if a failed sink is due for its retry
+    private long idleWaitMillis() {
+        long wait = properties.getPollIntervalMs();
+        long now = System.currentTimeMillis();
+        for (long due : retryAt.values()) {
+            wait = Math.min(wait, due - now);
+        }
+        return Math.max(1, wait);
+    }
+
+    @Override
+    public void start() {
+        if (!outbox.isEnabled()) {
+            return;
+        }
+        if (sinks.isEmpty()) {
+            log.warn("Audit outbox is enabled without any sink, events accumulate in audit_outbox");
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::relayLoop, "audit-outbox-relay");
+        thread.setDaemon(true);
+        relay = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = relay;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            // A relay blocked in getNotifications notices within one poll interval
+            thread.join(properties.getPollIntervalMs() + properties.getRetryBackoffMs());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,19 @@
+package com.pfh.user.audit.outbox;
+
+import java.util.List;
+
+/**
+ * Destination the {@link AuditOutboxRelay} delivers outbox messages to.
+ *
+ * Messages arrive in sequence order. A sink must not report success before the
+ * whole batch is durable on its side, and may reorder messages only across
+ * different partition keys. Throwing makes the relay retry the same batch, so
+ * a sink sees every message at least once and possibly more than once.
+ */
+public interface AuditOutboxSink {
+
+    // Stable name, the relay stores this sink's position under it
+    String name();
+
+    void deliver(List<AuditOutboxMessage> messages) throws Exception;
+}
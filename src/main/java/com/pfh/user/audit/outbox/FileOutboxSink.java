@@ -0,0 +1,55 @@
+package com.pfh.user.audit.outbox;
+
+import com.pfh.user.config.audit.AuditOutboxProperties;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends every message payload as one line of NDJSON to a local file and
+ * forces it to disk before acknowledging the batch.
+ */
+@Component
+@ConditionalOnProperty(prefix = "audit.outbox", name = "file-sink-enabled", havingValue = "true")
+public class FileOutboxSink implements AuditOutboxSink {
+
+    private final Path path;
+
+    public FileOutboxSink(AuditOutboxProperties properties) throws IOException {
+        this.path = Path.of(properties.getFileSinkPath());
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void deliver(List<AuditOutboxMessage> messages) throws IOException {
+        StringBuilder lines = new StringBuilder(messages.size() * 256);
+        for (AuditOutboxMessage message : messages) {
+            lines.append(message.payload()).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pfh.user.audit.outbox;
+
+import com.pfh.user.config.audit.AuditOutboxProperties;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs each batch as a JSON array to {@code audit.outbox.webhook-url}. The
+ * array keeps sequence order, and the last sequence in the batch is sent in
+ * {@code X-Audit-Outbox-Sequence} so the receiver can discard redeliveries.
+ * Any status outside 2xx fails the batch.
+ */
+@Component
+@ConditionalOnProperty(prefix = "audit.outbox", name = "webhook-sink-enabled", havingValue = "true")
+public class WebhookOutboxSink implements AuditOutboxSink {
+
+    private final HttpClient client;
+    private final URI uri;
+    private final Duration timeout;
+
+    public WebhookOutboxSink(AuditOutboxProperties properties) {
+        if (properties.getWebhookUrl() == null || properties.getWebhookUrl().isBlank()) {
+            throw new IllegalStateException("audit.outbox.webhook-url must be set when the webhook sink is enabled");
+        }
+        this.uri = URI.create(properties.getWebhookUrl());
+        this.timeout = Duration.ofMillis(properties.getWebhookTimeoutMs());
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public void deliver(List<AuditOutboxMessage> messages) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder(messages.size() * 256 + 2).append('[');
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(messages.get(i).payload());
+        }
+        body.append(']');
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("X-Audit-Outbox-Sequence", Long.toString(messages.get(messages.size() - 1).sequence()))
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook answered " + response.statusCode());
+        }
+    }
+}
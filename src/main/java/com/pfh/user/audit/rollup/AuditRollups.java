@@ -0,0 +1,256 @@
+package com.pfh.user.audit.rollup;
+
+import com.pfh.user.config.audit.AuditRollupProperties;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.util.IpAddresses;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hourly rollups of audit events, maintained in memory as rows are inserted
+ * and flushed periodically to two summary tables: counts per event type and
+ * failure reason, and login failures per source IP. Compliance reports read
+ * only these tables, so their cost depends on the hours and IPs they cover,
+ * never on the number of raw events.
+ *
+ * A flush adds its deltas to the stored counts. Each flush carries this
+ * node's id and a sequence number recorded in {@code audit_rollup_flushes} in
+ * the same transaction, so a flush retried after an ambiguous failure is
+ * applied exactly once. Counts not yet flushed when a node dies are lost; the
+ * raw rows stay in {@code audit_logs}.
+ */
+@Slf4j
+@Component
+public class AuditRollups {
+
+    private static final String CREATE_TABLES_SQL = """
+            CREATE TABLE IF NOT EXISTS audit_event_rollups (
+                bucket_start TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                event_type SMALLINT NOT NULL,
+                failure_reason SMALLINT NOT NULL,
+                event_count BIGINT NOT NULL,
+                PRIMARY KEY (bucket_start, event_type, failure_reason)
+            );
+            CREATE TABLE IF NOT EXISTS audit_ip_failure_rollups (
+                bucket_start TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                ip_address INET NOT NULL,
+                failure_count BIGINT NOT NULL,
+                PRIMARY KEY (bucket_start, ip_address)
+            );
+            CREATE TABLE IF NOT EXISTS audit_rollup_flushes (
+                node_id UUID NOT NULL,
+                flush_sequence BIGINT NOT NULL,
+                flushed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                PRIMARY KEY (node_id, flush_sequence)
+            )
+            """;
+
+    private static final String UPSERT_EVENTS_SQL = """
+            INSERT INTO audit_event_rollups (bucket_start, event_type, failure_reason, event_count)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (bucket_start, event_type, failure_reason)
+            DO UPDATE SET event_count = audit_event_rollups.event_count + EXCLUDED.event_count
+            """;
+
+    private static final String UPSERT_IP_FAILURES_SQL = """
+            INSERT INTO audit_ip_failure_rollups (bucket_start, ip_address, failure_count)
+            VALUES (?, ?::inet, ?)
+            ON CONFLICT (bucket_start, ip_address)
+            DO UPDATE SET failure_count = audit_ip_failure_rollups.failure_count + EXCLUDED.failure_count
+            """;
+
+    // failure_reason is part of the key, 0 stands for "no reason"
+    private static final short NO_REASON = 0;
+
+    public record DailyEventCount(LocalDate day, String eventType, String failureReason, long count) {
+    }
+
+    public record IpFailureCount(String ipAddress, long failures) {
+    }
+
+    private record EventKey(Instant bucket, short eventType, short failureReason) {
+    }
+
+    private record IpKey(Instant bucket, String ipAddress) {
+    }
+
+    private static final Comparator<EventKey> EVENT_KEY_ORDER = Comparator.comparing(EventKey::bucket)
+            .thenComparing(EventKey::eventType)
+            .thenComparing(EventKey::failureReason);
+
+    private static final Comparator<IpKey> IP_KEY_ORDER = Comparator.comparing(IpKey::bucket)
+            .thenComparing(IpKey::ipAddress);
+
+    private record Flush(long sequence, Map<EventKey, Long> events, Map<IpKey, Long> ipFailures) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditRollupProperties properties;
+    private final Counter flushFailedCounter;
+    private final UUID nodeId = UUID.randomUUID();
+    private final Object flushLock = new Object();
+
+    private Map<EventKey, Long> events = new HashMap<>();
+    private Map<IpKey, Long> ipFailures = new HashMap<>();
+    private long nextSequence = 1;
+
+    // Guarded by flushLock, retried with the same sequence until it is written
+    private Flush pending;
+
+    public AuditRollups(@Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+                        @Qualifier("auditTransactionManager") PlatformTransactionManager transactionManager,
+                        AuditRollupProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.flushFailedCounter = Counter.builder("audit.rollups.flush.failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute(CREATE_TABLES_SQL);
+    }
+
+    // Called once the rows are committed, so every inserted row is counted once
+    public synchronized void record(List<AuditLogEntity> inserted) {
+        for (AuditLogEntity entry : inserted) {
+            if (entry.getEventType() == null) {
+                continue;
+            }
+            // An aggregated row counts every attempt it stands for, in the hour of its first one
+            Instant bucket = entry.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+            long occurrences = entry.getOccurrenceCount() != null ? entry.getOccurrenceCount() : 1;
+            AuditEventType type = AuditEventType.valueOf(entry.getEventType());
+            short reason = entry.getFailureReason() != null
+                    ? AuditFailureReason.fromValue(entry.getFailureReason()).getCode() : NO_REASON;
+            events.merge(new EventKey(bucket, type.getCode(), reason), occurrences, Long::sum);
+            if (type == AuditEventType.LOGIN_FAILURE && entry.getIpAddress() != null) {
+                ipFailures.merge(new IpKey(bucket, entry.getIpAddress()), occurrences, Long::sum);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audit.rollups.flush-interval-ms:10000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (pending == null) {
+                synchronized (this) {
+                    if (events.isEmpty() && ipFailures.isEmpty()) {
+                        return;
+                    }
+                    pending = new Flush(nextSequence++, events, ipFailures);
+                    events = new HashMap<>();
+                    ipFailures = new HashMap<>();
+                }
+            }
+            try {
+                write(pending);
+                pending = null;
+            } catch (Exception ex) {
+                flushFailedCounter.increment();
+                log.warn("Audit rollup flush {} failed, retrying on the next run: {}", pending.sequence(),
+                        ex.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    // Event counts per UTC day, type and reason over [from, to] inclusive
+    public List<DailyEventCount> dailyEventCounts(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("""
+                SELECT (bucket_start AT TIME ZONE 'UTC')::date AS day, event_type, failure_reason,
+                       sum(event_count) AS event_count
+                FROM audit_event_rollups
+                WHERE bucket_start >= ? AND bucket_start < ?
+                GROUP BY 1, 2, 3
+                ORDER BY 1, 2, 3
+                """,
+                (rs, row) -> {
+                    short reason = rs.getShort("failure_reason");
+                    return new DailyEventCount(rs.getObject("day", LocalDate.class),
+                            AuditEventType.fromCode(rs.getShort("event_type")).name(),
+                            reason == NO_REASON ? null : AuditFailureReason.fromCode(reason).getValue(),
+                            rs.getLong("event_count"));
+                },
+                startOf(from), startOf(to.plusDays(1)));
+    }
+
+    // Source IPs with the most login failures over [from, to] inclusive
+    public List<IpFailureCount> topFailureIps(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query("""
+                SELECT host(ip_address) AS ip_address, sum(failure_count) AS failures
+                FROM audit_ip_failure_rollups
+                WHERE bucket_start >= ? AND bucket_start < ?
+                GROUP BY ip_address
+                ORDER BY failures DESC, ip_address
+                LIMIT ?
+                """,
+                (rs, row) -> new IpFailureCount(IpAddresses.canonical(rs.getString("ip_address")),
+                        rs.getLong("failures")),
+                startOf(from), startOf(to.plusDays(1)), limit);
+    }
+
+    private void write(Flush flush) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int marked = jdbcTemplate.update("INSERT INTO audit_rollup_flushes (node_id, flush_sequence, flushed_at) "
+                    + "VALUES (?, ?, ?) ON CONFLICT DO NOTHING", nodeId, flush.sequence(), now());
+            if (marked == 0) {
+                // An earlier attempt committed even though it reported a failure
+                return;
+            }
+            // Rows go in key order so two nodes flushing the same buckets cannot deadlock
+            List<Object[]> eventRows = flush.events().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey(EVENT_KEY_ORDER))
+                    .map(row -> new Object[]{OffsetDateTime.ofInstant(row.getKey().bucket(), ZoneOffset.UTC),
+                            row.getKey().eventType(), row.getKey().failureReason(), row.getValue()})
+                    .toList();
+            List<Object[]> ipRows = flush.ipFailures().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey(IP_KEY_ORDER))
+                    .map(row -> new Object[]{OffsetDateTime.ofInstant(row.getKey().bucket(), ZoneOffset.UTC),
+                            row.getKey().ipAddress(), row.getValue()})
+                    .toList();
+            jdbcTemplate.batchUpdate(UPSERT_EVENTS_SQL, eventRows);
+            jdbcTemplate.batchUpdate(UPSERT_IP_FAILURES_SQL, ipRows);
+            jdbcTemplate.update("DELETE FROM audit_rollup_flushes WHERE flushed_at < ?",
+                    OffsetDateTime.ofInstant(Instant.now().minus(properties.getMarkerRetentionDays(), ChronoUnit.DAYS),
+                            ZoneOffset.UTC));
+        });
+    }
+
+    private static OffsetDateTime startOf(LocalDate day) {
+        return day.atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.now(ZoneOffset.UTC);
+    }
+}
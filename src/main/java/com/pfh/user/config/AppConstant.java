@@ -6,6 +6,10 @@ import java.util.List;
 public final class AppConstant {
     // JWT configuration
     public static final long JWT_EXPIRATION_TIME = 900_000; // 15 
+    // Key id of app.jwt-secret, also assumed for tokens issued without a kid
+    public static final String JWT_DEFAULT_KID = "default";
+    // HS256 needs a key of at least 256 bits
+    public static final int JWT_MIN_SECRET_BYTES = 32;
 
     // Argon2id parameters following OWASP recommendations
     public static final int ARGON2_SALT_LENGTH = 16;
@@ -13,6 +17,62 @@ public final class AppConstant {
     public static final int ARGON2_PARALLELISM = 2;
     public static final int ARGON2_MEMORY = 1 << 16; // 65536 KB
     public static final int ARGON2_ITERATIONS = 3;
+
+    // Argon2 needs 64 MB per hash, so only this many hashes run at once per CPU
+    public static final int PASSWORD_HASHING_CONCURRENCY_PER_CPU = 1;
+    // Readiness goes DOWN once this many requests are queued behind the hashing slots
+    public static final int PASSWORD_HASHING_QUEUE_SATURATION = 32;
+
+    // Health snapshots older than this mean the background probe is stuck on the database
+    public static final long HEALTH_SNAPSHOT_STALE_AFTER_MS = 6_000;
+
+    // Audit query API page sizes, the maximum bounds every fetch from the database
+    public static final int AUDIT_QUERY_DEFAULT_PAGE_SIZE = 100;
+    public static final int AUDIT_QUERY_MAX_PAGE_SIZE = 500;
+
+    // User agent ids cached per node, a flood of random user agents only resets the cache
+    public static final int AUDIT_USER_AGENT_CACHE_SIZE = 10_000;
+
+    // Compliance reports read hourly rollups, these bound how many rows one report touches
+    public static final int AUDIT_REPORT_MAX_DAYS = 366;
+    public static final int AUDIT_REPORT_DEFAULT_TOP_IPS = 20;
+    public static final int AUDIT_REPORT_MAX_TOP_IPS = 1000;
+
+    // Recent logins kept in memory per user, and users kept before the least recently active is dropped
+    public static final int RECENT_LOGINS_PER_USER = 20;
+    public static final int RECENT_LOGINS_MAX_USERS = 100_000;
+
+    // Login sketches are kept per minute for an hour, queries merge the minutes of their window
+    public static final long LOGIN_SKETCH_BUCKET_MS = 60_000;
+    public static final int LOGIN_SKETCH_BUCKETS = 60;
+    public static final int LOGIN_SKETCH_DEFAULT_MINUTES = 5;
+    // Counters per heavy hitter sketch, and registers per distinct count as a power of two (about 1.6 % error)
+    public static final int LOGIN_SKETCH_HEAVY_HITTERS = 256;
+    public static final int LOGIN_SKETCH_PRECISION = 12;
+    public static final int LOGIN_SKETCH_DEFAULT_TOP = 10;
+    // Sketches one merge accepts, one per other node of the cluster, each decodes two register arrays
+    public static final int LOGIN_SKETCH_MAX_MERGED = 32;
+
+    // Login attempts allowed per client IP in a sliding window, IPv6 clients are counted per /64 network
+    public static final int LOGIN_RATE_LIMIT_PER_IP = 10;
+    public static final long LOGIN_RATE_LIMIT_WINDOW_MS = 60_000;
+    public static final int LOGIN_RATE_LIMIT_IPV6_PREFIX_BITS = 64;
+    // Client networks tracked per node, beyond this new networks share one counter per stripe
+    public static final int LOGIN_RATE_LIMIT_MAX_KEYS = 100_000;
+
+    // Failed logins per account within the window that lock it, and for how long
+    public static final int LOGIN_LOCKOUT_MAX_FAILURES = 3;
+    public static final long LOGIN_LOCKOUT_WINDOW_MS = 15 * 60_000;
+    public static final int LOGIN_LOCKOUT_DURATION_MINUTES = 30;
+    // Locked accounts remembered per node, so their attempts are refused without a query
+    public static final int LOGIN_LOCKOUT_CACHE_SIZE = 10_000;
+
+    // Account state transitions are due to the tick; four levels of 64 ticks reach about 194 days ahead
+    public static final long ACCOUNT_TRANSITION_TICK_MS = 1_000;
+    public static final int ACCOUNT_TRANSITION_WHEEL_LEVELS = 4;
+    // Transitions reported per statement, and the wait before a report the database refused is retried
+    public static final int ACCOUNT_TRANSITION_BATCH_SIZE = 500;
+    public static final long ACCOUNT_TRANSITION_RETRY_MS = 10_000;
     
     // Password policy
     public static final int MINIMUM_PASSWORD_LENGTH = 12;
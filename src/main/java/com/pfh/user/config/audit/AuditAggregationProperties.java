@@ -0,0 +1,53 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.aggregation")
+public class AuditAggregationProperties {
+
+    // Opt-in, a failure is then written up to windowMs after it happened
+    private boolean enabled = false;
+
+    // Identical failures within this long of the first one are merged into one row
+    private long windowMs = 5_000;
+
+    // How often closed windows are handed to the audit writer
+    private long sweepIntervalMs = 1_000;
+
+    // Distinct (email, IP, reason) groups held at once, further sources are written unmerged
+    private int maxOpenGroups = 100_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public void setWindowMs(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public long getSweepIntervalMs() {
+        return sweepIntervalMs;
+    }
+
+    public void setSweepIntervalMs(long sweepIntervalMs) {
+        this.sweepIntervalMs = sweepIntervalMs;
+    }
+
+    public int getMaxOpenGroups() {
+        return maxOpenGroups;
+    }
+
+    public void setMaxOpenGroups(int maxOpenGroups) {
+        this.maxOpenGroups = maxOpenGroups;
+    }
+}
@@ -0,0 +1,71 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.archive")
+public class AuditArchiveProperties {
+
+    private boolean enabled = true;
+
+    // This node's copies of the segments, the audit database holds the originals and refills it on demand
+    private String directory = "./data/audit-archive";
+
+    private int rowsPerGroup = 16384;
+
+    // A month is exported only this long after it ended, late journal replays can still land in it
+    private int graceDays = 7;
+
+    private int fetchSize = 5000;
+
+    private String cron = "0 45 1 * * *";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getRowsPerGroup() {
+        return rowsPerGroup;
+    }
+
+    public void setRowsPerGroup(int rowsPerGroup) {
+        this.rowsPerGroup = rowsPerGroup;
+    }
+
+    public int getGraceDays() {
+        return graceDays;
+    }
+
+    public void setGraceDays(int graceDays) {
+        this.graceDays = graceDays;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(String cron) {
+        this.cron = cron;
+    }
+}
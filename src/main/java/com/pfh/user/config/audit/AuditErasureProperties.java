@@ -0,0 +1,97 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.erasure")
+public class AuditErasureProperties {
+
+    // Partitions rewritten at the same time, each holds one audit pool connection while it works
+    private int parallelism = 2;
+
+    // Rows locked and rewritten per transaction at full speed
+    private int chunkSize = 500;
+
+    // Smallest chunk the throttle shrinks to under load
+    private int minChunkSize = 20;
+
+    // A chunk slower than this, or any waiter on the audit pool, counts as load and halves the chunk
+    private long targetChunkMs = 200;
+
+    // Pause after a chunk under load, doubled while the load lasts
+    private long backoffMs = 100;
+
+    // Upper bound for the pause under sustained load
+    private long maxBackoffMs = 5_000;
+
+    // A job whose node stopped renewing its lease for this long is resumed by another node
+    private long leaseMs = 60_000;
+
+    // How often each node looks for pending or abandoned jobs
+    private long pollIntervalMs = 10_000;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getMinChunkSize() {
+        return minChunkSize;
+    }
+
+    public void setMinChunkSize(int minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    public long getTargetChunkMs() {
+        return targetChunkMs;
+    }
+
+    public void setTargetChunkMs(long targetChunkMs) {
+        this.targetChunkMs = targetChunkMs;
+    }
+
+    public long getBackoffMs() {
+        return backoffMs;
+    }
+
+    public void setBackoffMs(long backoffMs) {
+        this.backoffMs = backoffMs;
+    }
+
+    public long getMaxBackoffMs() {
+        return maxBackoffMs;
+    }
+
+    public void setMaxBackoffMs(long maxBackoffMs) {
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public long getLeaseMs() {
+        return leaseMs;
+    }
+
+    public void setLeaseMs(long leaseMs) {
+        this.leaseMs = leaseMs;
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+}
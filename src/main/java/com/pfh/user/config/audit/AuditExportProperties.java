@@ -0,0 +1,31 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.export")
+public class AuditExportProperties {
+
+    // Rows per round trip of the server-side cursor
+    private int fetchSize = 2000;
+
+    // Every running export holds an audit pool connection for its whole duration
+    private int maxConcurrent = 2;
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+}
@@ -0,0 +1,100 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.ingest")
+public class AuditIngestProperties {
+
+    // Shared secrets of the sending services, expected in X-Ingest-Token; none configured refuses every stream
+    private List<String> tokens = new ArrayList<>();
+
+    // Ingest streams read at once, each one holds a request thread for its whole duration
+    private int maxConcurrent = 4;
+
+    // A longer line is rejected without being parsed
+    private int maxLineBytes = 16 * 1024;
+
+    // Per-line errors reported back, further errors are only counted
+    private int maxErrors = 100;
+
+    // How long one event waits for space in the audit pipeline before the stream is cut short
+    private long offerTimeoutMs = 1000;
+
+    // Sent as Retry-After when the stream was cut short or refused
+    private long retryAfterSeconds = 1;
+
+    // Events stamped further in the future than this are rejected as a sender clock problem
+    private long maxFutureSkewMs = 300_000;
+
+    // Older events are rejected, ingest is for live delivery and not for backfilling history
+    private int maxAgeDays = 7;
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getMaxLineBytes() {
+        return maxLineBytes;
+    }
+
+    public void setMaxLineBytes(int maxLineBytes) {
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    public void setMaxErrors(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public long getOfferTimeoutMs() {
+        return offerTimeoutMs;
+    }
+
+    public void setOfferTimeoutMs(long offerTimeoutMs) {
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(long retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getMaxFutureSkewMs() {
+        return maxFutureSkewMs;
+    }
+
+    public void setMaxFutureSkewMs(long maxFutureSkewMs) {
+        this.maxFutureSkewMs = maxFutureSkewMs;
+    }
+
+    public int getMaxAgeDays() {
+        return maxAgeDays;
+    }
+
+    public void setMaxAgeDays(int maxAgeDays) {
+        this.maxAgeDays = maxAgeDays;
+    }
+}
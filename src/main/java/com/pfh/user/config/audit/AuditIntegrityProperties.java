@@ -0,0 +1,50 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.integrity")
+public class AuditIntegrityProperties {
+
+    // Concurrent block ranges, each holds one audit pool connection while it streams
+    private int verifyParallelism = 3;
+
+    private int verifyChunkBlocks = 100;
+
+    private int verifyFetchSize = 1000;
+
+    private String verifyCron = "0 30 3 * * *";
+
+    public int getVerifyParallelism() {
+        return verifyParallelism;
+    }
+
+    public void setVerifyParallelism(int verifyParallelism) {
+        this.verifyParallelism = verifyParallelism;
+    }
+
+    public int getVerifyChunkBlocks() {
+        return verifyChunkBlocks;
+    }
+
+    public void setVerifyChunkBlocks(int verifyChunkBlocks) {
+        this.verifyChunkBlocks = verifyChunkBlocks;
+    }
+
+    public int getVerifyFetchSize() {
+        return verifyFetchSize;
+    }
+
+    public void setVerifyFetchSize(int verifyFetchSize) {
+        this.verifyFetchSize = verifyFetchSize;
+    }
+
+    public String getVerifyCron() {
+        return verifyCron;
+    }
+
+    public void setVerifyCron(String verifyCron) {
+        this.verifyCron = verifyCron;
+    }
+}
@@ -0,0 +1,71 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.journal")
+public class AuditJournalProperties {
+
+    private boolean enabled = true;
+
+    // Must be on a persistent volume, the journal is the only copy of spilled events
+    private String directory = "./data/audit-journal";
+
+    private int segmentSizeBytes = 16 * 1024 * 1024;
+
+    // Force every spilled batch to disk before acknowledging it
+    private boolean fsync = true;
+
+    private int replayBatchSize = 500;
+
+    private long replayIntervalMs = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSizeBytes() {
+        return segmentSizeBytes;
+    }
+
+    public void setSegmentSizeBytes(int segmentSizeBytes) {
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    public boolean isFsync() {
+        return fsync;
+    }
+
+    public void setFsync(boolean fsync) {
+        this.fsync = fsync;
+    }
+
+    public int getReplayBatchSize() {
+        return replayBatchSize;
+    }
+
+    public void setReplayBatchSize(int replayBatchSize) {
+        this.replayBatchSize = replayBatchSize;
+    }
+
+    public long getReplayIntervalMs() {
+        return replayIntervalMs;
+    }
+
+    public void setReplayIntervalMs(long replayIntervalMs) {
+        this.replayIntervalMs = replayIntervalMs;
+    }
+}
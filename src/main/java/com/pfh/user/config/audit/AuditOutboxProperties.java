@@ -0,0 +1,99 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.outbox")
+public class AuditOutboxProperties {
+
+    // Off by default, nothing prunes the outbox unless a relay with at least one sink runs
+    private boolean enabled = false;
+
+    private int batchSize = 500;
+
+    // Fallback poll when a NOTIFY is missed, wakeups normally come from LISTEN
+    private long pollIntervalMs = 5_000;
+
+    // How long a sink that failed is left alone before its batch is retried
+    private long retryBackoffMs = 2_000;
+
+    private boolean fileSinkEnabled = false;
+    private String fileSinkPath = "./data/audit-outbox/events.ndjson";
+
+    private boolean webhookSinkEnabled = false;
+    private String webhookUrl;
+    private long webhookTimeoutMs = 5_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    public boolean isFileSinkEnabled() {
+        return fileSinkEnabled;
+    }
+
+    public void setFileSinkEnabled(boolean fileSinkEnabled) {
+        this.fileSinkEnabled = fileSinkEnabled;
+    }
+
+    public String getFileSinkPath() {
+        return fileSinkPath;
+    }
+
+    public void setFileSinkPath(String fileSinkPath) {
+        this.fileSinkPath = fileSinkPath;
+    }
+
+    public boolean isWebhookSinkEnabled() {
+        return webhookSinkEnabled;
+    }
+
+    public void setWebhookSinkEnabled(boolean webhookSinkEnabled) {
+        this.webhookSinkEnabled = webhookSinkEnabled;
+    }
+
+    public String getWebhookUrl() {
+        return webhookUrl;
+    }
+
+    public void setWebhookUrl(String webhookUrl) {
+        this.webhookUrl = webhookUrl;
+    }
+
+    public long getWebhookTimeoutMs() {
+        return webhookTimeoutMs;
+    }
+
+    public void setWebhookTimeoutMs(long webhookTimeoutMs) {
+        this.webhookTimeoutMs = webhookTimeoutMs;
+    }
+}
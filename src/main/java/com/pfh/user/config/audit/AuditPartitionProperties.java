@@ -0,0 +1,53 @@
+package com.pfh.user.config.audit;
+
+import com.pfh.user.enums.AuditRetentionAction;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.partitions")
+public class AuditPartitionProperties {
+
+    // Monthly partitions kept ready beyond the current month
+    private int monthsAhead = 3;
+
+    // Whole months kept before the current one, 0 keeps every partition
+    private int retentionMonths = 0;
+
+    private AuditRetentionAction retentionAction = AuditRetentionAction.DETACH;
+
+    private String maintenanceCron = "0 15 1 * * *";
+
+    public int getMonthsAhead() {
+        return monthsAhead;
+    }
+
+    public void setMonthsAhead(int monthsAhead) {
+        this.monthsAhead = monthsAhead;
+    }
+
+    public int getRetentionMonths() {
+        return retentionMonths;
+    }
+
+    public void setRetentionMonths(int retentionMonths) {
+        this.retentionMonths = retentionMonths;
+    }
+
+    public AuditRetentionAction getRetentionAction() {
+        return retentionAction;
+    }
+
+    public void setRetentionAction(AuditRetentionAction retentionAction) {
+        this.retentionAction = retentionAction;
+    }
+
+    public String getMaintenanceCron() {
+        return maintenanceCron;
+    }
+
+    public void setMaintenanceCron(String maintenanceCron) {
+        this.maintenanceCron = maintenanceCron;
+    }
+}
@@ -0,0 +1,87 @@
+package com.pfh.user.config.audit;
+
+import com.pfh.user.enums.AuditBackpressurePolicy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.pipeline")
+public class AuditPipelineProperties {
+
+    // Events buffered in memory, rounded up to a power of two
+    private int capacity = 8192;
+
+    // A flush happens when this many events are pending...
+    private int batchSize = 256;
+
+    // ...or when the oldest pending event has waited this long
+    private long flushIntervalMs = 50;
+
+    private AuditBackpressurePolicy backpressure = AuditBackpressurePolicy.BLOCK;
+
+    // How long BLOCK waits for space before falling back to a caller thread write
+    private long blockTimeoutMs = 100;
+
+    // Pause between attempts when a flush fails
+    private long retryBackoffMs = 500;
+
+    // Upper bound for draining the buffer on graceful shutdown
+    private long shutdownTimeoutMs = 10_000;
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public AuditBackpressurePolicy getBackpressure() {
+        return backpressure;
+    }
+
+    public void setBackpressure(AuditBackpressurePolicy backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    public long getBlockTimeoutMs() {
+        return blockTimeoutMs;
+    }
+
+    public void setBlockTimeoutMs(long blockTimeoutMs) {
+        this.blockTimeoutMs = blockTimeoutMs;
+    }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    public long getShutdownTimeoutMs() {
+        return shutdownTimeoutMs;
+    }
+
+    public void setShutdownTimeoutMs(long shutdownTimeoutMs) {
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+}
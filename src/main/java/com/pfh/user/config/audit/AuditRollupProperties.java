@@ -0,0 +1,31 @@
+package com.pfh.user.config.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.rollups")
+public class AuditRollupProperties {
+
+    // How stale the report tables may be, and how many counts a crash can lose
+    private long flushIntervalMs = 10_000;
+
+    // Flush markers only guard against a retried flush, they can go after this
+    private int markerRetentionDays = 7;
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public int getMarkerRetentionDays() {
+        return markerRetentionDays;
+    }
+
+    public void setMarkerRetentionDays(int markerRetentionDays) {
+        this.markerRetentionDays = markerRetentionDays;
+    }
+}
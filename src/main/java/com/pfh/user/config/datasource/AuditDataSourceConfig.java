@@ -0,0 +1,152 @@
+package com.pfh.user.config.datasource;
+
+import com.pfh.user.actuator.ApplicationHealthIndicator;
+import com.pfh.user.config.audit.AuditArchiveProperties;
+import com.pfh.user.config.audit.AuditErasureProperties;
+import com.pfh.user.config.audit.AuditExportProperties;
+import com.pfh.user.config.audit.AuditIntegrityProperties;
+import com.pfh.user.config.audit.AuditOutboxProperties;
+import com.pfh.user.entity.AuditIntegrityBlockEntity;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.entity.AuditVerificationCheckpointEntity;
+import com.pfh.user.repository.AuditLogRepository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Audit persistence runs on its own pool (and optionally its own database) so a
+ * backlog of audit writes during an attack cannot hold connections that logins need.
+ *
+ * Unless {@code AUDIT_DB_POOL_SIZE} or the Hikari property is set, the pool is
+ * sized from the background work that holds audit connections for as long as
+ * it runs, plus {@link #FOREGROUND_CONNECTIONS} that work can never take, so
+ * exports, verification and erasure running at once do not starve the writer.
+ */
+@Slf4j
+@Configuration
+@EnableJpaRepositories(
+    basePackageClasses = AuditLogRepository.class,
+    includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = AuditLogRepository.class),
+    entityManagerFactoryRef = "auditEntityManagerFactory",
+    transactionManagerRef = "auditTransactionManager"
+)
+public class AuditDataSourceConfig {
+
+    // Left to the writer's flushes, the journal replay and the short queries of the audit API
+    public static final int FOREGROUND_CONNECTIONS = 3;
+
+    @Bean
+    @ConfigurationProperties("audit.datasource")
+    public DataSourceProperties auditDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("audit.datasource.hikari")
+    public HikariDataSource auditDataSource(@Qualifier("auditDataSourceProperties") DataSourceProperties properties,
+                                            AuditExportProperties export, AuditIntegrityProperties integrity,
+                                            AuditOutboxProperties outbox, AuditErasureProperties erasure,
+                                            AuditArchiveProperties archive,
+                                            @Value("${AUDIT_DB_POOL_SIZE:0}") int configuredPoolSize) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // Binding audit.datasource.hikari afterwards still overrides either
+        dataSource.setMaximumPoolSize(configuredPoolSize > 0 ? configuredPoolSize
+                : backgroundConnections(export, integrity, outbox, erasure, archive) + FOREGROUND_CONNECTIONS);
+        return dataSource;
+    }
+
+    // An explicitly configured size is kept, but one without room for the writer next to background work is warned of
+    @Bean
+    public SmartInitializingSingleton auditPoolSizeCheck(@Qualifier("auditDataSource") DataSource dataSource,
+                                                         AuditExportProperties export,
+                                                         AuditIntegrityProperties integrity,
+                                                         AuditOutboxProperties outbox, AuditErasureProperties erasure,
+                                                         AuditArchiveProperties archive) {
+        return () -> {
+            int background = backgroundConnections(export, integrity, outbox, erasure, archive);
+            try {
+                int size = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                if (size < background + FOREGROUND_CONNECTIONS) {
+                    log.warn("Audit pool size {} is below the {} connections background audit work can hold plus {} "
+                            + "for the writer, audit writes may time out and spill to the journal",
+                            size, background, FOREGROUND_CONNECTIONS);
+                }
+            } catch (SQLException ex) {
+                log.debug("Could not read the audit pool size", ex);
+            }
+        };
+    }
+
+    /**
+     * Connections background audit work can hold at the same time: one per
+     * export slot, verifier worker and erasure unit, the outbox relay's
+     * {@code LISTEN} connection and the archiver's export transaction.
+     */
+    public static int backgroundConnections(AuditExportProperties export, AuditIntegrityProperties integrity,
+                                            AuditOutboxProperties outbox, AuditErasureProperties erasure,
+                                            AuditArchiveProperties archive) {
+        return Math.max(1, export.getMaxConcurrent())
+                + Math.max(1, integrity.getVerifyParallelism())
+                + (outbox.isEnabled() ? 1 : 0)
+                + Math.max(1, erasure.getParallelism())
+                + (archive.isEnabled() ? 1 : 0);
+    }
+
+    @Bean
+    public JdbcTemplate auditJdbcTemplate(@Qualifier("auditDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    // audit_logs is partitioned, its parent table has to exist before Hibernate inspects the schema
+    @Bean
+    @DependsOn("auditPartitionManager")
+    public LocalContainerEntityManagerFactoryBean auditEntityManagerFactory(
+            EntityManagerFactoryBuilder builder,
+            @Qualifier("auditDataSource") DataSource dataSource) {
+        return builder
+                .dataSource(dataSource)
+                .managedTypes(PersistenceManagedTypes.of(
+                        AuditLogEntity.class.getName(),
+                        AuditIntegrityBlockEntity.class.getName(),
+                        AuditVerificationCheckpointEntity.class.getName()))
+                .persistenceUnit("audit")
+                .build();
+    }
+
+    @Bean
+    public PlatformTransactionManager auditTransactionManager(
+            @Qualifier("auditEntityManagerFactory") EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    // Reported as "auditDb" next to the users "db" component of /actuator/health
+    @Bean("auditDb")
+    public ApplicationHealthIndicator auditDbHealthIndicator(
+            @Qualifier("auditJdbcTemplate") JdbcTemplate jdbcTemplate,
+            @Qualifier("auditDataSource") DataSource dataSource) {
+        return new ApplicationHealthIndicator(jdbcTemplate, dataSource);
+    }
+}
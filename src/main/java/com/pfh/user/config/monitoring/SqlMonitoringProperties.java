@@ -0,0 +1,31 @@
+package com.pfh.user.config.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "monitoring.sql")
+public class SqlMonitoringProperties {
+
+    // Statements slower than this are captured into the slow statement buffer
+    private long slowThresholdMs = 200;
+
+    // Number of slow statements kept, oldest entries are overwritten first
+    private int slowBufferSize = 128;
+
+    public long getSlowThresholdMs() {
+        return slowThresholdMs;
+    }
+
+    public void setSlowThresholdMs(long slowThresholdMs) {
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    public int getSlowBufferSize() {
+        return slowBufferSize;
+    }
+
+    public void setSlowBufferSize(int slowBufferSize) {
+        this.slowBufferSize = slowBufferSize;
+    }
+}
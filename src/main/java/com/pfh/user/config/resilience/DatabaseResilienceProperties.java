@@ -0,0 +1,73 @@
+package com.pfh.user.config.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "resilience.db")
+public class DatabaseResilienceProperties {
+
+    // Consecutive infrastructure failures before the circuit opens
+    private int failureThreshold = 5;
+
+    // How long an open circuit rejects calls before letting trial calls through
+    private long openDurationMs = 10_000;
+
+    // Successful trial calls needed in half-open state to close the circuit again
+    private int halfOpenTrials = 3;
+
+    // Concurrent calls allowed per repository group, sized to the group's connection pool
+    private int usersMaxConcurrent = 10;
+    private int auditMaxConcurrent = 5;
+
+    // How long a call may wait for a bulkhead slot before failing fast
+    private long bulkheadWaitMs = 50;
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getOpenDurationMs() {
+        return openDurationMs;
+    }
+
+    public void setOpenDurationMs(long openDurationMs) {
+        this.openDurationMs = openDurationMs;
+    }
+
+    public int getHalfOpenTrials() {
+        return halfOpenTrials;
+    }
+
+    public void setHalfOpenTrials(int halfOpenTrials) {
+        this.halfOpenTrials = halfOpenTrials;
+    }
+
+    public int getUsersMaxConcurrent() {
+        return usersMaxConcurrent;
+    }
+
+    public void setUsersMaxConcurrent(int usersMaxConcurrent) {
+        this.usersMaxConcurrent = usersMaxConcurrent;
+    }
+
+    public int getAuditMaxConcurrent() {
+        return auditMaxConcurrent;
+    }
+
+    public void setAuditMaxConcurrent(int auditMaxConcurrent) {
+        this.auditMaxConcurrent = auditMaxConcurrent;
+    }
+
+    public long getBulkheadWaitMs() {
+        return bulkheadWaitMs;
+    }
+
+    public void setBulkheadWaitMs(long bulkheadWaitMs) {
+        this.bulkheadWaitMs = bulkheadWaitMs;
+    }
+}
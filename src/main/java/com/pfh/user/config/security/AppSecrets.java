@@ -9,6 +9,9 @@ public class AppSecrets {
 
     private String jwtSecret;
 
+    // HMAC key sealing audit leaf hashes and integrity blocks
+    private String auditIntegrityKey;
+
     public String getJwtSecret() {
         return jwtSecret;
     }
@@ -16,4 +19,12 @@ public class AppSecrets {
     public void setJwtSecret(String jwtSecret) {
         this.jwtSecret = jwtSecret;
     }
+
+    public String getAuditIntegrityKey() {
+        return auditIntegrityKey;
+    }
+
+    public void setAuditIntegrityKey(String auditIntegrityKey) {
+        this.auditIntegrityKey = auditIntegrityKey;
+    }
 }
@@ -0,0 +1,60 @@
+package com.pfh.user.config.security;
+
+import com.pfh.user.util.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates a request carrying one of our own access tokens, with the
+ * roles of its {@code roles} claim as authorities. A missing, expired or
+ * badly signed token leaves the request anonymous; only the paths
+ * {@link SecurityConfig} restricts to a role turn that into a rejection.
+ *
+ * Not a bean, so the servlet container does not run it a second time
+ * outside the security chain.
+ */
+public class BearerTokenRoleFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+
+    public BearerTokenRoleFilter(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER)) {
+            String token = authorization.substring(BEARER.length()).trim();
+            try {
+                String subject = jwtUtil.extractClaim(token, Claims::getSubject);
+                List<?> roles = jwtUtil.extractClaim(token, claims -> claims.get("roles", List.class));
+                List<SimpleGrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                        .toList();
+                SecurityContextHolder.getContext().setAuthentication(
+                        UsernamePasswordAuthenticationToken.authenticated(subject, null, authorities));
+            } catch (JwtException | IllegalArgumentException ex) {
+                // Expired, badly signed or malformed, the request stays anonymous
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,28 @@
+package com.pfh.user.config.security;
+
+import com.pfh.user.util.IpAddresses;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.stereotype.Component;
+
+import java.util.function.Predicate;
+
+/**
+ * Client address of a request, taken from X-Forwarded-For only as far as the
+ * hops were added by {@link TrustedProxyProperties trusted proxies}; see
+ * {@link IpAddresses#clientIp(HttpServletRequest, Predicate)}.
+ */
+@Component
+public class ClientIpResolver {
+
+    private final Predicate<String> trustedProxy;
+
+    public ClientIpResolver(TrustedProxyProperties properties) {
+        this.trustedProxy = IpAddresses.inAny(properties.getTrusted());
+    }
+
+    public String clientIp(HttpServletRequest request) {
+        return IpAddresses.clientIp(request, trustedProxy);
+    }
+}
@@ -0,0 +1,75 @@
+package com.pfh.user.config.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit.cluster")
+public class ClusterRateLimitProperties {
+
+    // Off for a single replica, where the per-node limit already is the global one
+    private boolean enabled = false;
+
+    // Hits are counted locally and written to the shared buckets this often; shorter is more exact but costs more round trips
+    private long syncIntervalMs = 200;
+
+    // Share of the last known global tokens one node may spend between syncs; around 1 / replicas, lower is more exact
+    private double localShare = 0.5;
+
+    // Keys tracked per node, beyond this new keys are only limited by the per-node limiter
+    private int maxKeys = 100_000;
+
+    // Keys written per statement during a sync
+    private int batchSize = 500;
+
+    // Full buckets are deleted from the shared table this often
+    private long cleanupIntervalMs = 60_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSyncIntervalMs() {
+        return syncIntervalMs;
+    }
+
+    public void setSyncIntervalMs(long syncIntervalMs) {
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    public double getLocalShare() {
+        return localShare;
+    }
+
+    public void setLocalShare(double localShare) {
+        this.localShare = localShare;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getCleanupIntervalMs() {
+        return cleanupIntervalMs;
+    }
+
+    public void setCleanupIntervalMs(long cleanupIntervalMs) {
+        this.cleanupIntervalMs = cleanupIntervalMs;
+    }
+}
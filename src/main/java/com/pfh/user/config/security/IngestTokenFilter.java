@@ -0,0 +1,74 @@
+package com.pfh.user.config.security;
+
+import com.pfh.user.config.audit.AuditIngestProperties;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Authenticates the services that stream events into the audit trail by the
+ * shared secret they send in {@value #HEADER}, one of
+ * {@code audit.ingest.tokens}; several can be configured so a token is
+ * rotated without downtime. Tokens are compared as SHA-256 digests in
+ * constant time, so neither their content nor their length leaks through
+ * response times. With no token configured nobody can ingest.
+ *
+ * Not a bean, so the servlet container does not run it a second time
+ * outside the security chain.
+ */
+public class IngestTokenFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Ingest-Token";
+
+    public static final String ROLE = "AUDIT_INGEST";
+
+    private final AuditIngestProperties properties;
+
+    public IngestTokenFilter(AuditIngestProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = request.getHeader(HEADER);
+        if (token != null && isAccepted(token)) {
+            SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                    "audit-ingest", null, List.of(new SimpleGrantedAuthority("ROLE_" + ROLE))));
+        }
+        chain.doFilter(request, response);
+    }
+
+    private boolean isAccepted(String token) {
+        byte[] presented = sha256(token);
+        boolean accepted = false;
+        // Every configured token is compared, which one matched does not show either
+        for (String configured : properties.getTokens()) {
+            if (configured != null && !configured.isBlank()) {
+                accepted |= MessageDigest.isEqual(presented, sha256(configured));
+            }
+        }
+        return accepted;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.pfh.user.config.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "jwt.key-ring")
+public class JwtKeyRingProperties {
+
+    // Properties file of signing keys watched for changes; empty signs and verifies with app.jwt-secret alone
+    private String file = "";
+
+    // The file is checked for new content this often
+    private long reloadIntervalMs = 5_000;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public long getReloadIntervalMs() {
+        return reloadIntervalMs;
+    }
+
+    public void setReloadIntervalMs(long reloadIntervalMs) {
+        this.reloadIntervalMs = reloadIntervalMs;
+    }
+}
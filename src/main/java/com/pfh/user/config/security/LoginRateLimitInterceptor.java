@@ -0,0 +1,116 @@
+package com.pfh.user.config.security;
+
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.enums.RateLimitDecision;
+import com.pfh.user.exception.RateLimitExceededException;
+import com.pfh.user.service.AuditLogService;
+import com.pfh.user.util.ClusterRateLimiter;
+import com.pfh.user.util.IpAddresses;
+import com.pfh.user.util.SlidingWindowRateLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Enforces {@link AppConstant#LOGIN_RATE_LIMIT_PER_IP} login attempts per
+ * client network and window. Runs before the request body is bound, so a
+ * rejected attempt costs no JSON parsing, database query or password hash.
+ * The first rejection of a network per window is audited as a failed login
+ * without an email; the rest are only counted, so a flood of attempts cannot
+ * turn into a flood of audit rows.
+ *
+ * With several replicas each node only sees its share of the attempts, so
+ * when {@code rate-limit.cluster.enabled} is set an attempt the node admits
+ * must also get a token from the {@link ClusterRateLimiter} shared by all
+ * nodes.
+ */
+@Component
+public class LoginRateLimitInterceptor implements HandlerInterceptor {
+
+    private final AuditLogService auditLogService;
+    private final SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(
+            AppConstant.LOGIN_RATE_LIMIT_PER_IP,
+            AppConstant.LOGIN_RATE_LIMIT_WINDOW_MS,
+            AppConstant.LOGIN_RATE_LIMIT_MAX_KEYS);
+    private final ClusterRateLimitProperties clusterProperties;
+    private final ClientIpResolver clientIpResolver;
+    private final ClusterRateLimiter clusterLimiter;
+    private final Counter rejectedCounter;
+
+    public LoginRateLimitInterceptor(AuditLogService auditLogService, JdbcTemplate jdbcTemplate,
+                                     ClusterRateLimitProperties clusterProperties, ClientIpResolver clientIpResolver,
+                                     MeterRegistry meterRegistry) {
+        this.auditLogService = auditLogService;
+        this.clusterProperties = clusterProperties;
+        this.clientIpResolver = clientIpResolver;
+        this.clusterLimiter = new ClusterRateLimiter("login", jdbcTemplate,
+                AppConstant.LOGIN_RATE_LIMIT_PER_IP,
+                AppConstant.LOGIN_RATE_LIMIT_PER_IP * 1000.0 / AppConstant.LOGIN_RATE_LIMIT_WINDOW_MS,
+                clusterProperties);
+        Gauge.builder("auth.login.rate.limit.keys", limiter, SlidingWindowRateLimiter::trackedKeys)
+                .register(meterRegistry);
+        Gauge.builder("auth.login.rate.limit.cluster.keys", clusterLimiter, ClusterRateLimiter::trackedKeys)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.login.rate.limited").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void createTable() {
+        if (clusterProperties.isEnabled()) {
+            clusterLimiter.createTable();
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // A forwarded value that is no IP literal must not buy the sender a fresh counter
+        String ip = IpAddresses.canonical(clientIpResolver.clientIp(request));
+        if (ip == null) {
+            ip = IpAddresses.canonical(request.getRemoteAddr());
+        }
+        String network = IpAddresses.network(ip, AppConstant.LOGIN_RATE_LIMIT_IPV6_PREFIX_BITS);
+
+        String key = network != null ? network : "unknown";
+        RateLimitDecision decision = limiter.tryAcquire(key);
+        boolean refusedByCluster = false;
+        if (decision == RateLimitDecision.ALLOWED && clusterProperties.isEnabled()) {
+            decision = clusterLimiter.tryAcquire(key);
+            refusedByCluster = decision != RateLimitDecision.ALLOWED;
+        }
+        if (decision == RateLimitDecision.ALLOWED) {
+            return true;
+        }
+        rejectedCounter.increment();
+        if (decision == RateLimitDecision.REJECTED_FIRST) {
+            auditLogService.logLoginFailure(null, ip, AuditFailureReason.RATE_LIMITED);
+        }
+        // The limiter that refused knows when it frees up, a sliding window decays and a bucket refills
+        long retryAfterMs = refusedByCluster ? clusterLimiter.retryAfterMs(key) : limiter.retryAfterMs(key);
+        throw new RateLimitExceededException("Too many login attempts, please retry later",
+                Math.max(1, (retryAfterMs + 999) / 1000));
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.cluster.sync-interval-ms:200}")
+    public void syncCluster() {
+        if (clusterProperties.isEnabled()) {
+            clusterLimiter.sync();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.cluster.cleanup-interval-ms:60000}")
+    public void cleanupCluster() {
+        if (clusterProperties.isEnabled()) {
+            clusterLimiter.cleanup();
+        }
+    }
+}
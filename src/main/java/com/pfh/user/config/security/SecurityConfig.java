@@ -1,10 +1,23 @@
 package com.pfh.user.config.security;
 
+import com.pfh.user.actuator.AuditErasureEndpoint;
+import com.pfh.user.actuator.AuditIntegrityEndpoint;
+import com.pfh.user.actuator.LoginSketchesEndpoint;
+import com.pfh.user.actuator.SqlStatsEndpoint;
+import com.pfh.user.config.audit.AuditIngestProperties;
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.util.JwtUtil;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 
 @Configuration
 public class SecurityConfig {
@@ -13,13 +26,32 @@ public class SecurityConfig {
     private boolean csrfEnabled;
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtUtil jwtUtil, AuditIngestProperties ingestProperties)
+            throws Exception {
         if (!csrfEnabled) {
             http.csrf(csrf -> csrf.disable());
         }
 
         return http
-            .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+            .addFilterBefore(new BearerTokenRoleFilter(jwtUtil), AuthorizationFilter.class)
+            .addFilterBefore(new IngestTokenFilter(ingestProperties), AuthorizationFilter.class)
+            .authorizeHttpRequests(auth -> auth
+                // Erasure rewrites anyone's audit history, it is served on the public port too
+                .requestMatchers(EndpointRequest.to(AuditErasureEndpoint.class)).hasRole(UserRole.ADMIN.name())
+                // A restarted verification reads the whole chain on several audit-pool connections
+                .requestMatchers(EndpointRequest.to(AuditIntegrityEndpoint.class)).hasRole(UserRole.ADMIN.name())
+                // SQL text, bind shapes and latencies map the schema for an attacker
+                .requestMatchers(EndpointRequest.to(SqlStatsEndpoint.class)).hasRole(UserRole.ADMIN.name())
+                // Names attackers and their targets, and a forged sketch would skew the cluster view
+                .requestMatchers(EndpointRequest.to(LoginSketchesEndpoint.class)).hasRole(UserRole.ADMIN.name())
+                // Ingested events are sealed like our own, only known services may send them
+                .requestMatchers(HttpMethod.POST, "/api/audit-logs/ingest").hasRole(IngestTokenFilter.ROLE)
+                // Audit history and its reports name every user's email, IP and logins, for auditors only
+                .requestMatchers(HttpMethod.GET, "/api/audit-logs", "/api/audit-logs/export", "/api/audit-reports/**")
+                    .hasAnyRole(UserRole.AUDITOR.name(), UserRole.ADMIN.name())
+                .anyRequest().permitAll())
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
             .build();
     }
-}
\ No newline at end of file
+}
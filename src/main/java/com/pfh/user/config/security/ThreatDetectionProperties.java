@@ -0,0 +1,162 @@
+package com.pfh.user.config.security;
+
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.RuleAggregate;
+import com.pfh.user.enums.ThreatAction;
+import com.pfh.user.enums.ThreatSubject;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "threat-detection")
+public class ThreatDetectionProperties {
+
+    // Off until the rules are tuned to the deployment's traffic; while off no event is evaluated and nothing is enforced
+    private boolean enabled = false;
+
+    // Subjects each rule keeps state for, beyond this new subjects are not tracked until idle ones are evicted
+    private int maxKeysPerRule = 100_000;
+
+    // Idle rule state and ended responses are evicted this often
+    private long sweepIntervalMs = 10_000;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * A windowed rule over login events, e.g. "more than 5 distinct emails
+     * failing from one IP in 60 s": events LOGIN_FAILURE, group-by IP,
+     * aggregate DISTINCT_EMAILS, threshold 6, window-ms 60000.
+     */
+    public static class Rule {
+
+        private String name;
+
+        // Events the aggregate is measured over
+        private List<AuditEventType> events = new ArrayList<>();
+
+        // When set the rule fires on this event while the aggregate holds, e.g. a success after failures; unset it fires on reaching the threshold
+        private AuditEventType trigger;
+
+        private ThreatSubject groupBy = ThreatSubject.IP;
+
+        private RuleAggregate aggregate = RuleAggregate.COUNT;
+
+        // Smallest aggregate within the window that fires the rule
+        private int threshold;
+
+        private long windowMs = 60_000;
+
+        private ThreatAction action = ThreatAction.FLAG;
+
+        // How long the action applies to the subject, the rule does not fire again for it meanwhile
+        private long actionDurationMs = 15 * 60_000;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public List<AuditEventType> getEvents() {
+            return events;
+        }
+
+        public void setEvents(List<AuditEventType> events) {
+            this.events = events;
+        }
+
+        public AuditEventType getTrigger() {
+            return trigger;
+        }
+
+        public void setTrigger(AuditEventType trigger) {
+            this.trigger = trigger;
+        }
+
+        public ThreatSubject getGroupBy() {
+            return groupBy;
+        }
+
+        public void setGroupBy(ThreatSubject groupBy) {
+            this.groupBy = groupBy;
+        }
+
+        public RuleAggregate getAggregate() {
+            return aggregate;
+        }
+
+        public void setAggregate(RuleAggregate aggregate) {
+            this.aggregate = aggregate;
+        }
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(int threshold) {
+            this.threshold = threshold;
+        }
+
+        public long getWindowMs() {
+            return windowMs;
+        }
+
+        public void setWindowMs(long windowMs) {
+            this.windowMs = windowMs;
+        }
+
+        public ThreatAction getAction() {
+            return action;
+        }
+
+        public void setAction(ThreatAction action) {
+            this.action = action;
+        }
+
+        public long getActionDurationMs() {
+            return actionDurationMs;
+        }
+
+        public void setActionDurationMs(long actionDurationMs) {
+            this.actionDurationMs = actionDurationMs;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxKeysPerRule() {
+        return maxKeysPerRule;
+    }
+
+    public void setMaxKeysPerRule(int maxKeysPerRule) {
+        this.maxKeysPerRule = maxKeysPerRule;
+    }
+
+    public long getSweepIntervalMs() {
+        return sweepIntervalMs;
+    }
+
+    public void setSweepIntervalMs(long sweepIntervalMs) {
+        this.sweepIntervalMs = sweepIntervalMs;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+}
@@ -0,0 +1,24 @@
+package com.pfh.user.config.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "security.proxies")
+public class TrustedProxyProperties {
+
+    // CIDR blocks of the load balancers and ingress in front of us, the same private ranges Tomcat trusts by default
+    private List<String> trusted = new ArrayList<>(List.of(
+            "127.0.0.0/8", "::1/128", "10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16", "fc00::/7"));
+
+    public List<String> getTrusted() {
+        return trusted;
+    }
+
+    public void setTrusted(List<String> trusted) {
+        this.trusted = trusted;
+    }
+}
@@ -0,0 +1,82 @@
+package com.pfh.user.controller;
+
+import com.pfh.user.dto.audit.AuditIngestResultDto;
+import com.pfh.user.dto.audit.AuditLogPageDto;
+import com.pfh.user.enums.AuditExportFormat;
+import com.pfh.user.service.AuditIngestService;
+import com.pfh.user.service.AuditLogQueryService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/audit-logs")
+@RequiredArgsConstructor
+public class AuditLogController {
+
+    private final AuditLogQueryService auditLogQueryService;
+    private final AuditIngestService auditIngestService;
+
+    @GetMapping
+    public ResponseEntity<AuditLogPageDto> query(
+        @RequestParam(required = false) String email,
+        @RequestParam(required = false) String ip,
+        @RequestParam(required = false) String eventType,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit
+    ) {
+        AuditLogPageDto response = auditLogQueryService.query(email, ip, eventType, from, to, cursor, limit);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+        @RequestParam(required = false) String email,
+        @RequestParam(required = false) String ip,
+        @RequestParam(required = false) String eventType,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+        @RequestParam(defaultValue = "NDJSON") AuditExportFormat format,
+        @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        StreamingResponseBody body = auditLogQueryService.export(email, ip, eventType, from, to, format, gzip);
+
+        String fileName = "audit-logs." + (format == AuditExportFormat.CSV ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .contentType(format == AuditExportFormat.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<AuditIngestResultDto> ingest(InputStream body) throws IOException {
+        AuditIngestResultDto result = auditIngestService.ingest(body);
+        // Cut short by backpressure: lines before resumeFromLine are accepted, the rest must be resent
+        if (result.getResumeFromLine() != null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.getRetryAfterSeconds()))
+                    .body(result);
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(result);
+    }
+}
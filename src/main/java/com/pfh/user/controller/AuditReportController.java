@@ -0,0 +1,41 @@
+package com.pfh.user.controller;
+
+import com.pfh.user.dto.audit.DailyAuditSummaryDto;
+import com.pfh.user.dto.audit.IpFailureCountDto;
+import com.pfh.user.service.AuditReportService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/audit-reports")
+@RequiredArgsConstructor
+public class AuditReportController {
+
+    private final AuditReportService auditReportService;
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailyAuditSummaryDto>> dailySummary(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        List<DailyAuditSummaryDto> response = auditReportService.dailySummary(from, to);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    @GetMapping("/failures-by-ip")
+    public ResponseEntity<List<IpFailureCountDto>> topFailureIps(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) Integer limit
+    ) {
+        List<IpFailureCountDto> response = auditReportService.topFailureIps(from, to, limit);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+}
@@ -1,5 +1,6 @@
 package com.pfh.user.controller;
 
+import com.pfh.user.config.security.ClientIpResolver;
 import com.pfh.user.dto.auth.LoginRequestDto;
 import com.pfh.user.dto.auth.LoginResponseDto;
 import com.pfh.user.dto.auth.RegistrationRequestDto;
@@ -19,16 +20,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
-
-    private static String resolveClientIp(HttpServletRequest request) {
-        String header = request.getHeader("X-Forwarded-For");
-        if (header != null && !header.isEmpty()) {
-            // X-Forwarded-For can contain a comma-separated list; the first IP is the client
-            return header.split(",", 2)[0].trim();
-        }
-        return request.getRemoteAddr();
-    }
-
+    private final ClientIpResolver clientIpResolver;
 
     @PostMapping("/register")
     public ResponseEntity<RegistrationResponseDto> register(@Valid @RequestBody RegistrationRequestDto request) {
@@ -41,7 +33,7 @@ public class AuthController {
         @Valid @RequestBody LoginRequestDto request,
         HttpServletRequest httpRequest
     ) {
-        String requesterIp = resolveClientIp(httpRequest);
+        String requesterIp = clientIpResolver.clientIp(httpRequest);
         String userAgent = httpRequest.getHeader("User-Agent");
 
         LoginResponseDto response = authService.login(request, requesterIp, userAgent);
@@ -0,0 +1,27 @@
+package com.pfh.user.controller;
+
+import com.pfh.user.dto.user.RecentLoginsDto;
+import com.pfh.user.service.LoginHistoryService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+public class UserController {
+
+    private final LoginHistoryService loginHistoryService;
+
+    @GetMapping("/me/logins")
+    public ResponseEntity<RecentLoginsDto> myLogins(
+        @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+        @RequestParam(required = false) Integer limit
+    ) {
+        RecentLoginsDto response = loginHistoryService.recentLogins(authorization, limit);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+}
@@ -0,0 +1,7 @@
+package com.pfh.user.detection;
+
+import com.pfh.user.enums.AuditEventType;
+
+// An authentication outcome as the rules see it; email is lower case, ip canonical, either may be null
+public record AuthEvent(AuditEventType type, String email, String ip, long timestampMs) {
+}
@@ -0,0 +1,8 @@
+package com.pfh.user.detection;
+
+import com.pfh.user.enums.ThreatAction;
+import com.pfh.user.enums.ThreatSubject;
+
+// A rule fired for one subject; its action applies to the subject until the epoch millis in until
+public record Detection(String rule, ThreatSubject subject, String key, ThreatAction action, long until) {
+}
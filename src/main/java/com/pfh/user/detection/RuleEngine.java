@@ -0,0 +1,109 @@
+package com.pfh.user.detection;
+
+import com.pfh.user.config.security.ThreatDetectionProperties;
+import com.pfh.user.enums.RuleAggregate;
+import com.pfh.user.enums.ThreatSubject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluates declarative windowed rules over a stream of authentication
+ * events, in process and incrementally: each event updates the fixed-size
+ * state of the subjects it belongs to and is then forgotten, so the cost of
+ * an event depends on the number of rules and their thresholds, never on
+ * how many events came before. Subjects idle for longer than their rule's
+ * window are evicted by {@link #evictIdle}, and each rule tracks at most
+ * {@code maxKeysPerRule} subjects.
+ */
+public final class RuleEngine {
+
+    // A subject's state holds one entry per unit of threshold
+    private static final int MAX_THRESHOLD = 1_000;
+    // Audited with the action as trigger_event, a VARCHAR(255)
+    private static final int MAX_NAME_LENGTH = 100;
+
+    private final List<WindowedRule> rules = new ArrayList<>();
+
+    public RuleEngine(List<ThreatDetectionProperties.Rule> rules, int maxKeysPerRule) {
+        if (maxKeysPerRule < 1) {
+            throw new IllegalArgumentException("maxKeysPerRule must be positive");
+        }
+        Set<String> names = new HashSet<>();
+        for (ThreatDetectionProperties.Rule rule : rules) {
+            validate(rule);
+            if (!names.add(rule.getName())) {
+                throw new IllegalArgumentException("Duplicate threat detection rule " + rule.getName());
+            }
+            this.rules.add(new WindowedRule(rule, maxKeysPerRule));
+        }
+    }
+
+    // The detections this event completed, an empty list for almost every event
+    public List<Detection> onEvent(AuthEvent event) {
+        List<Detection> detections = null;
+        for (WindowedRule rule : rules) {
+            Detection detection = rule.apply(event);
+            if (detection != null) {
+                if (detections == null) {
+                    detections = new ArrayList<>(2);
+                }
+                detections.add(detection);
+            }
+        }
+        return detections != null ? detections : List.of();
+    }
+
+    public int evictIdle(long now) {
+        int evicted = 0;
+        for (WindowedRule rule : rules) {
+            evicted += rule.evictIdle(now);
+        }
+        return evicted;
+    }
+
+    public int trackedKeys() {
+        int tracked = 0;
+        for (WindowedRule rule : rules) {
+            tracked += rule.trackedKeys();
+        }
+        return tracked;
+    }
+
+    public long droppedKeys() {
+        long dropped = 0;
+        for (WindowedRule rule : rules) {
+            dropped += rule.droppedKeys();
+        }
+        return dropped;
+    }
+
+    private static void validate(ThreatDetectionProperties.Rule rule) {
+        String name = rule.getName();
+        if (name == null || name.isBlank() || name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Every threat detection rule needs a name of at most "
+                    + MAX_NAME_LENGTH + " characters");
+        }
+        if (rule.getEvents() == null || rule.getEvents().isEmpty()) {
+            throw new IllegalArgumentException("Rule " + name + " counts no events");
+        }
+        if (rule.getTrigger() != null && rule.getEvents().contains(rule.getTrigger())) {
+            throw new IllegalArgumentException("Rule " + name + " cannot count its own trigger");
+        }
+        if (rule.getGroupBy() == null || rule.getAggregate() == null || rule.getAction() == null) {
+            throw new IllegalArgumentException("Rule " + name + " needs group-by, aggregate and action");
+        }
+        if ((rule.getGroupBy() == ThreatSubject.IP && rule.getAggregate() == RuleAggregate.DISTINCT_IPS)
+                || (rule.getGroupBy() == ThreatSubject.EMAIL && rule.getAggregate() == RuleAggregate.DISTINCT_EMAILS)) {
+            throw new IllegalArgumentException("Rule " + name + " counts distinct values of what it groups by");
+        }
+        if (rule.getThreshold() < 1 || rule.getThreshold() > MAX_THRESHOLD) {
+            throw new IllegalArgumentException("Rule " + name + " threshold must be between 1 and " + MAX_THRESHOLD);
+        }
+        if (rule.getWindowMs() < 1 || rule.getActionDurationMs() < 0) {
+            throw new IllegalArgumentException("Rule " + name + " needs a positive window and a non-negative action duration");
+        }
+    }
+}
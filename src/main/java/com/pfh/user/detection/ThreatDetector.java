@@ -0,0 +1,138 @@
+package com.pfh.user.detection;
+
+import com.pfh.user.config.security.ThreatDetectionProperties;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.ThreatAction;
+import com.pfh.user.enums.ThreatSubject;
+import com.pfh.user.util.IpAddresses;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the configured {@link RuleEngine} over every login outcome the
+ * {@code AuditLogService} records and keeps the responses its detections
+ * call for. A BLOCK or STEP_UP applies to the IP or email the rule grouped
+ * by until its action duration ends; when several apply to one login the
+ * strongest wins. Responses are per node, like the rule state they come
+ * from.
+ */
+@Slf4j
+@Component
+public class ThreatDetector {
+
+    // An action in force for a subject until the epoch millis in until
+    public record Response(ThreatAction action, long until) {
+    }
+
+    private final ThreatDetectionProperties properties;
+    private final RuleEngine engine;
+    private final MeterRegistry meterRegistry;
+    private final Map<ThreatSubject, ConcurrentHashMap<String, Response>> responses = new EnumMap<>(ThreatSubject.class);
+
+    public ThreatDetector(ThreatDetectionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.engine = new RuleEngine(properties.getRules(), properties.getMaxKeysPerRule());
+        this.meterRegistry = meterRegistry;
+        for (ThreatSubject subject : ThreatSubject.values()) {
+            responses.put(subject, new ConcurrentHashMap<>());
+        }
+        Gauge.builder("auth.threats.tracked", engine, RuleEngine::trackedKeys).register(meterRegistry);
+        Gauge.builder("auth.threats.responses", responses,
+                map -> map.values().stream().mapToInt(Map::size).sum()).register(meterRegistry);
+        FunctionCounter.builder("auth.threats.untracked", engine, RuleEngine::droppedKeys).register(meterRegistry);
+    }
+
+    // ip canonical or null; returns what the event made the rules detect, usually nothing
+    public List<Detection> onEvent(AuditEventType type, String email, String ip) {
+        if (!properties.isEnabled()) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        List<Detection> detections = engine.onEvent(new AuthEvent(type, normalize(email), ip, now));
+        for (Detection detection : detections) {
+            respond(detection, now);
+        }
+        return detections;
+    }
+
+    // The strongest response in force for a login by this email from this IP, null when there is none
+    public Response activeResponse(String email, String ip) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Response byIp = active(ThreatSubject.IP, IpAddresses.canonical(ip), now);
+        Response byEmail = active(ThreatSubject.EMAIL, normalize(email), now);
+        if (byIp == null || (byEmail != null && byEmail.action().compareTo(byIp.action()) > 0)) {
+            return byEmail;
+        }
+        return byIp;
+    }
+
+    @Scheduled(fixedDelayString = "${threat-detection.sweep-interval-ms:10000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        engine.evictIdle(now);
+        for (ConcurrentHashMap<String, Response> bySubject : responses.values()) {
+            bySubject.values().removeIf(response -> response.until() <= now);
+        }
+    }
+
+    private void respond(Detection detection, long now) {
+        Counter.builder("auth.threats.detected")
+                .tag("rule", detection.rule())
+                .tag("action", detection.action().name())
+                .register(meterRegistry)
+                .increment();
+        log.warn("Threat rule {} fired for {} {}, action {}", detection.rule(), detection.subject(),
+                detection.key(), detection.action());
+        if (detection.action() == ThreatAction.FLAG) {
+            return;
+        }
+
+        ConcurrentHashMap<String, Response> bySubject = responses.get(detection.subject());
+        if (bySubject.size() >= properties.getMaxKeysPerRule() && !bySubject.containsKey(detection.key())) {
+            bySubject.values().removeIf(response -> response.until() <= now);
+            if (bySubject.size() >= properties.getMaxKeysPerRule()) {
+                log.warn("Threat responses full, {} {} is not {}", detection.subject(), detection.key(),
+                        detection.action());
+                return;
+            }
+        }
+        // A stronger response still in force is kept
+        bySubject.merge(detection.key(), new Response(detection.action(), detection.until()),
+                (current, added) -> current.until() > now && current.action().compareTo(added.action()) > 0
+                        ? current : added);
+    }
+
+    private Response active(ThreatSubject subject, String key, long now) {
+        if (key == null) {
+            return null;
+        }
+        ConcurrentHashMap<String, Response> bySubject = responses.get(subject);
+        Response response = bySubject.get(key);
+        if (response != null && response.until() <= now) {
+            bySubject.remove(key, response);
+            return null;
+        }
+        return response;
+    }
+
+    // Returns the same string when it is lower case already
+    private static String normalize(String email) {
+        return email != null ? email.toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,210 @@
+package com.pfh.user.detection;
+
+import com.pfh.user.config.security.ThreatDetectionProperties;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.RuleAggregate;
+import com.pfh.user.enums.ThreatAction;
+import com.pfh.user.enums.ThreatSubject;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One rule and its state per subject. Deciding whether the aggregate has
+ * reached the threshold within the window only needs the last
+ * {@code threshold} events, or the {@code threshold} most recently seen
+ * distinct values, so a subject's state is fixed in size and updated in
+ * place: the threshold holds exactly when the oldest of them is still
+ * inside the window.
+ */
+final class WindowedRule {
+
+    // Only touched under its own monitor
+    private static final class KeyState {
+        // COUNT: a ring of the last event times; DISTINCT_*: when each value was last seen
+        private final long[] times;
+        private final String[] values;
+        private int size;
+        private int next;
+        private long lastEvent;
+        // The rule fired for this subject and stays quiet until then
+        private long quietUntil;
+        private boolean evicted;
+
+        private KeyState(int threshold, boolean distinct) {
+            this.times = new long[threshold];
+            this.values = distinct ? new String[threshold] : null;
+        }
+    }
+
+    private final String name;
+    private final boolean[] counted = new boolean[AuditEventType.values().length];
+    private final AuditEventType trigger;
+    private final ThreatSubject groupBy;
+    private final RuleAggregate aggregate;
+    private final int threshold;
+    private final long windowMs;
+    private final ThreatAction action;
+    private final long actionDurationMs;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, KeyState> states = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    WindowedRule(ThreatDetectionProperties.Rule rule, int maxKeys) {
+        this.name = rule.getName();
+        for (AuditEventType type : rule.getEvents()) {
+            counted[type.ordinal()] = true;
+        }
+        this.trigger = rule.getTrigger();
+        this.groupBy = rule.getGroupBy();
+        this.aggregate = rule.getAggregate();
+        this.threshold = rule.getThreshold();
+        this.windowMs = rule.getWindowMs();
+        this.action = rule.getAction();
+        this.actionDurationMs = rule.getActionDurationMs();
+        this.maxKeys = maxKeys;
+    }
+
+    String name() {
+        return name;
+    }
+
+    // The detection this event completes, or null
+    Detection apply(AuthEvent event) {
+        boolean counts = counted[event.type().ordinal()];
+        boolean triggers = event.type() == trigger;
+        if (!counts && !triggers) {
+            return null;
+        }
+        String key = groupBy == ThreatSubject.IP ? event.ip() : event.email();
+        if (key == null) {
+            return null;
+        }
+        String value = switch (aggregate) {
+            case COUNT -> key;
+            case DISTINCT_EMAILS -> event.email();
+            case DISTINCT_IPS -> event.ip();
+        };
+        if (value == null) {
+            // Nothing to count, e.g. a rate limited attempt naming no email
+            counts = false;
+        }
+
+        long now = event.timestampMs();
+        while (true) {
+            KeyState state = states.get(key);
+            if (state == null) {
+                if (!counts) {
+                    return null;
+                }
+                if (states.size() >= maxKeys) {
+                    // Left untracked until the sweep evicts idle subjects
+                    dropped.increment();
+                    return null;
+                }
+                state = states.computeIfAbsent(key, k -> new KeyState(threshold, aggregate != RuleAggregate.COUNT));
+            }
+            synchronized (state) {
+                // Evicted by a sweep after it was looked up, an event recorded on it would be lost
+                if (!state.evicted) {
+                    return apply(state, key, value, counts, triggers, now);
+                }
+            }
+        }
+    }
+
+    // Caller holds the state's monitor
+    private Detection apply(KeyState state, String key, String value, boolean counts, boolean triggers, long now) {
+        if (now < state.quietUntil) {
+            return null;
+        }
+        if (counts) {
+            record(state, value, now);
+        }
+        boolean fires;
+        if (trigger == null) {
+            fires = holds(state, now);
+        } else {
+            // A sequence rule only fires on its trigger, which ends the sequence either way
+            fires = triggers && holds(state, now);
+            if (triggers) {
+                state.size = 0;
+                state.next = 0;
+            }
+        }
+        if (!fires) {
+            return null;
+        }
+        state.size = 0;
+        state.next = 0;
+        state.quietUntil = now + actionDurationMs;
+        return new Detection(name, groupBy, key, action, now + actionDurationMs);
+    }
+
+    private void record(KeyState state, String value, long now) {
+        state.lastEvent = Math.max(state.lastEvent, now);
+        if (state.values == null) {
+            state.times[state.next] = now;
+            state.next = (state.next + 1) % threshold;
+            state.size = Math.min(state.size + 1, threshold);
+            return;
+        }
+
+        int oldest = 0;
+        for (int i = 0; i < state.size; i++) {
+            if (state.values[i].equals(value)) {
+                state.times[i] = now;
+                return;
+            }
+            if (state.times[i] < state.times[oldest]) {
+                oldest = i;
+            }
+        }
+        int slot = state.size < threshold ? state.size++ : oldest;
+        state.values[slot] = value;
+        state.times[slot] = now;
+    }
+
+    private boolean holds(KeyState state, long now) {
+        if (state.size < threshold) {
+            return false;
+        }
+        long oldest;
+        if (state.values == null) {
+            // A full ring's next slot holds its oldest event
+            oldest = state.times[state.next];
+        } else {
+            oldest = Long.MAX_VALUE;
+            for (int i = 0; i < state.size; i++) {
+                oldest = Math.min(oldest, state.times[i]);
+            }
+        }
+        return oldest > now - windowMs;
+    }
+
+    // Drops subjects with no event in the window and no quiet period left
+    int evictIdle(long now) {
+        int evicted = 0;
+        for (Iterator<Map.Entry<String, KeyState>> it = states.entrySet().iterator(); it.hasNext(); ) {
+            KeyState state = it.next().getValue();
+            synchronized (state) {
+                if (state.lastEvent <= now - windowMs && state.quietUntil <= now) {
+                    state.evicted = true;
+                    it.remove();
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    int trackedKeys() {
+        return states.size();
+    }
+
+    long droppedKeys() {
+        return dropped.sum();
+    }
+}
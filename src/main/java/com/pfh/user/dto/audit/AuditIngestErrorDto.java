@@ -0,0 +1,11 @@
+package com.pfh.user.dto.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AuditIngestErrorDto {
+    private long line; // 1-based line of the request body
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.pfh.user.dto.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One line of an ingest stream, fields as on AuditLogEntity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditIngestEventDto {
+    private String eventType;
+    private Instant timestamp;
+    private String userId;
+    private String email;
+    private String ipAddress;
+    private String userAgent;
+    private String failureReason;
+    private Integer lockoutDurationMinutes;
+    private String triggerEvent;
+}
@@ -0,0 +1,19 @@
+package com.pfh.user.dto.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class AuditIngestResultDto {
+    private long accepted;
+    private long rejected;
+    private List<AuditIngestErrorDto> errors;
+    private boolean errorsTruncated; // more lines were rejected than are listed
+    private Long resumeFromLine; // first line not read when the stream was cut short, null otherwise
+    private Long retryAfterSeconds; // set together with resumeFromLine
+}
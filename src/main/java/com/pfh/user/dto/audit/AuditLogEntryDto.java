@@ -0,0 +1,20 @@
+package com.pfh.user.dto.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class AuditLogEntryDto {
+    private UUID eventId;
+    private Instant timestamp;
+    private String eventType;
+    private String email;
+    private String ipAddress;
+    private String failureReason;
+}
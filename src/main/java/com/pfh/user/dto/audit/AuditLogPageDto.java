@@ -0,0 +1,15 @@
+package com.pfh.user.dto.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class AuditLogPageDto {
+    private List<AuditLogEntryDto> items;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,19 @@
+package com.pfh.user.dto.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class DailyAuditSummaryDto {
+    private LocalDate date; // UTC day
+    private long loginSuccesses;
+    private long loginFailures;
+    private Map<String, Long> failuresByReason;
+    private long lockouts;
+}
@@ -0,0 +1,13 @@
+package com.pfh.user.dto.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class IpFailureCountDto {
+    private String ipAddress;
+    private long failures;
+}
@@ -0,0 +1,16 @@
+package com.pfh.user.dto.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class RecentLoginDto {
+    private Instant timestamp;
+    private String ipAddress;
+    private String userAgent;
+}
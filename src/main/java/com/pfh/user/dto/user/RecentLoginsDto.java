@@ -0,0 +1,14 @@
+package com.pfh.user.dto.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class RecentLoginsDto {
+    private List<RecentLoginDto> items; // newest first
+}
@@ -0,0 +1,37 @@
+package com.pfh.user.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One sealed batch of audit rows: the keyed Merkle root of its rows' leaf
+ * hashes, chained to the previous block through {@code previousBlockHash}.
+ */
+@Entity
+@Table(name = "audit_integrity_blocks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditIntegrityBlockEntity {
+
+    @Id
+    private Long blockNumber;
+
+    private Integer eventCount;
+
+    @Column(length = 64, nullable = false)
+    private String merkleRoot;
+
+    @Column(length = 64, nullable = false)
+    private String previousBlockHash;
+
+    @Column(length = 64, nullable = false)
+    private String blockHash;
+
+    private Instant sealedAt;
+
+    private Boolean pruned; // rows removed by partition retention, only the chain is still verifiable
+}
@@ -1,11 +1,18 @@
 package com.pfh.user.entity;
 
+import com.pfh.user.entity.converter.AuditEventTypeConverter;
+import com.pfh.user.entity.converter.AuditFailureReasonConverter;
+
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.Formula;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Entity
+// Partitioned by month on timestamp, the table and its indexes are created by AuditPartitionManager
 @Table(name = "audit_logs")
 @Data
 @Builder
@@ -17,16 +24,41 @@ public class AuditLogEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Client generated, time ordered (UUIDv7) id assigned when the event is created
+    private UUID eventId;
+
     private String userId;
     private String email;
+
+    // Stored as inet, always in IpAddresses canonical form
+    @Column(columnDefinition = "inet")
+    @ColumnTransformer(read = "host(ip_address)", write = "?::inet")
     private String ipAddress;
+
+    // Deduplicated into audit_user_agents, rows only carry the id
+    @Formula("(SELECT ua.user_agent FROM audit_user_agents ua WHERE ua.id = user_agent_id)")
     private String userAgent;
+    private Integer userAgentId;
+
     private Instant timestamp;
 
-    private String eventType; // LOGIN_SUCCESS, LOGIN_FAILURE, ACCOUNT_LOCKOUT
-    private String failureReason; // invalid_credentials, user_not_found
+    @Convert(converter = AuditEventTypeConverter.class)
+    private String eventType; // AuditEventType name, stored as its code
+
+    @Convert(converter = AuditFailureReasonConverter.class)
+    private String failureReason; // AuditFailureReason value, stored as its code
+
     private Integer lockoutDurationMinutes;
     private String triggerEvent;
 
-    private String integrityHash; // for tamper-evidence
+    // Set only on an aggregated failure: attempts merged into this row, timestamp is the first of them
+    private Integer occurrenceCount;
+    private Instant lastOccurredAt;
+
+    private String integrityHash; // keyed leaf hash over every field, for tamper-evidence
+
+    // Set only on a row rewritten by erasure: keyed hash linking its sealed leaf to the rewritten content
+    private String amendmentHash;
+
+    private Long blockNumber; // integrity block the row was sealed into
 }
@@ -0,0 +1,25 @@
+package com.pfh.user.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Lets an interrupted integrity verification resume where it stopped
+@Entity
+@Table(name = "audit_verification_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditVerificationCheckpointEntity {
+
+    @Id
+    private String name;
+
+    private Long verifiedThroughBlock;
+
+    private Long failedBlocks;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,21 @@
+package com.pfh.user.entity.converter;
+
+import com.pfh.user.enums.AuditEventType;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Event type name on the entity, smallint code in audit_logs.event_type
+@Converter
+public class AuditEventTypeConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : AuditEventType.valueOf(attribute).getCode();
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short dbData) {
+        return dbData == null ? null : AuditEventType.fromCode(dbData).name();
+    }
+}
@@ -0,0 +1,21 @@
+package com.pfh.user.entity.converter;
+
+import com.pfh.user.enums.AuditFailureReason;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Failure reason value on the entity, smallint code in audit_logs.failure_reason
+@Converter
+public class AuditFailureReasonConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : AuditFailureReason.fromValue(attribute).getCode();
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short dbData) {
+        return dbData == null ? null : AuditFailureReason.fromCode(dbData).getValue();
+    }
+}
@@ -0,0 +1,10 @@
+package com.pfh.user.enums;
+
+/**
+ * Timed account state changes driven by {@code AccountTransitions}. Each user
+ * has at most one pending transition of each type.
+ */
+public enum AccountTransitionType {
+    // A lock after too many failed logins has run out
+    UNLOCK
+}
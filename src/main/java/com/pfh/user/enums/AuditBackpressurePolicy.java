@@ -0,0 +1,12 @@
+package com.pfh.user.enums;
+
+public enum AuditBackpressurePolicy {
+    // Wait for free space up to the block timeout, then write on the caller thread
+    BLOCK,
+
+    // Write on the caller thread straight away
+    CALLER_RUNS,
+
+    // Drop the event and count it, only for non-compliance deployments
+    DROP
+}
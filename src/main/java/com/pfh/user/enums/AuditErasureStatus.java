@@ -0,0 +1,15 @@
+package com.pfh.user.enums;
+
+public enum AuditErasureStatus {
+    // Requested, no node has claimed it yet
+    PENDING,
+
+    // Claimed by the node holding its lease, resumed elsewhere once the lease runs out
+    RUNNING,
+
+    // Every partition and archived month rewritten, the subject email is cleared
+    COMPLETED,
+
+    // Stopped on an error, see last_error; requesting the erasure again starts a new job
+    FAILED
+}
@@ -0,0 +1,32 @@
+package com.pfh.user.enums;
+
+/**
+ * Audit event types and the smallint code each is stored as in
+ * {@code audit_logs.event_type}. Codes are persisted, never reuse or renumber one.
+ */
+public enum AuditEventType {
+    LOGIN_SUCCESS(1),
+    LOGIN_FAILURE(2),
+    ACCOUNT_LOCKOUT(3),
+    ACCOUNT_UNLOCK(4),
+    THREAT_DETECTED(5);
+
+    private final short code;
+
+    AuditEventType(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static AuditEventType fromCode(short code) {
+        for (AuditEventType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown audit event type code " + code);
+    }
+}
@@ -0,0 +1,9 @@
+package com.pfh.user.enums;
+
+public enum AuditExportFormat {
+    // One JSON object per line, application/x-ndjson
+    NDJSON,
+
+    // RFC 4180 with a header row, text/csv
+    CSV
+}
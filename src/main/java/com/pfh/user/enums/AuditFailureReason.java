@@ -0,0 +1,49 @@
+package com.pfh.user.enums;
+
+/**
+ * Login failure reasons, recorded as {@link #getValue()} on the audit event and
+ * stored as a smallint code in {@code audit_logs.failure_reason}. Codes are
+ * persisted, never reuse or renumber one.
+ */
+public enum AuditFailureReason {
+    INVALID_CREDENTIALS(1, "invalid_credentials"),
+    USER_NOT_FOUND(2, "user_not_found"),
+    RATE_LIMITED(3, "rate_limited"),
+    ACCOUNT_LOCKED(4, "account_locked"),
+    THREAT_BLOCKED(5, "threat_blocked"),
+    STEP_UP_REQUIRED(6, "step_up_required");
+
+    private final short code;
+    private final String value;
+
+    AuditFailureReason(int code, String value) {
+        this.code = (short) code;
+        this.value = value;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static AuditFailureReason fromCode(short code) {
+        for (AuditFailureReason reason : values()) {
+            if (reason.code == code) {
+                return reason;
+            }
+        }
+        throw new IllegalArgumentException("Unknown audit failure reason code " + code);
+    }
+
+    public static AuditFailureReason fromValue(String value) {
+        for (AuditFailureReason reason : values()) {
+            if (reason.value.equals(value)) {
+                return reason;
+            }
+        }
+        throw new IllegalArgumentException("Unknown audit failure reason " + value);
+    }
+}
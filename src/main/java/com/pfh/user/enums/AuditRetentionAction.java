@@ -0,0 +1,9 @@
+package com.pfh.user.enums;
+
+public enum AuditRetentionAction {
+    // Detach expired partitions and keep them as standalone tables for archiving
+    DETACH,
+
+    // Detach and drop expired partitions
+    DROP
+}
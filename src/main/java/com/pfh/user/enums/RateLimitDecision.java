@@ -0,0 +1,11 @@
+package com.pfh.user.enums;
+
+public enum RateLimitDecision {
+    ALLOWED,
+
+    // First rejection of the key in the current window, the one worth reporting
+    REJECTED_FIRST,
+
+    // Any further rejection in the same window
+    REJECTED
+}
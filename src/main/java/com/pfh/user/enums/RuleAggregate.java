@@ -0,0 +1,8 @@
+package com.pfh.user.enums;
+
+// What a detection rule measures over the events of one subject in its window
+public enum RuleAggregate {
+    COUNT,
+    DISTINCT_EMAILS,
+    DISTINCT_IPS
+}
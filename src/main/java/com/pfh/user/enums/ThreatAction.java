@@ -0,0 +1,13 @@
+package com.pfh.user.enums;
+
+// Declared from weakest to strongest, when several responses apply the strongest wins
+public enum ThreatAction {
+    // Audited and counted only
+    FLAG,
+
+    // Correct credentials are refused until the client passes additional verification
+    STEP_UP,
+
+    // Every login attempt is refused
+    BLOCK
+}
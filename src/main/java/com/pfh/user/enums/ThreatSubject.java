@@ -0,0 +1,7 @@
+package com.pfh.user.enums;
+
+// What a detection rule keeps its state per, and what its action applies to
+public enum ThreatSubject {
+    IP,
+    EMAIL
+}
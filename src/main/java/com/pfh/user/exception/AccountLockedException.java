@@ -0,0 +1,15 @@
+package com.pfh.user.exception;
+
+public class AccountLockedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AccountLockedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
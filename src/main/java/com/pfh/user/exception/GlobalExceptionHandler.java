@@ -3,6 +3,7 @@ package com.pfh.user.exception;
 import com.pfh.user.dto.ErrorResponseDto;
 import com.pfh.user.dto.FieldErrorDto;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
@@ -137,4 +138,121 @@ public class GlobalExceptionHandler {
                 .body(errorResponse);
     }    
 
+    // Account locked after too many failed logins
+    @ExceptionHandler(AccountLockedException.class)
+    public ResponseEntity<ErrorResponseDto> handleAccountLocked(AccountLockedException ex) {
+        FieldErrorDto fieldError = new FieldErrorDto("account", ex.getMessage());
+
+        ErrorResponseDto errorResponse = new ErrorResponseDto(
+            HttpStatus.LOCKED.value(),
+            ex.getMessage(),
+            Instant.now(),
+            Collections.singletonList(fieldError)
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.LOCKED)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
+    }
+
+    // Correct credentials, but the login was judged high risk
+    @ExceptionHandler(StepUpRequiredException.class)
+    public ResponseEntity<ErrorResponseDto> handleStepUpRequired(StepUpRequiredException ex) {
+        FieldErrorDto fieldError = new FieldErrorDto("stepUp", ex.getMessage());
+
+        ErrorResponseDto errorResponse = new ErrorResponseDto(
+            HttpStatus.UNAUTHORIZED.value(),
+            ex.getMessage(),
+            Instant.now(),
+            Collections.singletonList(fieldError)
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.UNAUTHORIZED)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
+    }
+
+    // Logins blocked after a threat detection rule fired for the client or account
+    @ExceptionHandler(LoginBlockedException.class)
+    public ResponseEntity<ErrorResponseDto> handleLoginBlocked(LoginBlockedException ex) {
+        FieldErrorDto fieldError = new FieldErrorDto("threat", ex.getMessage());
+
+        ErrorResponseDto errorResponse = new ErrorResponseDto(
+            HttpStatus.FORBIDDEN.value(),
+            ex.getMessage(),
+            Instant.now(),
+            Collections.singletonList(fieldError)
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.FORBIDDEN)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
+    }
+
+    /******************************* RATE LIMIT HANDLING   *******************************/
+    // Too many attempts from one client
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorResponseDto> handleRateLimitExceeded(RateLimitExceededException ex) {
+        FieldErrorDto fieldError = new FieldErrorDto("rateLimit", ex.getMessage());
+
+        ErrorResponseDto errorResponse = new ErrorResponseDto(
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            ex.getMessage(),
+            Instant.now(),
+            Collections.singletonList(fieldError)
+        );
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+        if (ex.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        }
+        return response
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
+    }
+
+    /******************************* AUDIT HANDLING   *******************************/
+    // Audit query filters, page size or cursor are invalid
+    @ExceptionHandler(InvalidAuditQueryException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidAuditQuery(InvalidAuditQueryException ex) {
+        FieldErrorDto fieldError = new FieldErrorDto(ex.getField(), ex.getMessage());
+
+        ErrorResponseDto errorResponse = new ErrorResponseDto(
+            HttpStatus.BAD_REQUEST.value(),
+            "Invalid audit query",
+            Instant.now(),
+            Collections.singletonList(fieldError)
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
+    }
+
+    /******************************* DATABASE HANDLING   *******************************/
+    // Circuit open, bulkhead saturated or database unreachable
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<ErrorResponseDto> handleDatabaseUnavailable(DatabaseUnavailableException ex) {
+        FieldErrorDto fieldError = new FieldErrorDto("database", "Service temporarily unavailable");
+
+        ErrorResponseDto errorResponse = new ErrorResponseDto(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Service temporarily unavailable, please retry later",
+            Instant.now(),
+            Collections.singletonList(fieldError)
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
+    }
+
 }
@@ -0,0 +1,14 @@
+package com.pfh.user.exception;
+
+public class InvalidAuditQueryException extends RuntimeException {
+    private final String field;
+
+    public InvalidAuditQueryException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
@@ -1,7 +1,20 @@
 package com.pfh.user.exception;
 
 public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
     public RateLimitExceededException(String message) {
+        this(message, 0);
+    }
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
         super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    // 0 when the caller cannot tell, no Retry-After is sent then
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
 }
@@ -0,0 +1,8 @@
+package com.pfh.user.exception;
+
+public class StepUpRequiredException extends RuntimeException {
+
+    public StepUpRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,154 @@
+package com.pfh.user.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Wraps the pooled {@link DataSource} so each executed statement is timed and
+ * statements above the slow threshold are captured together with the shape of
+ * their bind parameters (index and setter type, never the bound values, which
+ * would leak emails and hashes into the actuator output).
+ */
+public class MeteredDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final Supplier<SlowStatementBuffer> bufferSupplier;
+
+    public MeteredDataSource(DataSource target, Supplier<SlowStatementBuffer> bufferSupplier) {
+        super(target);
+        this.bufferSupplier = bufferSupplier;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    // Keeps the pool shutdown working, the container infers the destroy method from the wrapper
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            }
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return Proxy.newProxyInstance(
+                        Connection.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()},
+                        new StatementHandler(statement, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private String[] bindShape = new String[0];
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                recordBind(index, name.substring(3));
+                return invokeTarget(target, method, args);
+            }
+            if ("clearParameters".equals(name)) {
+                bindShape = new String[0];
+                return invokeTarget(target, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+
+            long start = System.nanoTime();
+            Object result = invokeTarget(target, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            SlowStatementBuffer buffer = bufferSupplier.get();
+            if (buffer != null && buffer.isSlow(elapsed)) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                buffer.capture(new SlowStatementBuffer.SlowStatement(
+                        Instant.now(),
+                        RepositoryCallContext.current(),
+                        sql,
+                        shape(),
+                        elapsed / 1_000_000L,
+                        result instanceof Number number ? number.longValue() : -1));
+            }
+            return result;
+        }
+
+        private void recordBind(int index, String type) {
+            if (index > bindShape.length) {
+                bindShape = Arrays.copyOf(bindShape, index);
+            }
+            bindShape[index - 1] = type;
+        }
+
+        private List<String> shape() {
+            List<String> shape = new ArrayList<>(bindShape.length);
+            for (int i = 0; i < bindShape.length; i++) {
+                shape.add((i + 1) + ":" + (bindShape[i] != null ? bindShape[i] : "?"));
+            }
+            return shape;
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.pfh.user.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+@Component
+public class MeteredDataSourcePostProcessor implements BeanPostProcessor {
+
+    // Resolved lazily: post processors are created before configuration properties are bound
+    private final ObjectProvider<SlowStatementBuffer> slowStatementBuffer;
+
+    public MeteredDataSourcePostProcessor(ObjectProvider<SlowStatementBuffer> slowStatementBuffer) {
+        this.slowStatementBuffer = slowStatementBuffer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof MeteredDataSource)) {
+            return new MeteredDataSource(dataSource, slowStatementBuffer::getIfAvailable);
+        }
+        return bean;
+    }
+}
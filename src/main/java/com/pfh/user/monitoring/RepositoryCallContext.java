@@ -0,0 +1,35 @@
+package com.pfh.user.monitoring;
+
+/**
+ * Remembers which repository method is running on the current thread, so
+ * statements issued at the JDBC level can be attributed back to it.
+ */
+public final class RepositoryCallContext {
+
+    public static final String UNATTRIBUTED = "unattributed";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryCallContext() {
+    }
+
+    public static String enter(String label) {
+        String previous = CURRENT.get();
+        // Keep the outermost repository call when repositories call each other
+        if (previous == null) {
+            CURRENT.set(label);
+        }
+        return previous;
+    }
+
+    public static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        }
+    }
+
+    public static String current() {
+        String label = CURRENT.get();
+        return label != null ? label : UNATTRIBUTED;
+    }
+}
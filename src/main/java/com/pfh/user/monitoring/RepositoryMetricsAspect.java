@@ -0,0 +1,107 @@
+package com.pfh.user.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a latency histogram and the number of returned rows for every
+ * repository method, tagged as {@code <Repository>.<method>}.
+ */
+@Aspect
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    public static final String CALL_TIMER = "db.repository.calls";
+    public static final String ROW_SUMMARY = "db.repository.rows";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    @Around("this(org.springframework.data.repository.Repository) && execution(public * *(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String label = repositoryName(joinPoint.getTarget()) + "." + joinPoint.getSignature().getName();
+        String previous = RepositoryCallContext.enter(label);
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            rowSummary(label).record(countRows(result));
+            return result;
+        } catch (Throwable ex) {
+            outcome = "error";
+            throw ex;
+        } finally {
+            RepositoryCallContext.exit(previous);
+            timer(label, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String label, String outcome) {
+        return timers.computeIfAbsent(label + "#" + outcome, key -> Timer.builder(CALL_TIMER)
+                .tag("method", label)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary rowSummary(String label) {
+        return rowSummaries.computeIfAbsent(label, key -> DistributionSummary.builder(ROW_SUMMARY)
+                .tag("method", label)
+                .register(meterRegistry));
+    }
+
+    private String repositoryName(Object target) {
+        if (target == null) {
+            return "UnknownRepository";
+        }
+        return repositoryNames.computeIfAbsent(target.getClass(), type -> {
+            // Spring Data repositories are proxies, the interesting name is the declared interface
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(candidate)
+                        && !candidate.getName().startsWith("org.springframework.")) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+
+    private static long countRows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        // Single entities as well as exists / count style queries return one row
+        return 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.pfh.user.monitoring;
+
+import com.pfh.user.config.monitoring.SqlMonitoringProperties;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring buffer of statements that exceeded the slow threshold.
+ * Writers claim a slot with a single atomic increment, so capturing a slow
+ * statement never blocks the request thread on a lock.
+ */
+@Component
+public class SlowStatementBuffer {
+
+    public record SlowStatement(
+            Instant capturedAt,
+            String repositoryMethod,
+            String sql,
+            List<String> bindShape,
+            long durationMs,
+            long updateCount) {
+    }
+
+    private final AtomicReferenceArray<SlowStatement> slots;
+    private final AtomicLong cursor = new AtomicLong();
+    private final long thresholdNanos;
+
+    public SlowStatementBuffer(SqlMonitoringProperties properties) {
+        this.slots = new AtomicReferenceArray<>(Math.max(1, properties.getSlowBufferSize()));
+        this.thresholdNanos = properties.getSlowThresholdMs() * 1_000_000L;
+    }
+
+    public boolean isSlow(long durationNanos) {
+        return durationNanos >= thresholdNanos;
+    }
+
+    public void capture(SlowStatement statement) {
+        int slot = (int) (cursor.getAndIncrement() % slots.length());
+        slots.set(slot, statement);
+    }
+
+    public long capturedTotal() {
+        return cursor.get();
+    }
+
+    // Newest first
+    public List<SlowStatement> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length());
+        List<SlowStatement> result = new ArrayList<>((int) (end - start));
+        for (long i = end - 1; i >= start; i--) {
+            SlowStatement statement = slots.get((int) (i % slots.length()));
+            if (statement != null) {
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package com.pfh.user.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker.
+ *
+ * CLOSED lets every call through and opens after {@code failureThreshold}
+ * infrastructure failures in a row. OPEN rejects every call until
+ * {@code openDurationNanos} has passed, then HALF_OPEN hands out
+ * {@code halfOpenTrials} trial permits: all of them succeeding closes the
+ * circuit, any of them failing opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenTrials;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger trialPermits = new AtomicInteger();
+    private final AtomicInteger trialSuccesses = new AtomicInteger();
+    private volatile long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationNanos, int halfOpenTrials,
+                          LongSupplier nanoClock) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenTrials = Math.max(1, halfOpenTrials);
+        this.nanoClock = nanoClock;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                return false;
+            }
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                trialSuccesses.set(0);
+                trialPermits.set(halfOpenTrials);
+            }
+        }
+        return state.get() == State.HALF_OPEN && trialPermits.getAndDecrement() > 0;
+    }
+
+    public void onSuccess() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            if (trialSuccesses.incrementAndGet() >= halfOpenTrials && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                consecutiveFailures.set(0);
+            }
+        } else if (current == State.CLOSED && consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    public void onFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+        } else if (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    // Seconds until the next trial call is allowed, used for the Retry-After header
+    public long retryAfterSeconds() {
+        long remaining = openDurationNanos - (nanoClock.getAsLong() - openedAt);
+        return Math.max(1, (remaining + 999_999_999L) / 1_000_000_000L);
+    }
+
+    private void open(State from) {
+        openedAt = nanoClock.getAsLong();
+        trialPermits.set(0);
+        state.compareAndSet(from, State.OPEN);
+    }
+}
@@ -0,0 +1,99 @@
+package com.pfh.user.resilience;
+
+import com.pfh.user.exception.DatabaseUnavailableException;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulkhead plus circuit breaker for one group of repositories. Business errors
+ * (constraint violations, missing rows) count as a healthy database answer;
+ * only connection, timeout and resource failures trip the circuit.
+ */
+public class DatabaseGuard {
+
+    @FunctionalInterface
+    public interface GuardedCall {
+        Object call() throws Throwable;
+    }
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long bulkheadWaitMs;
+
+    public DatabaseGuard(String name, CircuitBreaker circuitBreaker, int maxConcurrent, long bulkheadWaitMs) {
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.bulkhead = new Semaphore(this.maxConcurrent);
+        this.bulkheadWaitMs = bulkheadWaitMs;
+    }
+
+    public Object execute(GuardedCall call) throws Throwable {
+        if (!acquireBulkhead()) {
+            throw new DatabaseUnavailableException("Database bulkhead '" + name + "' is saturated", 1);
+        }
+        try {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                throw new DatabaseUnavailableException(
+                        "Database circuit '" + name + "' is open", circuitBreaker.retryAfterSeconds());
+            }
+            try {
+                Object result = call.call();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (Throwable ex) {
+                if (!isInfrastructureFailure(ex)) {
+                    circuitBreaker.onSuccess();
+                    throw ex;
+                }
+                circuitBreaker.onFailure();
+                throw new DatabaseUnavailableException(
+                        "Database '" + name + "' is unavailable", circuitBreaker.retryAfterSeconds(), ex);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public int availableSlots() {
+        return bulkhead.availablePermits();
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static boolean isInfrastructureFailure(Throwable ex) {
+        return ex instanceof TransientDataAccessException
+                || ex instanceof DataAccessResourceFailureException
+                || ex instanceof NonTransientDataAccessResourceException
+                || ex instanceof RecoverableDataAccessException
+                || ex instanceof CannotCreateTransactionException;
+    }
+}
@@ -0,0 +1,62 @@
+package com.pfh.user.resilience;
+
+import com.pfh.user.config.resilience.DatabaseResilienceProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one {@link DatabaseGuard} per repository group so audit writes and
+ * user lookups never compete for the same bulkhead or share a circuit.
+ */
+@Component
+public class DatabaseGuards {
+
+    public static final String USERS = "users";
+    public static final String AUDIT = "audit";
+
+    private final DatabaseGuard users;
+    private final DatabaseGuard audit;
+
+    public DatabaseGuards(DatabaseResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.users = create(USERS, properties.getUsersMaxConcurrent(), properties, meterRegistry);
+        this.audit = create(AUDIT, properties.getAuditMaxConcurrent(), properties, meterRegistry);
+    }
+
+    public DatabaseGuard users() {
+        return users;
+    }
+
+    public DatabaseGuard audit() {
+        return audit;
+    }
+
+    public List<DatabaseGuard> all() {
+        return List.of(users, audit);
+    }
+
+    private static DatabaseGuard create(String name, int maxConcurrent,
+                                        DatabaseResilienceProperties properties, MeterRegistry meterRegistry) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(
+                name,
+                properties.getFailureThreshold(),
+                TimeUnit.MILLISECONDS.toNanos(properties.getOpenDurationMs()),
+                properties.getHalfOpenTrials(),
+                System::nanoTime);
+        DatabaseGuard guard = new DatabaseGuard(name, circuitBreaker, maxConcurrent, properties.getBulkheadWaitMs());
+
+        // 0 = closed, 1 = open, 2 = half open
+        Gauge.builder("db.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .tag("group", name)
+                .register(meterRegistry);
+        Gauge.builder("db.bulkhead.available", guard, DatabaseGuard::availableSlots)
+                .tag("group", name)
+                .register(meterRegistry);
+        return guard;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pfh.user.resilience;
+
+import lombok.RequiredArgsConstructor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Runs outside the repository metrics so rejected calls are not timed as database work
+@Aspect
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class DatabaseResilienceAspect {
+
+    private final DatabaseGuards databaseGuards;
+
+    @Around("this(com.pfh.user.repository.UserRepository) && execution(public * *(..))")
+    public Object guardUsers(ProceedingJoinPoint joinPoint) throws Throwable {
+        return databaseGuards.users().execute(joinPoint::proceed);
+    }
+
+    @Around("this(com.pfh.user.repository.AuditLogRepository) && execution(public * *(..))")
+    public Object guardAudit(ProceedingJoinPoint joinPoint) throws Throwable {
+        return databaseGuards.audit().execute(joinPoint::proceed);
+    }
+}
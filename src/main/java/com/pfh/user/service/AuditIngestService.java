@@ -0,0 +1,11 @@
+package com.pfh.user.service;
+
+import com.pfh.user.dto.audit.AuditIngestResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface AuditIngestService {
+
+    AuditIngestResultDto ingest(InputStream body) throws IOException;
+}
@@ -0,0 +1,17 @@
+package com.pfh.user.service;
+
+import com.pfh.user.dto.audit.AuditLogPageDto;
+import com.pfh.user.enums.AuditExportFormat;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+
+public interface AuditLogQueryService {
+
+    AuditLogPageDto query(String email, String ipAddress, String eventType, Instant from, Instant to,
+                          String cursor, Integer limit);
+
+    StreamingResponseBody export(String email, String ipAddress, String eventType, Instant from, Instant to,
+                                 AuditExportFormat format, boolean gzip);
+}
@@ -1,10 +1,14 @@
 package com.pfh.user.service;
 
+import com.pfh.user.enums.AuditFailureReason;
+
 public interface AuditLogService {
 
     void logLoginSuccess(String userId, String email, String ip, String userAgent);
 
-    void logLoginFailure(String email, String ip, String reason);
+    void logLoginFailure(String email, String ip, AuditFailureReason reason);
 
     void logAccountLockout(String email, int durationMinutes, String triggerEvent);
+
+    void logAccountUnlock(String userId, String triggerEvent);
 }
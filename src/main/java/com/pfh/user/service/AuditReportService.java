@@ -0,0 +1,14 @@
+package com.pfh.user.service;
+
+import com.pfh.user.dto.audit.DailyAuditSummaryDto;
+import com.pfh.user.dto.audit.IpFailureCountDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AuditReportService {
+
+    List<DailyAuditSummaryDto> dailySummary(LocalDate from, LocalDate to);
+
+    List<IpFailureCountDto> topFailureIps(LocalDate from, LocalDate to, Integer limit);
+}
@@ -0,0 +1,8 @@
+package com.pfh.user.service;
+
+import com.pfh.user.dto.user.RecentLoginsDto;
+
+public interface LoginHistoryService {
+
+    RecentLoginsDto recentLogins(String authorization, Integer limit);
+}
@@ -0,0 +1,48 @@
+package com.pfh.user.service.impl;
+
+import com.pfh.user.audit.AuditIngestor;
+import com.pfh.user.config.audit.AuditIngestProperties;
+import com.pfh.user.dto.audit.AuditIngestErrorDto;
+import com.pfh.user.dto.audit.AuditIngestResultDto;
+import com.pfh.user.exception.DatabaseUnavailableException;
+import com.pfh.user.service.AuditIngestService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Service
+@RequiredArgsConstructor
+public class AuditIngestServiceImpl implements AuditIngestService {
+
+    private final AuditIngestor auditIngestor;
+    private final AuditIngestProperties properties;
+
+    @Override
+    public AuditIngestResultDto ingest(InputStream body) throws IOException {
+        // Refused before any line is read, so the sender retries the whole stream
+        if (!auditIngestor.tryAcquire()) {
+            throw new DatabaseUnavailableException("Too many audit ingest streams running",
+                    properties.getRetryAfterSeconds());
+        }
+        AuditIngestor.Result result;
+        try {
+            result = auditIngestor.ingest(body);
+        } finally {
+            auditIngestor.release();
+        }
+
+        return AuditIngestResultDto.builder()
+                .accepted(result.accepted())
+                .rejected(result.rejected())
+                .errors(result.errors().stream()
+                        .map(error -> new AuditIngestErrorDto(error.line(), error.message()))
+                        .toList())
+                .errorsTruncated(result.rejected() > result.errors().size())
+                .resumeFromLine(result.resumeFromLine())
+                .retryAfterSeconds(result.resumeFromLine() != null ? properties.getRetryAfterSeconds() : null)
+                .build();
+    }
+}
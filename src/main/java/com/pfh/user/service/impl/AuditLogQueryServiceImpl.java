@@ -0,0 +1,133 @@
+package com.pfh.user.service.impl;
+
+import com.pfh.user.audit.AuditLogCriteria;
+import com.pfh.user.audit.AuditLogCursor;
+import com.pfh.user.audit.AuditLogExporter;
+import com.pfh.user.audit.AuditLogSearch;
+import com.pfh.user.audit.AuditLogSummary;
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.dto.audit.AuditLogEntryDto;
+import com.pfh.user.dto.audit.AuditLogPageDto;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditExportFormat;
+import com.pfh.user.exception.DatabaseUnavailableException;
+import com.pfh.user.exception.InvalidAuditQueryException;
+import com.pfh.user.service.AuditLogQueryService;
+import com.pfh.user.util.IpAddresses;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+@RequiredArgsConstructor
+public class AuditLogQueryServiceImpl implements AuditLogQueryService {
+
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+    private static final long EXPORT_RETRY_AFTER_SECONDS = 30;
+
+    private final AuditLogSearch auditLogSearch;
+    private final AuditLogExporter auditLogExporter;
+
+    @Override
+    public AuditLogPageDto query(String email, String ipAddress, String eventType, Instant from, Instant to,
+                                 String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : AppConstant.AUDIT_QUERY_DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > AppConstant.AUDIT_QUERY_MAX_PAGE_SIZE) {
+            throw new InvalidAuditQueryException("limit",
+                    "limit must be between 1 and " + AppConstant.AUDIT_QUERY_MAX_PAGE_SIZE);
+        }
+        validateRange(from, to);
+
+        AuditLogCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = AuditLogCursor.decode(cursor);
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidAuditQueryException("cursor", "Invalid cursor");
+            }
+        }
+
+        AuditLogCriteria criteria = criteria(email, ipAddress, eventType, from, to);
+        // One extra row tells whether another page exists without a count query
+        List<AuditLogSummary> rows = auditLogSearch.search(criteria, after, pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<AuditLogSummary> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<AuditLogEntryDto> items = page.stream()
+                .map(row -> AuditLogEntryDto.builder()
+                        .eventId(row.eventId())
+                        .timestamp(row.timestamp())
+                        .eventType(row.eventType())
+                        .email(row.email())
+                        .ipAddress(row.ipAddress())
+                        .failureReason(row.failureReason())
+                        .build())
+                .toList();
+
+        return AuditLogPageDto.builder()
+                .items(items)
+                .nextCursor(hasMore ? page.get(page.size() - 1).cursor().encode() : null)
+                .build();
+    }
+
+    @Override
+    public StreamingResponseBody export(String email, String ipAddress, String eventType, Instant from, Instant to,
+                                        AuditExportFormat format, boolean gzip) {
+        validateRange(from, to);
+        AuditLogCriteria criteria = criteria(email, ipAddress, eventType, from, to);
+
+        // Taken on the request thread so a busy node answers 503 before any byte is streamed
+        if (!auditLogExporter.tryAcquire()) {
+            throw new DatabaseUnavailableException("Too many audit exports running", EXPORT_RETRY_AFTER_SECONDS);
+        }
+        return out -> {
+            try {
+                if (gzip) {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_BYTES);
+                    auditLogExporter.export(criteria, format, compressed);
+                    compressed.finish();
+                } else {
+                    auditLogExporter.export(criteria, format, out);
+                }
+            } finally {
+                auditLogExporter.release();
+            }
+        };
+    }
+
+    // Event types and IPs are stored as codes and inet, so both are validated and normalised here
+    private static AuditLogCriteria criteria(String email, String ipAddress, String eventType,
+                                             Instant from, Instant to) {
+        String type = blankToNull(eventType);
+        if (type != null) {
+            try {
+                AuditEventType.valueOf(type);
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidAuditQueryException("eventType", "Unknown event type");
+            }
+        }
+        String ip = blankToNull(ipAddress);
+        if (ip != null) {
+            ip = IpAddresses.canonical(ip);
+            if (ip == null) {
+                throw new InvalidAuditQueryException("ip", "ip must be an IPv4 or IPv6 address");
+            }
+        }
+        return new AuditLogCriteria(blankToNull(email), ip, type, from, to);
+    }
+
+    private static void validateRange(Instant from, Instant to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidAuditQueryException("from", "from must be before to");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
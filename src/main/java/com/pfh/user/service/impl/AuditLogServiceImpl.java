@@ -1,72 +1,123 @@
 package com.pfh.user.service.impl;
 
+import com.pfh.user.audit.AuditFailureAggregator;
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditLogWriter;
+import com.pfh.user.audit.LoginSketches;
+import com.pfh.user.audit.RecentLogins;
+import com.pfh.user.detection.Detection;
+import com.pfh.user.detection.ThreatDetector;
 import com.pfh.user.entity.AuditLogEntity;
-import com.pfh.user.repository.AuditLogRepository;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.enums.ThreatSubject;
 import com.pfh.user.service.AuditLogService;
+import com.pfh.user.util.IpAddresses;
+import com.pfh.user.util.TimeOrderedIds;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.security.MessageDigest;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
 public class AuditLogServiceImpl implements AuditLogService {
 
-    private final AuditLogRepository repository;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditIntegrity auditIntegrity;
+    private final AuditFailureAggregator failureAggregator;
+    private final RecentLogins recentLogins;
+    private final LoginSketches loginSketches;
+    private final ThreatDetector threatDetector;
 
     @Override
     public void logLoginSuccess(String userId, String email, String ip, String userAgent) {
         AuditLogEntity entry = AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next())
                 .userId(userId)
                 .email(email)
-                .ipAddress(ip)
+                // Stored as inet, a value that is not an IP literal (a forged X-Forwarded-For) becomes null
+                .ipAddress(IpAddresses.canonical(ip))
                 .userAgent(userAgent)
-                .timestamp(Instant.now())
-                .eventType("LOGIN_SUCCESS")
-                .integrityHash(generateIntegrityHash(email + "LOGIN_SUCCESS"))
+                .timestamp(now())
+                .eventType(AuditEventType.LOGIN_SUCCESS.name())
                 .build();
-        repository.save(entry);
+        entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+        auditLogWriter.submit(entry);
+        recentLogins.record(userId, email, entry.getTimestamp(), entry.getIpAddress(), userAgent);
+        loginSketches.record(true, email, entry.getIpAddress());
+        detectThreats(AuditEventType.LOGIN_SUCCESS, email, entry.getIpAddress());
     }
 
     @Override
-    public void logLoginFailure(String email, String ip, String reason) {
+    public void logLoginFailure(String email, String ip, AuditFailureReason reason) {
+        String ipAddress = IpAddresses.canonical(ip);
+        loginSketches.record(false, email, ipAddress);
+        detectThreats(AuditEventType.LOGIN_FAILURE, email, ipAddress);
+        if (failureAggregator.isEnabled()) {
+            failureAggregator.record(email, ipAddress, reason.getValue(), now());
+            return;
+        }
         AuditLogEntity entry = AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next())
                 .email(email)
-                .ipAddress(ip)
-                .timestamp(Instant.now())
-                .eventType("LOGIN_FAILURE")
-                .failureReason(reason)
-                .integrityHash(generateIntegrityHash(email + reason))
+                .ipAddress(ipAddress)
+                .timestamp(now())
+                .eventType(AuditEventType.LOGIN_FAILURE.name())
+                .failureReason(reason.getValue())
                 .build();
-        repository.save(entry);
+        entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+        auditLogWriter.submit(entry);
     }
 
     @Override
     public void logAccountLockout(String email, int durationMinutes, String triggerEvent) {
         AuditLogEntity entry = AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next())
                 .email(email)
-                .timestamp(Instant.now())
-                .eventType("ACCOUNT_LOCKOUT")
+                .timestamp(now())
+                .eventType(AuditEventType.ACCOUNT_LOCKOUT.name())
                 .lockoutDurationMinutes(durationMinutes)
                 .triggerEvent(triggerEvent)
-                .integrityHash(generateIntegrityHash(email + "LOCKOUT"))
                 .build();
-        repository.save(entry);
+        entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+        auditLogWriter.submit(entry);
+    }
+
+    @Override
+    public void logAccountUnlock(String userId, String triggerEvent) {
+        AuditLogEntity entry = AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next())
+                .userId(userId)
+                .timestamp(now())
+                .eventType(AuditEventType.ACCOUNT_UNLOCK.name())
+                .triggerEvent(triggerEvent)
+                .build();
+        entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+        auditLogWriter.submit(entry);
     }
 
-    private String generateIntegrityHash(String input) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(input.getBytes());
-            StringBuilder hex = new StringBuilder();
-            for (byte b : digest) {
-                hex.append(String.format("%02x", b));
-            }
-            return hex.toString();
-        } catch (Exception e) {
-            return "hash-error";
+    // Each detection is audited against the IP or email its rule grouped by, with the rule and action as trigger
+    private void detectThreats(AuditEventType type, String email, String ipAddress) {
+        for (Detection detection : threatDetector.onEvent(type, email, ipAddress)) {
+            AuditLogEntity entry = AuditLogEntity.builder()
+                    .eventId(TimeOrderedIds.next())
+                    .email(detection.subject() == ThreatSubject.EMAIL ? detection.key() : null)
+                    .ipAddress(detection.subject() == ThreatSubject.IP ? detection.key() : null)
+                    .timestamp(now())
+                    .eventType(AuditEventType.THREAT_DETECTED.name())
+                    .triggerEvent(detection.rule() + ":" + detection.action().name().toLowerCase(Locale.ROOT))
+                    .build();
+            entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+            auditLogWriter.submit(entry);
         }
     }
+
+    // Postgres keeps microseconds, the leaf hash must survive the round trip
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
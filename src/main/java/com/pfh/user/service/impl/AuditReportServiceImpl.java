@@ -0,0 +1,78 @@
+package com.pfh.user.service.impl;
+
+import com.pfh.user.audit.rollup.AuditRollups;
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.dto.audit.DailyAuditSummaryDto;
+import com.pfh.user.dto.audit.IpFailureCountDto;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.exception.InvalidAuditQueryException;
+import com.pfh.user.service.AuditReportService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+public class AuditReportServiceImpl implements AuditReportService {
+
+    private final AuditRollups auditRollups;
+
+    @Override
+    public List<DailyAuditSummaryDto> dailySummary(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+
+        // Every day of the range is reported, days without events as zeros
+        Map<LocalDate, DailyAuditSummaryDto> days = new LinkedHashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.put(day, new DailyAuditSummaryDto(day, 0, 0, new TreeMap<>(), 0));
+        }
+        for (AuditRollups.DailyEventCount count : auditRollups.dailyEventCounts(from, to)) {
+            DailyAuditSummaryDto day = days.get(count.day());
+            switch (AuditEventType.valueOf(count.eventType())) {
+                case LOGIN_SUCCESS -> day.setLoginSuccesses(day.getLoginSuccesses() + count.count());
+                case LOGIN_FAILURE -> {
+                    day.setLoginFailures(day.getLoginFailures() + count.count());
+                    if (count.failureReason() != null) {
+                        day.getFailuresByReason().merge(count.failureReason(), count.count(), Long::sum);
+                    }
+                }
+                case ACCOUNT_LOCKOUT -> day.setLockouts(day.getLockouts() + count.count());
+            }
+        }
+        return new ArrayList<>(days.values());
+    }
+
+    @Override
+    public List<IpFailureCountDto> topFailureIps(LocalDate from, LocalDate to, Integer limit) {
+        validateRange(from, to);
+        int top = limit != null ? limit : AppConstant.AUDIT_REPORT_DEFAULT_TOP_IPS;
+        if (top < 1 || top > AppConstant.AUDIT_REPORT_MAX_TOP_IPS) {
+            throw new InvalidAuditQueryException("limit",
+                    "limit must be between 1 and " + AppConstant.AUDIT_REPORT_MAX_TOP_IPS);
+        }
+        return auditRollups.topFailureIps(from, to, top).stream()
+                .map(row -> IpFailureCountDto.builder()
+                        .ipAddress(row.ipAddress())
+                        .failures(row.failures())
+                        .build())
+                .toList();
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidAuditQueryException("from", "from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= AppConstant.AUDIT_REPORT_MAX_DAYS) {
+            throw new InvalidAuditQueryException("to",
+                    "A report covers at most " + AppConstant.AUDIT_REPORT_MAX_DAYS + " days");
+        }
+    }
+}
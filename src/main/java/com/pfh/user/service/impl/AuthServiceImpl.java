@@ -1,18 +1,27 @@
 package com.pfh.user.service.impl;
 
 import com.pfh.user.config.AppConstant;
+import com.pfh.user.detection.ThreatDetector;
 import com.pfh.user.dto.auth.LoginRequestDto;
 import com.pfh.user.dto.auth.LoginResponseDto;
 import com.pfh.user.dto.auth.RegistrationRequestDto;
 import com.pfh.user.dto.auth.RegistrationResponseDto;
 import com.pfh.user.entity.UserEntity;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.enums.ThreatAction;
+import com.pfh.user.exception.AccountLockedException;
 import com.pfh.user.exception.CredentialInValidException;
+import com.pfh.user.exception.LoginBlockedException;
 import com.pfh.user.exception.PasswordIsWeakException;
 import com.pfh.user.exception.PasswordMismatchException;
+import com.pfh.user.exception.StepUpRequiredException;
 import com.pfh.user.service.AuditLogService;
 import com.pfh.user.service.AuthService;
 import com.pfh.user.service.UserService;
+import com.pfh.user.util.AccountLockouts;
+import com.pfh.user.util.AccountTransitions;
 import com.pfh.user.util.JwtUtil;
+import com.pfh.user.util.PasswordHashingLimiter;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -40,6 +49,11 @@ public class AuthServiceImpl implements AuthService {
     );
 
     private final JwtUtil jwtUtil;
+    private final PasswordHashingLimiter passwordHashingLimiter;
+    private final AccountLockouts accountLockouts;
+    private final AccountTransitions accountTransitions;
+    private final ThreatDetector threatDetector;
+
     private static void checkPasswordStrength(String inputPassword){
         // Check if password is in common list
         if (AppConstant.COMMON_PASSWORDS.contains(inputPassword.toLowerCase())) {
@@ -72,7 +86,8 @@ public class AuthServiceImpl implements AuthService {
         }
         
         // Encrypting password before passing it to the UserService
-        request.setPassword(encoder.encode(request.getPassword()));
+        String rawPassword = request.getPassword();
+        request.setPassword(passwordHashingLimiter.run(() -> encoder.encode(rawPassword)));
 
         return userService.createUser(request);
     }    
@@ -82,20 +97,44 @@ public class AuthServiceImpl implements AuthService {
     public LoginResponseDto login(LoginRequestDto request, String ip, String userAgent) {
         UserEntity user;
 
+        // Check if the account is locked, before any password hashing
+        long lockedUntil = accountLockouts.lockedUntil(request.getEmail());
+        if (lockedUntil != 0) {
+            auditLogService.logLoginFailure(request.getEmail(), ip, AuditFailureReason.ACCOUNT_LOCKED);
+            long retryAfterSeconds = Math.max(1, (lockedUntil - System.currentTimeMillis() + 999) / 1000);
+            throw new AccountLockedException("Account is temporarily locked", retryAfterSeconds);
+        }
+
+        // Check whether a threat detection rule blocked the client or the account
+        ThreatDetector.Response threat = threatDetector.activeResponse(request.getEmail(), ip);
+        if (threat != null && threat.action() == ThreatAction.BLOCK) {
+            auditLogService.logLoginFailure(request.getEmail(), ip, AuditFailureReason.THREAT_BLOCKED);
+            long retryAfterSeconds = Math.max(1, (threat.until() - System.currentTimeMillis() + 999) / 1000);
+            throw new LoginBlockedException("Login blocked after suspicious activity", retryAfterSeconds);
+        }
+
         // Check if the email is registered
         try {
             user = userService.getUserByEmail(request.getEmail());
         } catch (EntityNotFoundException ex) {
-            auditLogService.logLoginFailure(request.getEmail(), ip, "user_not_found");
+            auditLogService.logLoginFailure(request.getEmail(), ip, AuditFailureReason.USER_NOT_FOUND);
+            recordFailure(request.getEmail(), null);
             throw new CredentialInValidException("Invalid credentials");
         }
 
         // Check if the password matches
-        if (!encoder.matches(request.getPassword(), user.getPasswordHash())) {
-            auditLogService.logLoginFailure(request.getEmail(), ip, "invalid_credentials");
+        if (!passwordHashingLimiter.run(() -> encoder.matches(request.getPassword(), user.getPasswordHash()))) {
+            auditLogService.logLoginFailure(request.getEmail(), ip, AuditFailureReason.INVALID_CREDENTIALS);
+            recordFailure(request.getEmail(), user.getId());
             throw new CredentialInValidException("Invalid credentials");
         }
 
+        // Correct credentials are not enough for a login judged high risk
+        if (threat != null && threat.action() == ThreatAction.STEP_UP) {
+            auditLogService.logLoginFailure(request.getEmail(), ip, AuditFailureReason.STEP_UP_REQUIRED);
+            throw new StepUpRequiredException("Additional verification required");
+        }
+
         auditLogService.logLoginSuccess(
             String.valueOf(user.getId()),
             user.getEmail(),
@@ -116,4 +155,16 @@ public class AuthServiceImpl implements AuthService {
             .claims(claims)
             .build();
     }
+
+    // Unknown emails count too, so a lockout does not reveal which accounts exist
+    private void recordFailure(String email, Long userId) {
+        AccountLockouts.Failure failure = accountLockouts.recordFailure(email, userId);
+        if (failure.lockedNow()) {
+            auditLogService.logAccountLockout(email, AppConstant.LOGIN_LOCKOUT_DURATION_MINUTES, "failed_logins");
+            if (userId != null) {
+                accountTransitions.scheduleUnlock(
+                        new AccountLockouts.PendingUnlock(userId, failure.accountKey(), failure.lockedUntil()));
+            }
+        }
+    }
 }
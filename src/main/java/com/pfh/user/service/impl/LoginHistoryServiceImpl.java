@@ -0,0 +1,60 @@
+package com.pfh.user.service.impl;
+
+import com.pfh.user.audit.RecentLogins;
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.dto.user.RecentLoginDto;
+import com.pfh.user.dto.user.RecentLoginsDto;
+import com.pfh.user.exception.CredentialInValidException;
+import com.pfh.user.exception.InvalidAuditQueryException;
+import com.pfh.user.service.LoginHistoryService;
+import com.pfh.user.util.JwtUtil;
+
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class LoginHistoryServiceImpl implements LoginHistoryService {
+
+    private static final String BEARER = "Bearer ";
+
+    private final RecentLogins recentLogins;
+    private final JwtUtil jwtUtil;
+
+    @Override
+    public RecentLoginsDto recentLogins(String authorization, Integer limit) {
+        int size = limit != null ? limit : AppConstant.RECENT_LOGINS_PER_USER;
+        if (size < 1 || size > AppConstant.RECENT_LOGINS_PER_USER) {
+            throw new InvalidAuditQueryException("limit",
+                    "limit must be between 1 and " + AppConstant.RECENT_LOGINS_PER_USER);
+        }
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            throw new CredentialInValidException("Invalid token");
+        }
+
+        String token = authorization.substring(BEARER.length()).trim();
+        String userId;
+        String email;
+        try {
+            userId = String.valueOf(jwtUtil.extractId(token));
+            email = jwtUtil.extractClaim(token, claims -> claims.get("email", String.class));
+        } catch (JwtException | IllegalArgumentException ex) {
+            // Expired, badly signed or malformed, the caller is told nothing more
+            throw new CredentialInValidException("Invalid token");
+        }
+        if (email == null) {
+            throw new CredentialInValidException("Invalid token");
+        }
+
+        return RecentLoginsDto.builder()
+                .items(recentLogins.recent(userId, email, size).stream()
+                        .map(login -> RecentLoginDto.builder()
+                                .timestamp(login.timestamp())
+                                .ipAddress(login.ipAddress())
+                                .userAgent(login.userAgent())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
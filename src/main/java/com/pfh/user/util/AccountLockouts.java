@@ -0,0 +1,227 @@
+package com.pfh.user.util;
+
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.resilience.DatabaseGuards;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Failed login counts per account, kept out of {@code users} in the narrow
+ * {@code account_lockouts} table so a flood of failures never rewrites user
+ * rows. A failure is recorded by one upsert that opens a new window, counts
+ * into the current one or locks the account, and returns the result, so
+ * concurrent failures on several nodes cannot lose a count.
+ *
+ * Accounts are keyed by a hash of the lower-cased email, unknown emails
+ * included: locking only real accounts would tell an attacker which emails
+ * exist, and the table never holds the addresses themselves.
+ *
+ * A lock is only a timestamp; it ends when that time has passed and the next
+ * failure starts a fresh window, so nothing has to sweep expired locks. The
+ * end of a registered user's lock is reported once through
+ * {@code unlock_notified}, driven by {@link AccountTransitions}. Each
+ * node remembers the locks it has seen until they end, so attempts on a
+ * locked account are refused without touching the database.
+ */
+@Component
+public class AccountLockouts {
+
+    // lockedUntil is 0 while the account is not locked, lockedNow is set on the failure that locked it
+    public record Failure(UUID accountKey, int failures, long lockedUntil, boolean lockedNow) {
+    }
+
+    // A lock of a registered user whose end has not been reported yet
+    public record PendingUnlock(long userId, UUID accountKey, long lockedUntil) {
+    }
+
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS account_lockouts (
+                account_key UUID PRIMARY KEY,
+                failures INTEGER NOT NULL,
+                window_started_at BIGINT NOT NULL,
+                locked_until BIGINT NOT NULL,
+                user_id BIGINT,
+                unlock_notified BIGINT NOT NULL DEFAULT 0
+            ) WITH (fillfactor = 70);
+            ALTER TABLE account_lockouts ADD COLUMN IF NOT EXISTS user_id BIGINT;
+            ALTER TABLE account_lockouts ADD COLUMN IF NOT EXISTS unlock_notified BIGINT NOT NULL DEFAULT 0
+            """;
+
+    // EXCLUDED.window_started_at is now; a window restarts once it has passed or the lock it caused has ended
+    private static final String RECORD_FAILURE_SQL = """
+            INSERT INTO account_lockouts AS l (account_key, failures, window_started_at, locked_until, user_id)
+            VALUES (?, 1, ?, 0, ?)
+            ON CONFLICT (account_key) DO UPDATE
+            SET user_id = COALESCE(EXCLUDED.user_id, l.user_id),
+                failures = CASE WHEN %1$s THEN 1 ELSE l.failures + 1 END,
+                window_started_at = CASE WHEN %1$s THEN EXCLUDED.window_started_at ELSE l.window_started_at END,
+                locked_until = CASE
+                    WHEN l.locked_until > EXCLUDED.window_started_at THEN l.locked_until
+                    WHEN %1$s THEN 0
+                    WHEN l.failures + 1 >= %2$d THEN EXCLUDED.window_started_at + %3$d
+                    ELSE 0
+                END
+            RETURNING failures, locked_until
+            """.formatted(
+            "(l.locked_until <= EXCLUDED.window_started_at AND (l.locked_until <> 0 "
+                    + "OR l.window_started_at <= EXCLUDED.window_started_at - " + AppConstant.LOGIN_LOCKOUT_WINDOW_MS + "))",
+            AppConstant.LOGIN_LOCKOUT_MAX_FAILURES,
+            AppConstant.LOGIN_LOCKOUT_DURATION_MINUTES * 60_000L);
+
+    // Locks whose end is still to be reported, including those that ended while no node was running
+    private static final String PENDING_UNLOCKS_SQL = """
+            SELECT user_id, account_key, locked_until FROM account_lockouts
+            WHERE user_id IS NOT NULL AND locked_until > unlock_notified
+            """;
+
+    // Only the node whose update matches reports the unlock, however many nodes had it scheduled
+    private static final String CLAIM_UNLOCKS_SQL = """
+            UPDATE account_lockouts AS l SET unlock_notified = u.locked_until
+            FROM unnest(?::uuid[], ?::bigint[]) AS u (account_key, locked_until)
+            WHERE l.account_key = u.account_key AND l.unlock_notified < u.locked_until
+            RETURNING l.account_key
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseGuards databaseGuards;
+    // Locked accounts and the epoch millis their lock ends at
+    private final ConcurrentHashMap<UUID, Long> locked = new ConcurrentHashMap<>();
+
+    public AccountLockouts(JdbcTemplate jdbcTemplate, DatabaseGuards databaseGuards, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseGuards = databaseGuards;
+        Gauge.builder("auth.lockout.cached", locked, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void createTable() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    // Epoch millis the account's lock ends at, 0 when it is not locked
+    public long lockedUntil(String email) {
+        UUID key = accountKey(email);
+        long now = System.currentTimeMillis();
+        Long cached = locked.get(key);
+        if (cached != null) {
+            if (cached > now) {
+                return cached;
+            }
+            locked.remove(key, cached);
+        }
+
+        List<Long> rows = guarded(() -> jdbcTemplate.queryForList(
+                "SELECT locked_until FROM account_lockouts WHERE account_key = ?", Long.class, key));
+        long lockedUntil = rows.isEmpty() ? 0 : rows.get(0);
+        if (lockedUntil <= now) {
+            return 0;
+        }
+        remember(key, lockedUntil, now);
+        return lockedUntil;
+    }
+
+    // userId is null for an email no account is registered with
+    public Failure recordFailure(String email, Long userId) {
+        UUID key = accountKey(email);
+        long now = System.currentTimeMillis();
+        Failure failure = guarded(() -> jdbcTemplate.queryForObject(RECORD_FAILURE_SQL,
+                (rs, row) -> {
+                    int failures = rs.getInt(1);
+                    // Only the failure that reached the limit sees it exactly, later ones raced past the check
+                    return new Failure(key, failures, rs.getLong(2),
+                            failures == AppConstant.LOGIN_LOCKOUT_MAX_FAILURES);
+                },
+                key, now, userId));
+        if (failure.lockedUntil() > now) {
+            remember(key, failure.lockedUntil(), now);
+        }
+        return failure;
+    }
+
+    public void pendingUnlocks(Consumer<PendingUnlock> consumer) {
+        guarded(() -> {
+            jdbcTemplate.query(PENDING_UNLOCKS_SQL, rs -> {
+                consumer.accept(new PendingUnlock(rs.getLong(1), rs.getObject(2, UUID.class), rs.getLong(3)));
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Marks the given lock ends as reported and returns the account keys this
+     * call marked; ends another node already reported are left out.
+     */
+    public Set<UUID> claimUnlocks(List<PendingUnlock> unlocks) {
+        UUID[] keys = unlocks.stream().map(PendingUnlock::accountKey).toArray(UUID[]::new);
+        Long[] lockedUntil = unlocks.stream().map(PendingUnlock::lockedUntil).toArray(Long[]::new);
+        Set<UUID> claimed = new HashSet<>();
+        guarded(() -> {
+            jdbcTemplate.query(CLAIM_UNLOCKS_SQL,
+                    ps -> {
+                        ps.setArray(1, ps.getConnection().createArrayOf("uuid", keys));
+                        ps.setArray(2, ps.getConnection().createArrayOf("int8", lockedUntil));
+                    },
+                    rs -> {
+                        claimed.add(rs.getObject(1, UUID.class));
+                    });
+            return null;
+        });
+        return claimed;
+    }
+
+    // The lock has ended, the next attempt reads the database again
+    public void forget(UUID accountKey) {
+        locked.remove(accountKey);
+    }
+
+    private void remember(UUID key, long lockedUntil, long now) {
+        if (locked.size() >= AppConstant.LOGIN_LOCKOUT_CACHE_SIZE) {
+            locked.values().removeIf(until -> until <= now);
+            if (locked.size() >= AppConstant.LOGIN_LOCKOUT_CACHE_SIZE) {
+                // Every entry is a live lock, this one is looked up in the database instead
+                return;
+            }
+        }
+        locked.put(key, lockedUntil);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T guarded(Supplier<T> query) {
+        try {
+            return (T) databaseGuards.users().execute(query::get);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static UUID accountKey(String email) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            ByteBuffer bytes = ByteBuffer.wrap(digest);
+            return new UUID(bytes.getLong(), bytes.getLong());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.pfh.user.util;
+
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.enums.AccountTransitionType;
+import com.pfh.user.service.AuditLogService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Runs timed account state changes from one {@link HierarchicalTimingWheel}
+ * per node instead of a query or a thread per pending change. Each tick
+ * advances the wheel and reports what fell due; a change scheduled on
+ * another node, or pending while no node ran, reaches the wheel when it is
+ * rebuilt from the database on the first tick after start-up.
+ *
+ * Every node may hold the same change, so a change is reported by whichever
+ * node claims it in the database first. A claim the database refused is
+ * scheduled again and retried after {@link AppConstant#ACCOUNT_TRANSITION_RETRY_MS}.
+ */
+@Slf4j
+@Component
+public class AccountTransitions {
+
+    private record Key(long userId, AccountTransitionType type) {
+    }
+
+    private final AccountLockouts accountLockouts;
+    private final AuditLogService auditLogService;
+    // Guarded by itself
+    private final HierarchicalTimingWheel<Key, AccountLockouts.PendingUnlock> wheel = new HierarchicalTimingWheel<>(
+            AppConstant.ACCOUNT_TRANSITION_TICK_MS,
+            AppConstant.ACCOUNT_TRANSITION_WHEEL_LEVELS,
+            System.currentTimeMillis());
+    private final Counter unlockedCounter;
+
+    private volatile boolean rebuilt;
+
+    public AccountTransitions(AccountLockouts accountLockouts, AuditLogService auditLogService,
+                              MeterRegistry meterRegistry) {
+        this.accountLockouts = accountLockouts;
+        this.auditLogService = auditLogService;
+        Gauge.builder("auth.transitions.pending", this, AccountTransitions::pending).register(meterRegistry);
+        this.unlockedCounter = Counter.builder("auth.transitions.unlocked").register(meterRegistry);
+    }
+
+    public void scheduleUnlock(AccountLockouts.PendingUnlock unlock) {
+        synchronized (wheel) {
+            wheel.schedule(new Key(unlock.userId(), AccountTransitionType.UNLOCK), unlock, unlock.lockedUntil());
+        }
+    }
+
+    public boolean cancel(long userId, AccountTransitionType type) {
+        synchronized (wheel) {
+            return wheel.cancel(new Key(userId, type));
+        }
+    }
+
+    public int pending() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Schedules every change still to be reported in the database; those
+     * already due fire on the next tick. Changes this node already holds are
+     * replaced, not duplicated.
+     */
+    public int rebuild() {
+        int[] scheduled = {0};
+        accountLockouts.pendingUnlocks(unlock -> {
+            scheduleUnlock(unlock);
+            scheduled[0]++;
+        });
+        rebuilt = true;
+        return scheduled[0];
+    }
+
+    @Scheduled(fixedDelay = AppConstant.ACCOUNT_TRANSITION_TICK_MS)
+    public void tick() {
+        if (!rebuilt) {
+            try {
+                log.info("Rebuilt {} pending account transitions", rebuild());
+            } catch (RuntimeException ex) {
+                log.warn("Rebuilding account transitions failed, retrying next tick: {}", ex.getMessage());
+            }
+        }
+
+        List<AccountLockouts.PendingUnlock> unlocks = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), (key, unlock, deadline) -> unlocks.add(unlock));
+        }
+        for (int from = 0; from < unlocks.size(); from += AppConstant.ACCOUNT_TRANSITION_BATCH_SIZE) {
+            report(unlocks.subList(from, Math.min(unlocks.size(), from + AppConstant.ACCOUNT_TRANSITION_BATCH_SIZE)));
+        }
+    }
+
+    private void report(List<AccountLockouts.PendingUnlock> unlocks) {
+        Set<UUID> claimed;
+        try {
+            claimed = accountLockouts.claimUnlocks(unlocks);
+        } catch (RuntimeException ex) {
+            log.warn("Reporting {} account unlocks failed, retrying: {}", unlocks.size(), ex.getMessage());
+            long retryAt = System.currentTimeMillis() + AppConstant.ACCOUNT_TRANSITION_RETRY_MS;
+            synchronized (wheel) {
+                for (AccountLockouts.PendingUnlock unlock : unlocks) {
+                    Key key = new Key(unlock.userId(), AccountTransitionType.UNLOCK);
+                    // A newer lock scheduled in the meantime is reported on its own
+                    if (!wheel.contains(key)) {
+                        wheel.schedule(key, unlock, retryAt);
+                    }
+                }
+            }
+            return;
+        }
+
+        for (AccountLockouts.PendingUnlock unlock : unlocks) {
+            accountLockouts.forget(unlock.accountKey());
+            if (claimed.contains(unlock.accountKey())) {
+                auditLogService.logAccountUnlock(String.valueOf(unlock.userId()), "lock_expired");
+                unlockedCounter.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.pfh.user.util;
+
+import com.pfh.user.config.security.ClusterRateLimitProperties;
+import com.pfh.user.enums.RateLimitDecision;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per key whose tokens are shared by every node through one
+ * narrow row per key in {@code rate_limit_buckets}.
+ *
+ * A login never waits on the database. Each node decides from the global
+ * tokens it saw at its last sync, refilled locally since, and may spend at
+ * most {@code localShare} of them before it syncs again. A sync sends the hits
+ * counted since the previous one for all touched keys in a single upsert and
+ * reads back the new global tokens. Refill is computed on the database clock,
+ * so nodes with skewed clocks still agree on the bucket.
+ *
+ * Nodes overshoot only by what they spend on a stale view between two
+ * syncs: a burst spread over {@code n} nodes gets through at most about
+ * {@code capacity * (1 + localShare * (n - 1))} times, so a smaller share or a
+ * shorter {@code syncIntervalMs} buys accuracy with round trips. Hits beyond
+ * the tokens left become debt, down to minus the capacity, so a burst that slipped
+ * through is paid back before the key is admitted again. When the database is
+ * unreachable the hits are kept and sent later; meanwhile each node keeps
+ * limiting on its own view of the bucket.
+ */
+@Slf4j
+public final class ClusterRateLimiter {
+
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS rate_limit_buckets (
+                bucket_key UUID PRIMARY KEY,
+                tokens REAL NOT NULL,
+                refilled_at BIGINT NOT NULL
+            ) WITH (fillfactor = 70)
+            """;
+
+    // refilled_at is epoch millis on the database clock; tokens never drop below minus the capacity
+    private static final String SYNC_SQL = """
+            INSERT INTO rate_limit_buckets AS b (bucket_key, tokens, refilled_at)
+            SELECT u.bucket_key, GREATEST(? - u.hits, -?), t.ms
+            FROM unnest(?::uuid[], ?::int[]) AS u (bucket_key, hits),
+                 (SELECT (extract(epoch FROM clock_timestamp()) * 1000)::bigint AS ms) AS t
+            ON CONFLICT (bucket_key) DO UPDATE
+            SET tokens = GREATEST(
+                    LEAST(?, b.tokens + GREATEST(EXCLUDED.refilled_at - b.refilled_at, 0) * ?) - (? - EXCLUDED.tokens),
+                    -?),
+                refilled_at = GREATEST(b.refilled_at, EXCLUDED.refilled_at)
+            RETURNING bucket_key, tokens
+            """;
+
+    // Buckets that would be full by now carry no information, a missing row reads as full
+    private static final String CLEANUP_SQL = """
+            DELETE FROM rate_limit_buckets
+            WHERE tokens + ((extract(epoch FROM clock_timestamp()) * 1000)::bigint - refilled_at) * ? >= ?
+            """;
+
+    // Only touched under its own monitor
+    private static final class Bucket {
+        private final UUID id;
+        // Global tokens returned by the last sync, at syncedAt on the local clock
+        private double tokens;
+        private long syncedAt;
+        private boolean known;
+        // Hits not yet sent, and hits sent by a sync still running
+        private int pending;
+        private int inFlight;
+        private long lastUsed;
+        private boolean evicted;
+
+        private Bucket(UUID id) {
+            this.id = id;
+        }
+    }
+
+    private final String name;
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterRateLimitProperties properties;
+    private final int capacity;
+    private final double refillPerMs;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public ClusterRateLimiter(String name, JdbcTemplate jdbcTemplate, int capacity, double refillPerSecond,
+                              ClusterRateLimitProperties properties) {
+        this(name, jdbcTemplate, capacity, refillPerSecond, properties, System::currentTimeMillis);
+    }
+
+    public ClusterRateLimiter(String name, JdbcTemplate jdbcTemplate, int capacity, double refillPerSecond,
+                              ClusterRateLimitProperties properties, LongSupplier clock) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and refill rate must be positive");
+        }
+        this.name = name;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.capacity = capacity;
+        this.refillPerMs = refillPerSecond / 1000.0;
+        this.clock = clock;
+    }
+
+    public void createTable() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    public RateLimitDecision tryAcquire(String key) {
+        long now = clock.getAsLong();
+        while (true) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= properties.getMaxKeys()) {
+                    // Left to the per-node limiter until the next sync frees room
+                    return RateLimitDecision.ALLOWED;
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new Bucket(bucketId(k)));
+            }
+            synchronized (bucket) {
+                // Evicted by a sync after it was looked up, a hit counted on it would be lost
+                if (!bucket.evicted) {
+                    return acquire(bucket, now);
+                }
+            }
+        }
+    }
+
+    // Caller holds the bucket's monitor
+    private RateLimitDecision acquire(Bucket bucket, long now) {
+        bucket.lastUsed = now;
+        double available = bucket.known
+                ? Math.min(capacity, bucket.tokens + (now - bucket.syncedAt) * refillPerMs)
+                : capacity;
+        int budget = Math.max(1, (int) (available * properties.getLocalShare()));
+        int spent = bucket.pending + bucket.inFlight;
+        if (available - spent < 1 || spent + 1 > budget) {
+            return RateLimitDecision.REJECTED;
+        }
+        bucket.pending++;
+        return RateLimitDecision.ALLOWED;
+    }
+
+    /**
+     * Milliseconds until the bucket of the key holds a token again, on this
+     * node's view of it. 0 when only this node's share is spent, the next sync
+     * frees it.
+     */
+    public long retryAfterMs(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0;
+        }
+        synchronized (bucket) {
+            long now = clock.getAsLong();
+            double available = bucket.known
+                    ? Math.min(capacity, bucket.tokens + (now - bucket.syncedAt) * refillPerMs)
+                    : capacity;
+            double missing = 1 - (available - bucket.pending - bucket.inFlight);
+            return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerMs);
+        }
+    }
+
+    /**
+     * Sends the hits counted since the last sync and refreshes the global
+     * tokens of those keys. Keys are written in a fixed order, so concurrent
+     * syncs of several nodes cannot deadlock on each other's rows.
+     */
+    public void sync() {
+        long now = clock.getAsLong();
+        List<Bucket> touched = new ArrayList<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            synchronized (bucket) {
+                if (bucket.pending > 0 && bucket.inFlight == 0) {
+                    bucket.inFlight = bucket.pending;
+                    bucket.pending = 0;
+                    touched.add(bucket);
+                } else if (bucket.pending == 0 && bucket.inFlight == 0 && isIdle(bucket, now)) {
+                    bucket.evicted = true;
+                    buckets.remove(entry.getKey(), bucket);
+                }
+            }
+        }
+        touched.sort(Comparator.comparing(bucket -> bucket.id));
+
+        int batchSize = Math.max(1, properties.getBatchSize());
+        for (int from = 0; from < touched.size(); from += batchSize) {
+            List<Bucket> batch = touched.subList(from, Math.min(touched.size(), from + batchSize));
+            try {
+                write(batch, now);
+            } catch (RuntimeException ex) {
+                log.warn("Rate limit sync of {} keys for {} failed: {}", batch.size(), name, ex.getMessage());
+                for (Bucket bucket : batch) {
+                    synchronized (bucket) {
+                        bucket.pending += bucket.inFlight;
+                        bucket.inFlight = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    // Deletes the rows of keys whose buckets have refilled completely
+    public int cleanup() {
+        return jdbcTemplate.update(CLEANUP_SQL, refillPerMs, capacity);
+    }
+
+    public int trackedKeys() {
+        return buckets.size();
+    }
+
+    private void write(List<Bucket> batch, long now) {
+        UUID[] ids = new UUID[batch.size()];
+        Integer[] hits = new Integer[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Bucket bucket = batch.get(i);
+            ids[i] = bucket.id;
+            hits[i] = bucket.inFlight;
+        }
+
+        Map<UUID, Double> tokens = new HashMap<>();
+        jdbcTemplate.query(SYNC_SQL,
+                ps -> {
+                    ps.setInt(1, capacity);
+                    ps.setInt(2, capacity);
+                    ps.setArray(3, ps.getConnection().createArrayOf("uuid", ids));
+                    ps.setArray(4, ps.getConnection().createArrayOf("int4", hits));
+                    ps.setInt(5, capacity);
+                    ps.setDouble(6, refillPerMs);
+                    ps.setInt(7, capacity);
+                    ps.setInt(8, capacity);
+                },
+                rs -> {
+                    tokens.put(rs.getObject(1, UUID.class), rs.getDouble(2));
+                });
+
+        for (Bucket bucket : batch) {
+            Double global = tokens.get(bucket.id);
+            synchronized (bucket) {
+                if (global != null) {
+                    bucket.tokens = global;
+                    bucket.syncedAt = now;
+                    bucket.known = true;
+                } else {
+                    bucket.pending += bucket.inFlight;
+                }
+                bucket.inFlight = 0;
+            }
+        }
+    }
+
+    // Long enough unused for the bucket to be full again, forgetting it changes nothing
+    private boolean isIdle(Bucket bucket, long now) {
+        return now - bucket.lastUsed >= capacity / refillPerMs;
+    }
+
+    private UUID bucketId(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((name + ":" + key).getBytes(StandardCharsets.UTF_8));
+            ByteBuffer bytes = ByteBuffer.wrap(digest);
+            return new UUID(bytes.getLong(), bytes.getLong());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.pfh.user.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel holding one pending deadline per key, for state
+ * changes that must happen at a point in time without a query or thread per
+ * entry.
+ *
+ * Level 0 has one slot per tick, each level above one slot per full turn of
+ * the level below. An entry is linked into the slot of the lowest level whose
+ * range still covers its deadline; whenever a level completes a turn, the
+ * next slot of the level above is emptied into the levels below, so an entry
+ * is moved at most once per level before it fires. Scheduling, rescheduling
+ * and cancelling are a hash lookup and a list link or unlink. Deadlines
+ * beyond the top level wait in its farthest slot and are placed again when it
+ * comes round.
+ *
+ * Not thread-safe, callers serialize access.
+ */
+public final class HierarchicalTimingWheel<K, V> {
+
+    public interface ExpiryHandler<K, V> {
+        void expired(K key, V value, long deadlineMs);
+    }
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    // Doubly linked within its slot, the slot's sentinel has no key
+    private static final class Node<K, V> {
+        private final K key;
+        private V value;
+        private long deadlineMs;
+        private long deadlineTick;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+
+    private final long tickMs;
+    private final long originMs;
+    private final int levels;
+    private final Node<K, V>[][] slots;
+    private final Map<K, Node<K, V>> nodes = new HashMap<>();
+    // Last tick whose level 0 slot was processed
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int levels, long nowMs) {
+        if (tickMs < 1 || levels < 1 || levels * SLOT_BITS > 62) {
+            throw new IllegalArgumentException("tickMs must be positive and levels between 1 and " + 62 / SLOT_BITS);
+        }
+        this.tickMs = tickMs;
+        this.originMs = nowMs;
+        this.levels = levels;
+        this.slots = new Node[levels][SLOTS];
+        for (Node<K, V>[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                Node<K, V> sentinel = new Node<>(null);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                level[i] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Schedules the key at the deadline, replacing a deadline it already had.
+     * A deadline that has passed fires on the next {@link #advance}.
+     */
+    public void schedule(K key, V value, long deadlineMs) {
+        Node<K, V> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            unlink(node);
+        }
+        node.value = value;
+        node.deadlineMs = deadlineMs;
+        // Rounded up, an entry never fires before its deadline
+        node.deadlineTick = Math.max(tick + 1, Math.floorDiv(deadlineMs - originMs + tickMs - 1, tickMs));
+        place(node);
+    }
+
+    public boolean cancel(K key) {
+        Node<K, V> node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return nodes.containsKey(key);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Moves the wheel to {@code nowMs} and removes every entry whose deadline
+     * has been reached, handing them to the handler in tick order. The
+     * handler may schedule again, entries it adds fire on a later advance.
+     */
+    public void advance(long nowMs, ExpiryHandler<K, V> handler) {
+        long target = Math.floorDiv(nowMs - originMs, tickMs);
+        List<Node<K, V>> expired = new ArrayList<>();
+        while (tick < target) {
+            if (nodes.isEmpty()) {
+                // Nothing to cascade or fire, skip the empty turns
+                tick = target;
+                break;
+            }
+            tick++;
+            cascade();
+            drain(slots[0][(int) (tick & SLOT_MASK)], expired);
+            for (Node<K, V> node : expired) {
+                if (node.deadlineTick > tick) {
+                    // Parked in the top level's farthest slot, still out of range
+                    place(node);
+                } else {
+                    nodes.remove(node.key);
+                    handler.expired(node.key, node.value, node.deadlineMs);
+                }
+            }
+            expired.clear();
+        }
+    }
+
+    // At every turn of a level the next slot of the level above moves down, highest level first
+    private void cascade() {
+        int level = 0;
+        while (level + 1 < levels && ((tick >>> (SLOT_BITS * (level + 1))) << (SLOT_BITS * (level + 1))) == tick) {
+            level++;
+        }
+        List<Node<K, V>> moved = new ArrayList<>();
+        for (; level > 0; level--) {
+            drain(slots[level][(int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK)], moved);
+            for (Node<K, V> node : moved) {
+                place(node);
+            }
+            moved.clear();
+        }
+    }
+
+    private void place(Node<K, V> node) {
+        long delta = node.deadlineTick - tick;
+        for (int level = 0; level < levels; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                link(slots[level][(int) ((node.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK)], node);
+                return;
+            }
+        }
+        // Beyond the top level: the slot that comes round last
+        int top = levels - 1;
+        long farthest = tick + (1L << (SLOT_BITS * levels)) - 1;
+        link(slots[top][(int) ((farthest >>> (SLOT_BITS * top)) & SLOT_MASK)], node);
+    }
+
+    private static <K, V> void drain(Node<K, V> sentinel, List<Node<K, V>> into) {
+        Node<K, V> node = sentinel.next;
+        while (node != sentinel) {
+            Node<K, V> next = node.next;
+            node.previous = null;
+            node.next = null;
+            into.add(node);
+            node = next;
+        }
+        sentinel.next = sentinel;
+        sentinel.previous = sentinel;
+    }
+
+    private static <K, V> void link(Node<K, V> sentinel, Node<K, V> node) {
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+    }
+
+    private static <K, V> void unlink(Node<K, V> node) {
+        if (node.previous != null) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.pfh.user.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Canonical text form of client IP addresses. Audit rows store IPs as
+ * Postgres {@code inet}, which prints addresses its own way, so the audited
+ * string is normalised once up front and again on every read: the leaf hash
+ * then covers the same text whichever side produced it.
+ */
+public final class IpAddresses {
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Returns the canonical form of an IPv4 or IPv6 literal (IPv4-mapped IPv6
+     * becomes IPv4, IPv6 is written in full without a zone), or null when the
+     * value is not an IP literal. Never performs a DNS lookup.
+     */
+    public static String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String literal = value.trim();
+        int zone = literal.indexOf('%');
+        if (zone >= 0) {
+            literal = literal.substring(0, zone);
+        }
+        if (literal.isEmpty()) {
+            return null;
+        }
+        byte[] address = literal.indexOf(':') >= 0 ? parseIpv6(literal) : parseIpv4(literal);
+        if (address == null) {
+            return null;
+        }
+        try {
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * The address the request came from, seen through our own proxies. Each
+     * proxy appends the peer it received the request from to X-Forwarded-For,
+     * so only the hops right of the last untrusted one are reliable: the
+     * header is read from the right, past every {@code trustedProxy}, and the
+     * first other hop is the client. Anything a client put into the header
+     * itself sits further left and is never reached. A request whose peer is
+     * not a trusted proxy is answered with the peer, whatever it sent.
+     */
+    public static String clientIp(HttpServletRequest request, Predicate<String> trustedProxy) {
+        String peer = request.getRemoteAddr();
+        String header = request.getHeader("X-Forwarded-For");
+        if (header == null || header.isBlank() || !trustedProxy.test(peer)) {
+            return peer;
+        }
+        String[] hops = header.split(",");
+        for (int i = hops.length - 1; i > 0; i--) {
+            String hop = hops[i].trim();
+            if (!trustedProxy.test(hop)) {
+                return hop;
+            }
+        }
+        // Every hop is one of ours, the request started inside the trusted network
+        return hops[0].trim();
+    }
+
+    /**
+     * Matches the IP literals inside any of the given CIDR blocks; a block
+     * without a prefix length is a single address. IPv4 and IPv6 blocks never
+     * match each other's addresses, IPv4-mapped IPv6 counts as IPv4.
+     *
+     * @throws IllegalArgumentException when a block is not a valid CIDR
+     */
+    public static Predicate<String> inAny(Collection<String> cidrs) {
+        List<Block> blocks = new ArrayList<>();
+        for (String cidr : cidrs) {
+            String value = cidr.trim();
+            int slash = value.indexOf('/');
+            byte[] network = bytes(slash >= 0 ? value.substring(0, slash) : value);
+            if (network == null) {
+                throw new IllegalArgumentException("Not a CIDR block: " + cidr);
+            }
+            int bits = network.length * 8;
+            if (slash >= 0) {
+                try {
+                    bits = Integer.parseInt(value.substring(slash + 1));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Not a CIDR block: " + cidr);
+                }
+                if (bits < 0 || bits > network.length * 8) {
+                    throw new IllegalArgumentException("Not a CIDR block: " + cidr);
+                }
+            }
+            blocks.add(new Block(network, bits));
+        }
+        return value -> {
+            byte[] address = bytes(value);
+            if (address == null) {
+                return false;
+            }
+            for (Block block : blocks) {
+                if (block.contains(address)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Canonical form of the network an address belongs to: IPv6 addresses are
+     * cut to their first {@code ipv6PrefixBits} bits, since one host usually
+     * holds a whole /64; IPv4 addresses are returned as they are. Null when the
+     * value is not an IP literal.
+     */
+    public static String network(String value, int ipv6PrefixBits) {
+        String canonical = canonical(value);
+        if (canonical == null || canonical.indexOf(':') < 0) {
+            return canonical;
+        }
+        byte[] address = parseIpv6(canonical);
+        for (int bit = ipv6PrefixBits; bit < address.length * 8; bit++) {
+            address[bit / 8] &= (byte) ~(0x80 >>> (bit % 8));
+        }
+        try {
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException ex) {
+            return null;
+        }
+    }
+
+    private record Block(byte[] network, int bits) {
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            for (int bit = 0; bit < bits; bit += 8) {
+                int mask = bits - bit >= 8 ? 0xff : (0xff << (8 - (bits - bit))) & 0xff;
+                if (((address[bit / 8] ^ network[bit / 8]) & mask) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // 4 or 16 bytes of an IP literal in its canonical form, null when it is none
+    private static byte[] bytes(String value) {
+        String canonical = canonical(value);
+        if (canonical == null) {
+            return null;
+        }
+        return canonical.indexOf(':') >= 0 ? parseIpv6(canonical) : parseIpv4(canonical);
+    }
+
+    // Strict dotted quad, InetAddress would fall back to a DNS lookup for anything else
+    private static byte[] parseIpv4(String literal) {
+        String[] parts = literal.split("\\.", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        byte[] address = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3) {
+                return null;
+            }
+            int octet = 0;
+            for (int j = 0; j < part.length(); j++) {
+                char c = part.charAt(j);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                octet = octet * 10 + (c - '0');
+            }
+            if (octet > 255) {
+                return null;
+            }
+            address[i] = (byte) octet;
+        }
+        return address;
+    }
+
+    private static byte[] parseIpv6(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            boolean valid = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')
+                    || c == ':' || c == '.';
+            if (!valid) {
+                return null;
+            }
+        }
+        try {
+            // A string containing ':' is only ever parsed as an IPv6 literal, never resolved
+            return InetAddress.getByName(literal).getAddress();
+        } catch (UnknownHostException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.pfh.user.util;
+
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.config.security.AppSecrets;
+import com.pfh.user.config.security.JwtKeyRingProperties;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * The keys tokens are signed and verified with, each named by the key id
+ * signed tokens carry in their {@code kid} header. Without a key file the
+ * ring holds app.jwt-secret alone, under the id "default"; with one it holds
+ * the keys the file lists:
+ *
+ * <pre>
+ * active=2026-10
+ * key.2026-10=...
+ * key.2026-09=...
+ * </pre>
+ *
+ * New tokens are signed with the active key and a token verifies while the
+ * key its kid names is in the ring, so a rotation adds a key, makes it
+ * active, and removes the previous one once its tokens have expired. The
+ * file is re-read when its content changes; content that cannot be read or
+ * is invalid leaves the current ring in place.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    public record SigningKey(String kid, Key key) {
+    }
+
+    // Replaced as a whole, never modified
+    private record Ring(SigningKey active, Map<String, Key> keys) {
+    }
+
+    private static final Pattern KID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final String ACTIVE = "active";
+    private static final String KEY_PREFIX = "key.";
+
+    private final Path file;
+    private volatile Ring ring;
+    // Content the ring was last built from, or rejected
+    private byte[] lastContent;
+
+    // A key file that is configured but missing or invalid fails the start
+    public JwtKeyRing(AppSecrets appSecrets, JwtKeyRingProperties properties) throws IOException {
+        if (properties.getFile() == null || properties.getFile().isBlank()) {
+            Key key = hmacKey(AppConstant.JWT_DEFAULT_KID, appSecrets.getJwtSecret());
+            this.file = null;
+            this.ring = new Ring(new SigningKey(AppConstant.JWT_DEFAULT_KID, key),
+                    Map.of(AppConstant.JWT_DEFAULT_KID, key));
+            return;
+        }
+        this.file = Path.of(properties.getFile());
+        this.lastContent = Files.readAllBytes(file);
+        this.ring = parse(lastContent);
+        log.info("JWT key ring loaded from {}, active key {}, keys {}", file, ring.active().kid(), keyIds());
+    }
+
+    public SigningKey signingKey() {
+        return ring.active();
+    }
+
+    // The key a token with this kid verifies against, null when it is not in the ring
+    public Key verificationKey(String kid) {
+        return ring.keys().get(kid != null ? kid : AppConstant.JWT_DEFAULT_KID);
+    }
+
+    public Set<String> keyIds() {
+        return new TreeSet<>(ring.keys().keySet());
+    }
+
+    // Returns whether the ring changed
+    @Scheduled(fixedDelayString = "${jwt.key-ring.reload-interval-ms:5000}")
+    public synchronized boolean reload() {
+        if (file == null) {
+            return false;
+        }
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (IOException ex) {
+            // E.g. the file is being replaced, the next check picks it up
+            log.warn("JWT key file {} could not be read, keeping keys {}: {}", file, keyIds(), ex.getMessage());
+            return false;
+        }
+        if (Arrays.equals(content, lastContent)) {
+            return false;
+        }
+
+        // Rejected content is remembered too, it is reported once rather than on every check
+        lastContent = content;
+        try {
+            ring = parse(content);
+        } catch (IllegalArgumentException ex) {
+            log.error("JWT key file {} is invalid, keeping keys {}: {}", file, keyIds(), ex.getMessage());
+            return false;
+        }
+        log.info("JWT key ring reloaded, active key {}, keys {}", ring.active().kid(), keyIds());
+        return true;
+    }
+
+    private static Ring parse(byte[] content) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(new String(content, StandardCharsets.UTF_8)));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+
+        Map<String, Key> keys = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.equals(ACTIVE)) {
+                continue;
+            }
+            if (!name.startsWith(KEY_PREFIX)) {
+                throw new IllegalArgumentException("Unknown entry " + name);
+            }
+            String kid = name.substring(KEY_PREFIX.length());
+            if (!KID.matcher(kid).matches()) {
+                throw new IllegalArgumentException("Key id " + kid + " must be 1 to 64 letters, digits, '.', '_' or '-'");
+            }
+            keys.put(kid, hmacKey(kid, properties.getProperty(name)));
+        }
+
+        String active = properties.getProperty(ACTIVE);
+        if (active == null || !keys.containsKey(active)) {
+            throw new IllegalArgumentException("The active key must be one of the keys listed");
+        }
+        return new Ring(new SigningKey(active, keys.get(active)), Map.copyOf(keys));
+    }
+
+    // The secret's raw UTF-8 bytes, as tokens have always been signed with
+    private static Key hmacKey(String kid, String secret) {
+        if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < AppConstant.JWT_MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("Key " + kid + " needs a secret of at least "
+                    + AppConstant.JWT_MIN_SECRET_BYTES + " bytes");
+        }
+        return new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS256.getJcaName());
+    }
+}
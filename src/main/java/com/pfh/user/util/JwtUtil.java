@@ -1,44 +1,57 @@
 package com.pfh.user.util;
 
 import com.pfh.user.config.AppConstant;
-import com.pfh.user.config.security.AppSecrets;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import lombok.RequiredArgsConstructor;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.pfh.user.exception.JsonFormatInvalidException;
 
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 import java.util.Map;
 import java.util.function.Function;
 
 @Component
-@RequiredArgsConstructor
 public class JwtUtil {
 
-    @Autowired
-    private AppSecrets appSecrets;
+    private final JwtKeyRing keyRing;
+    // Immutable and thread-safe, each token's key is looked up in the ring by its kid
+    private final JwtParser parser;
+
+    public JwtUtil(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new SignatureException("Token signed with a key that is not in the key ring");
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     public String generateToken(String subject, Map<String, Object> claims) {
-        Key key = new SecretKeySpec(
-            appSecrets.getJwtSecret().getBytes(StandardCharsets.UTF_8), 
-            SignatureAlgorithm.HS256.getJcaName()
-        );
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
 
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + AppConstant.JWT_EXPIRATION_TIME))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .signWith(signingKey.key(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -63,7 +76,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser().setSigningKey(appSecrets.getJwtSecret()).parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public boolean isTokenExpired(String token) {
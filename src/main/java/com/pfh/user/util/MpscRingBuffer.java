@@ -0,0 +1,72 @@
+package com.pfh.user.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer / single-consumer ring buffer.
+ *
+ * Producers claim a sequence with one CAS on {@code tail} and publish by writing
+ * the slot; the single consumer treats a non-null slot as published, clears it
+ * and only then advances {@code head}, which is what frees the slot for reuse.
+ * No locks are taken on either side.
+ */
+public class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    public MpscRingBuffer(int requestedCapacity) {
+        // Rounded up to a power of two so the slot index is a mask instead of a modulo
+        this.capacity = requestedCapacity <= 2 ? 2 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public boolean offer(E element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+
+        slots.lazySet((int) (claimed & mask), element);
+        return true;
+    }
+
+    // Consumer thread only
+    public int drainTo(List<? super E> target, int limit) {
+        long current = head.get();
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (current & mask);
+            E element = slots.get(index);
+            if (element == null) {
+                // Not published yet (or empty), keep ordering and stop here
+                break;
+            }
+            slots.lazySet(index, null);
+            target.add(element);
+            current++;
+            drained++;
+        }
+        if (drained > 0) {
+            head.lazySet(current);
+        }
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
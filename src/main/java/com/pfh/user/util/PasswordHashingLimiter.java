@@ -0,0 +1,58 @@
+package com.pfh.user.util;
+
+import com.pfh.user.config.AppConstant;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how many Argon2 hashes run at once. Every hash holds 64 MB and a full
+ * CPU, so running one per request thread only adds memory pressure and latency.
+ * Requests beyond the limit queue here, and the queue length feeds readiness.
+ */
+@Component
+public class PasswordHashingLimiter {
+
+    private final int maxConcurrent;
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public PasswordHashingLimiter() {
+        this.maxConcurrent = Math.max(1,
+                Runtime.getRuntime().availableProcessors() * AppConstant.PASSWORD_HASHING_CONCURRENCY_PER_CPU);
+        this.slots = new Semaphore(maxConcurrent, true);
+    }
+
+    public <T> T run(Supplier<T> hashing) {
+        queued.incrementAndGet();
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hashing slot", e);
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        try {
+            return hashing.get();
+        } finally {
+            slots.release();
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public boolean isSaturated() {
+        return queued.get() >= AppConstant.PASSWORD_HASHING_QUEUE_SATURATION;
+    }
+}
@@ -0,0 +1,254 @@
+package com.pfh.user.util;
+
+import com.pfh.user.enums.RateLimitDecision;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key sliding-window rate limiter without a global lock.
+ *
+ * Each key holds one {@code AtomicLong} packing the index of its current
+ * fixed window with the counts of that window and the one before; the
+ * sliding count is the current count plus the previous count weighted by how
+ * much of the previous window still overlaps the sliding one. An attempt is
+ * admitted by a single compare-and-set, and only admitted attempts are
+ * counted, so a client hammering the limit still gets {@code limit} attempts
+ * per window.
+ *
+ * Keys are spread over stripes, each with its own map, size and a small time
+ * wheel of the keys touched per window. The first attempt in a stripe after a
+ * window boundary evicts the keys not touched for two windows, which by then
+ * count nothing. Once a stripe holds its share of {@code maxKeys}, new keys
+ * share the stripe's overflow counter, so a spray of distinct addresses is
+ * limited as a group instead of growing memory.
+ */
+public final class SlidingWindowRateLimiter {
+
+    private static final int STRIPES = 64;
+    // Keys are only ever evicted from the slots of windows W-2 and W-3
+    private static final int WHEEL_SLOTS = 4;
+    private static final int MAX_COUNT = 0xFFFF;
+
+    // window index (32 bits) | previous window count (16 bits) | current window count (16 bits)
+    private static final class Entry {
+        private final AtomicLong state;
+        // Window of the last REJECTED_FIRST, so a key is reported once per window
+        private final AtomicInteger reportedWindow = new AtomicInteger(-1);
+
+        private Entry(int window) {
+            this.state = new AtomicLong(pack(window, 0, 0));
+        }
+    }
+
+    private static final class Stripe {
+        private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final Entry overflow;
+        private final AtomicInteger sweptWindow;
+        @SuppressWarnings("unchecked")
+        private final Queue<String>[] wheel = new Queue[WHEEL_SLOTS];
+
+        private Stripe(int window) {
+            this.overflow = new Entry(window);
+            this.sweptWindow = new AtomicInteger(window);
+            for (int i = 0; i < WHEEL_SLOTS; i++) {
+                wheel[i] = new ConcurrentLinkedQueue<>();
+            }
+        }
+    }
+
+    private final int limit;
+    private final long windowMs;
+    private final int maxKeysPerStripe;
+    private final LongSupplier clock;
+    private final long origin;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public SlidingWindowRateLimiter(int limit, long windowMs, int maxKeys) {
+        this(limit, windowMs, maxKeys, System::currentTimeMillis);
+    }
+
+    public SlidingWindowRateLimiter(int limit, long windowMs, int maxKeys, LongSupplier clock) {
+        if (limit < 1 || limit >= MAX_COUNT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + (MAX_COUNT - 1));
+        }
+        this.limit = limit;
+        this.windowMs = windowMs;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(0);
+        }
+    }
+
+    public RateLimitDecision tryAcquire(String key) {
+        long elapsed = clock.getAsLong() - origin;
+        int window = (int) (elapsed / windowMs);
+        // Share of the previous window still inside the sliding window
+        double previousWeight = 1.0 - (double) (elapsed % windowMs) / windowMs;
+
+        Stripe stripe = stripes[spread(key.hashCode()) & (STRIPES - 1)];
+        sweepIfDue(stripe, window);
+
+        while (true) {
+            Entry entry = entry(stripe, key, window);
+            while (true) {
+                long state = entry.state.get();
+                int stateWindow = window(state);
+                int previous;
+                int current;
+                if (stateWindow == window) {
+                    previous = previous(state);
+                    current = current(state);
+                } else if (stateWindow == window - 1) {
+                    previous = current(state);
+                    current = 0;
+                } else {
+                    previous = 0;
+                    current = 0;
+                }
+
+                if (previous * previousWeight + current + 1 > limit) {
+                    int reported = entry.reportedWindow.get();
+                    return reported != window && entry.reportedWindow.compareAndSet(reported, window)
+                            ? RateLimitDecision.REJECTED_FIRST : RateLimitDecision.REJECTED;
+                }
+                if (entry.state.compareAndSet(state, pack(window, previous, current + 1))) {
+                    if (stateWindow != window && entry != stripe.overflow) {
+                        stripe.wheel[Math.floorMod(window, WHEEL_SLOTS)].add(key);
+                    }
+                    break;
+                }
+            }
+            // An entry evicted while this attempt was counted on it loses the attempt, count it again
+            if (entry == stripe.overflow || stripe.entries.get(key) == entry) {
+                return RateLimitDecision.ALLOWED;
+            }
+        }
+    }
+
+    /**
+     * Milliseconds until {@link #tryAcquire} would admit the key again, 0 when
+     * it would now. Within the window capacity frees up as the previous
+     * window's weight decays; a key that spent its limit in the current window
+     * waits for the next one, until its count weighs less than one attempt.
+     */
+    public long retryAfterMs(String key) {
+        long elapsed = clock.getAsLong() - origin;
+        int window = (int) (elapsed / windowMs);
+        double progress = (double) (elapsed % windowMs) / windowMs;
+
+        Stripe stripe = stripes[spread(key.hashCode()) & (STRIPES - 1)];
+        Entry entry = stripe.entries.get(key);
+        if (entry == null) {
+            if (stripe.size.get() < maxKeysPerStripe) {
+                return 0;
+            }
+            entry = stripe.overflow;
+        }
+        long state = entry.state.get();
+        int stateWindow = window(state);
+        int previous;
+        int current;
+        if (stateWindow == window) {
+            previous = previous(state);
+            current = current(state);
+        } else if (stateWindow == window - 1) {
+            previous = current(state);
+            current = 0;
+        } else {
+            return 0;
+        }
+
+        double wait;
+        if (current + 1 <= limit) {
+            // previous * (1 - p) + current + 1 <= limit from progress p on
+            double admittedFrom = previous == 0 ? 0 : 1.0 - (double) (limit - current - 1) / previous;
+            wait = Math.max(0, admittedFrom - progress);
+        } else {
+            // Next window: current * (1 - p) + 1 <= limit
+            wait = 1.0 - progress + Math.max(0, 1.0 - (double) (limit - 1) / current);
+        }
+        return (long) Math.ceil(wait * windowMs);
+    }
+
+    public int trackedKeys() {
+        int keys = 0;
+        for (Stripe stripe : stripes) {
+            keys += stripe.size.get();
+        }
+        return keys;
+    }
+
+    private Entry entry(Stripe stripe, String key, int window) {
+        Entry entry = stripe.entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        if (stripe.size.get() >= maxKeysPerStripe) {
+            return stripe.overflow;
+        }
+        // Starts out stale, the first attempt moves it into this window and onto the wheel
+        Entry created = new Entry(window - 2);
+        entry = stripe.entries.putIfAbsent(key, created);
+        if (entry != null) {
+            return entry;
+        }
+        stripe.size.incrementAndGet();
+        return created;
+    }
+
+    private void sweepIfDue(Stripe stripe, int window) {
+        int swept = stripe.sweptWindow.get();
+        if (swept >= window || !stripe.sweptWindow.compareAndSet(swept, window)) {
+            return;
+        }
+        evict(stripe, window - 3);
+        evict(stripe, window - 2);
+    }
+
+    // Removes the keys of a wheel slot that have not been touched since that window
+    private void evict(Stripe stripe, int window) {
+        Queue<String> slot = stripe.wheel[Math.floorMod(window, WHEEL_SLOTS)];
+        String key;
+        while ((key = slot.poll()) != null) {
+            boolean[] removed = {false};
+            stripe.entries.computeIfPresent(key, (k, entry) -> {
+                if (window(entry.state.get()) > window) {
+                    return entry;
+                }
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                stripe.size.decrementAndGet();
+            }
+        }
+    }
+
+    private static long pack(int window, int previous, int current) {
+        return ((window & 0xFFFF_FFFFL) << 32) | ((long) Math.min(previous, MAX_COUNT) << 16) | Math.min(current, MAX_COUNT);
+    }
+
+    private static int window(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int previous(long state) {
+        return (int) (state >>> 16) & MAX_COUNT;
+    }
+
+    private static int current(long state) {
+        return (int) state & MAX_COUNT;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,233 @@
+package com.pfh.user.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitter sketch: the most frequent values of a stream,
+ * kept in a fixed number of counters.
+ *
+ * A value already counted is incremented; a new one takes a free counter or
+ * replaces the value with the smallest count and inherits that count as its
+ * error, so a count overestimates by at most its error and every value seen
+ * more than {@code total / capacity} times is held. Counters live in
+ * preallocated arrays with an open addressing index and a min-heap on the
+ * counts, so counting a value allocates nothing.
+ *
+ * Not thread-safe, callers serialize access.
+ */
+public final class SpaceSaving {
+
+    // count overestimates the value's occurrences by at most error
+    public record Entry(String value, long count, long error) {
+    }
+
+    /**
+     * Counters of a sketch, largest first. A value not listed occurred at
+     * most {@code floor} times. Snapshots of the same stream split over
+     * time or over nodes merge into one summary of the whole stream.
+     */
+    public record Snapshot(long total, long floor, List<Entry> entries) {
+
+        public static Snapshot empty() {
+            return new Snapshot(0, 0, List.of());
+        }
+
+        // Each side counts an unlisted value as its floor, so merged counts still never underestimate
+        public Snapshot merge(Snapshot other, int capacity) {
+            Map<String, long[]> merged = new HashMap<>();
+            for (Entry entry : entries) {
+                merged.put(entry.value(), new long[]{entry.count() + other.floor, entry.error() + other.floor});
+            }
+            for (Entry entry : other.entries) {
+                long[] counter = merged.get(entry.value());
+                if (counter == null) {
+                    merged.put(entry.value(), new long[]{entry.count() + floor, entry.error() + floor});
+                } else {
+                    counter[0] += entry.count() - other.floor;
+                    counter[1] += entry.error() - other.floor;
+                }
+            }
+
+            List<Entry> sorted = new ArrayList<>(merged.size());
+            merged.forEach((value, counter) -> sorted.add(new Entry(value, counter[0], counter[1])));
+            sorted.sort(BY_COUNT);
+            long mergedFloor = floor + other.floor;
+            if (sorted.size() > capacity) {
+                mergedFloor = Math.max(mergedFloor, sorted.get(capacity).count());
+                sorted.subList(capacity, sorted.size()).clear();
+            }
+            return new Snapshot(total + other.total, mergedFloor, List.copyOf(sorted));
+        }
+    }
+
+    private static final Comparator<Entry> BY_COUNT =
+            Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::value);
+
+    private final int capacity;
+    private final String[] values;
+    private final long[] counts;
+    private final long[] errors;
+    // Counter indexes ordered by count, smallest first, and each counter's position in it
+    private final int[] heap;
+    private final int[] heapPositions;
+    // Open addressing from value to counter index + 1, 0 marks a free slot
+    private final int[] index;
+    private final int indexMask;
+    private int size;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.values = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapPositions = new int[capacity];
+        // At most half full, probes stay short
+        this.index = new int[Integer.highestOneBit(capacity) << 2];
+        this.indexMask = index.length - 1;
+    }
+
+    public void offer(String value) {
+        total++;
+        int slot = find(value);
+        if (slot >= 0) {
+            counts[slot]++;
+            siftDown(heapPositions[slot]);
+            return;
+        }
+
+        if (size < capacity) {
+            int counter = size++;
+            values[counter] = value;
+            counts[counter] = 1;
+            errors[counter] = 0;
+            heap[counter] = counter;
+            heapPositions[counter] = counter;
+            siftUp(counter);
+            index[-slot - 1] = counter + 1;
+            return;
+        }
+
+        // Takes over the smallest counter, whose count becomes the newcomer's possible error
+        int counter = heap[0];
+        unindex(counter);
+        values[counter] = value;
+        errors[counter] = counts[counter];
+        counts[counter]++;
+        siftDown(0);
+        index[-find(value) - 1] = counter + 1;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(index, 0);
+        size = 0;
+        total = 0;
+    }
+
+    public Snapshot snapshot() {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int counter = 0; counter < size; counter++) {
+            entries.add(new Entry(values[counter], counts[counter], errors[counter]));
+        }
+        entries.sort(BY_COUNT);
+        // Until every counter is taken nothing has been evicted, an unlisted value never occurred
+        long floor = size < capacity ? 0 : counts[heap[0]];
+        return new Snapshot(total, floor, List.copyOf(entries));
+    }
+
+    // The value's counter index, or -(free index slot) - 1 when it is not counted
+    private int find(String value) {
+        int slot = home(value);
+        while (true) {
+            int entry = index[slot];
+            if (entry == 0) {
+                return -slot - 1;
+            }
+            if (values[entry - 1].equals(value)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    // Removes the counter from the index, shifting back later entries of its probe sequence
+    private void unindex(int counter) {
+        int slot = home(values[counter]);
+        while (index[slot] != counter + 1) {
+            slot = (slot + 1) & indexMask;
+        }
+        int next = slot;
+        while (true) {
+            next = (next + 1) & indexMask;
+            if (index[next] == 0) {
+                break;
+            }
+            int nextHome = home(values[index[next] - 1]);
+            // Moves back unless its home lies cyclically after the hole and at or before it
+            boolean movable = slot <= next
+                    ? nextHome <= slot || nextHome > next
+                    : nextHome <= slot && nextHome > next;
+            if (movable) {
+                index[slot] = index[next];
+                slot = next;
+            }
+        }
+        index[slot] = 0;
+    }
+
+    private int home(String value) {
+        int hash = value.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & indexMask;
+    }
+
+    private void siftUp(int position) {
+        int counter = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[counter]) {
+                break;
+            }
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(counter, position);
+    }
+
+    private void siftDown(int position) {
+        int counter = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[child]] >= counts[counter]) {
+                break;
+            }
+            move(heap[child], position);
+            position = child;
+        }
+        move(counter, position);
+    }
+
+    private void move(int counter, int position) {
+        heap[position] = counter;
+        heapPositions[counter] = position;
+    }
+}
@@ -0,0 +1,37 @@
+package com.pfh.user.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generates UUIDv7 identifiers: a 48-bit Unix millisecond timestamp followed by
+ * random bits, so ids sort by creation time and can be assigned by the client
+ * before the row ever reaches the database.
+ */
+public final class TimeOrderedIds {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private TimeOrderedIds() {
+    }
+
+    public static UUID next() {
+        return next(System.currentTimeMillis());
+    }
+
+    public static UUID next(long epochMillis) {
+        long randomHigh = RANDOM.nextLong();
+        long randomLow = RANDOM.nextLong();
+
+        long msb = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16
+                | 0x7000L                       // version 7
+                | (randomHigh & 0x0FFFL);
+        long lsb = (randomLow & 0x3FFF_FFFF_FFFF_FFFFL)
+                | 0x8000_0000_0000_0000L;       // IETF variant
+        return new UUID(msb, lsb);
+    }
+
+    public static long epochMillis(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
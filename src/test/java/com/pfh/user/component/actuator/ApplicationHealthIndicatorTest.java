@@ -83,4 +83,28 @@ class ApplicationHealthIndicatorTest {
         assertEquals("unknown-host", health.getDetails().get("dbHostSource"));
         assertTrue(health.getDetails().get("error") != null || health.getDetails().get("exception") != null);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should serve the cached snapshot without borrowing another connection")
+    void shouldServeCachedSnapshot() throws Exception {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Connection connection = Mockito.mock(Connection.class);
+        DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        Mockito.when(connection.isValid(1)).thenReturn(true);
+        Mockito.when(connection.getMetaData()).thenReturn(metaData);
+        Mockito.when(metaData.getURL()).thenReturn("jdbc:postgresql://localhost:5432/testdb");
+
+        ApplicationHealthIndicator indicator = new ApplicationHealthIndicator(jdbcTemplate, dataSource);
+
+        indicator.health();
+        Health health = indicator.health();
+
+        assertEquals("UP", health.getStatus().getCode());
+        // One connection for the first snapshot, none for the cached read, and it is returned to the pool
+        Mockito.verify(dataSource, Mockito.times(1)).getConnection();
+        Mockito.verify(connection, Mockito.times(1)).close();
+    }
+}
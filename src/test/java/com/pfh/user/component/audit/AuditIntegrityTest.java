@@ -0,0 +1,121 @@
+package com.pfh.user.component.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.util.TimeOrderedIds;
+
+class AuditIntegrityTest {
+
+    private final AuditIntegrity integrity = new AuditIntegrity("TestAuditIntegrityKeyWhichIsAtLeast32CharactersLong");
+
+    @Test
+    @DisplayName("Should change the leaf hash when any field changes")
+    void shouldDetectFieldChange() {
+        AuditLogEntity entry = event("a@example.com");
+        String original = integrity.leafHash(entry);
+
+        assertEquals(original, integrity.leafHash(entry));
+        entry.setFailureReason("WRONG_PASSWORD");
+        assertNotEquals(original, integrity.leafHash(entry));
+    }
+
+    @Test
+    @DisplayName("Should cover the attempt count and last attempt of an aggregated row")
+    void shouldCoverAggregation() {
+        AuditLogEntity entry = event("a@example.com");
+        String single = integrity.leafHash(entry);
+
+        entry.setOccurrenceCount(12);
+        entry.setLastOccurredAt(entry.getTimestamp().plusSeconds(3));
+        String aggregated = integrity.leafHash(entry);
+        assertNotEquals(single, aggregated);
+
+        entry.setOccurrenceCount(11);
+        assertNotEquals(aggregated, integrity.leafHash(entry));
+        entry.setOccurrenceCount(12);
+        entry.setLastOccurredAt(entry.getTimestamp().plusSeconds(2));
+        assertNotEquals(aggregated, integrity.leafHash(entry));
+    }
+
+    @Test
+    @DisplayName("Should bind an amended row to the leaf it was sealed with")
+    void shouldBindAmendment() {
+        AuditLogEntity entry = event("a@example.com");
+        String sealed = integrity.leafHash(entry);
+        entry.setEmail("erased-0123@erased.invalid");
+        String amendment = integrity.amendmentHash(sealed, integrity.leafHash(entry));
+
+        assertEquals(amendment, integrity.amendmentHash(sealed, integrity.leafHash(entry)));
+        entry.setIpAddress("10.0.0.2");
+        assertNotEquals(amendment, integrity.amendmentHash(sealed, integrity.leafHash(entry)));
+        assertNotEquals(amendment, integrity.amendmentHash(integrity.leafHash(event("b@example.com")),
+                integrity.leafHash(entry)));
+    }
+
+    @Test
+    @DisplayName("Should depend on the key, not only on the content")
+    void shouldBeKeyed() {
+        AuditLogEntity entry = event("a@example.com");
+        AuditIntegrity otherKey = new AuditIntegrity("AnotherAuditIntegrityKeyWhichIsAtLeast32CharsLong");
+
+        assertNotEquals(integrity.leafHash(entry), otherKey.leafHash(entry));
+    }
+
+    @Test
+    @DisplayName("Should change the Merkle root when a leaf is removed, duplicated or reordered")
+    void shouldDetectBlockChanges() {
+        List<String> leaves = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            leaves.add(integrity.leafHash(event("user" + i + "@example.com")));
+        }
+        String root = AuditIntegrity.merkleRoot(leaves);
+
+        assertNotEquals(root, AuditIntegrity.merkleRoot(leaves.subList(0, 4)));
+
+        List<String> duplicated = new ArrayList<>(leaves);
+        duplicated.add(leaves.get(4));
+        assertNotEquals(root, AuditIntegrity.merkleRoot(duplicated));
+
+        List<String> reordered = new ArrayList<>(leaves);
+        reordered.set(0, leaves.get(1));
+        reordered.set(1, leaves.get(0));
+        assertNotEquals(root, AuditIntegrity.merkleRoot(reordered));
+    }
+
+    @Test
+    @DisplayName("Should chain a block to its predecessor")
+    void shouldChainBlocks() {
+        String root = AuditIntegrity.merkleRoot(List.of(integrity.leafHash(event("a@example.com"))));
+        String first = integrity.blockHash(1, AuditIntegrity.GENESIS_HASH, root, 1);
+
+        assertNotEquals(integrity.blockHash(2, first, root, 1), integrity.blockHash(2, AuditIntegrity.GENESIS_HASH, root, 1));
+    }
+
+    @Test
+    @DisplayName("Should refuse a short key")
+    void shouldRejectShortKey() {
+        assertThrows(IllegalStateException.class, () -> new AuditIntegrity("too-short"));
+    }
+
+    private static AuditLogEntity event(String email) {
+        return AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next())
+                .email(email)
+                .ipAddress("10.0.0.1")
+                .timestamp(Instant.parse("2025-01-01T10:00:00.123456Z"))
+                .eventType("LOGIN_FAILURE")
+                .failureReason("INVALID_CREDENTIALS")
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.pfh.user.component.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pfh.user.audit.AuditLogCriteria;
+import com.pfh.user.audit.archive.AuditSegmentReader;
+import com.pfh.user.audit.archive.AuditSegmentWriter;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.util.TimeOrderedIds;
+
+class AuditSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read back every field of an archived row")
+    void shouldRoundTripRows() throws Exception {
+        AuditSegmentReader segment = segmentWith(rows());
+
+        List<AuditLogEntity> found = search(segment, new AuditLogCriteria(null, null, null, null, null));
+
+        assertEquals(5, found.size());
+        AuditLogEntity lockout = found.get(4);
+        assertEquals("ACCOUNT_LOCKOUT", lockout.getEventType());
+        assertEquals(15, lockout.getLockoutDurationMinutes());
+        assertEquals("a".repeat(64), lockout.getIntegrityHash());
+        assertEquals(Instant.parse("2024-03-05T10:00:00.000005Z"), lockout.getTimestamp());
+        assertNull(found.get(0).getLockoutDurationMinutes());
+        assertNull(found.get(0).getBlockNumber());
+        assertEquals("legacy-hash", found.get(0).getIntegrityHash());
+        assertNull(found.get(0).getOccurrenceCount());
+        assertEquals(7, found.get(3).getOccurrenceCount());
+        assertEquals(Instant.parse("2024-03-04T10:00:04.5Z"), found.get(3).getLastOccurredAt());
+    }
+
+    @Test
+    @DisplayName("Should filter by dictionary value and time range")
+    void shouldFilter() throws Exception {
+        AuditSegmentReader segment = segmentWith(rows());
+
+        List<AuditLogEntity> byEmail = search(segment,
+                new AuditLogCriteria("b@example.com", null, null, null, null));
+        assertEquals(2, byEmail.size());
+        assertTrue(byEmail.stream().allMatch(row -> "b@example.com".equals(row.getEmail())));
+
+        List<AuditLogEntity> byRange = search(segment, new AuditLogCriteria(null, null, null,
+                Instant.parse("2024-03-02T00:00:00Z"), Instant.parse("2024-03-04T00:00:00Z")));
+        assertEquals(2, byRange.size());
+
+        List<AuditLogEntity> unknown = search(segment,
+                new AuditLogCriteria(null, null, "PASSWORD_RESET", null, null));
+        assertTrue(unknown.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stop scanning once the sink is satisfied")
+    void shouldStopEarly() throws Exception {
+        AuditSegmentReader segment = segmentWith(rows());
+        List<AuditLogEntity> found = new ArrayList<>();
+
+        segment.scan(new AuditLogCriteria(null, null, null, null, null), row -> {
+            found.add(row);
+            return found.size() < 3;
+        });
+
+        assertEquals(3, found.size());
+        assertEquals(Instant.parse("2024-03-01T10:00:00Z"), found.get(0).getTimestamp());
+    }
+
+    private AuditSegmentReader segmentWith(List<AuditLogEntity> rows) throws Exception {
+        Path file = directory.resolve("audit-logs-2024-03.seg");
+        // Small row groups so the zone maps have something to skip
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(file, 2)) {
+            for (AuditLogEntity row : rows) {
+                writer.append(row);
+            }
+            writer.finish();
+        }
+        AuditSegmentReader reader = AuditSegmentReader.open(file);
+        assertEquals(rows.size(), reader.rowCount());
+        return reader;
+    }
+
+    private static List<AuditLogEntity> search(AuditSegmentReader reader, AuditLogCriteria criteria) throws Exception {
+        List<AuditLogEntity> found = new ArrayList<>();
+        reader.scan(criteria, found::add);
+        return found;
+    }
+
+    private static List<AuditLogEntity> rows() {
+        // An aggregated failure carries its attempt count and last attempt
+        AuditLogEntity aggregated = row(4L, "c@example.com", "2024-03-04T10:00:00Z", "LOGIN_FAILURE", null,
+                "d".repeat(64), 2L);
+        aggregated.setOccurrenceCount(7);
+        aggregated.setLastOccurredAt(Instant.parse("2024-03-04T10:00:04.5Z"));
+        return List.of(
+                row(1L, "a@example.com", "2024-03-01T10:00:00Z", "LOGIN_FAILURE", null, "legacy-hash", null),
+                row(2L, "b@example.com", "2024-03-02T10:00:00Z", "LOGIN_FAILURE", null, "b".repeat(64), 1L),
+                row(3L, "b@example.com", "2024-03-03T10:00:00Z", "LOGIN_SUCCESS", null, "c".repeat(64), 1L),
+                aggregated,
+                row(5L, "c@example.com", "2024-03-05T10:00:00.000005Z", "ACCOUNT_LOCKOUT", 15, "a".repeat(64), 2L));
+    }
+
+    private static AuditLogEntity row(Long id, String email, String timestamp, String eventType, Integer lockout,
+                                      String hash, Long block) {
+        return AuditLogEntity.builder()
+                .id(id)
+                .eventId(TimeOrderedIds.next())
+                .email(email)
+                .ipAddress("10.0.0." + id)
+                .timestamp(Instant.parse(timestamp))
+                .eventType(eventType)
+                .lockoutDurationMinutes(lockout)
+                .integrityHash(hash)
+                .blockNumber(block)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.pfh.user.component.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.pfh.user.audit.AuditSpillJournal;
+import com.pfh.user.config.audit.AuditJournalProperties;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.util.TimeOrderedIds;
+
+class AuditSpillJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should recover spilled events after a restart and replay them in order")
+    void shouldRecoverAfterRestart() throws Exception {
+        AuditSpillJournal journal = new AuditSpillJournal(properties(), new SimpleMeterRegistry());
+        journal.append(List.of(event("a@example.com"), event("b@example.com")));
+        journal.close();
+
+        // Simulate a restart
+        AuditSpillJournal recovered = new AuditSpillJournal(properties(), new SimpleMeterRegistry());
+        assertEquals(2, recovered.pendingRecords());
+
+        AuditSpillJournal.ReplayBatch batch = recovered.nextBatch(10);
+        assertEquals("a@example.com", batch.entries().get(0).getEmail());
+        assertEquals("b@example.com", batch.entries().get(1).getEmail());
+
+        recovered.commit(batch);
+        assertEquals(0, recovered.pendingRecords());
+        assertNull(recovered.nextBatch(10));
+    }
+
+    @Test
+    @DisplayName("Should stop at a record whose CRC does not match")
+    void shouldIgnoreTornTail() throws Exception {
+        AuditSpillJournal journal = new AuditSpillJournal(properties(), new SimpleMeterRegistry());
+        journal.append(List.of(event("a@example.com")));
+        journal.append(List.of(event("b@example.com")));
+        journal.close();
+
+        // Corrupt the last byte of the second record's payload
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            int secondRecord = 8 + header.flip().getInt();
+            header.clear();
+            channel.read(header, secondRecord);
+            int lastByte = secondRecord + 8 + header.flip().getInt() - 1;
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), lastByte);
+        }
+
+        AuditSpillJournal recovered = new AuditSpillJournal(properties(), new SimpleMeterRegistry());
+        assertEquals(1, recovered.pendingRecords());
+        assertEquals("a@example.com", recovered.nextBatch(10).entries().get(0).getEmail());
+    }
+
+    private AuditJournalProperties properties() {
+        AuditJournalProperties properties = new AuditJournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSizeBytes(64 * 1024);
+        properties.setFsync(false);
+        return properties;
+    }
+
+    private static AuditLogEntity event(String email) {
+        return AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next())
+                .email(email)
+                .ipAddress("203.0.113.5")
+                .timestamp(Instant.now())
+                .eventType("LOGIN_FAILURE")
+                .failureReason("invalid_credentials")
+                .integrityHash("hash")
+                .build();
+    }
+}
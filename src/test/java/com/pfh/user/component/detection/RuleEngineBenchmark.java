@@ -0,0 +1,63 @@
+package com.pfh.user.component.detection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import com.pfh.user.detection.AuthEvent;
+import com.pfh.user.detection.RuleEngine;
+import com.pfh.user.enums.AuditEventType;
+
+/**
+ * Throughput of rule evaluation, reported rather than asserted: wall-clock
+ * numbers depend on the machine and would make the build flaky. The class
+ * name keeps it out of the default test run; run it with
+ * {@code mvn test -Dtest=RuleEngineBenchmark}. Typically well below one
+ * microsecond per event.
+ */
+@Tag("benchmark")
+class RuleEngineBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleEngineBenchmark.class);
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    @DisplayName("Report the time to evaluate an event")
+    void reportMicrosPerEvent() {
+        RuleEngine engine = new RuleEngine(
+                List.of(RuleEngineTest.credentialStuffing(), RuleEngineTest.successAfterFailures()), 100_000);
+        String[] emails = new String[50_000];
+        String[] ips = new String[5_000];
+        for (int i = 0; i < emails.length; i++) {
+            emails[i] = "user" + i + "@example.com";
+        }
+        for (int i = 0; i < ips.length; i++) {
+            ips[i] = "10." + (i / 65_536) + "." + (i / 256 % 256) + "." + (i % 256);
+        }
+        AuthEvent[] events = new AuthEvent[1 << 20];
+        for (int i = 0; i < events.length; i++) {
+            AuditEventType type = i % 10 == 0 ? AuditEventType.LOGIN_SUCCESS : AuditEventType.LOGIN_FAILURE;
+            events[i] = new AuthEvent(type, emails[(i * 31) % emails.length], ips[(i * 7) % ips.length], START + i);
+        }
+
+        // Warms up the JIT before measuring
+        long detections = 0;
+        for (AuthEvent event : events) {
+            detections += engine.onEvent(event).size();
+        }
+        long started = System.nanoTime();
+        for (AuthEvent event : events) {
+            detections += engine.onEvent(event).size();
+        }
+        double microsPerEvent = (System.nanoTime() - started) / 1000.0 / events.length;
+
+        // The detection count keeps the JIT from discarding the evaluation
+        log.info("Rule evaluation took {} us per event over {} events, {} detections",
+                String.format("%.3f", microsPerEvent), events.length, detections);
+    }
+}
@@ -0,0 +1,142 @@
+package com.pfh.user.component.detection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pfh.user.config.security.ThreatDetectionProperties;
+import com.pfh.user.detection.AuthEvent;
+import com.pfh.user.detection.Detection;
+import com.pfh.user.detection.RuleEngine;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.RuleAggregate;
+import com.pfh.user.enums.ThreatAction;
+import com.pfh.user.enums.ThreatSubject;
+
+class RuleEngineTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    @DisplayName("Should fire once more than 5 distinct emails fail from one IP within the window")
+    void shouldFireOnDistinctEmailsPerIp() {
+        RuleEngine engine = new RuleEngine(List.of(credentialStuffing()), 1000);
+
+        // Repeating one email does not add to the distinct count
+        for (int i = 0; i < 10; i++) {
+            assertTrue(engine.onEvent(failure("victim@example.com", "203.0.113.1", START + i)).isEmpty());
+        }
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(engine.onEvent(failure("user" + i + "@example.com", "203.0.113.1", START + 100 + i)).isEmpty());
+        }
+        List<Detection> detections = engine.onEvent(failure("user5@example.com", "203.0.113.1", START + 200));
+
+        assertEquals(List.of(new Detection("credential-stuffing", ThreatSubject.IP, "203.0.113.1",
+                ThreatAction.BLOCK, START + 200 + 900_000)), detections);
+        // Quiet for the subject while its action lasts
+        assertTrue(engine.onEvent(failure("user6@example.com", "203.0.113.1", START + 300)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not count events that left the window")
+    void shouldSlideWindow() {
+        RuleEngine engine = new RuleEngine(List.of(credentialStuffing()), 1000);
+        for (int i = 0; i < 5; i++) {
+            engine.onEvent(failure("user" + i + "@example.com", "198.51.100.7", START + i * 15_000L));
+        }
+
+        // The first email is older than 60 s by now, five distinct remain
+        assertTrue(engine.onEvent(failure("user5@example.com", "198.51.100.7", START + 60_001)).isEmpty());
+        assertEquals(1, engine.onEvent(failure("user6@example.com", "198.51.100.7", START + 60_002)).size());
+    }
+
+    @Test
+    @DisplayName("Should fire a sequence rule only on its trigger after enough failures")
+    void shouldFireOnSuccessAfterFailures() {
+        RuleEngine engine = new RuleEngine(List.of(successAfterFailures()), 1000);
+
+        engine.onEvent(failure("alice@example.com", "192.0.2.1", START));
+        assertTrue(engine.onEvent(success("alice@example.com", START + 10)).isEmpty());
+
+        // The success ended the sequence, it starts over
+        engine.onEvent(failure("alice@example.com", "192.0.2.1", START + 20));
+        assertTrue(engine.onEvent(failure("alice@example.com", "192.0.2.2", START + 30)).isEmpty());
+        List<Detection> detections = engine.onEvent(success("alice@example.com", START + 40));
+
+        assertEquals(1, detections.size());
+        assertEquals(ThreatSubject.EMAIL, detections.get(0).subject());
+        assertEquals("alice@example.com", detections.get(0).key());
+        assertEquals(ThreatAction.FLAG, detections.get(0).action());
+    }
+
+    @Test
+    @DisplayName("Should bound the subjects tracked per rule and evict idle ones")
+    void shouldBoundAndEvictState() {
+        RuleEngine engine = new RuleEngine(List.of(credentialStuffing()), 100);
+        for (int i = 0; i < 1000; i++) {
+            engine.onEvent(failure("user@example.com", "10.0." + (i / 250) + "." + (i % 250), START));
+        }
+        assertEquals(100, engine.trackedKeys());
+        assertEquals(900, engine.droppedKeys());
+
+        assertEquals(0, engine.evictIdle(START + 60_000 - 1));
+        assertEquals(100, engine.evictIdle(START + 60_000));
+        assertEquals(0, engine.trackedKeys());
+    }
+
+    @Test
+    @DisplayName("Should refuse rules that cannot be evaluated")
+    void shouldValidateRules() {
+        ThreatDetectionProperties.Rule noThreshold = credentialStuffing();
+        noThreshold.setThreshold(0);
+        assertThrows(IllegalArgumentException.class, () -> new RuleEngine(List.of(noThreshold), 1000));
+
+        ThreatDetectionProperties.Rule countsTrigger = successAfterFailures();
+        countsTrigger.setTrigger(AuditEventType.LOGIN_FAILURE);
+        assertThrows(IllegalArgumentException.class, () -> new RuleEngine(List.of(countsTrigger), 1000));
+
+        ThreatDetectionProperties.Rule distinctOfKey = credentialStuffing();
+        distinctOfKey.setAggregate(RuleAggregate.DISTINCT_IPS);
+        assertThrows(IllegalArgumentException.class, () -> new RuleEngine(List.of(distinctOfKey), 1000));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new RuleEngine(List.of(credentialStuffing(), credentialStuffing()), 1000));
+    }
+
+    static ThreatDetectionProperties.Rule credentialStuffing() {
+        ThreatDetectionProperties.Rule rule = new ThreatDetectionProperties.Rule();
+        rule.setName("credential-stuffing");
+        rule.setEvents(List.of(AuditEventType.LOGIN_FAILURE));
+        rule.setGroupBy(ThreatSubject.IP);
+        rule.setAggregate(RuleAggregate.DISTINCT_EMAILS);
+        rule.setThreshold(6);
+        rule.setWindowMs(60_000);
+        rule.setAction(ThreatAction.BLOCK);
+        rule.setActionDurationMs(900_000);
+        return rule;
+    }
+
+    static ThreatDetectionProperties.Rule successAfterFailures() {
+        ThreatDetectionProperties.Rule rule = new ThreatDetectionProperties.Rule();
+        rule.setName("success-after-failures");
+        rule.setEvents(List.of(AuditEventType.LOGIN_FAILURE));
+        rule.setTrigger(AuditEventType.LOGIN_SUCCESS);
+        rule.setGroupBy(ThreatSubject.EMAIL);
+        rule.setThreshold(2);
+        rule.setWindowMs(300_000);
+        return rule;
+    }
+
+    private static AuthEvent failure(String email, String ip, long at) {
+        return new AuthEvent(AuditEventType.LOGIN_FAILURE, email, ip, at);
+    }
+
+    private static AuthEvent success(String email, long at) {
+        return new AuthEvent(AuditEventType.LOGIN_SUCCESS, email, "192.0.2.99", at);
+    }
+}
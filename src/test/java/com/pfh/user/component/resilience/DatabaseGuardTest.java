@@ -0,0 +1,154 @@
+package com.pfh.user.component.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.pfh.user.exception.DatabaseUnavailableException;
+import com.pfh.user.resilience.CircuitBreaker;
+import com.pfh.user.resilience.DatabaseGuard;
+
+class DatabaseGuardTest {
+
+    private static final long OPEN_DURATION = 10_000_000_000L;
+
+    private AtomicLong clock;
+    private CircuitBreaker breaker;
+    private DatabaseGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        breaker = new CircuitBreaker("test", 3, OPEN_DURATION, 1, clock::get);
+        guard = new DatabaseGuard("test", breaker, 2, 10);
+    }
+
+    @Test
+    @DisplayName("Should pass business errors through unchanged without opening the circuit")
+    void shouldNotCountBusinessErrors() {
+        List<RuntimeException> businessErrors = List.of(
+                new DataIntegrityViolationException("duplicate key"),
+                new EmptyResultDataAccessException(1),
+                new IllegalArgumentException("bad argument"));
+
+        for (int i = 0; i < 3; i++) {
+            for (RuntimeException error : businessErrors) {
+                RuntimeException thrown = assertThrows(RuntimeException.class, () -> guard.execute(() -> {
+                    throw error;
+                }));
+                assertSame(error, thrown);
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should wrap infrastructure failures and open after consecutive ones")
+    void shouldOpenOnInfrastructureFailures() {
+        List<RuntimeException> failures = List.of(
+                new QueryTimeoutException("statement timeout"),
+                new DataAccessResourceFailureException("connection refused"),
+                new CannotCreateTransactionException("no connection"));
+
+        for (RuntimeException failure : failures) {
+            DatabaseUnavailableException thrown = assertThrows(DatabaseUnavailableException.class,
+                    () -> guard.execute(() -> {
+                        throw failure;
+                    }));
+            assertSame(failure, thrown.getCause());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Rejected without reaching the database, with the time left as Retry-After
+        AtomicInteger calls = new AtomicInteger();
+        DatabaseUnavailableException rejected = assertThrows(DatabaseUnavailableException.class,
+                () -> guard.execute(calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        assertEquals(10, rejected.getRetryAfterSeconds());
+    }
+
+    @Test
+    @DisplayName("Should only open on consecutive failures, a business error in between resets the count")
+    void shouldResetCountOnBusinessError() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(DatabaseUnavailableException.class, () -> guard.execute(() -> {
+                throw new QueryTimeoutException("statement timeout");
+            }));
+        }
+        assertThrows(DataIntegrityViolationException.class, () -> guard.execute(() -> {
+            throw new DataIntegrityViolationException("duplicate key");
+        }));
+        for (int i = 0; i < 2; i++) {
+            assertThrows(DatabaseUnavailableException.class, () -> guard.execute(() -> {
+                throw new QueryTimeoutException("statement timeout");
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should close again after a successful half-open trial")
+    void shouldRecoverThroughHalfOpen() throws Throwable {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DatabaseUnavailableException.class, () -> guard.execute(() -> {
+                throw new DataAccessResourceFailureException("connection refused");
+            }));
+        }
+
+        clock.addAndGet(OPEN_DURATION);
+        assertEquals("ok", guard.execute(() -> "ok"));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should fail fast when the bulkhead is saturated")
+    void shouldRejectWhenBulkheadFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> {
+                    try {
+                        return guard.execute(() -> {
+                            started.countDown();
+                            return release.await(10, TimeUnit.SECONDS);
+                        });
+                    } catch (Throwable ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                });
+            }
+            started.await(10, TimeUnit.SECONDS);
+
+            AtomicInteger calls = new AtomicInteger();
+            assertThrows(DatabaseUnavailableException.class, () -> guard.execute(calls::incrementAndGet));
+            assertEquals(0, calls.get());
+            // A full bulkhead is not a database failure
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
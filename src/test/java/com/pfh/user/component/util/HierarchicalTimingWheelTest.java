@@ -0,0 +1,124 @@
+package com.pfh.user.component.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pfh.user.util.HierarchicalTimingWheel;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    @DisplayName("Should fire entries in deadline order and never before their deadline")
+    void shouldFireInDeadlineOrder() {
+        HierarchicalTimingWheel<String, Integer> wheel = new HierarchicalTimingWheel<>(10, 3, START);
+        wheel.schedule("c", 3, START + 2_500);
+        wheel.schedule("a", 1, START + 15);
+        wheel.schedule("b", 2, START + 700);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(START + 19, (key, value, deadline) -> fired.add(key));
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(START + 20, (key, value, deadline) -> fired.add(key));
+        assertEquals(List.of("a"), fired);
+
+        wheel.advance(START + 699, (key, value, deadline) -> fired.add(key));
+        assertEquals(List.of("a"), fired);
+
+        wheel.advance(START + 5_000, (key, value, deadline) -> fired.add(key));
+        assertEquals(List.of("a", "b", "c"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should not fire a cancelled entry")
+    void shouldCancel() {
+        HierarchicalTimingWheel<String, Integer> wheel = new HierarchicalTimingWheel<>(10, 3, START);
+        wheel.schedule("a", 1, START + 100);
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertFalse(wheel.contains("a"));
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(START + 1_000, (key, value, deadline) -> fired.add(key));
+        assertTrue(fired.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should replace the deadline and value of a key scheduled again")
+    void shouldReschedule() {
+        HierarchicalTimingWheel<String, Integer> wheel = new HierarchicalTimingWheel<>(10, 3, START);
+        wheel.schedule("a", 1, START + 100);
+        wheel.schedule("a", 2, START + 5_000);
+        assertEquals(1, wheel.size());
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(START + 1_000, (key, value, deadline) -> fired.add(value));
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(START + 5_000, (key, value, deadline) -> fired.add(value));
+        assertEquals(List.of(2), fired);
+    }
+
+    @Test
+    @DisplayName("Should fire a passed deadline on the next advance")
+    void shouldFirePassedDeadline() {
+        HierarchicalTimingWheel<String, Integer> wheel = new HierarchicalTimingWheel<>(10, 3, START);
+        wheel.advance(START + 1_000, (key, value, deadline) -> { });
+        wheel.schedule("late", 1, START);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(START + 1_010, (key, value, deadline) -> fired.add(key));
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    @DisplayName("Should hold deadlines beyond the top level until they are due")
+    void shouldHoldDeadlinesBeyondRange() {
+        // Two levels of 64 slots cover 4096 ticks
+        HierarchicalTimingWheel<String, Integer> wheel = new HierarchicalTimingWheel<>(1, 2, START);
+        wheel.schedule("far", 1, START + 20_000);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(START + 19_999, (key, value, deadline) -> fired.add(key));
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(START + 20_000, (key, value, deadline) -> fired.add(key));
+        assertEquals(List.of("far"), fired);
+    }
+
+    @Test
+    @DisplayName("Should fire every one of many entries within a tick of its deadline")
+    void shouldFireManyEntriesOnTime() {
+        HierarchicalTimingWheel<Integer, Long> wheel = new HierarchicalTimingWheel<>(10, 4, START);
+        Random random = new Random(42);
+        int entries = 100_000;
+        for (int i = 0; i < entries; i++) {
+            long deadline = START + random.nextInt(3_600_000);
+            wheel.schedule(i, deadline, deadline);
+        }
+
+        int[] fired = {0};
+        for (long now = START; now <= START + 3_600_000; now += 1_000) {
+            long at = now;
+            wheel.advance(now, (key, value, deadline) -> {
+                assertTrue(deadline <= at, "fired early");
+                assertTrue(deadline > at - 1_000 - 10, "fired late");
+                fired[0]++;
+            });
+        }
+        assertEquals(entries, fired[0]);
+        assertEquals(0, wheel.size());
+    }
+}
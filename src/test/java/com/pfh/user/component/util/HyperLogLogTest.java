@@ -0,0 +1,61 @@
+package com.pfh.user.component.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pfh.user.util.HyperLogLog;
+
+class HyperLogLogTest {
+
+    @Test
+    @DisplayName("Should count small sets almost exactly and ignore repeats")
+    void shouldCountSmallSets() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int repeat = 0; repeat < 10; repeat++) {
+            for (int i = 0; i < 100; i++) {
+                sketch.offer("198.51.100." + i);
+            }
+        }
+        assertTrue(Math.abs(sketch.estimate() - 100) <= 2);
+    }
+
+    @Test
+    @DisplayName("Should estimate large sets within a few standard errors")
+    void shouldEstimateLargeSets() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 1_000_000; i++) {
+            sketch.offer("client-" + i);
+        }
+        // Standard error at precision 12 is about 1.6 %
+        assertTrue(Math.abs(sketch.estimate() - 1_000_000) <= 50_000);
+    }
+
+    @Test
+    @DisplayName("Should merge into the estimate of the union")
+    void shouldMergeIntoUnion() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (int i = 0; i < 60_000; i++) {
+            first.offer("client-" + i);
+            second.offer("client-" + (i + 30_000));
+        }
+
+        HyperLogLog restored = HyperLogLog.of(second.registers());
+        first.merge(restored);
+        assertTrue(Math.abs(first.estimate() - 90_000) <= 5_000);
+    }
+
+    @Test
+    @DisplayName("Should refuse to merge sketches of different precision")
+    void shouldRefuseDifferentPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+        HyperLogLog sketch = new HyperLogLog(12);
+        sketch.offer("x");
+        sketch.clear();
+        assertEquals(0, sketch.estimate());
+    }
+}
@@ -0,0 +1,121 @@
+package com.pfh.user.component.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pfh.user.config.security.AppSecrets;
+import com.pfh.user.config.security.JwtKeyRingProperties;
+import com.pfh.user.util.JwtKeyRing;
+
+class JwtKeyRingTest {
+
+    private static final String APP_SECRET = "DummySecretKeyWhichIsAtLeast32CharactersLong";
+    private static final String SECRET_A = "first-secret-of-at-least-32-bytes-aaaa";
+    private static final String SECRET_B = "second-secret-of-at-least-32-bytes-bbb";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should sign and verify with app.jwt-secret under the default kid without a key file")
+    void shouldUseAppSecretWithoutFile() throws Exception {
+        JwtKeyRing ring = new JwtKeyRing(secrets(), properties(""));
+
+        assertEquals("default", ring.signingKey().kid());
+        assertArrayEquals(APP_SECRET.getBytes(StandardCharsets.UTF_8), ring.signingKey().key().getEncoded());
+        // Tokens issued before key ids verify against it too
+        assertSame(ring.signingKey().key(), ring.verificationKey(null));
+        assertFalse(ring.reload());
+    }
+
+    @Test
+    @DisplayName("Should sign with the active key and verify with every key the file lists")
+    void shouldLoadKeysFromFile() throws Exception {
+        Path file = write("active=a\nkey.a=" + SECRET_A + "\nkey.b=" + SECRET_B + "\n");
+        JwtKeyRing ring = new JwtKeyRing(secrets(), properties(file.toString()));
+
+        assertEquals("a", ring.signingKey().kid());
+        assertEquals(Set.of("a", "b"), ring.keyIds());
+        assertArrayEquals(SECRET_B.getBytes(StandardCharsets.UTF_8), ring.verificationKey("b").getEncoded());
+        assertNull(ring.verificationKey("c"));
+        // The file replaced app.jwt-secret
+        assertNull(ring.verificationKey(null));
+    }
+
+    @Test
+    @DisplayName("Should pick up a rotation from the file without a restart")
+    void shouldReloadChangedFile() throws Exception {
+        Path file = write("active=a\nkey.a=" + SECRET_A + "\n");
+        JwtKeyRing ring = new JwtKeyRing(secrets(), properties(file.toString()));
+        Key first = ring.signingKey().key();
+        assertFalse(ring.reload());
+
+        write("active=b\nkey.a=" + SECRET_A + "\nkey.b=" + SECRET_B + "\n");
+        assertTrue(ring.reload());
+
+        assertEquals("b", ring.signingKey().kid());
+        assertArrayEquals(first.getEncoded(), ring.verificationKey("a").getEncoded());
+        assertFalse(ring.reload());
+    }
+
+    @Test
+    @DisplayName("Should keep the current keys when the file becomes invalid or disappears")
+    void shouldKeepKeysOnInvalidFile() throws Exception {
+        Path file = write("active=a\nkey.a=" + SECRET_A + "\n");
+        JwtKeyRing ring = new JwtKeyRing(secrets(), properties(file.toString()));
+
+        write("active=b\nkey.b=too-short\n");
+        assertFalse(ring.reload());
+        write("active=c\nkey.b=" + SECRET_B + "\n");
+        assertFalse(ring.reload());
+        Files.delete(file);
+        assertFalse(ring.reload());
+
+        assertEquals("a", ring.signingKey().kid());
+        assertEquals(Set.of("a"), ring.keyIds());
+    }
+
+    @Test
+    @DisplayName("Should refuse to start with a key file that is missing or invalid")
+    void shouldFailStartOnInvalidFile() throws Exception {
+        assertThrows(NoSuchFileException.class,
+                () -> new JwtKeyRing(secrets(), properties(directory.resolve("missing").toString())));
+
+        Path file = write("active=a\nkey.a=" + SECRET_A + "\nkeys.b=" + SECRET_B + "\n");
+        assertThrows(IllegalArgumentException.class, () -> new JwtKeyRing(secrets(), properties(file.toString())));
+        write("active=a/b\nkey.a/b=" + SECRET_A + "\n");
+        assertThrows(IllegalArgumentException.class, () -> new JwtKeyRing(secrets(), properties(file.toString())));
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.writeString(directory.resolve("jwt-keys.properties"), content);
+    }
+
+    private static AppSecrets secrets() {
+        AppSecrets secrets = new AppSecrets();
+        secrets.setJwtSecret(APP_SECRET);
+        return secrets;
+    }
+
+    private static JwtKeyRingProperties properties(String file) {
+        JwtKeyRingProperties properties = new JwtKeyRingProperties();
+        properties.setFile(file);
+        return properties;
+    }
+}
@@ -0,0 +1,155 @@
+package com.pfh.user.component.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pfh.user.enums.RateLimitDecision;
+import com.pfh.user.util.IpAddresses;
+import com.pfh.user.util.SlidingWindowRateLimiter;
+
+class SlidingWindowRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    @DisplayName("Should allow the limit per window and report the first rejection once")
+    void shouldLimitPerWindow() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, 60_000, 1000, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(RateLimitDecision.ALLOWED, limiter.tryAcquire("203.0.113.5"));
+        }
+        assertEquals(RateLimitDecision.REJECTED_FIRST, limiter.tryAcquire("203.0.113.5"));
+        assertEquals(RateLimitDecision.REJECTED, limiter.tryAcquire("203.0.113.5"));
+        assertEquals(RateLimitDecision.ALLOWED, limiter.tryAcquire("203.0.113.6"));
+    }
+
+    @Test
+    @DisplayName("Should weigh the previous window by its overlap with the sliding window")
+    void shouldSlideAcrossWindows() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(4, 60_000, 1000, clock::get);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire("198.51.100.1");
+        }
+
+        // A quarter into the next window three quarters of the previous count still apply
+        clock.addAndGet(75_000);
+        assertEquals(RateLimitDecision.ALLOWED, limiter.tryAcquire("198.51.100.1"));
+        assertEquals(RateLimitDecision.REJECTED_FIRST, limiter.tryAcquire("198.51.100.1"));
+
+        // Two windows later nothing of the burst is left
+        clock.addAndGet(120_000);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(RateLimitDecision.ALLOWED, limiter.tryAcquire("198.51.100.1"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should tell when a refused key is admitted again")
+    void shouldReportRetryDelay() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(4, 60_000, 1000, clock::get);
+        assertEquals(0, limiter.retryAfterMs("198.51.100.2"));
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire("198.51.100.2");
+        }
+
+        // Spent in this window: the rest of it, then until the burst weighs three attempts
+        assertEquals(75_000, limiter.retryAfterMs("198.51.100.2"));
+        clock.addAndGet(74_999);
+        assertEquals(RateLimitDecision.REJECTED_FIRST, limiter.tryAcquire("198.51.100.2"));
+        clock.addAndGet(1);
+        assertEquals(RateLimitDecision.ALLOWED, limiter.tryAcquire("198.51.100.2"));
+
+        // Now the previous window's weight decays, half of it leaves room for one more
+        assertEquals(RateLimitDecision.REJECTED, limiter.tryAcquire("198.51.100.2"));
+        assertEquals(15_000, limiter.retryAfterMs("198.51.100.2"));
+        clock.addAndGet(15_000);
+        assertEquals(0, limiter.retryAfterMs("198.51.100.2"));
+        assertEquals(RateLimitDecision.ALLOWED, limiter.tryAcquire("198.51.100.2"));
+    }
+
+    @Test
+    @DisplayName("Should stop tracking new keys once every stripe is full")
+    void shouldBoundTrackedKeys() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, 60_000, 64 * 4, clock::get);
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("2001:db8:" + Integer.toHexString(i) + "::");
+        }
+        assertTrue(limiter.trackedKeys() <= 64 * 4);
+    }
+
+    @Test
+    @DisplayName("Should evict keys idle for two windows")
+    void shouldEvictIdleKeys() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, 60_000, 64 * 1000, clock::get);
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("192.0.2.1-" + i);
+        }
+        assertEquals(1000, limiter.trackedKeys());
+
+        // Each stripe sweeps on its first attempt after the boundary, before the new key is added
+        clock.addAndGet(120_000);
+        for (int i = 0; i < 2000; i++) {
+            limiter.tryAcquire("198.51.100.1-" + i);
+        }
+        assertEquals(2000, limiter.trackedKeys());
+    }
+
+    @Test
+    @DisplayName("Should count an IPv6 client per /64 network")
+    void shouldGroupIpv6Networks() {
+        assertEquals("2001:db8:1:2:0:0:0:0", IpAddresses.network("2001:db8:1:2:aaaa:bbbb:cccc:dddd", 64));
+        assertEquals("203.0.113.5", IpAddresses.network("203.0.113.5", 64));
+        assertNull(IpAddresses.network("not-an-ip", 64));
+    }
+
+    @Test
+    @DisplayName("Should match addresses against CIDR blocks of their own family")
+    void shouldMatchCidrBlocks() {
+        Predicate<String> trusted = IpAddresses.inAny(List.of("10.0.0.0/8", "172.16.0.0/12", "fd00::/8", "192.0.2.7"));
+
+        assertTrue(trusted.test("10.200.3.4"));
+        assertTrue(trusted.test("172.31.255.255"));
+        assertFalse(trusted.test("172.32.0.1"));
+        assertTrue(trusted.test("fd12:3456::1"));
+        assertTrue(trusted.test("::ffff:10.1.2.3"));
+        assertTrue(trusted.test("192.0.2.7"));
+        assertFalse(trusted.test("192.0.2.8"));
+        assertFalse(trusted.test("not-an-ip"));
+    }
+
+    @Test
+    @DisplayName("Should take the right-most X-Forwarded-For hop not added by a trusted proxy")
+    void shouldResolveClientThroughTrustedProxies() {
+        Predicate<String> trusted = IpAddresses.inAny(List.of("10.0.0.0/8"));
+
+        // A client cannot pick its address by sending the header itself
+        assertEquals("203.0.113.5", IpAddresses.clientIp(request("10.0.0.2", "198.51.100.66, 203.0.113.5"), trusted));
+        assertEquals("203.0.113.5",
+                IpAddresses.clientIp(request("10.0.0.2", "198.51.100.66, 203.0.113.5, 10.0.0.9"), trusted));
+        // Only our proxies are listed, the request came from inside
+        assertEquals("10.0.0.7", IpAddresses.clientIp(request("10.0.0.2", "10.0.0.7, 10.0.0.9"), trusted));
+        // A peer that is not one of our proxies is the client, whatever it sends
+        assertEquals("203.0.113.9", IpAddresses.clientIp(request("203.0.113.9", "198.51.100.66"), trusted));
+        assertEquals("10.0.0.2", IpAddresses.clientIp(request("10.0.0.2", null), trusted));
+    }
+
+    private static MockHttpServletRequest request(String peer, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(peer);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,111 @@
+package com.pfh.user.component.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pfh.user.util.SpaceSaving;
+
+class SpaceSavingTest {
+
+    @Test
+    @DisplayName("Should count exactly while every value has a counter")
+    void shouldCountExactlyBelowCapacity() {
+        SpaceSaving sketch = new SpaceSaving(8);
+        for (int i = 0; i < 5; i++) {
+            sketch.offer("203.0.113.1");
+        }
+        sketch.offer("203.0.113.2");
+        sketch.offer("203.0.113.2");
+
+        SpaceSaving.Snapshot snapshot = sketch.snapshot();
+        assertEquals(7, snapshot.total());
+        assertEquals(0, snapshot.floor());
+        assertEquals(List.of(
+                new SpaceSaving.Entry("203.0.113.1", 5, 0),
+                new SpaceSaving.Entry("203.0.113.2", 2, 0)), snapshot.entries());
+    }
+
+    @Test
+    @DisplayName("Should keep the heavy hitters of a skewed stream within their error bounds")
+    void shouldFindHeavyHitters() {
+        SpaceSaving sketch = new SpaceSaving(64);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // A few attackers among a long tail of one-off clients
+            String value = random.nextInt(4) == 0
+                    ? "attacker-" + random.nextInt(5)
+                    : "client-" + random.nextInt(50_000);
+            sketch.offer(value);
+            exact.merge(value, 1L, Long::sum);
+        }
+
+        SpaceSaving.Snapshot snapshot = sketch.snapshot();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(snapshot.entries().get(i).value().startsWith("attacker-"));
+        }
+        for (SpaceSaving.Entry entry : snapshot.entries()) {
+            long actual = exact.get(entry.value());
+            assertTrue(entry.count() >= actual);
+            assertTrue(entry.count() - entry.error() <= actual);
+            assertTrue(entry.error() <= snapshot.total() / 64);
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge snapshots into the summary of both streams")
+    void shouldMergeSnapshots() {
+        SpaceSaving first = new SpaceSaving(4);
+        SpaceSaving second = new SpaceSaving(4);
+        for (int i = 0; i < 10; i++) {
+            first.offer("a");
+            second.offer("b");
+        }
+        for (int i = 0; i < 6; i++) {
+            first.offer("b");
+        }
+        for (int i = 0; i < 20; i++) {
+            // Fills the second sketch, the tail shares its smallest counter
+            second.offer("tail-" + i);
+        }
+
+        SpaceSaving.Snapshot merged = first.snapshot().merge(second.snapshot(), 4);
+        assertEquals(46, merged.total());
+        assertEquals(4, merged.entries().size());
+        // "a" may rank first: the second sketch could have counted it up to its floor
+        assertBounds(merged, "a", 10);
+        assertBounds(merged, "b", 16);
+        assertTrue(merged.floor() >= second.snapshot().floor());
+    }
+
+    @Test
+    @DisplayName("Should start over after clear")
+    void shouldClear() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        for (int i = 0; i < 100; i++) {
+            sketch.offer("value-" + (i % 7));
+        }
+        sketch.clear();
+        sketch.offer("fresh");
+
+        SpaceSaving.Snapshot snapshot = sketch.snapshot();
+        assertEquals(1, snapshot.total());
+        assertEquals(List.of(new SpaceSaving.Entry("fresh", 1, 0)), snapshot.entries());
+    }
+
+    private static void assertBounds(SpaceSaving.Snapshot snapshot, String value, long actual) {
+        SpaceSaving.Entry entry = snapshot.entries().stream()
+                .filter(candidate -> candidate.value().equals(value))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(entry.count() >= actual && entry.count() - entry.error() <= actual);
+    }
+}
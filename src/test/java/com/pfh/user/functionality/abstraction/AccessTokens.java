@@ -0,0 +1,22 @@
+package com.pfh.user.functionality.abstraction;
+
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.util.JwtUtil;
+
+import java.util.Map;
+
+/**
+ * Authorization header values for tests calling the endpoints
+ * {@code SecurityConfig} restricts to a role, signed like the tokens the
+ * login endpoint issues.
+ */
+public final class AccessTokens {
+
+    private AccessTokens() {
+    }
+
+    public static String bearer(JwtUtil jwtUtil, UserRole role) {
+        return "Bearer " + jwtUtil.generateToken("1",
+                Map.of("email", "operator@example.com", "roles", new String[]{role.name()}));
+    }
+}
@@ -0,0 +1,36 @@
+package com.pfh.user.functionality.abstraction;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.util.TimeOrderedIds;
+
+import java.time.Instant;
+
+/**
+ * Audit rows for tests that store them directly through the batch inserter.
+ * Rows get a time-ordered event id and are sealed with their leaf hash, as
+ * the writer would seal them, so the fixtures pass integrity verification.
+ */
+public final class AuditEvents {
+
+    private AuditEvents() {
+    }
+
+    // The fields every fixture sets, callers add the rest before sealing
+    public static AuditLogEntity.AuditLogEntityBuilder event(String email, String ip, AuditEventType type,
+                                                             Instant timestamp) {
+        return AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next())
+                .email(email)
+                .ipAddress(ip)
+                .timestamp(timestamp)
+                .eventType(type.name());
+    }
+
+    public static AuditLogEntity sealed(AuditIntegrity auditIntegrity, AuditLogEntity.AuditLogEntityBuilder event) {
+        AuditLogEntity entry = event.build();
+        entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+        return entry;
+    }
+}
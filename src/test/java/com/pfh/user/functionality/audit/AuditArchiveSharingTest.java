@@ -0,0 +1,232 @@
+/*
+ *  [USER-STORY] Audit Archive Shared Across Nodes
+ *      **As a** platform operator running several instances of the service
+ *      **I want** archived audit months recorded and stored in the audit database rather than on one node's disk
+ *      **So that** every node can search the cold tier and retention never drops a month only one node holds
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** A month archived by one node is listed and searchable on a node that never had its segment.
+ *          * **AC.2:** Retention keeps a partition until the manifest records its month, then drops it even if the archiving node is gone.
+ *          * **AC.3:** A rewritten segment replaces the copies every other node reads from.
+ *          * **AC.4:** A node that loses the race to publish a segment leaves the manifest and its disk untouched.
+ *          * **AC.5:** A scheduled run exports on its own thread, the scheduler thread other tasks share is not held.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditLogCriteria;
+import com.pfh.user.audit.AuditPartitionManager;
+import com.pfh.user.audit.archive.AuditArchive;
+import com.pfh.user.audit.archive.AuditArchiveManifest;
+import com.pfh.user.audit.archive.AuditArchiver;
+import com.pfh.user.audit.archive.AuditSegmentWriter;
+import com.pfh.user.config.audit.AuditArchiveProperties;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "audit.partitions.retention-months=24",
+        "audit.partitions.retention-action=DETACH"
+})
+class AuditArchiveSharingTest extends AbstractIntegrationTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2020, 3);
+
+    // Only MONTH is closed on this day, later partitions stay hot
+    private static final LocalDate ARCHIVE_DAY = LocalDate.of(2020, 5, 1);
+
+    @Autowired
+    private AuditArchiveManifest manifest;
+
+    @Autowired
+    private AuditPartitionManager partitionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @Autowired
+    @Qualifier("auditTransactionManager")
+    private PlatformTransactionManager auditTransactionManager;
+
+    @TempDir
+    Path nodeADirectory;
+
+    @TempDir
+    Path nodeBDirectory;
+
+    private AuditArchive nodeA;
+    private AuditArchive nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        nodeA = node(nodeADirectory);
+        nodeB = node(nodeBDirectory);
+        partitionManager.createPartition(MONTH);
+        for (int i = 0; i < 3; i++) {
+            auditJdbcTemplate.update("INSERT INTO audit_logs (event_id, email, ip_address, timestamp, event_type) "
+                            + "VALUES (gen_random_uuid(), ?, '10.3.0.1'::inet, ?::timestamptz, ?)",
+                    "cold@example.com", MONTH.atDay(2 + i) + " 10:00:00+00", AuditEventType.LOGIN_SUCCESS.getCode());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+        auditJdbcTemplate.execute("DROP TABLE IF EXISTS " + AuditPartitionManager.partitionName(MONTH));
+        auditJdbcTemplate.update("DELETE FROM audit_archive_segments WHERE month = ?", MONTH.atDay(1));
+        auditJdbcTemplate.update("DELETE FROM audit_archive_chunks WHERE month = ?", MONTH.atDay(1));
+    }
+
+    @Test
+    @DisplayName("[Audit Archive Shared Across Nodes] AC.1: Another node serves a month it never archived")
+    // * AC.1: A month archived by one node is listed and searchable on a node that never had its segment.
+    void whenArchivedOnOneNode_thenSearchableOnAnother() throws Exception {
+        assertEquals(List.of(MONTH), archiver(nodeA).archiveClosedPartitions(ARCHIVE_DAY));
+
+        assertTrue(nodeB.isArchived(MONTH));
+        assertTrue(nodeB.archivedMonths().contains(MONTH));
+        assertEquals(3, search(nodeB, "cold@example.com").size());
+        assertEquals(List.of(nodeB.segmentPath(manifest.segment(MONTH))), files(nodeBDirectory));
+        // Already in the manifest, no node exports it again
+        assertTrue(archiver(nodeB).archiveClosedPartitions(ARCHIVE_DAY).isEmpty());
+    }
+
+    @Test
+    @DisplayName("[Audit Archive Shared Across Nodes] AC.2: Retention waits for the manifest")
+    // * AC.2: Retention keeps a partition until the manifest records its month, then drops it even if the archiving node is gone.
+    void whenPastRetention_thenKeptUntilManifestHasMonth() throws Exception {
+        String partition = AuditPartitionManager.partitionName(MONTH);
+        assertFalse(partitionManager.enforceRetention(Instant.now()).contains(partition));
+
+        archiver(nodeA).archiveClosedPartitions(ARCHIVE_DAY);
+        // The node that archived the month is gone together with its disk
+        for (Path file : files(nodeADirectory)) {
+            Files.delete(file);
+        }
+
+        assertTrue(partitionManager.enforceRetention(Instant.now()).contains(partition));
+        assertEquals(3, search(nodeB, "cold@example.com").size());
+    }
+
+    @Test
+    @DisplayName("[Audit Archive Shared Across Nodes] AC.3: A rewrite reaches every node")
+    // * AC.3: A rewritten segment replaces the copies every other node reads from.
+    void whenRewritten_thenOtherNodesReadNewVersion() throws Exception {
+        archiver(nodeA).archiveClosedPartitions(ARCHIVE_DAY);
+        // Node B opens and caches the first version
+        assertEquals(3, search(nodeB, "cold@example.com").size());
+
+        long changed = nodeA.rewrite(MONTH, row -> {
+            row.setEmail("rewritten@example.invalid");
+            return true;
+        });
+
+        assertEquals(3, changed);
+        assertEquals(2, manifest.segment(MONTH).version());
+        assertTrue(search(nodeB, "cold@example.com").isEmpty());
+        assertEquals(3, search(nodeB, "rewritten@example.invalid").size());
+        assertEquals(List.of(nodeB.segmentPath(manifest.segment(MONTH))), files(nodeBDirectory));
+        assertEquals(0, auditJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM audit_archive_chunks WHERE month = ? AND version = 1",
+                Integer.class, MONTH.atDay(1)));
+    }
+
+    @Test
+    @DisplayName("[Audit Archive Shared Across Nodes] AC.4: The loser of a publish race changes nothing")
+    // * AC.4: A node that loses the race to publish a segment leaves the manifest and its disk untouched.
+    void whenPublishRaceLost_thenManifestUnchanged() throws Exception {
+        archiver(nodeA).archiveClosedPartitions(ARCHIVE_DAY);
+        AuditArchiveManifest.Segment published = manifest.segment(MONTH);
+
+        try (AuditSegmentWriter writer = nodeB.newWriter(MONTH)) {
+            writer.finish();
+        }
+        assertThrows(IllegalStateException.class, () -> nodeB.publish(MONTH, 0, 0));
+
+        assertEquals(published, manifest.segment(MONTH));
+        assertTrue(files(nodeBDirectory).isEmpty());
+        assertEquals(3, search(nodeB, "cold@example.com").size());
+    }
+
+    @Test
+    @DisplayName("[Audit Archive Shared Across Nodes] AC.5: Scheduled exports leave the scheduler thread free")
+    // * AC.5: A scheduled run exports on its own thread, the scheduler thread other tasks share is not held.
+    void whenStarted_thenExportRunsInBackground() {
+        AuditArchiver archiver = archiver(nodeA);
+        String partition = AuditPartitionManager.partitionName(MONTH);
+
+        // The export cannot read the month while this transaction locks it, yet start() returns
+        new TransactionTemplate(auditTransactionManager).executeWithoutResult(status -> {
+            auditJdbcTemplate.execute("LOCK TABLE " + partition + " IN ACCESS EXCLUSIVE MODE");
+            assertTrue(archiver.start(ARCHIVE_DAY));
+            assertTrue(archiver.isRunning());
+            assertFalse(archiver.start(ARCHIVE_DAY));
+            assertFalse(nodeB.isArchived(MONTH));
+        });
+
+        await().atMost(Duration.ofSeconds(20)).until(() -> !archiver.isRunning());
+        assertTrue(nodeB.isArchived(MONTH));
+        assertEquals(3, search(nodeB, "cold@example.com").size());
+    }
+
+    private AuditArchive node(Path directory) throws Exception {
+        AuditArchiveProperties properties = new AuditArchiveProperties();
+        properties.setDirectory(directory.toString());
+        return new AuditArchive(properties, manifest);
+    }
+
+    private AuditArchiver archiver(AuditArchive node) {
+        AuditArchiveProperties properties = new AuditArchiveProperties();
+        return new AuditArchiver(node, partitionManager, properties, auditJdbcTemplate, auditTransactionManager,
+                meterRegistry);
+    }
+
+    private static List<AuditLogEntity> search(AuditArchive node, String email) {
+        List<AuditLogEntity> found = new ArrayList<>();
+        node.search(new AuditLogCriteria(email, null, null, null, null), found::add);
+        return found;
+    }
+
+    private static List<Path> files(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ *  [USER-STORY] Erasure of a Subject's Audit History
+ *      **As a** data protection officer
+ *      **I want** a user's email, IP and user agent pseudonymized across their whole audit history in the background
+ *      **So that** erasure requests are honoured without locking audit_logs or breaking integrity verification
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** An erasure replaces the email, IP and user agent of every row of the subject, and only theirs, then forgets the subject's email.
+ *          * **AC.2:** Rewritten rows still pass integrity verification, and a later edit of one is still detected.
+ *          * **AC.3:** A job abandoned by a node is taken over once its lease runs out and finished from where it stopped.
+ *          * **AC.4:** The subject's rows are found whatever case their address was stored in.
+ *          * **AC.5:** /actuator/auditerasure requires an ADMIN token, 401 without a valid token and 403 for other roles.
+ *          * **AC.6:** An archived month is erased for every node, not only the one that ran the erasure.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditIntegrityVerifier;
+import com.pfh.user.audit.AuditLogBatchInserter;
+import com.pfh.user.audit.AuditLogCriteria;
+import com.pfh.user.audit.AuditPartitionManager;
+import com.pfh.user.audit.archive.AuditArchive;
+import com.pfh.user.audit.archive.AuditArchiveManifest;
+import com.pfh.user.audit.archive.AuditArchiver;
+import com.pfh.user.audit.erasure.AuditErasureEngine;
+import com.pfh.user.audit.erasure.AuditErasureJobs;
+import com.pfh.user.audit.erasure.AuditPseudonyms;
+import com.pfh.user.config.audit.AuditArchiveProperties;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditErasureStatus;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.JwtUtil;
+import com.pfh.user.util.TimeOrderedIds;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Small chunks so a subject's rows take several transactions per partition
+@SpringBootTest(properties = {
+        "audit.erasure.chunk-size=7",
+        "audit.erasure.min-chunk-size=2",
+        "audit.erasure.poll-interval-ms=600000"
+})
+@AutoConfigureMockMvc
+class AuditErasureTest extends AbstractIntegrationTest {
+
+    private static final String ERASURE_ENDPOINT = "/actuator/auditerasure";
+
+    private static final YearMonth ARCHIVED_MONTH = YearMonth.of(2020, 3);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private AuditLogBatchInserter inserter;
+
+    @Autowired
+    private AuditIntegrity auditIntegrity;
+
+    @Autowired
+    private AuditIntegrityVerifier verifier;
+
+    @Autowired
+    private AuditErasureEngine engine;
+
+    @Autowired
+    private AuditErasureJobs jobs;
+
+    @Autowired
+    private AuditPseudonyms pseudonyms;
+
+    @Autowired
+    private AuditPartitionManager partitionManager;
+
+    @Autowired
+    private AuditArchiver archiver;
+
+    @Autowired
+    private AuditArchiveManifest manifest;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @TempDir
+    Path otherNodeDirectory;
+
+    private long clock = System.currentTimeMillis();
+
+    @BeforeEach
+    void setUp() {
+        auditJdbcTemplate.execute("TRUNCATE audit_logs, audit_integrity_blocks, audit_verification_checkpoints");
+    }
+
+    @AfterEach
+    void tearDown() {
+        auditJdbcTemplate.execute("DROP TABLE IF EXISTS " + AuditPartitionManager.partitionName(ARCHIVED_MONTH));
+        auditJdbcTemplate.update("DELETE FROM audit_archive_segments WHERE month = ?", ARCHIVED_MONTH.atDay(1));
+        auditJdbcTemplate.update("DELETE FROM audit_archive_chunks WHERE month = ?", ARCHIVED_MONTH.atDay(1));
+    }
+
+    @Test
+    @DisplayName("[Erasure of a Subject's Audit History] AC.1: Only the subject's rows are pseudonymized")
+    // * AC.1: An erasure replaces the email, IP and user agent of every row of the subject, and only theirs, then forgets the subject's email.
+    void whenErased_thenSubjectRowsPseudonymized() {
+        store("erase-me@example.com", 25);
+        store("keep-me@example.com", 3);
+
+        AuditErasureJobs.Job job = engine.request("erase-me@example.com");
+        awaitCompleted(job.id());
+
+        String pseudonym = pseudonyms.email("erase-me@example.com");
+        assertEquals(0, count("email = 'erase-me@example.com'"));
+        assertEquals(25, count("email = '" + pseudonym + "'"));
+        assertEquals(0, count("email = '" + pseudonym + "' AND (user_agent_id IS NOT NULL "
+                + "OR NOT ip_address << 'fd00::/8'::inet)"));
+        assertEquals(3, count("email = 'keep-me@example.com' AND user_agent_id IS NOT NULL "
+                + "AND ip_address = '10.2.0.1'::inet"));
+
+        Map<String, Object> stored = auditJdbcTemplate.queryForMap(
+                "SELECT subject_email, rows_rewritten FROM audit_erasure_jobs WHERE id = ?", job.id());
+        assertNull(stored.get("subject_email"));
+        assertEquals(25L, stored.get("rows_rewritten"));
+    }
+
+    @Test
+    @DisplayName("[Erasure of a Subject's Audit History] AC.2: Rewritten rows keep verifying")
+    // * AC.2: Rewritten rows still pass integrity verification, and a later edit of one is still detected.
+    void whenErased_thenIntegrityStillVerifies() {
+        store("verify-me@example.com", 10);
+        store("neighbour@example.com", 4);
+
+        awaitCompleted(engine.request("verify-me@example.com").id());
+        assertTrue(verifier.verify(true).failures().isEmpty());
+
+        auditJdbcTemplate.update("UPDATE audit_logs SET ip_address = '203.0.113.9'::inet WHERE id = "
+                + "(SELECT min(id) FROM audit_logs WHERE amendment_hash IS NOT NULL)");
+        assertFalse(verifier.verify(true).failures().isEmpty());
+    }
+
+    @Test
+    @DisplayName("[Erasure of a Subject's Audit History] AC.3: An abandoned job is resumed")
+    // * AC.3: A job abandoned by a node is taken over once its lease runs out and finished from where it stopped.
+    void whenLeaseExpired_thenJobResumed() {
+        store("resume-me@example.com", 12);
+        AuditErasureJobs.Job job = jobs.request("resume-me@example.com", pseudonyms.email("resume-me@example.com"));
+        // Claimed by a node that died before finishing anything
+        auditJdbcTemplate.update("UPDATE audit_erasure_jobs SET status = 'RUNNING', attempts = 1, lease_owner = ?, "
+                + "lease_until = now() - interval '1 second' WHERE id = ?", UUID.randomUUID(), job.id());
+
+        engine.start();
+        awaitCompleted(job.id());
+
+        assertEquals(0, count("email = 'resume-me@example.com'"));
+        assertEquals(2, jobs.find(job.id()).attempts());
+    }
+
+    @Test
+    @DisplayName("[Erasure of a Subject's Audit History] AC.4: The subject is matched case-insensitively")
+    // * AC.4: The subject's rows are found whatever case their address was stored in.
+    void whenStoredInOtherCase_thenStillErased() {
+        store("Mixed.Case@Example.com", 6);
+        store("MIXED.CASE@EXAMPLE.COM", 4);
+        store("mixed.case@example.org", 2);
+
+        awaitCompleted(engine.request("mixed.Case@example.COM").id());
+
+        assertEquals(0, count("lower(email) = 'mixed.case@example.com'"));
+        assertEquals(10, count("email = '" + pseudonyms.email("mixed.case@example.com") + "'"));
+        assertEquals(2, count("email = 'mixed.case@example.org'"));
+    }
+
+    @Test
+    @DisplayName("[Erasure of a Subject's Audit History] AC.5: Only admins can request an erasure")
+    // * AC.5: /actuator/auditerasure requires an ADMIN token, 401 without a valid token and 403 for other roles.
+    void whenNotAdmin_thenErasureRefused() throws Exception {
+        store("guarded@example.com", 2);
+        String body = "{\"email\":\"guarded@example.com\"}";
+
+        mockMvc.perform(post(ERASURE_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(ERASURE_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(ERASURE_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(UserRole.NORMAL_USER)))
+                .andExpect(status().isForbidden());
+        assertEquals(2, count("email = 'guarded@example.com'"));
+
+        mockMvc.perform(post(ERASURE_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(UserRole.ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").exists());
+        await().atMost(Duration.ofSeconds(20)).untilAsserted(() ->
+                assertEquals(0, count("email = 'guarded@example.com'")));
+    }
+
+    @Test
+    @DisplayName("[Erasure of a Subject's Audit History] AC.6: Archived months are erased on every node")
+    // * AC.6: An archived month is erased for every node, not only the one that ran the erasure.
+    void whenArchived_thenErasedForOtherNodes() throws Exception {
+        partitionManager.createPartition(ARCHIVED_MONTH);
+        store("archived-me@example.com", 8, ARCHIVED_MONTH.atDay(2).atStartOfDay(ZoneOffset.UTC).toInstant());
+        store("keep-me@example.com", 3, ARCHIVED_MONTH.atDay(3).atStartOfDay(ZoneOffset.UTC).toInstant());
+        // Only the test month is closed on this day
+        assertEquals(List.of(ARCHIVED_MONTH), archiver.archiveClosedPartitions(LocalDate.of(2020, 5, 1)));
+
+        awaitCompleted(engine.request("archived-me@example.com").id());
+
+        AuditArchiveProperties properties = new AuditArchiveProperties();
+        properties.setDirectory(otherNodeDirectory.toString());
+        AuditArchive otherNode = new AuditArchive(properties, manifest);
+        try {
+            assertEquals(0, archived(otherNode, "archived-me@example.com"));
+            assertEquals(8, archived(otherNode, pseudonyms.email("archived-me@example.com")));
+            assertEquals(3, archived(otherNode, "keep-me@example.com"));
+        } finally {
+            otherNode.close();
+        }
+    }
+
+    private static int archived(AuditArchive node, String email) {
+        int[] found = {0};
+        node.search(new AuditLogCriteria(email, null, null, null, null), row -> {
+            found[0]++;
+            return true;
+        });
+        return found[0];
+    }
+
+    private String token(UserRole role) {
+        return jwtUtil.generateToken("1", Map.of("email", "operator@example.com", "roles", new String[]{role.name()}));
+    }
+
+    private void awaitCompleted(UUID jobId) {
+        await().atMost(Duration.ofSeconds(20)).untilAsserted(() ->
+                assertEquals(AuditErasureStatus.COMPLETED, jobs.find(jobId).status()));
+    }
+
+    private int count(String condition) {
+        return auditJdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs WHERE " + condition, Integer.class);
+    }
+
+    private void store(String email, int rows) {
+        store(email, rows, Instant.ofEpochMilli(clock));
+        clock += rows;
+    }
+
+    // Several blocks, so rewritten rows are spread over more than one Merkle tree
+    private void store(String email, int rows, Instant from) {
+        List<AuditLogEntity> entries = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            long millis = from.toEpochMilli() + i;
+            AuditLogEntity entry = AuditLogEntity.builder()
+                    .eventId(TimeOrderedIds.next(millis))
+                    .email(email)
+                    .ipAddress("10.2.0.1")
+                    .userAgent("Mozilla/5.0 (erasure test)")
+                    .timestamp(Instant.ofEpochMilli(millis))
+                    .eventType(AuditEventType.LOGIN_FAILURE.name())
+                    .failureReason(AuditFailureReason.INVALID_CREDENTIALS.getValue())
+                    .build();
+            entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+            entries.add(entry);
+            if (entries.size() == 5) {
+                inserter.insert(entries);
+                entries = new ArrayList<>();
+            }
+        }
+        if (!entries.isEmpty()) {
+            inserter.insert(entries);
+        }
+    }
+}
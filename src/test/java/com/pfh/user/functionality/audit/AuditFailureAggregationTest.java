@@ -0,0 +1,115 @@
+/*
+ *  [USER-STORY] Aggregation of Repeated Audit Failures
+ *      **As a** database administrator
+ *      **I want** identical login failures within a short window stored as one counted row
+ *      **So that** a credential-stuffing wave writes rows per source, not per attempt
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** Identical failures (email, IP, reason) within the window become one row with the attempt count and first/last times.
+ *          * **AC.2:** Different sources stay separate rows, and the counts add up to the number of attempts.
+ *          * **AC.3:** Aggregated rows are sealed like any other; changing a count is detected by the verifier.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditIntegrityVerifier;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.service.AuditLogService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "audit.aggregation.enabled=true",
+        "audit.aggregation.window-ms=2000",
+        "audit.aggregation.sweep-interval-ms=200"
+})
+class AuditFailureAggregationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private AuditLogService auditLogService;
+
+    @Autowired
+    private AuditIntegrityVerifier verifier;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        auditJdbcTemplate.execute("TRUNCATE audit_logs, audit_integrity_blocks, audit_verification_checkpoints");
+    }
+
+    @Test
+    @DisplayName("[Aggregation of Repeated Audit Failures] AC.1: Identical failures become one counted row")
+    // * AC.1: Identical failures (email, IP, reason) within the window become one row with the attempt count and first/last times.
+    void whenIdenticalFailures_thenOneCountedRow() {
+        for (int i = 0; i < 50; i++) {
+            auditLogService.logLoginFailure("flood@example.com", "203.0.113.7", AuditFailureReason.INVALID_CREDENTIALS);
+        }
+
+        List<Map<String, Object>> rows = awaitRows("flood@example.com", 1);
+        Map<String, Object> row = rows.get(0);
+        assertEquals(50, row.get("occurrence_count"));
+        OffsetDateTime first = (OffsetDateTime) row.get("timestamp");
+        OffsetDateTime last = (OffsetDateTime) row.get("last_occurred_at");
+        assertFalse(last.isBefore(first));
+    }
+
+    @Test
+    @DisplayName("[Aggregation of Repeated Audit Failures] AC.2: Rows per source, counts are lossless")
+    // * AC.2: Different sources stay separate rows, and the counts add up to the number of attempts.
+    void whenSeveralSources_thenRowPerSource() {
+        for (int i = 0; i < 30; i++) {
+            auditLogService.logLoginFailure("wave@example.com", "198.51.100." + (i % 3),
+                    AuditFailureReason.INVALID_CREDENTIALS);
+        }
+        auditLogService.logLoginFailure("wave@example.com", "198.51.100.0", AuditFailureReason.USER_NOT_FOUND);
+
+        List<Map<String, Object>> rows = awaitRows("wave@example.com", 4);
+        int attempts = rows.stream()
+                .mapToInt(row -> row.get("occurrence_count") != null ? (Integer) row.get("occurrence_count") : 1)
+                .sum();
+        assertEquals(31, attempts);
+    }
+
+    @Test
+    @DisplayName("[Aggregation of Repeated Audit Failures] AC.3: Aggregated rows are integrity checked")
+    // * AC.3: Aggregated rows are sealed like any other; changing a count is detected by the verifier.
+    void whenCountChanged_thenVerifierReportsIt() {
+        for (int i = 0; i < 5; i++) {
+            auditLogService.logLoginFailure("sealed@example.com", "192.0.2.1", AuditFailureReason.INVALID_CREDENTIALS);
+        }
+        awaitRows("sealed@example.com", 1);
+        assertTrue(verifier.verify(true).failures().isEmpty());
+
+        auditJdbcTemplate.update("UPDATE audit_logs SET occurrence_count = 1 WHERE email = 'sealed@example.com'");
+        assertFalse(verifier.verify(true).failures().isEmpty());
+    }
+
+    private List<Map<String, Object>> awaitRows(String email, int expected) {
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertEquals(expected,
+                auditJdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs WHERE email = ?", Integer.class,
+                        email)));
+        return auditJdbcTemplate.queryForList(
+                "SELECT timestamp, occurrence_count, last_occurred_at FROM audit_logs WHERE email = ?", email);
+    }
+}
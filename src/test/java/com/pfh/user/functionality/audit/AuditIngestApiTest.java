@@ -0,0 +1,212 @@
+/*
+ *  [USER-STORY] Bulk Audit Event Ingest
+ *      **As a** platform service (API gateway, SSO bridge)
+ *      **I want** to stream my authentication events into the audit trail as NDJSON
+ *      **So that** they are sealed and queryable like the user service's own events without one call per event
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** POST /api/audit-logs/ingest appends every valid line and the stored events pass integrity verification.
+ *          * **AC.2:** Invalid lines are skipped and reported with their line number, the rest of the stream is still accepted.
+ *          * **AC.3:** When the audit pipeline cannot take more events the stream is cut short with 503, Retry-After and the line to resume from.
+ *          * **AC.4:** Streams beyond the concurrency limit are refused with 503 before any line is read.
+ *          * **AC.5:** A stream without a configured X-Ingest-Token is refused with 401 and nothing is stored.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditIngestor;
+import com.pfh.user.audit.AuditIntegrityVerifier;
+import com.pfh.user.audit.AuditLogWriter;
+import com.pfh.user.config.security.IngestTokenFilter;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// A short offer timeout so the backpressure case answers quickly
+@SpringBootTest(properties = {
+        "audit.ingest.offer-timeout-ms=50",
+        "audit.ingest.tokens=retired-gateway-token,gateway-token"
+})
+@AutoConfigureMockMvc
+class AuditIngestApiTest extends AbstractIntegrationTest {
+
+    private static final String INGEST_ENDPOINT = "/api/audit-logs/ingest";
+    private static final String TOKEN = "gateway-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    @Autowired
+    private AuditIngestor auditIngestor;
+
+    @Autowired
+    private AuditIntegrityVerifier verifier;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    private final Instant now = Instant.now().minusSeconds(5);
+
+    @BeforeEach
+    void setUp() {
+        auditJdbcTemplate.execute("TRUNCATE audit_logs, audit_integrity_blocks, audit_verification_checkpoints");
+    }
+
+    @Test
+    @DisplayName("[Bulk Audit Event Ingest] AC.1: Valid lines are appended and sealed")
+    // * AC.1: POST /api/audit-logs/ingest appends every valid line and the stored events pass integrity verification.
+    void whenValidStream_thenEventsStoredAndVerified() throws Exception {
+        String body = success("gateway.user@example.com", "203.0.113.7") + "\r\n"
+                + "\n"
+                + failure("gateway.user@example.com", "invalid_credentials") + "\n"
+                + "{\"eventType\":\"ACCOUNT_LOCKOUT\",\"timestamp\":\"" + now + "\","
+                + "\"email\":\"gateway.user@example.com\",\"lockoutDurationMinutes\":15,"
+                + "\"triggerEvent\":\"sso_bridge\"}";
+
+        ingest(body)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(3))
+                .andExpect(jsonPath("$.rejected").value(0))
+                .andExpect(jsonPath("$.resumeFromLine").isEmpty());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(count("email = 'gateway.user@example.com'")).isEqualTo(3));
+        assertThat(count("email = 'gateway.user@example.com' AND ip_address = '203.0.113.7'::inet")).isEqualTo(1);
+        assertThat(verifier.verify(true).failures()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("[Bulk Audit Event Ingest] AC.2: Invalid lines are reported by line number")
+    // * AC.2: Invalid lines are skipped and reported with their line number, the rest of the stream is still accepted.
+    void whenInvalidLines_thenReportedAndRestAccepted() throws Exception {
+        String body = String.join("\n",
+                success("mixed@example.com", "198.51.100.1"),
+                "{not json",
+                "{\"eventType\":\"PASSWORD_RESET\",\"timestamp\":\"" + now + "\",\"email\":\"mixed@example.com\"}",
+                "{\"eventType\":\"LOGIN_FAILURE\",\"timestamp\":\"" + now + "\",\"email\":\"mixed@example.com\"}",
+                success("mixed@example.com", "not-an-ip"),
+                "{\"eventType\":\"LOGIN_SUCCESS\",\"timestamp\":\"" + now + "\",\"emial\":\"mixed@example.com\"}",
+                failure("mixed@example.com", "user_not_found"));
+
+        ingest(body)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(5))
+                .andExpect(jsonPath("$.errorsTruncated").value(false))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Malformed JSON"))
+                .andExpect(jsonPath("$.errors[1].message").value("Unknown eventType"))
+                .andExpect(jsonPath("$.errors[2].message").value("failureReason is required"))
+                .andExpect(jsonPath("$.errors[3].message").value("ipAddress must be an IPv4 or IPv6 address"))
+                .andExpect(jsonPath("$.errors[4].line").value(6))
+                .andExpect(jsonPath("$.errors[4].message").value("Unknown field 'emial'"));
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(count("email = 'mixed@example.com'")).isEqualTo(2));
+    }
+
+    @Test
+    @DisplayName("[Bulk Audit Event Ingest] AC.3: A full pipeline cuts the stream short")
+    // * AC.3: When the audit pipeline cannot take more events the stream is cut short with 503, Retry-After and the line to resume from.
+    void whenPipelineUnavailable_thenResumeLineReturned() throws Exception {
+        auditLogWriter.stop();
+        try {
+            ingest("\n" + success("throttled@example.com", "198.51.100.2"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists("Retry-After"))
+                    .andExpect(jsonPath("$.accepted").value(0))
+                    .andExpect(jsonPath("$.resumeFromLine").value(2));
+        } finally {
+            auditLogWriter.start();
+        }
+    }
+
+    @Test
+    @DisplayName("[Bulk Audit Event Ingest] AC.4: Streams over the limit return 503")
+    // * AC.4: Streams beyond the concurrency limit are refused with 503 before any line is read.
+    void whenAllIngestSlotsBusy_thenServiceUnavailable() throws Exception {
+        int held = 0;
+        try {
+            while (auditIngestor.tryAcquire()) {
+                held++;
+            }
+            ingest(success("refused@example.com", "198.51.100.3"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists("Retry-After"));
+        } finally {
+            for (int i = 0; i < held; i++) {
+                auditIngestor.release();
+            }
+        }
+        assertThat(count("email = 'refused@example.com'")).isZero();
+    }
+
+    @Test
+    @DisplayName("[Bulk Audit Event Ingest] AC.5: Unknown senders are refused")
+    // * AC.5: A stream without a configured X-Ingest-Token is refused with 401 and nothing is stored.
+    void whenTokenMissingOrUnknown_thenUnauthorized() throws Exception {
+        String body = success("forged@example.com", "198.51.100.4");
+
+        mockMvc.perform(post(INGEST_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isUnauthorized());
+        ingest(body, "gateway-token-guess")
+                .andExpect(status().isUnauthorized());
+        ingest(body, "retired-gateway-token")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1));
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(count("email = 'forged@example.com'")).isEqualTo(1));
+    }
+
+    private ResultActions ingest(String body) throws Exception {
+        return ingest(body, TOKEN);
+    }
+
+    private ResultActions ingest(String body, String token) throws Exception {
+        return mockMvc.perform(post(INGEST_ENDPOINT)
+                .header(IngestTokenFilter.HEADER, token)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String success(String email, String ip) {
+        return "{\"eventType\":\"LOGIN_SUCCESS\",\"timestamp\":\"" + now + "\",\"userId\":\"gw-42\","
+                + "\"email\":\"" + email + "\",\"ipAddress\":\"" + ip + "\",\"userAgent\":\"gateway/1.0\"}";
+    }
+
+    private String failure(String email, String reason) {
+        return "{\"eventType\":\"LOGIN_FAILURE\",\"timestamp\":\"" + now + "\","
+                + "\"email\":\"" + email + "\",\"failureReason\":\"" + reason + "\"}";
+    }
+
+    private int count(String condition) {
+        return auditJdbcTemplate.queryForObject("SELECT count(*) FROM audit_logs WHERE " + condition, Integer.class);
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ *  [USER-STORY] Compact Audit Storage
+ *      **As a** database administrator
+ *      **I want** audit rows stored with codes, inet and deduplicated user agents
+ *      **So that** the audit table and its indexes stay small as volume grows
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** Event types and reasons are smallint codes and IPs are inet, reads return the original values.
+ *          * **AC.2:** A repeated user agent is stored once and referenced by id.
+ *          * **AC.3:** Time range scans use the BRIN index on timestamp.
+ *          * **AC.4:** Rows and the time index are smaller than in the previous text layout.
+ *          * **AC.5:** Unfiltered keyset pages are index-only scans on the (timestamp, event_id) btree.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditIntegrityVerifier;
+import com.pfh.user.audit.AuditLogBatchInserter;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.IpAddresses;
+import com.pfh.user.util.JwtUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.pfh.user.functionality.abstraction.AccessTokens.bearer;
+import static com.pfh.user.functionality.abstraction.AuditEvents.event;
+import static com.pfh.user.functionality.abstraction.AuditEvents.sealed;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuditLogCompactStorageTest extends AbstractIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogCompactStorageTest.class);
+
+    private static final String BROWSER = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/126.0.0.0 Safari/537.36 Edg/126.0.0.0";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private AuditLogBatchInserter inserter;
+
+    @Autowired
+    private AuditIntegrity auditIntegrity;
+
+    @Autowired
+    private AuditIntegrityVerifier verifier;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        auditJdbcTemplate.execute("TRUNCATE audit_logs, audit_integrity_blocks, audit_verification_checkpoints");
+    }
+
+    @Test
+    @DisplayName("[Compact Audit Storage] AC.1: Codes and inet round-trip to the original values")
+    // * AC.1: Event types and reasons are smallint codes and IPs are inet, reads return the original values.
+    void whenStoredCompact_thenReadsAndLeafHashesMatch() throws Exception {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        inserter.insert(List.of(
+                failure("compact@example.com", IpAddresses.canonical("::1"), base),
+                failure("compact@example.com", IpAddresses.canonical("::ffff:192.0.2.7"), base.plusMillis(1))));
+
+        assertThat(columnType("event_type")).isEqualTo("smallint");
+        assertThat(columnType("failure_reason")).isEqualTo("smallint");
+        assertThat(columnType("ip_address")).isEqualTo("inet");
+
+        mockMvc.perform(query().param("ip", "::1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].ipAddress").value("0:0:0:0:0:0:0:1"))
+                .andExpect(jsonPath("$.items[0].eventType").value("LOGIN_FAILURE"))
+                .andExpect(jsonPath("$.items[0].failureReason").value("invalid_credentials"));
+        mockMvc.perform(query().param("ip", "192.0.2.7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].email").value("compact@example.com"));
+
+        // Every field decoded from the compact columns still reproduces its leaf hash
+        assertThat(verifier.verify(true).failures()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("[Compact Audit Storage] AC.2: A repeated user agent is stored once")
+    // * AC.2: A repeated user agent is stored once and referenced by id.
+    void whenUserAgentRepeats_thenStoredOnce() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        inserter.insert(List.of(failure("a@example.com", "10.0.0.1", base)));
+        inserter.insert(List.of(failure("b@example.com", "10.0.0.2", base.plusMillis(1)),
+                failure("c@example.com", "10.0.0.3", base.plusMillis(2))));
+
+        assertThat(auditJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM audit_user_agents WHERE user_agent = ?", Integer.class, BROWSER)).isEqualTo(1);
+        assertThat(auditJdbcTemplate.queryForObject(
+                "SELECT count(DISTINCT user_agent_id) FROM audit_logs", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[Compact Audit Storage] AC.3: Time range scans use the BRIN index")
+    // * AC.3: Time range scans use the BRIN index on timestamp.
+    void whenScanningTimeRange_thenBrinIndexUsed() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        inserter.insert(List.of(failure("brin@example.com", "10.0.0.1", base)));
+
+        List<String> brinIndexes = auditJdbcTemplate.queryForList(
+                "SELECT relid::regclass::text FROM pg_partition_tree('brin_audit_logs_time') WHERE isleaf",
+                String.class);
+        // On a table this small the covering time btree always wins, set it aside for the plan
+        String plan = explain("EXPLAIN SELECT count(*) FROM audit_logs WHERE timestamp >= now() - interval '1 hour' "
+                + "AND timestamp < now() + interval '1 hour'", "ix_audit_logs_time");
+
+        assertThat(plan).contains("Bitmap Index Scan");
+        assertThat(brinIndexes).anyMatch(plan::contains);
+    }
+
+    @Test
+    @DisplayName("[Compact Audit Storage] AC.4: Rows and the time index are smaller than the text layout")
+    // * AC.4: Rows and the time index are smaller than in the previous text layout.
+    void whenComparedToTextLayout_thenRowsAndIndexSmaller() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MICROS).minus(1, ChronoUnit.HOURS);
+        List<AuditLogEntity> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            entries.add(failure("user" + (i % 50) + "@example.com", "203.0.113." + (i % 200), base.plusMillis(i)));
+        }
+        inserter.insert(entries);
+
+        // The same rows in the layout audit_logs had before, with its covering time btree
+        auditJdbcTemplate.execute("""
+                CREATE TEMP TABLE audit_logs_text_layout AS
+                SELECT l.id, l.event_id, l.user_id, l.email, host(l.ip_address)::varchar(255) AS ip_address,
+                       ua.user_agent::varchar(255) AS user_agent, l.timestamp,
+                       CASE l.event_type WHEN 2 THEN 'LOGIN_FAILURE' END::varchar(255) AS event_type,
+                       CASE l.failure_reason WHEN 1 THEN 'invalid_credentials' END::varchar(255) AS failure_reason,
+                       l.lockout_duration_minutes, l.trigger_event, l.integrity_hash, l.block_number
+                FROM audit_logs l LEFT JOIN audit_user_agents ua ON ua.id = l.user_agent_id
+                """);
+        auditJdbcTemplate.execute("CREATE INDEX audit_logs_text_layout_time ON audit_logs_text_layout "
+                + "(timestamp, event_id) INCLUDE (event_type, email, ip_address, failure_reason)");
+
+        double compactRow = auditJdbcTemplate.queryForObject(
+                "SELECT avg(pg_column_size(l.*)) FROM audit_logs l", Double.class);
+        double textRow = auditJdbcTemplate.queryForObject(
+                "SELECT avg(pg_column_size(t.*)) FROM audit_logs_text_layout t", Double.class);
+        long compactIndex = auditJdbcTemplate.queryForObject(
+                "SELECT sum(pg_relation_size(relid)) FROM pg_partition_tree('ix_audit_logs_time')", Long.class);
+        long brinIndex = auditJdbcTemplate.queryForObject(
+                "SELECT sum(pg_relation_size(relid)) FROM pg_partition_tree('brin_audit_logs_time')", Long.class);
+        long textIndex = auditJdbcTemplate.queryForObject(
+                "SELECT pg_relation_size('audit_logs_text_layout_time')", Long.class);
+        auditJdbcTemplate.execute("DROP TABLE audit_logs_text_layout");
+
+        log.info("Audit row {} bytes compact vs {} bytes text, time btree {} bytes compact vs {} bytes text, "
+                + "BRIN {} bytes", Math.round(compactRow), Math.round(textRow), compactIndex, textIndex, brinIndex);
+        assertThat(compactRow).isLessThan(textRow);
+        assertThat(compactIndex).isLessThan(textIndex);
+        assertThat(brinIndex).isLessThan(textIndex);
+    }
+
+    @Test
+    @DisplayName("[Compact Audit Storage] AC.5: Unfiltered pages keep their covering time btree")
+    // * AC.5: Unfiltered keyset pages are index-only scans on the (timestamp, event_id) btree.
+    void whenPagingWithoutFilter_thenTimeBtreeIndexOnlyScan() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        inserter.insert(List.of(failure("keyset@example.com", "10.0.0.1", base)));
+
+        List<String> timeIndexes = auditJdbcTemplate.queryForList(
+                "SELECT relid::regclass::text FROM pg_partition_tree('ix_audit_logs_time') WHERE isleaf",
+                String.class);
+        String plan = explain("EXPLAIN SELECT event_id, timestamp, event_type, email, ip_address, failure_reason "
+                + "FROM audit_logs WHERE timestamp >= now() - interval '1 hour' "
+                + "AND (timestamp, event_id) > (now() - interval '1 hour', gen_random_uuid()) "
+                + "ORDER BY timestamp, event_id LIMIT 101");
+
+        assertThat(plan).contains("Index Only Scan");
+        assertThat(timeIndexes).anyMatch(plan::contains);
+    }
+
+    private MockHttpServletRequestBuilder query() {
+        return get("/api/audit-logs").header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.AUDITOR));
+    }
+
+    private String columnType(String column) {
+        return auditJdbcTemplate.queryForObject("SELECT data_type FROM information_schema.columns "
+                + "WHERE table_name = 'audit_logs' AND column_name = ?", String.class, column);
+    }
+
+    // Plans sql with the given indexes dropped in a transaction that is rolled back afterwards
+    private String explain(String sql, String... droppedIndexes) {
+        return auditJdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String index : droppedIndexes) {
+                    statement.execute("DROP INDEX " + index);
+                }
+                // The test table is tiny, keep the planner from preferring a sequential scan
+                statement.execute("SET LOCAL enable_seqscan = off");
+                StringBuilder lines = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery(sql)) {
+                    while (rs.next()) {
+                        lines.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return lines.toString();
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private AuditLogEntity failure(String email, String ip, Instant timestamp) {
+        return sealed(auditIntegrity, event(email, ip, AuditEventType.LOGIN_FAILURE, timestamp)
+                .userAgent(BROWSER)
+                .failureReason(AuditFailureReason.INVALID_CREDENTIALS.getValue()));
+    }
+}
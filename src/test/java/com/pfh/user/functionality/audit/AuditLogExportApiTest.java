@@ -0,0 +1,202 @@
+/*
+ *  [USER-STORY] Streaming Audit Log Export
+ *      **As a** compliance officer
+ *      **I want** to download the audit history matching a filter as one file
+ *      **So that** I can hand a complete trail to auditors without paging through the API
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** GET /api/audit-logs/export streams matching events as NDJSON, one object per line.
+ *          * **AC.2:** format=CSV returns RFC 4180 CSV with a header row.
+ *          * **AC.3:** gzip=true compresses the stream on the fly.
+ *          * **AC.4:** Exports beyond the concurrency limit are refused with 503 before streaming starts.
+ *          * **AC.5:** Exports require an AUDITOR or ADMIN token, 401 without a valid token and 403 for other roles, before streaming starts.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditLogBatchInserter;
+import com.pfh.user.audit.AuditLogExporter;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.JwtUtil;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.pfh.user.functionality.abstraction.AccessTokens.bearer;
+import static com.pfh.user.functionality.abstraction.AuditEvents.event;
+import static com.pfh.user.functionality.abstraction.AuditEvents.sealed;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuditLogExportApiTest extends AbstractIntegrationTest {
+
+    private static final String EXPORT_ENDPOINT = "/api/audit-logs/export";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private AuditLogBatchInserter inserter;
+
+    @Autowired
+    private AuditIntegrity auditIntegrity;
+
+    @Autowired
+    private AuditLogExporter exporter;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        auditJdbcTemplate.execute("TRUNCATE audit_logs, audit_integrity_blocks, audit_verification_checkpoints");
+
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MICROS).minus(1, ChronoUnit.HOURS);
+        List<AuditLogEntity> entries = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            entries.add(sealed(auditIntegrity, event("export.target@example.com", "10.0.0.1",
+                    AuditEventType.LOGIN_FAILURE, base.plusSeconds(i)).userAgent("Agent, \"quoted\"")));
+        }
+        entries.add(sealed(auditIntegrity, event("someone.else@example.com", "10.0.0.1",
+                AuditEventType.LOGIN_SUCCESS, base.plusSeconds(10))));
+        inserter.insert(entries);
+    }
+
+    @Test
+    @DisplayName("[Streaming Audit Log Export] AC.1: NDJSON export streams one event per line")
+    // * AC.1: GET /api/audit-logs/export streams matching events as NDJSON, one object per line.
+    void whenExportNdjson_thenOneObjectPerMatchingEvent() throws Exception {
+        MvcResult result = stream(export().param("email", "export.target@example.com"));
+
+        assertThat(result.getResponse().getContentType()).startsWith("application/x-ndjson");
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(4);
+        Instant previous = Instant.MIN;
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertThat(row.get("email").asText()).isEqualTo("export.target@example.com");
+            Instant timestamp = Instant.parse(row.get("timestamp").asText());
+            assertThat(timestamp).isAfter(previous);
+            previous = timestamp;
+        }
+    }
+
+    @Test
+    @DisplayName("[Streaming Audit Log Export] AC.2: CSV export has a header and quoted fields")
+    // * AC.2: format=CSV returns RFC 4180 CSV with a header row.
+    void whenExportCsv_thenHeaderAndEscapedRows() throws Exception {
+        MvcResult result = stream(export().param("format", "CSV"));
+
+        assertThat(result.getResponse().getContentType()).startsWith("text/csv");
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(6);
+        assertThat(lines[0]).startsWith("event_id,timestamp,user_id,email");
+        assertThat(lines[1]).contains("\"Agent, \"\"quoted\"\"\"");
+    }
+
+    @Test
+    @DisplayName("[Streaming Audit Log Export] AC.3: gzip=true compresses the stream")
+    // * AC.3: gzip=true compresses the stream on the fly.
+    void whenExportGzip_thenBodyIsGzipCompressed() throws Exception {
+        MvcResult result = stream(export().param("gzip", "true"));
+
+        assertThat(result.getResponse().getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(result.getResponse().getHeader("Content-Disposition")).contains("audit-logs.ndjson.gz");
+        String body = gunzip(result.getResponse().getContentAsByteArray());
+        assertThat(body.split("\n")).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("[Streaming Audit Log Export] AC.4: Exports over the limit return 503")
+    // * AC.4: Exports beyond the concurrency limit are refused with 503 before streaming starts.
+    void whenAllExportSlotsBusy_thenServiceUnavailable() throws Exception {
+        int held = 0;
+        try {
+            while (exporter.tryAcquire()) {
+                held++;
+            }
+            mockMvc.perform(export())
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists("Retry-After"));
+        } finally {
+            for (int i = 0; i < held; i++) {
+                exporter.release();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("[Streaming Audit Log Export] AC.5: Only auditors and admins can export")
+    // * AC.5: Exports require an AUDITOR or ADMIN token, 401 without a valid token and 403 for other roles, before streaming starts.
+    void whenNotAuditor_thenExportRefusedBeforeStreaming() throws Exception {
+        mockMvc.perform(get(EXPORT_ENDPOINT))
+                .andExpect(status().isUnauthorized())
+                .andExpect(request().asyncNotStarted());
+        mockMvc.perform(get(EXPORT_ENDPOINT).header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(request().asyncNotStarted());
+        mockMvc.perform(get(EXPORT_ENDPOINT).header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.NORMAL_USER)))
+                .andExpect(status().isForbidden())
+                .andExpect(request().asyncNotStarted());
+
+        MvcResult result = stream(get(EXPORT_ENDPOINT).header(HttpHeaders.AUTHORIZATION,
+                bearer(jwtUtil, UserRole.ADMIN)));
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")).hasSize(5);
+    }
+
+    private MockHttpServletRequestBuilder export() {
+        return get(EXPORT_ENDPOINT).header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.AUDITOR));
+    }
+
+    private MvcResult stream(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
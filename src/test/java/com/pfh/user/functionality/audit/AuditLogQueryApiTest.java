@@ -0,0 +1,204 @@
+/*
+ *  [USER-STORY] Audit Log Query API
+ *      **As a** compliance or fraud analyst
+ *      **I want** to query audit history by email, IP, event type and time range
+ *      **So that** I can investigate an account without direct database access
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** GET /api/audit-logs filters by email, ip, eventType, from and to.
+ *          * **AC.2:** Results are paged with an opaque cursor; following it returns the next page without repeats.
+ *          * **AC.3:** An invalid cursor or page size returns 400 Bad Request.
+ *          * **AC.4:** Filtered queries are served by index-only scans on covering indexes.
+ *          * **AC.5:** The API requires an AUDITOR or ADMIN token, 401 without a valid token and 403 for other roles.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditLogBatchInserter;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.JwtUtil;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.pfh.user.functionality.abstraction.AccessTokens.bearer;
+import static com.pfh.user.functionality.abstraction.AuditEvents.event;
+import static com.pfh.user.functionality.abstraction.AuditEvents.sealed;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuditLogQueryApiTest extends AbstractIntegrationTest {
+
+    private static final String AUDIT_ENDPOINT = "/api/audit-logs";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private AuditLogBatchInserter inserter;
+
+    @Autowired
+    private AuditIntegrity auditIntegrity;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        auditJdbcTemplate.execute("TRUNCATE audit_logs, audit_integrity_blocks, audit_verification_checkpoints");
+
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MICROS).minus(1, ChronoUnit.HOURS);
+        List<AuditLogEntity> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entries.add(sealed(auditIntegrity, event("analyst.target@example.com", "10.0.0.1",
+                    AuditEventType.LOGIN_FAILURE, base.plusSeconds(i))));
+        }
+        entries.add(sealed(auditIntegrity, event("analyst.target@example.com", "10.0.0.2",
+                AuditEventType.LOGIN_SUCCESS, base.plusSeconds(10))));
+        entries.add(sealed(auditIntegrity, event("someone.else@example.com", "10.0.0.1",
+                AuditEventType.LOGIN_FAILURE, base.plusSeconds(20))));
+        inserter.insert(entries);
+    }
+
+    @Test
+    @DisplayName("[Audit Log Query API] AC.1: Filters narrow the result")
+    // * AC.1: GET /api/audit-logs filters by email, ip, eventType, from and to.
+    void whenFiltered_thenOnlyMatchingEventsReturned() throws Exception {
+        mockMvc.perform(query()
+                .param("email", "analyst.target@example.com")
+                .param("eventType", "LOGIN_FAILURE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(5)))
+                .andExpect(jsonPath("$.items[*].email", everyItem(is("analyst.target@example.com"))))
+                .andExpect(jsonPath("$.items[*].eventType", everyItem(is("LOGIN_FAILURE"))))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(query().param("ip", "10.0.0.1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(6)));
+    }
+
+    @Test
+    @DisplayName("[Audit Log Query API] AC.2: Cursor pages through results without repeats")
+    // * AC.2: Results are paged with an opaque cursor; following it returns the next page without repeats.
+    void whenFollowingCursor_thenEveryEventSeenOnce() throws Exception {
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = query().param("email", "analyst.target@example.com").param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            page.get("items").forEach(item -> assertThat(seen.add(item.get("eventId").asText())).isTrue());
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(6);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("[Audit Log Query API] AC.3: Invalid cursor or limit returns 400")
+    // * AC.3: An invalid cursor or page size returns 400 Bad Request.
+    void whenCursorOrLimitInvalid_thenBadRequest() throws Exception {
+        mockMvc.perform(query().param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("cursor"));
+
+        mockMvc.perform(query().param("limit", "100000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("limit"));
+    }
+
+    @Test
+    @DisplayName("[Audit Log Query API] AC.4: Email queries are index-only scans")
+    // * AC.4: Filtered queries are served by index-only scans on covering indexes.
+    void whenQueryByEmail_thenIndexOnlyScan() {
+        String plan = auditJdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                // The test table is tiny, keep the planner from preferring a sequential scan
+                statement.execute("SET enable_seqscan = off");
+                StringBuilder lines = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery("EXPLAIN SELECT event_id, timestamp, event_type, email, "
+                        + "ip_address, failure_reason FROM audit_logs WHERE email = 'analyst.target@example.com' "
+                        + "ORDER BY timestamp, event_id LIMIT 101")) {
+                    while (rs.next()) {
+                        lines.append(rs.getString(1)).append('\n');
+                    }
+                }
+                statement.execute("RESET enable_seqscan");
+                return lines.toString();
+            }
+        });
+
+        assertThat(plan).contains("Index Only Scan");
+    }
+
+    @Test
+    @DisplayName("[Audit Log Query API] AC.5: Only auditors and admins can query")
+    // * AC.5: The API requires an AUDITOR or ADMIN token, 401 without a valid token and 403 for other roles.
+    void whenNotAuditor_thenQueryRefused() throws Exception {
+        mockMvc.perform(get(AUDIT_ENDPOINT).param("email", "analyst.target@example.com"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(AUDIT_ENDPOINT).param("email", "analyst.target@example.com")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(AUDIT_ENDPOINT).param("email", "analyst.target@example.com")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.NORMAL_USER)))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get(AUDIT_ENDPOINT).param("email", "analyst.target@example.com")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(6)));
+    }
+
+    private MockHttpServletRequestBuilder query() {
+        return get(AUDIT_ENDPOINT).header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.AUDITOR));
+    }
+}
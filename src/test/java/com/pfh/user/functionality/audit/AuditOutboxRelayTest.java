@@ -0,0 +1,209 @@
+/*
+ *  [USER-STORY] Audit Event Outbox
+ *      **As a** fraud or notification service owner
+ *      **I want** login, failure and lockout events pushed to me as they are stored
+ *      **So that** I do not have to poll audit_logs
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** Every stored audit event is written to audit_outbox in the same transaction, exactly once.
+ *          * **AC.2:** The relay delivers new events to the sinks in order per user, woken by NOTIFY rather than polling.
+ *          * **AC.3:** A batch a sink fails to take is delivered again; other sinks are not held back.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditLogBatchInserter;
+import com.pfh.user.audit.outbox.AuditOutboxMessage;
+import com.pfh.user.audit.outbox.AuditOutboxSink;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.TimeOrderedIds;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.pfh.user.functionality.abstraction.AuditEvents.event;
+import static com.pfh.user.functionality.abstraction.AuditEvents.sealed;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The fallback poll is far longer than the await, so only a NOTIFY can deliver in time
+@SpringBootTest(properties = {
+        "audit.outbox.enabled=true",
+        "audit.outbox.file-sink-enabled=true",
+        "audit.outbox.file-sink-path=target/audit-outbox-test/events.ndjson",
+        "audit.outbox.poll-interval-ms=20000",
+        "audit.outbox.retry-backoff-ms=100"
+})
+class AuditOutboxRelayTest extends AbstractIntegrationTest {
+
+    private static final Path SINK_FILE = Path.of("target/audit-outbox-test/events.ndjson");
+
+    @TestConfiguration
+    static class FlakySinkConfig {
+        @Bean
+        FlakySink flakySink() {
+            return new FlakySink();
+        }
+    }
+
+    // Rejects the batches it is told to, records every attempt
+    static class FlakySink implements AuditOutboxSink {
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        final List<UUID> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String name() {
+            return "flaky";
+        }
+
+        @Override
+        public void deliver(List<AuditOutboxMessage> messages) throws IOException {
+            messages.forEach(message -> received.add(message.eventId()));
+            if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IOException("rejected");
+            }
+        }
+    }
+
+    @Autowired
+    private AuditLogBatchInserter inserter;
+
+    @Autowired
+    private AuditIntegrity auditIntegrity;
+
+    @Autowired
+    private FlakySink flakySink;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    private long clock = System.currentTimeMillis();
+
+    @BeforeEach
+    void setUp() {
+        flakySink.failuresLeft.set(0);
+        flakySink.received.clear();
+    }
+
+    @Test
+    @DisplayName("[Audit Event Outbox] AC.1: Stored events are published exactly once")
+    // * AC.1: Every stored audit event is written to audit_outbox in the same transaction, exactly once.
+    void whenEventsStoredTwice_thenPublishedOnce() {
+        List<AuditLogEntity> entries = List.of(
+                next("outbox-once@example.com", AuditEventType.LOGIN_SUCCESS),
+                next("outbox-once@example.com", AuditEventType.LOGIN_FAILURE));
+        inserter.insert(entries);
+        // A re-sent batch is left out of the block, and so out of the outbox
+        inserter.insert(entries);
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            for (AuditLogEntity entry : entries) {
+                assertEquals(1, flakySink.received.stream().filter(entry.getEventId()::equals).count());
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("[Audit Event Outbox] AC.2: Events reach the sinks in order per user without polling")
+    // * AC.2: The relay delivers new events to the sinks in order per user, woken by NOTIFY rather than polling.
+    void whenEventsStored_thenDeliveredInOrderPerUser() throws Exception {
+        List<AuditLogEntity> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entries.add(next("outbox-a@example.com", AuditEventType.LOGIN_FAILURE));
+            entries.add(next("outbox-b@example.com", AuditEventType.LOGIN_FAILURE));
+        }
+        entries.add(next("outbox-a@example.com", AuditEventType.ACCOUNT_LOCKOUT));
+        inserter.insert(entries.subList(0, 6));
+        inserter.insert(entries.subList(6, entries.size()));
+
+        Set<UUID> ids = entries.stream().map(AuditLogEntity::getEventId).collect(Collectors.toSet());
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertEquals(ids.size(), delivered(ids).values().stream().mapToInt(List::size).sum()));
+
+        Map<String, List<UUID>> expected = new HashMap<>();
+        for (AuditLogEntity entry : entries) {
+            expected.computeIfAbsent(entry.getEmail(), email -> new ArrayList<>()).add(entry.getEventId());
+        }
+        assertEquals(expected, delivered(ids));
+    }
+
+    @Test
+    @DisplayName("[Audit Event Outbox] AC.3: A failed batch is redelivered, other sinks keep going")
+    // * AC.3: A batch a sink fails to take is delivered again; other sinks are not held back.
+    void whenSinkFails_thenBatchRedelivered() {
+        flakySink.failuresLeft.set(2);
+        AuditLogEntity entry = next("outbox-retry@example.com", AuditEventType.LOGIN_FAILURE);
+        inserter.insert(List.of(entry));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertEquals(1, delivered(Set.of(entry.getEventId())).size()));
+
+        // Two rejections and the accepted attempt, nothing after the offset moved past it
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertEquals(3, flakySink.received.stream().filter(entry.getEventId()::equals).count());
+            Long offset = auditJdbcTemplate.queryForObject(
+                    "SELECT delivered_through FROM audit_outbox_offsets WHERE sink = 'flaky'", Long.class);
+            Long fileOffset = auditJdbcTemplate.queryForObject(
+                    "SELECT delivered_through FROM audit_outbox_offsets WHERE sink = 'file'", Long.class);
+            assertEquals(fileOffset, offset);
+        });
+    }
+
+    // Event ids from the sink file, grouped by email in file order
+    private Map<String, List<UUID>> delivered(Set<UUID> ids) throws IOException {
+        Map<String, List<UUID>> byEmail = new HashMap<>();
+        if (!Files.exists(SINK_FILE)) {
+            return byEmail;
+        }
+        for (String line : Files.readAllLines(SINK_FILE)) {
+            JsonNode event = objectMapper.readTree(line);
+            UUID eventId = UUID.fromString(event.get("eventId").asText());
+            if (ids.contains(eventId)) {
+                byEmail.computeIfAbsent(event.get("email").asText(), email -> new ArrayList<>()).add(eventId);
+            }
+        }
+        return byEmail;
+    }
+
+    private AuditLogEntity next(String email, AuditEventType type) {
+        // One millisecond apart, ids in the same millisecond would not sort in creation order
+        long millis = clock++;
+        return sealed(auditIntegrity, event(email, "10.1.0.1", type, Instant.ofEpochMilli(millis))
+                .eventId(TimeOrderedIds.next(millis))
+                .failureReason(type == AuditEventType.LOGIN_FAILURE
+                        ? AuditFailureReason.INVALID_CREDENTIALS.getValue() : null));
+    }
+}
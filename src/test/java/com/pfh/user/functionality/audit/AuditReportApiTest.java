@@ -0,0 +1,184 @@
+/*
+ *  [USER-STORY] Compliance Reports from Audit Rollups
+ *      **As a** compliance officer
+ *      **I want** daily login, failure and lockout counts and the top failing source IPs
+ *      **So that** I can produce regulatory reports without scanning the raw audit trail
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** GET /api/audit-reports/daily returns successes, failures by reason and lockouts per day.
+ *          * **AC.2:** GET /api/audit-reports/failures-by-ip ranks source IPs by login failures.
+ *          * **AC.3:** Reports are served from the rollup tables, not from audit_logs.
+ *          * **AC.4:** A range that is reversed or longer than a year returns 400 Bad Request.
+ *          * **AC.5:** Reports require an AUDITOR or ADMIN token, 401 without a valid token and 403 for other roles.
+ *
+ */
+package com.pfh.user.functionality.audit;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditLogBatchInserter;
+import com.pfh.user.audit.rollup.AuditRollups;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.JwtUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.pfh.user.functionality.abstraction.AccessTokens.bearer;
+import static com.pfh.user.functionality.abstraction.AuditEvents.event;
+import static com.pfh.user.functionality.abstraction.AuditEvents.sealed;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuditReportApiTest extends AbstractIntegrationTest {
+
+    private static final String REPORT_ENDPOINT = "/api/audit-reports";
+
+    // Far from "now", so events other tests insert never land in the reported days
+    private static final Instant DAY_ONE = Instant.parse("2021-03-01T10:00:00Z");
+    private static final Instant DAY_TWO = Instant.parse("2021-03-02T10:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private AuditLogBatchInserter inserter;
+
+    @Autowired
+    private AuditIntegrity auditIntegrity;
+
+    @Autowired
+    private AuditRollups auditRollups;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        auditRollups.flush();
+        auditJdbcTemplate.execute("TRUNCATE audit_logs, audit_integrity_blocks, audit_verification_checkpoints, "
+                + "audit_event_rollups, audit_ip_failure_rollups");
+
+        List<AuditLogEntity> entries = new ArrayList<>();
+        entries.add(row(AuditEventType.LOGIN_SUCCESS, null, "10.0.0.1", DAY_ONE));
+        entries.add(row(AuditEventType.LOGIN_SUCCESS, null, "10.0.0.1", DAY_ONE.plusSeconds(1)));
+        for (int i = 0; i < 3; i++) {
+            entries.add(row(AuditEventType.LOGIN_FAILURE, AuditFailureReason.INVALID_CREDENTIALS, "10.0.0.9",
+                    DAY_ONE.plusSeconds(10 + i)));
+        }
+        entries.add(row(AuditEventType.LOGIN_FAILURE, AuditFailureReason.USER_NOT_FOUND, "10.0.0.5",
+                DAY_TWO));
+        entries.add(row(AuditEventType.LOGIN_FAILURE, AuditFailureReason.INVALID_CREDENTIALS, "10.0.0.9",
+                DAY_TWO.plusSeconds(1)));
+        entries.add(row(AuditEventType.ACCOUNT_LOCKOUT, null, null, DAY_TWO.plusSeconds(2)));
+        inserter.insert(entries);
+        auditRollups.flush();
+    }
+
+    @Test
+    @DisplayName("[Compliance Reports from Audit Rollups] AC.1: Daily summary counts per day")
+    // * AC.1: GET /api/audit-reports/daily returns successes, failures by reason and lockouts per day.
+    void whenDailySummary_thenCountsPerDay() throws Exception {
+        mockMvc.perform(report("/daily").param("from", "2021-03-01").param("to", "2021-03-03"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].date").value("2021-03-01"))
+                .andExpect(jsonPath("$[0].loginSuccesses").value(2))
+                .andExpect(jsonPath("$[0].loginFailures").value(3))
+                .andExpect(jsonPath("$[0].failuresByReason.invalid_credentials").value(3))
+                .andExpect(jsonPath("$[1].loginFailures").value(2))
+                .andExpect(jsonPath("$[1].failuresByReason.user_not_found").value(1))
+                .andExpect(jsonPath("$[1].lockouts").value(1))
+                .andExpect(jsonPath("$[2].loginFailures").value(0));
+    }
+
+    @Test
+    @DisplayName("[Compliance Reports from Audit Rollups] AC.2: Source IPs ranked by failures")
+    // * AC.2: GET /api/audit-reports/failures-by-ip ranks source IPs by login failures.
+    void whenFailuresByIp_thenRankedDescending() throws Exception {
+        mockMvc.perform(report("/failures-by-ip").param("from", "2021-03-01").param("to", "2021-03-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].ipAddress").value("10.0.0.9"))
+                .andExpect(jsonPath("$[0].failures").value(4))
+                .andExpect(jsonPath("$[1].ipAddress").value("10.0.0.5"))
+                .andExpect(jsonPath("$[1].failures").value(1));
+    }
+
+    @Test
+    @DisplayName("[Compliance Reports from Audit Rollups] AC.3: Reports do not read audit_logs")
+    // * AC.3: Reports are served from the rollup tables, not from audit_logs.
+    void whenRawRowsGone_thenReportsUnchanged() throws Exception {
+        auditJdbcTemplate.execute("TRUNCATE audit_logs");
+
+        mockMvc.perform(report("/daily").param("from", "2021-03-01").param("to", "2021-03-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].loginSuccesses").value(2))
+                .andExpect(jsonPath("$[0].loginFailures").value(3));
+    }
+
+    @Test
+    @DisplayName("[Compliance Reports from Audit Rollups] AC.4: Invalid ranges return 400")
+    // * AC.4: A range that is reversed or longer than a year returns 400 Bad Request.
+    void whenRangeInvalid_thenBadRequest() throws Exception {
+        mockMvc.perform(report("/daily").param("from", "2021-03-02").param("to", "2021-03-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("from"));
+
+        mockMvc.perform(report("/daily").param("from", "2020-01-01").param("to", "2021-03-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("to"));
+    }
+
+    @Test
+    @DisplayName("[Compliance Reports from Audit Rollups] AC.5: Only auditors and admins can read reports")
+    // * AC.5: Reports require an AUDITOR or ADMIN token, 401 without a valid token and 403 for other roles.
+    void whenNotAuditor_thenReportsRefused() throws Exception {
+        for (String report : List.of("/daily", "/failures-by-ip")) {
+            mockMvc.perform(get(REPORT_ENDPOINT + report).param("from", "2021-03-01").param("to", "2021-03-02"))
+                    .andExpect(status().isUnauthorized());
+            mockMvc.perform(get(REPORT_ENDPOINT + report).param("from", "2021-03-01").param("to", "2021-03-02")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                    .andExpect(status().isUnauthorized());
+            mockMvc.perform(get(REPORT_ENDPOINT + report).param("from", "2021-03-01").param("to", "2021-03-02")
+                            .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.NORMAL_USER)))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(get(REPORT_ENDPOINT + report).param("from", "2021-03-01").param("to", "2021-03-02")
+                            .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private MockHttpServletRequestBuilder report(String path) {
+        return get(REPORT_ENDPOINT + path).header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.AUDITOR));
+    }
+
+    private AuditLogEntity row(AuditEventType type, AuditFailureReason reason, String ip, Instant timestamp) {
+        return sealed(auditIntegrity, event("report@example.com", ip, type, timestamp)
+                .failureReason(reason != null ? reason.getValue() : null));
+    }
+}
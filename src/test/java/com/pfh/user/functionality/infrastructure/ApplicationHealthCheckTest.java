@@ -12,6 +12,7 @@
  *          * **AC.4:** If DB is connected, it should provide information like { "connectionStatus": "connected", "dbHostSource": "<CONNECTED_DATABASE_HOST>" }`.
  *          * **AC.5:** Returns HTTP 503 when service is unhealthy.
  *          * **AC.6:** If DB is not connected, it should provide information like { "connectionStatus": "disconnected", "dbHostSource": "<CONNECTED_DATABASE_HOST>" }`.
+ *          * **AC.7:** /actuator/health/liveness stays UP while the DB is down, /actuator/health/readiness goes DOWN.
  *
  */
 package com.pfh.user.functionality.infrastructure;
@@ -27,6 +28,9 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
 
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -75,15 +79,38 @@ class ApplicationHealthCheckTest extends AbstractIntegrationTest {
         pauseContainer();
 
         try {
-            mockMvc.perform(get("/actuator/health")
-                    .accept(MediaType.APPLICATION_JSON))
-                    .andExpect(status().isServiceUnavailable())
-                    .andExpect(jsonPath("$.status").value("DOWN"))
-                    .andExpect(jsonPath("$.components.db.details.connectionStatus").value("disconnected"))
-                    .andExpect(jsonPath("$.components.db.details.dbHostSource").value(dbHostSource));
+            // Health is served from a background snapshot, so the outage shows up within a few seconds
+            await().atMost(Duration.ofSeconds(15)).untilAsserted(() ->
+                mockMvc.perform(get("/actuator/health")
+                        .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isServiceUnavailable())
+                        .andExpect(jsonPath("$.status").value("DOWN"))
+                        .andExpect(jsonPath("$.components.db.details.connectionStatus").value("disconnected"))
+                        .andExpect(jsonPath("$.components.db.details.dbHostSource").value(dbHostSource)));
         } finally {
             // Unpause so other tests don’t fail
             unpauseContainer();
         }
     }
+
+    @Test
+    @DisplayName("[Application Health Check] AC.7: Liveness stays UP and readiness goes DOWN when DB disconnected")
+    // * AC.7: /actuator/health/liveness stays UP while the DB is down, /actuator/health/readiness goes DOWN.
+    void whenDbDisconnected_thenLiveButNotReady() throws Exception {
+        pauseContainer();
+
+        try {
+            await().atMost(Duration.ofSeconds(15)).untilAsserted(() ->
+                mockMvc.perform(get("/actuator/health/readiness")
+                        .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isServiceUnavailable()));
+
+            mockMvc.perform(get("/actuator/health/liveness")
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("UP"));
+        } finally {
+            unpauseContainer();
+        }
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ *  [USER-STORY] Audit Log Integrity Verification
+ *      **As a** compliance officer
+ *      **I want** the audit trail sealed into keyed, chained blocks
+ *      **So that** any edited, deleted or inserted row can be proven
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** Every insert batch is sealed into a block whose Merkle root covers its rows and whose hash chains to the previous block.
+ *          * **AC.2:** Verification of an untouched chain reports no failures.
+ *          * **AC.3:** A row changed after sealing is reported with its block number.
+ *          * **AC.4:** Verification resumes after the last checkpointed block.
+ *          * **AC.5:** /actuator/auditintegrity requires an ADMIN token, 401 without a valid token and 403 for other roles.
+ *
+ */
+package com.pfh.user.functionality.infrastructure;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditIntegrityVerifier;
+import com.pfh.user.audit.AuditLogBatchInserter;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.JwtUtil;
+import com.pfh.user.util.TimeOrderedIds;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.pfh.user.functionality.abstraction.AccessTokens.bearer;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "audit.integrity.verify-chunk-blocks=1")
+@AutoConfigureMockMvc
+class AuditIntegrityVerificationTest extends AbstractIntegrationTest {
+
+    private static final String INTEGRITY_ENDPOINT = "/actuator/auditintegrity";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private AuditLogBatchInserter inserter;
+
+    @Autowired
+    private AuditIntegrity auditIntegrity;
+
+    @Autowired
+    private AuditIntegrityVerifier verifier;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @BeforeEach
+    void clearAuditTables() {
+        auditJdbcTemplate.execute("TRUNCATE audit_logs, audit_integrity_blocks, audit_verification_checkpoints");
+    }
+
+    @Test
+    @DisplayName("[Audit Log Integrity Verification] AC.1 + AC.2: Sealed batches verify cleanly")
+    // * AC.1: Every insert batch is sealed into a block whose Merkle root covers its rows and whose hash chains to the previous block.
+    // * AC.2: Verification of an untouched chain reports no failures.
+    void whenChainUntouched_thenNoFailures() {
+        inserter.insert(batch(3));
+        inserter.insert(batch(4));
+
+        assertEquals(2, auditJdbcTemplate.queryForObject("SELECT count(*) FROM audit_integrity_blocks", Integer.class));
+
+        AuditIntegrityVerifier.Report report = verifier.verify(true);
+        assertEquals(2, report.verifiedThroughBlock());
+        assertEquals(7, report.rowsVerified());
+        assertTrue(report.failures().isEmpty());
+    }
+
+    @Test
+    @DisplayName("[Audit Log Integrity Verification] AC.3: A tampered row is reported")
+    // * AC.3: A row changed after sealing is reported with its block number.
+    void whenRowEdited_thenBlockReported() {
+        inserter.insert(batch(3));
+        inserter.insert(batch(3));
+
+        auditJdbcTemplate.update("UPDATE audit_logs SET failure_reason = " + AuditFailureReason.USER_NOT_FOUND.getCode()
+                + " WHERE id = "
+                + "(SELECT min(id) FROM audit_logs WHERE block_number = 2)");
+
+        AuditIntegrityVerifier.Report report = verifier.verify(true);
+        assertFalse(report.failures().isEmpty());
+        assertTrue(report.failures().stream().allMatch(failure -> failure.blockNumber() == 2));
+    }
+
+    @Test
+    @DisplayName("[Audit Log Integrity Verification] AC.4: Verification resumes from the checkpoint")
+    // * AC.4: Verification resumes after the last checkpointed block.
+    void whenCheckpointExists_thenOnlyNewBlocksVerified() {
+        inserter.insert(batch(2));
+        verifier.verify(true);
+
+        inserter.insert(batch(5));
+        AuditIntegrityVerifier.Report report = verifier.verify(false);
+
+        assertEquals(2, report.fromBlock());
+        assertEquals(5, report.rowsVerified());
+        assertTrue(report.failures().isEmpty());
+    }
+
+    @Test
+    @DisplayName("[Audit Log Integrity Verification] AC.5: Only admins can start a verification")
+    // * AC.5: /actuator/auditintegrity requires an ADMIN token, 401 without a valid token and 403 for other roles.
+    void whenNotAdmin_thenVerificationRefused() throws Exception {
+        inserter.insert(batch(2));
+
+        mockMvc.perform(post(INTEGRITY_ENDPOINT).param("restart", "true"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(INTEGRITY_ENDPOINT).param("restart", "true")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(INTEGRITY_ENDPOINT).param("restart", "true")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.NORMAL_USER)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get(INTEGRITY_ENDPOINT))
+                .andExpect(status().isUnauthorized());
+        assertFalse(verifier.isRunning());
+
+        mockMvc.perform(post(INTEGRITY_ENDPOINT).param("restart", "true")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.started").value(true));
+        await().atMost(Duration.ofSeconds(20)).until(() -> !verifier.isRunning());
+        mockMvc.perform(get(INTEGRITY_ENDPOINT).header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastReport.failures").isEmpty());
+    }
+
+    private List<AuditLogEntity> batch(int size) {
+        List<AuditLogEntity> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            AuditLogEntity entry = AuditLogEntity.builder()
+                    .eventId(TimeOrderedIds.next())
+                    .email("user" + i + "@example.com")
+                    .ipAddress("10.0.0." + i)
+                    .timestamp(Instant.now().truncatedTo(ChronoUnit.MICROS))
+                    .eventType("LOGIN_FAILURE")
+                    .failureReason(AuditFailureReason.INVALID_CREDENTIALS.getValue())
+                    .build();
+            entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  [USER-STORY] Time-partitioned Audit Log
+ *      **As a** database administrator
+ *      **I want** audit_logs split into monthly partitions with automatic lifecycle
+ *      **So that** time-range queries stay fast and retention never bloats the table
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** Partitions for the current month and the configured months ahead exist after start-up.
+ *          * **AC.2:** A query bounded to one month only scans that month's partition.
+ *          * **AC.3:** Partitions past retention are detached from audit_logs instead of deleted row by row.
+ *
+ */
+package com.pfh.user.functionality.infrastructure;
+
+import com.pfh.user.audit.AuditPartitionManager;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+@SpringBootTest(properties = {
+        "audit.partitions.months-ahead=3",
+        "audit.partitions.retention-months=24",
+        "audit.partitions.retention-action=DETACH",
+        "audit.archive.enabled=false"
+})
+class AuditLogPartitioningTest extends AbstractIntegrationTest {
+
+    private static final YearMonth EXPIRED_MONTH = YearMonth.of(2020, 1);
+
+    @Autowired
+    private AuditPartitionManager partitionManager;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @AfterEach
+    void dropExpiredPartition() {
+        auditJdbcTemplate.execute("DROP TABLE IF EXISTS " + AuditPartitionManager.partitionName(EXPIRED_MONTH));
+    }
+
+    @Test
+    @DisplayName("[Time-partitioned Audit Log] AC.1: Current and upcoming monthly partitions exist")
+    // * AC.1: Partitions for the current month and the configured months ahead exist after start-up.
+    void whenStarted_thenPartitionsCreatedAhead() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+        assertThat(attachedPartitions(), hasItems(
+                AuditPartitionManager.partitionName(current),
+                AuditPartitionManager.partitionName(current.plusMonths(3)),
+                "audit_logs_default"));
+    }
+
+    @Test
+    @DisplayName("[Time-partitioned Audit Log] AC.2: A one-month query is pruned to that partition")
+    // * AC.2: A query bounded to one month only scans that month's partition.
+    void whenQueryBoundedToMonth_thenOtherPartitionsPruned() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+
+        String plan = String.join("\n", auditJdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM audit_logs WHERE timestamp >= '" + month.atDay(1) + " 00:00:00+00' "
+                        + "AND timestamp < '" + month.plusMonths(1).atDay(1) + " 00:00:00+00'",
+                String.class));
+
+        assertThat(plan, containsString(AuditPartitionManager.partitionName(month)));
+        assertThat(plan, not(containsString(AuditPartitionManager.partitionName(month.plusMonths(1)))));
+        assertThat(plan, not(containsString(AuditPartitionManager.partitionName(month.minusMonths(1)))));
+        assertThat(plan, not(containsString("audit_logs_default")));
+    }
+
+    @Test
+    @DisplayName("[Time-partitioned Audit Log] AC.3: Expired partitions are detached")
+    // * AC.3: Partitions past retention are detached from audit_logs instead of deleted row by row.
+    void whenPartitionPastRetention_thenDetached() {
+        partitionManager.createPartition(EXPIRED_MONTH);
+        String expired = AuditPartitionManager.partitionName(EXPIRED_MONTH);
+        assertThat(attachedPartitions(), hasItem(expired));
+
+        List<String> handled = partitionManager.enforceRetention(Instant.now());
+
+        assertThat(handled, hasItem(expired));
+        assertThat(attachedPartitions(), not(hasItem(expired)));
+        assertThat(auditJdbcTemplate.queryForObject("SELECT to_regclass('" + expired + "')::text", String.class),
+                notNullValue());
+    }
+
+    private List<String> attachedPartitions() {
+        return auditJdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'audit_logs'::regclass
+                """, String.class);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *  [USER-STORY] Audit Connection Pool Isolation
+ *      **As a** site reliability engineer
+ *      **I want** audit persistence on a connection pool of its own, with its own health and metrics
+ *      **So that** a backlog of audit writes during an attack cannot slow down or block logins
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** With every audit-pool connection taken, logins still succeed without waiting on the audit pool, and users-pool has no waiting threads.
+ *          * **AC.2:** /actuator/health reports the audit database as its own auditDb component.
+ *          * **AC.3:** users-pool and audit-pool publish separate Hikari metrics.
+ *
+ */
+package com.pfh.user.functionality.infrastructure;
+
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.dto.auth.RegistrationRequestDto;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "audit.datasource.hikari.maximum-pool-size=3",
+        // Long enough that a login waiting on the audit pool could not go unnoticed
+        "audit.datasource.hikari.connection-timeout=5000"
+})
+@AutoConfigureMockMvc
+class AuditPoolIsolationTest extends AbstractIntegrationTest {
+
+    private static final String REGISTRATION_ENDPOINT = "/api/auth/register";
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final String PASSWORD = "SecurePassword123!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("dataSource")
+    private DataSource usersDataSource;
+
+    @Autowired
+    @Qualifier("auditDataSource")
+    private DataSource auditDataSource;
+
+    private String email;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        email = "pool-" + UUID.randomUUID() + "@example.com";
+        RegistrationRequestDto request = RegistrationRequestDto.builder()
+                .email(email)
+                .password(PASSWORD)
+                .confirmPassword(PASSWORD)
+                .build();
+        mockMvc.perform(post(REGISTRATION_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @DisplayName("[Audit Connection Pool Isolation] AC.1: Logins do not wait on an exhausted audit pool")
+    // * AC.1: With every audit-pool connection taken, logins still succeed without waiting on the audit pool, and users-pool has no waiting threads.
+    void whenAuditPoolExhausted_thenLoginsUnaffected() throws Exception {
+        HikariDataSource auditPool = auditDataSource.unwrap(HikariDataSource.class);
+        HikariDataSource usersPool = usersDataSource.unwrap(HikariDataSource.class);
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            // Whatever a background task holds already counts towards the exhaustion
+            while (auditPool.getHikariPoolMXBean().getActiveConnections() < auditPool.getMaximumPoolSize()) {
+                try {
+                    held.add(auditDataSource.getConnection());
+                } catch (SQLException ex) {
+                    break;
+                }
+            }
+            assertThat(auditPool.getHikariPoolMXBean().getActiveConnections())
+                    .isEqualTo(auditPool.getMaximumPoolSize());
+
+            for (int i = 0; i < 5; i++) {
+                long started = System.nanoTime();
+                mockMvc.perform(post(LOGIN_URL)
+                                .header("X-Forwarded-For", "198.51.100." + (10 + i))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new LoginRequestDto(email, PASSWORD))))
+                        .andExpect(status().isOk());
+                long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+                // Waiting for an audit connection alone would take the 5 s connection timeout
+                assertThat(elapsedMs).isLessThan(2_500);
+            }
+
+            assertThat(usersPool.getHikariPoolMXBean().getThreadsAwaitingConnection()).isZero();
+            assertThat(auditPool.getHikariPoolMXBean().getActiveConnections())
+                    .isEqualTo(auditPool.getMaximumPoolSize());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("[Audit Connection Pool Isolation] AC.2: Health reports the audit database separately")
+    // * AC.2: /actuator/health reports the audit database as its own auditDb component.
+    void whenHealthRequested_thenAuditDbReported() throws Exception {
+        mockMvc.perform(get("/actuator/health").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.components.db.status").value("UP"))
+                .andExpect(jsonPath("$.components.auditDb.status").value("UP"))
+                .andExpect(jsonPath("$.components.auditDb.details.connectionStatus").value("connected"));
+    }
+
+    @Test
+    @DisplayName("[Audit Connection Pool Isolation] AC.3: Each pool publishes its own Hikari metrics")
+    // * AC.3: users-pool and audit-pool publish separate Hikari metrics.
+    void whenMetricsRequested_thenPoolsReportedSeparately() throws Exception {
+        HikariDataSource usersPool = usersDataSource.unwrap(HikariDataSource.class);
+
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.max").param("tag", "pool:audit-pool"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value(3.0));
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.max").param("tag", "pool:users-pool"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value((double) usersPool.getMaximumPoolSize()));
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.active").param("tag", "pool:audit-pool"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  [USER-STORY] Audit Pool Sized for Background Work
+ *      **As a** site reliability engineer
+ *      **I want** the audit pool sized from the exports, verifier, outbox, erasure and archiver it serves
+ *      **So that** background audit work running at once never leaves the writer without a connection
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** By default the audit pool holds every connection background work can take plus a reserve for the writer.
+ *          * **AC.2:** With all background connections taken, login events are still written to the database instead of spilling to the journal.
+ *
+ */
+package com.pfh.user.functionality.infrastructure;
+
+import com.pfh.user.config.audit.AuditArchiveProperties;
+import com.pfh.user.config.audit.AuditErasureProperties;
+import com.pfh.user.config.audit.AuditExportProperties;
+import com.pfh.user.config.audit.AuditIntegrityProperties;
+import com.pfh.user.config.audit.AuditOutboxProperties;
+import com.pfh.user.config.datasource.AuditDataSourceConfig;
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.dto.auth.RegistrationRequestDto;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuditPoolSizingTest extends AbstractIntegrationTest {
+
+    private static final String PASSWORD = "SecurePassword123!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("auditDataSource")
+    private DataSource auditDataSource;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @Autowired
+    private AuditExportProperties exportProperties;
+
+    @Autowired
+    private AuditIntegrityProperties integrityProperties;
+
+    @Autowired
+    private AuditOutboxProperties outboxProperties;
+
+    @Autowired
+    private AuditErasureProperties erasureProperties;
+
+    @Autowired
+    private AuditArchiveProperties archiveProperties;
+
+    @Test
+    @DisplayName("[Audit Pool Sized for Background Work] AC.1: The default pool covers background work and the writer")
+    // * AC.1: By default the audit pool holds every connection background work can take plus a reserve for the writer.
+    void whenNotConfigured_thenPoolSizedFromBackgroundWork() throws Exception {
+        int expected = background() + AuditDataSourceConfig.FOREGROUND_CONNECTIONS;
+
+        assertThat(auditDataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()).isEqualTo(expected);
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.max").param("tag", "pool:audit-pool"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value((double) expected));
+    }
+
+    @Test
+    @DisplayName("[Audit Pool Sized for Background Work] AC.2: The writer keeps a connection under full background load")
+    // * AC.2: With all background connections taken, login events are still written to the database instead of spilling to the journal.
+    void whenBackgroundWorkHoldsConnections_thenLoginsStillAudited() throws Exception {
+        String email = "sizing-" + UUID.randomUUID() + "@example.com";
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(RegistrationRequestDto.builder()
+                                .email(email)
+                                .password(PASSWORD)
+                                .confirmPassword(PASSWORD)
+                                .build())))
+                .andExpect(status().isCreated());
+        double spilled = meterRegistry.get("audit.pipeline.spilled").counter().count();
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < background(); i++) {
+                held.add(auditDataSource.getConnection());
+            }
+
+            mockMvc.perform(post("/api/auth/login")
+                            .header("X-Forwarded-For", "198.51.100.40")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new LoginRequestDto(email, PASSWORD))))
+                    .andExpect(status().isOk());
+
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(auditJdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM audit_logs WHERE email = ? AND event_type = ?", Integer.class,
+                    email, AuditEventType.LOGIN_SUCCESS.getCode())).isEqualTo(1));
+            assertThat(meterRegistry.get("audit.pipeline.spilled").counter().count()).isEqualTo(spilled);
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    private int background() {
+        return AuditDataSourceConfig.backgroundConnections(exportProperties, integrityProperties, outboxProperties,
+                erasureProperties, archiveProperties);
+    }
+}
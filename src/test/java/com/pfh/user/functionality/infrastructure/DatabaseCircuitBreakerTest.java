@@ -0,0 +1,167 @@
+/*
+ *  [USER-STORY] Database Circuit Breaker
+ *      **As a** site reliability engineer
+ *      **I want** requests to fail fast while the database is unreachable and recover by themselves when it returns
+ *      **So that** an outage does not pile up blocked request threads, and clients know when to retry
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** While the database is down logins return 503 with a Retry-After header, and once the circuit is open they do so without waiting on the database.
+ *          * **AC.2:** When the database is back the circuit lets a trial call through after its open duration, closes, and logins succeed again.
+ *          * **AC.3:** Business errors from the database, such as a constraint violation, reach the caller unchanged and do not open the circuit.
+ *
+ */
+package com.pfh.user.functionality.infrastructure;
+
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.dto.auth.RegistrationRequestDto;
+import com.pfh.user.entity.UserEntity;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.repository.UserRepository;
+import com.pfh.user.resilience.CircuitBreaker;
+import com.pfh.user.resilience.DatabaseGuards;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "resilience.db.failure-threshold=2",
+        "resilience.db.open-duration-ms=3000",
+        "resilience.db.half-open-trials=1"
+})
+@AutoConfigureMockMvc
+class DatabaseCircuitBreakerTest extends AbstractIntegrationTest {
+
+    private static final String REGISTRATION_ENDPOINT = "/api/auth/register";
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final String PASSWORD = "SecurePassword123!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DatabaseGuards databaseGuards;
+
+    private String email;
+    private boolean paused;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        email = "circuit-" + UUID.randomUUID() + "@example.com";
+        RegistrationRequestDto request = RegistrationRequestDto.builder()
+                .email(email)
+                .password(PASSWORD)
+                .confirmPassword(PASSWORD)
+                .build();
+        mockMvc.perform(post(REGISTRATION_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (paused) {
+            unpauseContainer();
+            paused = false;
+        }
+        // The next test starts with a closed circuit
+        await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> login().andExpect(status().isOk()));
+    }
+
+    @Test
+    @DisplayName("[Database Circuit Breaker] AC.1: Logins fail fast with 503 while the database is down")
+    // * AC.1: While the database is down logins return 503 with a Retry-After header, and once the circuit is open they do so without waiting on the database.
+    void whenDatabaseDown_thenLoginFailsFastWith503() throws Exception {
+        pauseContainer();
+        paused = true;
+
+        // Each of these waits for a connection or socket timeout
+        await().atMost(Duration.ofSeconds(60)).untilAsserted(() -> {
+            login().andExpect(status().isServiceUnavailable()).andExpect(header().exists("Retry-After"));
+            assertThat(usersCircuit()).isEqualTo(CircuitBreaker.State.OPEN);
+        });
+
+        long started = System.nanoTime();
+        MvcResult result = login()
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"))
+                .andReturn();
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(elapsedMs).isLessThan(1_000);
+        assertThat(Long.parseLong(result.getResponse().getHeader("Retry-After"))).isBetween(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("[Database Circuit Breaker] AC.2: The circuit closes through a half-open trial once the database is back")
+    // * AC.2: When the database is back the circuit lets a trial call through after its open duration, closes, and logins succeed again.
+    void whenDatabaseBack_thenCircuitRecovers() throws Exception {
+        pauseContainer();
+        paused = true;
+        await().atMost(Duration.ofSeconds(60)).untilAsserted(() -> {
+            login().andExpect(status().isServiceUnavailable());
+            assertThat(usersCircuit()).isEqualTo(CircuitBreaker.State.OPEN);
+        });
+
+        unpauseContainer();
+        paused = false;
+
+        await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> login().andExpect(status().isOk()));
+        assertThat(usersCircuit()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("[Database Circuit Breaker] AC.3: Constraint violations do not open the circuit")
+    // * AC.3: Business errors from the database, such as a constraint violation, reach the caller unchanged and do not open the circuit.
+    void whenConstraintViolated_thenCircuitStaysClosed() throws Exception {
+        // More violations than the failure threshold
+        for (int i = 0; i < 3; i++) {
+            UserEntity duplicate = UserEntity.builder().email(email).passwordHash("hash").build();
+            assertThatThrownBy(() -> userRepository.save(duplicate))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+        }
+
+        assertThat(usersCircuit()).isEqualTo(CircuitBreaker.State.CLOSED);
+        login().andExpect(status().isOk());
+    }
+
+    private ResultActions login() throws Exception {
+        // A client of its own per attempt, the retries here would exceed the per-IP login limit
+        return mockMvc.perform(post(LOGIN_URL)
+                .header("X-Forwarded-For", "198.51.100." + (1 + (int) (Math.random() * 250)))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequestDto(email, PASSWORD))));
+    }
+
+    private CircuitBreaker.State usersCircuit() {
+        return databaseGuards.users().getCircuitBreaker().getState();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  [USER-STORY] Per-query SQL Latency Statistics
+ *      **As a** performance engineer
+ *      **I want** latency and row statistics per repository method
+ *      **So that** I can tell which query is slow without reading raw SQL logs
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** /actuator/sqlstats endpoint is enabled.
+ *          * **AC.2:** Each repository method reports call count, latency percentiles and returned rows.
+ *          * **AC.3:** Slow statements are listed with their SQL and bind shape, never the bound values.
+ *          * **AC.4:** /actuator/sqlstats requires an ADMIN token, 401 without a valid token and 403 for other roles.
+ *
+ */
+package com.pfh.user.functionality.infrastructure;
+
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.repository.UserRepository;
+import com.pfh.user.util.JwtUtil;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.pfh.user.functionality.abstraction.AccessTokens.bearer;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "monitoring.sql.slow-threshold-ms=0")
+@AutoConfigureMockMvc
+class SqlStatisticsEndpointTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("[Per-query SQL Latency Statistics] AC.1 + AC.2: Repository methods are reported with latency and rows")
+    // * AC.1: /actuator/sqlstats endpoint is enabled.
+    // * AC.2: Each repository method reports call count, latency percentiles and returned rows.
+    void whenRepositoryCalled_thenMethodStatisticsReported() throws Exception {
+        userRepository.findByEmailIgnoreCase("nobody@example.com");
+
+        mockMvc.perform(get("/actuator/sqlstats")
+                .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.repositoryMethods['UserRepository.findByEmailIgnoreCase'].success.count",
+                        greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.repositoryMethods['UserRepository.findByEmailIgnoreCase'].success.p99Ms").exists())
+                .andExpect(jsonPath("$.repositoryMethods['UserRepository.findByEmailIgnoreCase'].rows.total").exists());
+    }
+
+    @Test
+    @DisplayName("[Per-query SQL Latency Statistics] AC.3: Slow statements carry SQL and bind shape only")
+    // * AC.3: Slow statements are listed with their SQL and bind shape, never the bound values.
+    void whenStatementAboveThreshold_thenCapturedWithoutValues() throws Exception {
+        userRepository.findByEmailIgnoreCase("secret.person@example.com");
+
+        mockMvc.perform(get("/actuator/sqlstats")
+                .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.slowStatements[0].sql").exists())
+                .andExpect(jsonPath("$.slowStatements[0].bindShape").isArray())
+                .andExpect(content().string(not(containsString("secret.person@example.com"))));
+    }
+
+    @Test
+    @DisplayName("[Per-query SQL Latency Statistics] AC.4: Only admins can read SQL statistics")
+    // * AC.4: /actuator/sqlstats requires an ADMIN token, 401 without a valid token and 403 for other roles.
+    void whenNotAdmin_thenStatisticsRefused() throws Exception {
+        mockMvc.perform(get("/actuator/sqlstats").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/sqlstats").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/sqlstats").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.NORMAL_USER)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/sqlstats").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.AUDITOR)))
+                .andExpect(status().isForbidden());
+    }
+}
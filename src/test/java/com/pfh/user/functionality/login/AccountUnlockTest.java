@@ -0,0 +1,171 @@
+/*
+ *  [USER-STORY] Account Unlock Notification
+ *      **As a** security officer
+ *      **I want** the end of every account lock to be audited when it happens
+ *      **So that** the audit trail shows when a locked account could be used again
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** When a registered user's lock expires an ACCOUNT_UNLOCK event is audited for the user and the account accepts logins again.
+ *          * **AC.2:** An unlock is audited once, however often the pending transitions are rebuilt.
+ *          * **AC.3:** A lock that ended while no node was running is audited once the transitions are rebuilt on start-up.
+ *
+ */
+package com.pfh.user.functionality.login;
+
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.dto.auth.RegistrationRequestDto;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.repository.UserRepository;
+import com.pfh.user.util.AccountTransitions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AccountUnlockTest extends AbstractIntegrationTest {
+
+    private static final String REGISTRATION_ENDPOINT = "/api/auth/register";
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final String PASSWORD = "SecurePassword123!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    @Autowired
+    private AccountTransitions accountTransitions;
+
+    private String email;
+    private String ip;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        // Lockouts and audit rows outlive the test, every test locks an account of its own
+        email = "unlock-" + UUID.randomUUID() + "@example.com";
+        ip = "198.51.100." + (1 + (int) (Math.random() * 250));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("[Account Unlock Notification] AC.1: An expired lock is audited and logins work again")
+    // * AC.1: When a registered user's lock expires an ACCOUNT_UNLOCK event is audited for the user and the account accepts logins again.
+    void whenLockExpires_thenUnlockAuditedAndLoginAllowed() throws Exception {
+        long userId = registerAndLock();
+        login(PASSWORD).andExpect(status().isLocked());
+
+        // The lock ends shortly instead of in 30 minutes
+        endLockAt(userId, System.currentTimeMillis() + 1_500);
+        accountTransitions.rebuild();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(unlocks(userId)).isEqualTo(1));
+        login(PASSWORD).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("[Account Unlock Notification] AC.2: An unlock is audited once")
+    // * AC.2: An unlock is audited once, however often the pending transitions are rebuilt.
+    void whenRebuiltAgain_thenUnlockNotDuplicated() throws Exception {
+        long userId = registerAndLock();
+        endLockAt(userId, System.currentTimeMillis() + 500);
+        accountTransitions.rebuild();
+        accountTransitions.rebuild();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(unlocks(userId)).isEqualTo(1));
+
+        // Already reported, a later rebuild finds nothing to schedule for the account
+        accountTransitions.rebuild();
+        Thread.sleep(2_500);
+        assertThat(unlocks(userId)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[Account Unlock Notification] AC.3: A lock that ended while down is audited on start-up")
+    // * AC.3: A lock that ended while no node was running is audited once the transitions are rebuilt on start-up.
+    void whenLockEndedWhileDown_thenUnlockAuditedOnRebuild() throws Exception {
+        long userId = registerAndLock();
+        // As if the lock had ended an hour ago while no node held it in its wheel
+        endLockAt(userId, System.currentTimeMillis() - 3_600_000);
+
+        accountTransitions.rebuild();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(unlocks(userId)).isEqualTo(1));
+    }
+
+    private long registerAndLock() throws Exception {
+        RegistrationRequestDto request = RegistrationRequestDto.builder()
+                .email(email)
+                .password(PASSWORD)
+                .confirmPassword(PASSWORD)
+                .build();
+        mockMvc.perform(post(REGISTRATION_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        for (int i = 0; i < 3; i++) {
+            login("wrongPassword").andExpect(status().isUnauthorized());
+        }
+        return userRepository.findByEmailIgnoreCase(email).orElseThrow().getId();
+    }
+
+    private ResultActions login(String password) throws Exception {
+        return mockMvc.perform(post(LOGIN_URL)
+                .header("X-Forwarded-For", ip)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequestDto(email, password))));
+    }
+
+    private void endLockAt(long userId, long lockedUntil) {
+        assertThat(jdbcTemplate.update("UPDATE account_lockouts SET locked_until = ? WHERE user_id = ?",
+                lockedUntil, userId)).isEqualTo(1);
+    }
+
+    private int unlocks(long userId) {
+        return auditJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM audit_logs WHERE user_id = ? AND event_type = ? "
+                        + "AND timestamp > now() - interval '1 minute'",
+                Integer.class, String.valueOf(userId), AuditEventType.ACCOUNT_UNLOCK.getCode());
+    }
+}
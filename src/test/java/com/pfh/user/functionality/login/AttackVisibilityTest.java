@@ -0,0 +1,180 @@
+/*
+ *  [USER-STORY] Attack Visibility Sketches
+ *      **As a** security engineer on incident duty
+ *      **I want** the top attacking IPs, most targeted emails and distinct IP counts of the last minutes at once
+ *      **So that** I can see the shape of an attack without waiting on queries over the audit log
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** /actuator/loginsketches lists the IPs with the most failed logins and the most targeted emails of the window.
+ *          * **AC.2:** The number of distinct IPs attempting to log in during the window is estimated.
+ *          * **AC.3:** Sketches returned by other nodes can be posted to a node and are merged with its own into one view.
+ *          * **AC.4:** /actuator/loginsketches requires an ADMIN token, 401 without a valid token and 403 for other roles.
+ *          * **AC.5:** A merge of more sketches than a cluster has nodes returns 400 Bad Request.
+ *
+ */
+package com.pfh.user.functionality.login;
+
+import com.pfh.user.audit.LoginSketches;
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.enums.UserRole;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.JwtUtil;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.pfh.user.functionality.abstraction.AccessTokens.bearer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AttackVisibilityTest extends AbstractIntegrationTest {
+
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final String SKETCHES_URL = "/actuator/loginsketches";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    @DisplayName("[Attack Visibility Sketches] AC.1: Top attacking IPs and targeted emails are listed")
+    // * AC.1: /actuator/loginsketches lists the IPs with the most failed logins and the most targeted emails of the window.
+    void whenLoginsFail_thenAttackerAndTargetListed() throws Exception {
+        String ip = "203.0.113." + (1 + (int) (Math.random() * 250));
+        String email = "target-" + UUID.randomUUID() + "@example.com";
+        // Stays within the per-IP rate limit, later attempts are refused by the account lockout
+        for (int i = 0; i < 9; i++) {
+            failLogin(email, ip);
+        }
+
+        mockMvc.perform(get(SKETCHES_URL).param("minutes", "2").param("top", "256")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.failures", greaterThanOrEqualTo(9)))
+                .andExpect(jsonPath("$.topFailureIps[?(@.value == '" + ip + "')].count",
+                        hasItem(greaterThanOrEqualTo(9))))
+                .andExpect(jsonPath("$.topTargetedEmails[?(@.value == '" + email + "')].count",
+                        hasItem(greaterThanOrEqualTo(9))))
+                .andExpect(jsonPath("$.sketch").isString());
+    }
+
+    @Test
+    @DisplayName("[Attack Visibility Sketches] AC.2: Distinct IPs of the window are estimated")
+    // * AC.2: The number of distinct IPs attempting to log in during the window is estimated.
+    void whenLoginsFromManyIps_thenDistinctIpsEstimated() throws Exception {
+        long before = distinctIps();
+        String network = "198.18." + (int) (Math.random() * 250) + ".";
+        for (int i = 1; i <= 12; i++) {
+            failLogin("spray-" + UUID.randomUUID() + "@example.com", network + i);
+        }
+
+        // Small counts are estimated by linear counting, close to exact
+        assertThat(distinctIps()).isBetween(before + 10, before + 14);
+    }
+
+    @Test
+    @DisplayName("[Attack Visibility Sketches] AC.3: Sketches of other nodes are merged")
+    // * AC.3: Sketches returned by other nodes can be posted to a node and are merged with its own into one view.
+    void whenOtherNodesSketchesPosted_thenMerged() throws Exception {
+        // Another node that saw a heavy attack from one IP
+        LoginSketches otherNode = new LoginSketches();
+        for (int i = 0; i < 500; i++) {
+            otherNode.record(false, "victim-" + (i % 5) + "@example.com", "192.0.2.200");
+        }
+        String sketch = LoginSketches.encode(otherNode.window(2));
+
+        String body = objectMapper.writeValueAsString(Map.of("sketches", List.of(sketch), "minutes", 2, "top", 5));
+        mockMvc.perform(merge(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.attempts", greaterThanOrEqualTo(500)))
+                .andExpect(jsonPath("$.topFailureIps[0].value").value("192.0.2.200"))
+                .andExpect(jsonPath("$.topFailureIps[0].guaranteed", greaterThanOrEqualTo(500)))
+                .andExpect(jsonPath("$.topTargetedEmails.length()").value(5));
+
+        String invalid = objectMapper.writeValueAsString(Map.of("sketches", List.of("bm90IGEgc2tldGNo")));
+        mockMvc.perform(merge(invalid))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("[Attack Visibility Sketches] AC.4: Only admins can read or merge sketches")
+    // * AC.4: /actuator/loginsketches requires an ADMIN token, 401 without a valid token and 403 for other roles.
+    void whenNotAdmin_thenSketchesRefused() throws Exception {
+        String sketch = LoginSketches.encode(new LoginSketches().window(2));
+        String body = objectMapper.writeValueAsString(Map.of("sketches", List.of(sketch)));
+
+        mockMvc.perform(get(SKETCHES_URL))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(SKETCHES_URL).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(SKETCHES_URL).header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(SKETCHES_URL).header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.NORMAL_USER)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post(SKETCHES_URL).contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.AUDITOR)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("[Attack Visibility Sketches] AC.5: Merging too many sketches returns 400")
+    // * AC.5: A merge of more sketches than a cluster has nodes returns 400 Bad Request.
+    void whenTooManySketchesPosted_thenBadRequest() throws Exception {
+        String sketch = LoginSketches.encode(new LoginSketches().window(2));
+        String body = objectMapper.writeValueAsString(Map.of("sketches",
+                Collections.nCopies(AppConstant.LOGIN_SKETCH_MAX_MERGED + 1, sketch)));
+
+        mockMvc.perform(merge(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletRequestBuilder merge(String body) {
+        return post(SKETCHES_URL).contentType(MediaType.APPLICATION_JSON).content(body)
+                .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN));
+    }
+
+    private void failLogin(String email, String ip) throws Exception {
+        mockMvc.perform(post(LOGIN_URL)
+                .header("X-Forwarded-For", ip)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequestDto(email, "wrongPassword"))));
+    }
+
+    private long distinctIps() throws Exception {
+        String response = mockMvc.perform(get(SKETCHES_URL).param("minutes", "60")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtUtil, UserRole.ADMIN))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode json = objectMapper.readTree(response);
+        return json.get("distinctIps").asLong();
+    }
+}
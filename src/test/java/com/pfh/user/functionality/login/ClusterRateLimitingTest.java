@@ -0,0 +1,250 @@
+/*
+ *  [USER-STORY] Cluster-Wide Login Rate Limiting
+ *      **As a** security officer
+ *      **I want** the per-IP login limit to hold across all replicas of the service
+ *      **So that** an attacker cannot multiply the limit by spreading attempts over nodes
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** Attempts hammered on several nodes at once are held to the shared capacity within tolerance, and further attempts wait for the debt to refill.
+ *          * **AC.2:** A node that cannot reach the shared counters keeps limiting on its own view and loses no hits.
+ *          * **AC.3:** Buckets that have refilled completely are removed from the shared table.
+ *          * **AC.4:** With rate-limit.cluster.enabled a login is refused with 429 once other nodes have drained the bucket of its IP.
+ *          * **AC.5:** A refused attempt is told to retry once the bucket has refilled a token, not after a whole window.
+ *
+ */
+package com.pfh.user.functionality.login;
+
+import com.pfh.user.config.AppConstant;
+import com.pfh.user.config.security.ClusterRateLimitProperties;
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.enums.RateLimitDecision;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.util.ClusterRateLimiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Short sync interval so the node under test learns about the other nodes' hits quickly
+@SpringBootTest(properties = {"rate-limit.cluster.enabled=true", "rate-limit.cluster.sync-interval-ms=50"})
+@AutoConfigureMockMvc
+class ClusterRateLimitingTest extends AbstractIntegrationTest {
+
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final int NODES = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String name;
+
+    @BeforeEach
+    void setUp() {
+        // Every test gets its own buckets in the shared table
+        name = "test-" + UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("[Cluster-Wide Login Rate Limiting] AC.1: Concurrent nodes hold the shared capacity")
+    // * AC.1: Attempts hammered on several nodes at once are held to the shared capacity within tolerance, and further attempts wait for the debt to refill.
+    void whenNodesHammerSameKey_thenGlobalLimitHolds() throws Exception {
+        int capacity = 30;
+        // Refills one token every two minutes, nothing refills while the test runs
+        List<ClusterRateLimiter> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new ClusterRateLimiter(name, jdbcTemplate, capacity, 1.0 / 120, properties(1.0 / NODES)));
+        }
+
+        AtomicInteger admitted = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        ExecutorService executor = Executors.newFixedThreadPool(NODES * 2);
+        CountDownLatch done = new CountDownLatch(NODES * 2);
+        for (ClusterRateLimiter node : nodes) {
+            executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    if (node.tryAcquire("203.0.113.9") == RateLimitDecision.ALLOWED) {
+                        admitted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+            executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    node.sync();
+                    sleep(20);
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        // Each node may spend its share of a stale view before its sync reveals the others' hits
+        assertThat(admitted.get()).isBetween(capacity, capacity + capacity * (NODES - 1) / NODES);
+
+        nodes.forEach(ClusterRateLimiter::sync);
+        for (ClusterRateLimiter node : nodes) {
+            assertThat(node.tryAcquire("203.0.113.9")).isEqualTo(RateLimitDecision.REJECTED);
+        }
+        // Whatever slipped through is owed to the bucket
+        assertThat(jdbcTemplate.queryForObject("SELECT tokens FROM rate_limit_buckets WHERE bucket_key = ?",
+                Double.class, bucketKey("203.0.113.9"))).isLessThanOrEqualTo(capacity - admitted.get() + 1.0);
+    }
+
+    @Test
+    @DisplayName("[Cluster-Wide Login Rate Limiting] AC.2: An unreachable database keeps the local limit")
+    // * AC.2: A node that cannot reach the shared counters keeps limiting on its own view and loses no hits.
+    void whenDatabaseUnreachable_thenNodeLimitsLocally() {
+        // Nothing listens on port 1, every sync fails straight away
+        JdbcTemplate unreachable = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:postgresql://127.0.0.1:1/none", "test", "test"));
+        ClusterRateLimiter node = new ClusterRateLimiter(name, unreachable, 10, 1.0 / 120, properties(0.5));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(node.tryAcquire("198.51.100.20")).isEqualTo(RateLimitDecision.ALLOWED);
+        }
+        assertThat(node.tryAcquire("198.51.100.20")).isEqualTo(RateLimitDecision.REJECTED);
+
+        node.sync();
+        assertThat(node.tryAcquire("198.51.100.20")).isEqualTo(RateLimitDecision.REJECTED);
+        assertThat(node.tryAcquire("198.51.100.21")).isEqualTo(RateLimitDecision.ALLOWED);
+    }
+
+    @Test
+    @DisplayName("[Cluster-Wide Login Rate Limiting] AC.3: Refilled buckets are cleaned up")
+    // * AC.3: Buckets that have refilled completely are removed from the shared table.
+    void whenBucketRefilled_thenRowDeleted() {
+        // Refills completely within 5 ms
+        ClusterRateLimiter node = new ClusterRateLimiter(name, jdbcTemplate, 5, 1000, properties(1.0));
+        node.tryAcquire("192.0.2.30");
+        node.sync();
+        assertThat(rows("192.0.2.30")).isEqualTo(1);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            node.cleanup();
+            assertThat(rows("192.0.2.30")).isZero();
+        });
+    }
+
+    @Test
+    @DisplayName("[Cluster-Wide Login Rate Limiting] AC.4: Logins are refused once other nodes drained the bucket")
+    // * AC.4: With rate-limit.cluster.enabled a login is refused with 429 once other nodes have drained the bucket of its IP.
+    void whenOtherNodesDrainedBucket_thenLoginRateLimited() throws Exception {
+        ClusterRateLimiter otherNode = new ClusterRateLimiter("login", jdbcTemplate,
+                AppConstant.LOGIN_RATE_LIMIT_PER_IP,
+                AppConstant.LOGIN_RATE_LIMIT_PER_IP * 1000.0 / AppConstant.LOGIN_RATE_LIMIT_WINDOW_MS,
+                properties(1.0));
+        String ip = "198.51.100." + (40 + (int) (Math.random() * 200));
+        while (otherNode.tryAcquire(ip) == RateLimitDecision.ALLOWED) {
+            // Spends the whole bucket
+        }
+        otherNode.sync();
+
+        // This node only sees the drained bucket once its first hit on the key is synced,
+        // well before its own limit of 10 attempts per minute would apply
+        int attempts = 0;
+        int status;
+        do {
+            Thread.sleep(100);
+            attempts++;
+            // A different account each time, so the account lockout cannot answer first
+            String body = objectMapper.writeValueAsString(
+                    new LoginRequestDto("cluster" + attempts + "@example.com", "wrongPassword"));
+            status = mockMvc.perform(post(LOGIN_URL)
+                            .header("X-Forwarded-For", ip)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andReturn().getResponse().getStatus();
+        } while (status != 429 && attempts < AppConstant.LOGIN_RATE_LIMIT_PER_IP);
+
+        assertThat(status).isEqualTo(429);
+        assertThat(attempts).isLessThan(AppConstant.LOGIN_RATE_LIMIT_PER_IP / 2);
+    }
+
+    @Test
+    @DisplayName("[Cluster-Wide Login Rate Limiting] AC.5: Retry-After follows the refill rate")
+    // * AC.5: A refused attempt is told to retry once the bucket has refilled a token, not after a whole window.
+    void whenBucketDrained_thenRetryAfterOneRefill() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        // Ten tokens refilled over a minute, one every six seconds
+        ClusterRateLimiter node = new ClusterRateLimiter(name, jdbcTemplate, 10, 10 / 60.0, properties(1.0),
+                clock::get);
+        assertThat(node.retryAfterMs("198.51.100.30")).isZero();
+        for (int i = 0; i < 10; i++) {
+            assertThat(node.tryAcquire("198.51.100.30")).isEqualTo(RateLimitDecision.ALLOWED);
+        }
+        node.sync();
+
+        assertThat(node.tryAcquire("198.51.100.30")).isEqualTo(RateLimitDecision.REJECTED);
+        assertThat(node.retryAfterMs("198.51.100.30")).isBetween(5_990L, 6_001L);
+        clock.addAndGet(6_001);
+        assertThat(node.retryAfterMs("198.51.100.30")).isZero();
+        assertThat(node.tryAcquire("198.51.100.30")).isEqualTo(RateLimitDecision.ALLOWED);
+    }
+
+    private ClusterRateLimitProperties properties(double localShare) {
+        ClusterRateLimitProperties properties = new ClusterRateLimitProperties();
+        properties.setEnabled(true);
+        properties.setLocalShare(localShare);
+        return properties;
+    }
+
+    private int rows(String key) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM rate_limit_buckets WHERE bucket_key = ?",
+                Integer.class, bucketKey(key));
+    }
+
+    // Same derivation as ClusterRateLimiter: the first 16 bytes of SHA-256(name:key)
+    private UUID bucketKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((name + ":" + key).getBytes(StandardCharsets.UTF_8));
+            ByteBuffer bytes = ByteBuffer.wrap(digest);
+            return new UUID(bytes.getLong(), bytes.getLong());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *  [USER-STORY] Signing Key Rotation
+ *      **As a** security officer
+ *      **I want** to rotate the token signing key without a restart
+ *      **So that** a key can be replaced routinely, or after a leak, without ending every session
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** Issued tokens name their signing key in the kid header and are accepted while that key is in the key ring.
+ *          * **AC.2:** A new active key written to the key file signs new tokens without a restart, tokens of the previous key stay valid while it is listed.
+ *          * **AC.3:** Tokens of a key removed from the file are rejected with 401 Unauthorized.
+ *
+ */
+package com.pfh.user.functionality.login;
+
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.dto.auth.RegistrationRequestDto;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.repository.UserRepository;
+import com.pfh.user.util.JwtKeyRing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jwt.key-ring.reload-interval-ms=100")
+@AutoConfigureMockMvc
+class JwtKeyRotationTest extends AbstractIntegrationTest {
+
+    private static final String REGISTRATION_ENDPOINT = "/api/auth/register";
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final String LOGINS_URL = "/api/users/me/logins";
+    private static final String PASSWORD = "SecurePassword123!";
+    private static final String FIRST_SECRET = "FirstRotationSecretWhichIsAtLeast32Bytes";
+    private static final String SECOND_SECRET = "SecondRotationSecretWhichIsAtLeast32Bytes";
+    private static final Path KEY_FILE = createKeyFile();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    private String email;
+
+    @DynamicPropertySource
+    static void keyRingProperties(DynamicPropertyRegistry registry) {
+        registry.add("jwt.key-ring.file", KEY_FILE::toString);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository.deleteAll();
+        email = "rotation-" + UUID.randomUUID() + "@example.com";
+        writeKeys("active=k1\nkey.k1=" + FIRST_SECRET + "\n");
+        keyRing.reload();
+        register();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("[Signing Key Rotation] AC.1: A token names its key and is accepted")
+    // * AC.1: Issued tokens name their signing key in the kid header and are accepted while that key is in the key ring.
+    void whenLoggedIn_thenTokenCarriesKid() throws Exception {
+        String token = login();
+
+        assertThat(kid(token)).isEqualTo("k1");
+        recentLogins(token).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("[Signing Key Rotation] AC.2: A new key is picked up without a restart")
+    // * AC.2: A new active key written to the key file signs new tokens without a restart, tokens of the previous key stay valid while it is listed.
+    void whenNewKeyWritten_thenUsedWithoutRestart() throws Exception {
+        String before = login();
+
+        writeKeys("active=k2\nkey.k1=" + FIRST_SECRET + "\nkey.k2=" + SECOND_SECRET + "\n");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(keyRing.signingKey().kid()).isEqualTo("k2"));
+        String after = login();
+        assertThat(kid(after)).isEqualTo("k2");
+        recentLogins(after).andExpect(status().isOk());
+        recentLogins(before).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("[Signing Key Rotation] AC.3: Tokens of a removed key are rejected")
+    // * AC.3: Tokens of a key removed from the file are rejected with 401 Unauthorized.
+    void whenKeyRemoved_thenItsTokensRejected() throws Exception {
+        String token = login();
+
+        writeKeys("active=k2\nkey.k2=" + SECOND_SECRET + "\n");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(keyRing.keyIds()).containsExactly("k2"));
+        recentLogins(token).andExpect(status().isUnauthorized());
+    }
+
+    private void register() throws Exception {
+        RegistrationRequestDto request = RegistrationRequestDto.builder()
+                .email(email)
+                .password(PASSWORD)
+                .confirmPassword(PASSWORD)
+                .build();
+        mockMvc.perform(post(REGISTRATION_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+
+    private String login() throws Exception {
+        LoginRequestDto request = LoginRequestDto.builder().email(email).password(PASSWORD).build();
+        String body = mockMvc.perform(post(LOGIN_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+
+    private ResultActions recentLogins(String token) throws Exception {
+        return mockMvc.perform(get(LOGINS_URL).header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    private String kid(String token) throws Exception {
+        byte[] header = Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.')));
+        return objectMapper.readTree(header).get("kid").asText();
+    }
+
+    private static void writeKeys(String content) throws IOException {
+        Files.writeString(KEY_FILE, content, StandardCharsets.UTF_8);
+    }
+
+    // The key ring reads the file when the context starts, before any test runs
+    private static Path createKeyFile() {
+        try {
+            Path file = Files.createTempFile("jwt-keys", ".properties");
+            file.toFile().deleteOnExit();
+            return Files.writeString(file, "active=k1\nkey.k1=" + FIRST_SECRET + "\n", StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
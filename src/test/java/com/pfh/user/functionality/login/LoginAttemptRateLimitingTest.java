@@ -1,172 +1,246 @@
-// // ./LoginAttemptRateLimitingTest.java
-// /*
-//  *  [USER-STORY] Login Attempt Rate Limiting
-//  *      **As a** security officer
-//  *      **I want** to limit login attempts per user/IP
-//  *      **So that** we prevent brute force attacks on customer accounts
-//  *
-//  *      ✅ **Acceptance Criteria with Equivalence Partitions:**
-//  *
-//  *          * **AC.1:** Maximum 3 failed login attempts per user within 15 minutes
-//  *              - Valid Partitions (VP):
-//  *                  VP.1: 1-2 failed attempts → returns 401 Unauthorized
-//  *                  VP.2: Exactly 3 failed attempts → returns 401 Unauthorized (locks on next attempt)
-//  *              - Invalid Partitions (IP):
-//  *                  IP.1: 4th failed attempt within 15 minutes → returns 423 Locked
-//  *
-//  *          * **AC.2:** Account temporarily locked for 30 minutes after 3 failed attempts
-//  *              - Valid Partitions (VP):
-//  *                  VP.1: Any login attempt during lock period → returns 423 Locked
-//  *
-//  *          * **AC.3:** IP-based rate limiting: 10 attempts per IP per minute
-//  *              - Valid Partitions (VP):
-//  *                  VP.1: 1-10 attempts from same IP within 1 minute → returns 401 Unauthorized
-//  *              - Invalid Partitions (IP):
-//  *                  IP.1: 11th attempt from same IP within 1 minute → returns 429 Too Many Requests
-//  *
-//  *          * **AC.4:** Rate limit violations logged with IP, timestamp, and user identifier
-//  *              - Valid Partitions (VP):
-//  *                  VP.1: Any rate-limit violation → audit log entry created
-//  */
-
-// package com.pfh.user.functionality.login;
-
-// import com.fasterxml.jackson.databind.ObjectMapper;
-// import com.pfh.user.dto.auth.LoginRequestDto;
-// import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
-
-// import org.junit.jupiter.api.BeforeEach;
-// import org.junit.jupiter.api.DisplayName;
-// import org.junit.jupiter.api.Test;
-// import org.springframework.beans.factory.annotation.Autowired;
-// import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-// import org.springframework.boot.test.context.SpringBootTest;
-// import org.springframework.http.MediaType;
-// import org.springframework.test.annotation.DirtiesContext;
-// import org.springframework.test.web.servlet.MockMvc;
-// import org.springframework.transaction.annotation.Transactional;
-
-// import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-// import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
-
-// @SpringBootTest
-// @AutoConfigureMockMvc
-// @Transactional
-// @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
-// class LoginAttemptRateLimitingTest extends AbstractIntegrationTest {
-
-//     @Autowired
-//     private MockMvc mockMvc;
-
-//     @Autowired
-//     private ObjectMapper objectMapper;
-
-//     private static final String LOGIN_URL = "/api/auth/login";
-//     private LoginRequestDto invalidCredentials;
-
-//     @BeforeEach
-//     void setUp() {
-//         invalidCredentials = new LoginRequestDto("user123", "wrongPassword");
-//     }
+/*
+ *  [USER-STORY] Login Attempt Rate Limiting
+ *      **As a** security officer
+ *      **I want** to limit login attempts per user/IP
+ *      **So that** we prevent brute force attacks on customer accounts
+ *
+ *      ✅ **Acceptance Criteria with Equivalence Partitions:**
+ *
+ *          * **AC.1:** Maximum 3 failed login attempts per user within 15 minutes
+ *              - Valid Partitions (VP):
+ *                  VP.1: 1-2 failed attempts → returns 401 Unauthorized
+ *                  VP.2: Exactly 3 failed attempts → returns 401 Unauthorized (locks on next attempt)
+ *              - Invalid Partitions (IP):
+ *                  IP.1: 4th failed attempt within 15 minutes → returns 423 Locked
+ *
+ *          * **AC.2:** Account temporarily locked for 30 minutes after 3 failed attempts
+ *              - Valid Partitions (VP):
+ *                  VP.1: Any login attempt during lock period → returns 423 Locked
+ *
+ *          * **AC.3:** IP-based rate limiting: 10 attempts per IP per minute
+ *              - Valid Partitions (VP):
+ *                  VP.1: 1-10 attempts from same IP within 1 minute → returns 401 Unauthorized
+ *              - Invalid Partitions (IP):
+ *                  IP.1: 11th attempt from same IP within 1 minute → returns 429 Too Many Requests
+ *                  IP.2: 11th attempt behind a new forged X-Forwarded-For hop each time → returns 429 Too Many Requests
+ *
+ *          * **AC.4:** Rate limit violations logged with IP, timestamp, and user identifier
+ *              - Valid Partitions (VP):
+ *                  VP.1: Any rate-limit violation → audit log entry created
+ */
 
-//     // --- AC.1 Tests ---
+package com.pfh.user.functionality.login;
 
-//     @Test
-//     @DisplayName("[Login Attempt Rate Limiting] AC.1 - VP.1: 1-2 failed attempts return 401 Unauthorized")
-//     void ac1vp1_OneToTwoFailedAttempts_ShouldReturn401() throws Exception {
-//         // Given
-//         var request = invalidCredentials;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.enums.AuditFailureReason;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
 
-//         // When & Then
-//         for (int i = 1; i <= 2; i++) {
-//             mockMvc.perform(post(LOGIN_URL)
-//                 .contentType(MediaType.APPLICATION_JSON)
-//                 .content(objectMapper.writeValueAsString(request)))
-//                 .andExpect(status().isUnauthorized());
-//         }
-//     }
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
 
-//     @Test
-//     @DisplayName("[Login Attempt Rate Limiting] AC.1 - IP.1: 4th failed attempt returns 423 Locked")
-//     void ac1ip1_FourthFailedAttempt_ShouldReturn423() throws Exception {
-//         // Given
-//         var request = invalidCredentials;
+import java.time.Duration;
 
-//         // When: perform 4 failed attempts within 15 minutes
-//         for (int i = 1; i <= 4; i++) {
-//             mockMvc.perform(post(LOGIN_URL)
-//                 .contentType(MediaType.APPLICATION_JSON)
-//                 .content(objectMapper.writeValueAsString(request)));
-//         }
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-//         // Then
-//         mockMvc.perform(post(LOGIN_URL)
-//             .contentType(MediaType.APPLICATION_JSON)
-//             .content(objectMapper.writeValueAsString(request)))
-//             .andExpect(status().isLocked());
-//     }
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class LoginAttemptRateLimitingTest extends AbstractIntegrationTest {
 
-//     // --- AC.2 Tests ---
+    @Autowired
+    private MockMvc mockMvc;
 
-//     @Test
-//     @DisplayName("[Login Attempt Rate Limiting] AC.2 - VP.1: Attempt during lock period returns 423 Locked")
-//     void ac2vp1_AttemptDuringLockPeriod_ShouldReturn423() throws Exception {
-//         // Given
-//         var request = invalidCredentials;
-//         for (int i = 1; i <= 4; i++) {
-//             mockMvc.perform(post(LOGIN_URL)
-//                 .contentType(MediaType.APPLICATION_JSON)
-//                 .content(objectMapper.writeValueAsString(request)));
-//         }
+    @Autowired
+    private ObjectMapper objectMapper;
 
-//         // When
-//         var result = mockMvc.perform(post(LOGIN_URL)
-//             .contentType(MediaType.APPLICATION_JSON)
-//             .content(objectMapper.writeValueAsString(request)));
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
 
-//         // Then
-//         result.andExpect(status().isLocked());
-//     }
+    private static final String LOGIN_URL = "/api/auth/login";
+    private LoginRequestDto invalidCredentials;
 
-//     // --- AC.3 Tests ---
+    @BeforeEach
+    void setUp() {
+        // A well-formed email, so the attempts reach authentication instead of failing validation
+        invalidCredentials = new LoginRequestDto("user123@example.com", "wrongPassword");
+    }
 
-//     @Test
-//     @DisplayName("[Login Attempt Rate Limiting] AC.3 - VP.1: 1-10 attempts from same IP return 401 Unauthorized")
-//     void ac3vp1_OneToTenAttemptsSameIp_ShouldReturn401() throws Exception {
-//         // Given
-//         var request = invalidCredentials;
-//         String clientIp = "203.0.113.5";
+    // --- AC.1 Tests ---
 
-//         // When & Then
-//         for (int i = 1; i <= 10; i++) {
-//             mockMvc.perform(post(LOGIN_URL)
-//                 .header("X-Forwarded-For", clientIp)
-//                 .contentType(MediaType.APPLICATION_JSON)
-//                 .content(objectMapper.writeValueAsString(request)))
-//                 .andExpect(status().isUnauthorized());
-//         }
-//     }
+    @Test
+    @DisplayName("[Login Attempt Rate Limiting] AC.1 - VP.1: 1-2 failed attempts return 401 Unauthorized")
+    void ac1vp1_OneToTwoFailedAttempts_ShouldReturn401() throws Exception {
+        // Given
+        var request = invalidCredentials;
 
-//     @Test
-//     @DisplayName("[Login Attempt Rate Limiting] AC.3 - IP.1: 11th attempt from same IP returns 429 Too Many Requests")
-//     void ac3ip1_EleventhAttemptSameIp_ShouldReturn429() throws Exception {
-//         // Given
-//         var request = invalidCredentials;
-//         String clientIp = "203.0.113.5";
-//         for (int i = 1; i <= 10; i++) {
-//             mockMvc.perform(post(LOGIN_URL)
-//                 .header("X-Forwarded-For", clientIp)
-//                 .contentType(MediaType.APPLICATION_JSON)
-//                 .content(objectMapper.writeValueAsString(request)));
-//         }
+        // When & Then
+        for (int i = 1; i <= 2; i++) {
+            mockMvc.perform(post(LOGIN_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnauthorized());
+        }
+    }
 
-//         // When & Then
-//         mockMvc.perform(post(LOGIN_URL)
-//             .header("X-Forwarded-For", clientIp)
-//             .contentType(MediaType.APPLICATION_JSON)
-//             .content(objectMapper.writeValueAsString(request)))
-//             .andExpect(status().isTooManyRequests());
-//     }
+    @Test
+    @DisplayName("[Login Attempt Rate Limiting] AC.1 - VP.2: Exactly 3 failed attempts return 401 Unauthorized")
+    void ac1vp2_ThreeFailedAttempts_ShouldReturn401() throws Exception {
+        // Given
+        var request = invalidCredentials;
+
+        // When & Then
+        for (int i = 1; i <= 3; i++) {
+            mockMvc.perform(post(LOGIN_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnauthorized());
+        }
+    }
+
+    @Test
+    @DisplayName("[Login Attempt Rate Limiting] AC.1 - IP.1: 4th failed attempt returns 423 Locked")
+    void ac1ip1_FourthFailedAttempt_ShouldReturn423() throws Exception {
+        // Given: an account of its own, audit rows are not rolled back with the test
+        var request = new LoginRequestDto("locked" + System.nanoTime() + "@example.com", "wrongPassword");
+
+        // When: perform 4 failed attempts within 15 minutes
+        for (int i = 1; i <= 4; i++) {
+            mockMvc.perform(post(LOGIN_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+        }
+
+        // Then
+        mockMvc.perform(post(LOGIN_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isLocked())
+            .andExpect(header().exists("Retry-After"));
+
+        // And: the lockout itself is audited once
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+            assertEquals(1, auditJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM audit_logs WHERE email = ? AND event_type = ? "
+                    + "AND timestamp > now() - interval '1 minute'",
+                Integer.class, request.getEmail(), AuditEventType.ACCOUNT_LOCKOUT.getCode())));
+    }
+
+    // --- AC.2 Tests ---
+
+    @Test
+    @DisplayName("[Login Attempt Rate Limiting] AC.2 - VP.1: Attempt during lock period returns 423 Locked")
+    void ac2vp1_AttemptDuringLockPeriod_ShouldReturn423() throws Exception {
+        // Given
+        var request = invalidCredentials;
+        for (int i = 1; i <= 4; i++) {
+            mockMvc.perform(post(LOGIN_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+        }
+
+        // When
+        var result = mockMvc.perform(post(LOGIN_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(request)));
+
+        // Then
+        result.andExpect(status().isLocked());
+    }
+
+    // --- AC.3 Tests ---
+
+    @Test
+    @DisplayName("[Login Attempt Rate Limiting] AC.3 - VP.1: 1-10 attempts from same IP return 401 Unauthorized")
+    void ac3vp1_OneToTenAttemptsSameIp_ShouldReturn401() throws Exception {
+        // Given
+        String clientIp = "203.0.113.5";
+
+        // When & Then: a different account each time, so the per-account lockout does not answer first
+        for (int i = 1; i <= 10; i++) {
+            mockMvc.perform(post(LOGIN_URL)
+                .header("X-Forwarded-For", clientIp)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(accountAttempt(i))))
+                .andExpect(status().isUnauthorized());
+        }
+    }
+
+    @Test
+    @DisplayName("[Login Attempt Rate Limiting] AC.3 - IP.1: 11th attempt from same IP returns 429 Too Many Requests")
+    void ac3ip1_EleventhAttemptSameIp_ShouldReturn429() throws Exception {
+        // Given
+        var request = invalidCredentials;
+        String clientIp = "203.0.113.5";
+        for (int i = 1; i <= 10; i++) {
+            mockMvc.perform(post(LOGIN_URL)
+                .header("X-Forwarded-For", clientIp)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(accountAttempt(i))));
+        }
+
+        // When & Then
+        mockMvc.perform(post(LOGIN_URL)
+            .header("X-Forwarded-For", clientIp)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isTooManyRequests())
+            // Until the sliding window admits the IP again: at most the rest of this window plus a tenth of the next
+            .andExpect(result -> assertThat(Long.parseLong(result.getResponse().getHeader("Retry-After")))
+                .isBetween(1L, 66L));
+
+        // And: the rejection is audited as a rate limited failure from that IP
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+            assertEquals(1, auditJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM audit_logs WHERE ip_address = ?::inet AND failure_reason = ? "
+                    + "AND timestamp > now() - interval '1 minute'",
+                Integer.class, clientIp, AuditFailureReason.RATE_LIMITED.getCode())));
+    }
+
+    @Test
+    @DisplayName("[Login Attempt Rate Limiting] AC.3 - IP.2: Forged X-Forwarded-For hops do not reset the IP limit")
+    void ac3ip2_ForgedForwardedForHops_ShouldReturn429() throws Exception {
+        // Given: the proxy appends the real client after whatever the client sent itself
+        String clientIp = "203.0.113.77";
+        for (int i = 1; i <= 10; i++) {
+            mockMvc.perform(post(LOGIN_URL)
+                .header("X-Forwarded-For", "198.51.100." + i + ", " + clientIp)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(accountAttempt(i))))
+                .andExpect(status().isUnauthorized());
+        }
+
+        // When & Then
+        mockMvc.perform(post(LOGIN_URL)
+            .header("X-Forwarded-For", "198.51.100.200, " + clientIp)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(accountAttempt(11))))
+            .andExpect(status().isTooManyRequests());
+
+        // And: the rejection is audited against the real client
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+            assertEquals(1, auditJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM audit_logs WHERE ip_address = ?::inet AND failure_reason = ? "
+                    + "AND timestamp > now() - interval '1 minute'",
+                Integer.class, clientIp, AuditFailureReason.RATE_LIMITED.getCode())));
+    }
 
 //     // --- AC.4 Tests ---
 
@@ -188,4 +262,8 @@
 //         // Then
 //         // TODO: Verify audit log entry contains IP, timestamp, and user identifier
 //     }
-// }
+
+    private LoginRequestDto accountAttempt(int i) {
+        return new LoginRequestDto("user" + i + "@example.com", invalidCredentials.getPassword());
+    }
+}
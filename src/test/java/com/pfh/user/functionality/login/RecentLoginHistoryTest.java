@@ -0,0 +1,172 @@
+/*
+ *  [USER-STORY] Recent Login History
+ *      **As a** registered user
+ *      **I want** to see my last logins with time, IP and device
+ *      **So that** I can spot a login that was not me
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** GET /api/users/me/logins returns the caller's recent successful logins, newest first.
+ *          * **AC.2:** A missing or invalid bearer token returns 401 Unauthorized.
+ *          * **AC.3:** Logins from before the node started are filled in from the audit log on first access.
+ *
+ */
+package com.pfh.user.functionality.login;
+
+import com.pfh.user.audit.AuditIntegrity;
+import com.pfh.user.audit.AuditLogBatchInserter;
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.dto.auth.RegistrationRequestDto;
+import com.pfh.user.entity.AuditLogEntity;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.repository.UserRepository;
+import com.pfh.user.util.TimeOrderedIds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RecentLoginHistoryTest extends AbstractIntegrationTest {
+
+    private static final String REGISTRATION_ENDPOINT = "/api/auth/register";
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final String LOGINS_URL = "/api/users/me/logins";
+    private static final String PASSWORD = "SecurePassword123!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuditLogBatchInserter inserter;
+
+    @Autowired
+    private AuditIntegrity auditIntegrity;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("[Recent Login History] AC.1: Recent logins are returned newest first")
+    // * AC.1: GET /api/users/me/logins returns the caller's recent successful logins, newest first.
+    void whenLoggedInSeveralTimes_thenLoginsNewestFirst() throws Exception {
+        register("history@example.com");
+        login("history@example.com", "agent-1", "198.51.100.1");
+        login("history@example.com", "agent-2", "198.51.100.2");
+        String token = login("history@example.com", "agent-3", "2001:db8::3");
+
+        mockMvc.perform(get(LOGINS_URL).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[0].userAgent").value("agent-3"))
+                .andExpect(jsonPath("$.items[0].ipAddress").value("2001:db8:0:0:0:0:0:3"))
+                .andExpect(jsonPath("$.items[2].userAgent").value("agent-1"))
+                .andExpect(jsonPath("$.items[2].ipAddress").value("198.51.100.1"));
+
+        mockMvc.perform(get(LOGINS_URL).param("limit", "1").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+    }
+
+    @Test
+    @DisplayName("[Recent Login History] AC.2: A missing or invalid token is rejected")
+    // * AC.2: A missing or invalid bearer token returns 401 Unauthorized.
+    void whenTokenMissingOrInvalid_thenUnauthorized() throws Exception {
+        mockMvc.perform(get(LOGINS_URL))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get(LOGINS_URL).header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("[Recent Login History] AC.3: Older logins come from the audit log")
+    // * AC.3: Logins from before the node started are filled in from the audit log on first access.
+    void whenHistoryPredatesCache_thenFilledFromAuditLog() throws Exception {
+        register("returning@example.com");
+        String userId = String.valueOf(userRepository.findByEmailIgnoreCase("returning@example.com")
+                .orElseThrow().getId());
+        Instant yesterday = Instant.now().minus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MICROS);
+        inserter.insert(List.of(
+                storedLogin(userId, "returning@example.com", yesterday, "old-agent-1"),
+                storedLogin(userId, "returning@example.com", yesterday.plusSeconds(60), "old-agent-2")));
+
+        String token = login("returning@example.com", "new-agent", "198.51.100.9");
+
+        mockMvc.perform(get(LOGINS_URL).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[0].userAgent").value("new-agent"))
+                .andExpect(jsonPath("$.items[1].userAgent").value("old-agent-2"))
+                .andExpect(jsonPath("$.items[2].userAgent").value("old-agent-1"));
+    }
+
+    private void register(String email) throws Exception {
+        RegistrationRequestDto request = RegistrationRequestDto.builder()
+                .email(email)
+                .password(PASSWORD)
+                .confirmPassword(PASSWORD)
+                .build();
+        mockMvc.perform(post(REGISTRATION_ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+
+    private String login(String email, String userAgent, String ip) throws Exception {
+        LoginRequestDto request = LoginRequestDto.builder().email(email).password(PASSWORD).build();
+        String body = mockMvc.perform(post(LOGIN_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("User-Agent", userAgent)
+                .header("X-Forwarded-For", ip)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+
+    private AuditLogEntity storedLogin(String userId, String email, Instant at, String userAgent) {
+        AuditLogEntity entry = AuditLogEntity.builder()
+                .eventId(TimeOrderedIds.next(at.toEpochMilli()))
+                .userId(userId)
+                .email(email)
+                .ipAddress("192.0.2.1")
+                .userAgent(userAgent)
+                .timestamp(at)
+                .eventType(AuditEventType.LOGIN_SUCCESS.name())
+                .build();
+        entry.setIntegrityHash(auditIntegrity.leafHash(entry));
+        return entry;
+    }
+}
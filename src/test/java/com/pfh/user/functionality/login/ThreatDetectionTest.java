@@ -0,0 +1,178 @@
+/*
+ *  [USER-STORY] Login Threat Detection Rules
+ *      **As a** security officer
+ *      **I want** declarative windowed rules evaluated over every login outcome as it happens
+ *      **So that** credential stuffing and account takeover patterns are answered while the attack is running
+ *
+ *      ✅ **Acceptance Criteria:**
+ *
+ *          * **AC.1:** An IP failing logins for more distinct emails than a BLOCK rule allows is refused with 403 and a Retry-After header, and the detection is audited.
+ *          * **AC.2:** An account a STEP_UP rule fired for is refused with 401 even with the correct password.
+ *          * **AC.3:** A FLAG rule only audits its detection, the login it fired on succeeds.
+ *
+ */
+package com.pfh.user.functionality.login;
+
+import com.pfh.user.dto.auth.LoginRequestDto;
+import com.pfh.user.dto.auth.RegistrationRequestDto;
+import com.pfh.user.enums.AuditEventType;
+import com.pfh.user.functionality.abstraction.AbstractIntegrationTest;
+import com.pfh.user.repository.UserRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "threat-detection.enabled=true",
+        "threat-detection.rules[0].name=credential-stuffing",
+        "threat-detection.rules[0].events=LOGIN_FAILURE",
+        "threat-detection.rules[0].group-by=IP",
+        "threat-detection.rules[0].aggregate=DISTINCT_EMAILS",
+        "threat-detection.rules[0].threshold=6",
+        "threat-detection.rules[0].action=BLOCK",
+        "threat-detection.rules[1].name=success-after-failures",
+        "threat-detection.rules[1].events=LOGIN_FAILURE",
+        "threat-detection.rules[1].trigger=LOGIN_SUCCESS",
+        "threat-detection.rules[1].group-by=EMAIL",
+        "threat-detection.rules[1].threshold=2",
+        "threat-detection.rules[1].action=FLAG",
+        "threat-detection.rules[2].name=distributed-guessing",
+        "threat-detection.rules[2].events=LOGIN_FAILURE",
+        "threat-detection.rules[2].group-by=EMAIL",
+        "threat-detection.rules[2].aggregate=DISTINCT_IPS",
+        "threat-detection.rules[2].threshold=2",
+        "threat-detection.rules[2].action=STEP_UP"
+})
+@AutoConfigureMockMvc
+class ThreatDetectionTest extends AbstractIntegrationTest {
+
+    private static final String REGISTRATION_ENDPOINT = "/api/auth/register";
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final String PASSWORD = "SecurePassword123!";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    @Qualifier("auditJdbcTemplate")
+    private JdbcTemplate auditJdbcTemplate;
+
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        // Rule state and audit rows outlive the test, every test uses accounts and IPs of its own
+        email = "threat-" + UUID.randomUUID() + "@example.com";
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("[Login Threat Detection Rules] AC.1: Credential stuffing from one IP is blocked and audited")
+    // * AC.1: An IP failing logins for more distinct emails than a BLOCK rule allows is refused with 403 and a Retry-After header, and the detection is audited.
+    void whenManyEmailsFailFromOneIp_thenIpBlocked() throws Exception {
+        String ip = randomIp();
+        for (int i = 0; i < 6; i++) {
+            login("stuffed-" + i + "-" + email, "wrongPassword", ip).andExpect(status().isUnauthorized());
+        }
+
+        login(email, "wrongPassword", ip)
+                .andExpect(status().isForbidden())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.errors[0].field").value("threat"));
+        // Another IP is not affected
+        login(email, "wrongPassword", randomIp()).andExpect(status().isUnauthorized());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(auditJdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM audit_logs WHERE ip_address = ?::inet AND event_type = ? "
+                                + "AND trigger_event = 'credential-stuffing:block' "
+                                + "AND timestamp > now() - interval '1 minute'",
+                        Integer.class, ip, AuditEventType.THREAT_DETECTED.getCode())).isEqualTo(1));
+    }
+
+    @Test
+    @DisplayName("[Login Threat Detection Rules] AC.2: A high-risk login needs more than the password")
+    // * AC.2: An account a STEP_UP rule fired for is refused with 401 even with the correct password.
+    void whenAccountGuessedFromSeveralIps_thenStepUpRequired() throws Exception {
+        register();
+        login(email, "wrongPassword", randomIp()).andExpect(status().isUnauthorized());
+        login(email, "wrongPassword", randomIp()).andExpect(status().isUnauthorized());
+
+        login(email, PASSWORD, randomIp())
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.errors[0].field").value("stepUp"));
+    }
+
+    @Test
+    @DisplayName("[Login Threat Detection Rules] AC.3: A flagged login succeeds and is audited")
+    // * AC.3: A FLAG rule only audits its detection, the login it fired on succeeds.
+    void whenSuccessFollowsFailures_thenLoginFlagged() throws Exception {
+        register();
+        String ip = randomIp();
+        login(email, "wrongPassword", ip).andExpect(status().isUnauthorized());
+        login(email, "wrongPassword", ip).andExpect(status().isUnauthorized());
+
+        login(email, PASSWORD, ip).andExpect(status().isOk());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(auditJdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM audit_logs WHERE email = ? AND event_type = ? "
+                                + "AND trigger_event = 'success-after-failures:flag'",
+                        Integer.class, email, AuditEventType.THREAT_DETECTED.getCode())).isEqualTo(1));
+    }
+
+    private void register() throws Exception {
+        RegistrationRequestDto request = RegistrationRequestDto.builder()
+                .email(email)
+                .password(PASSWORD)
+                .confirmPassword(PASSWORD)
+                .build();
+        mockMvc.perform(post(REGISTRATION_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+
+    private ResultActions login(String email, String password, String ip) throws Exception {
+        return mockMvc.perform(post(LOGIN_URL)
+                .header("X-Forwarded-For", ip)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequestDto(email, password))));
+    }
+
+    private static String randomIp() {
+        return "198.18." + (int) (Math.random() * 256) + "." + (1 + (int) (Math.random() * 254));
+    }
+}